@@ -16,6 +16,7 @@
 
 package io.xianzhi.code.bootstrap.authenticator;
 
+import io.xianzhi.code.bootstrap.businsess.SecretKeyBusiness;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.sshd.common.AttributeRepository;
@@ -25,11 +26,17 @@ import org.apache.sshd.server.auth.AsyncAuthException;
 import org.apache.sshd.server.auth.pubkey.PublickeyAuthenticator;
 import org.apache.sshd.server.session.ServerSession;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import java.security.PublicKey;
+import java.util.Optional;
 
 /**
  * 公钥认证
+ * <p>
+ * 通过内存中的公钥指纹索引完成认证，认证过程不访问数据库。认证成功后把秘钥ID和秘钥所属用户写入会话，
+ * 后续 git 命令据此做权限检查和按用户限流。
+ * </p>
  *
  * @author Max
  * @since 1.0.0
@@ -42,11 +49,19 @@ public class XianZhiPublicKeyAuthenticator implements PublickeyAuthenticator {
     /**
      * 秘钥ID Session key
      */
-    protected static final AttributeRepository.AttributeKey<String> SECRET_KEY = new AttributeRepository.AttributeKey<>();
+    public static final AttributeRepository.AttributeKey<String> SECRET_KEY = new AttributeRepository.AttributeKey<>();
+    /**
+     * 秘钥所属用户ID Session key
+     */
+    public static final AttributeRepository.AttributeKey<String> SECRET_KEY_OWNER = new AttributeRepository.AttributeKey<>();
+    /**
+     * 部署秘钥所属项目ID Session key，个人秘钥没有该属性
+     */
+    public static final AttributeRepository.AttributeKey<String> SECRET_KEY_PROJECT = new AttributeRepository.AttributeKey<>();
     /**
      * 秘钥业务类
      */
-//    private final SecretKeyBusiness secretKeyBusiness;
+    private final SecretKeyBusiness secretKeyBusiness;
 
     /**
      * Check the validity of a public key.
@@ -62,9 +77,31 @@ public class XianZhiPublicKeyAuthenticator implements PublickeyAuthenticator {
         // 获取公钥指纹
         String digest = KeyUtils.getFingerPrint(BuiltinDigests.sha256, key);
         // 根据公钥指纹查询出秘钥ID
-//        String secretKeyId = secretKeyBusiness.getSecretKeyByFingerprint(digest);
+        Optional<SecretKeyBusiness.SecretKeyInfo> secretKey = secretKeyBusiness.getSecretKeyByFingerprint(digest);
+        if (secretKey.isEmpty()) {
+            log.debug("未知的公钥, username: {}, fingerprint: {}", username, digest);
+            return false;
+        }
         // 设置秘钥ID到session中，后续可以根据秘钥ID检查权限
-//        session.setAttribute(SECRET_KEY, secretKeyId);
+        session.setAttribute(SECRET_KEY, secretKey.get().getId());
+        session.setAttribute(SECRET_KEY_OWNER, secretKey.get().getUserId());
+        // 同一会话中可能先尝试过其他秘钥，个人秘钥要清掉之前写入的部署项目
+        if (StringUtils.hasText(secretKey.get().getProjectId())) {
+            session.setAttribute(SECRET_KEY_PROJECT, secretKey.get().getProjectId());
+        } else {
+            session.removeAttribute(SECRET_KEY_PROJECT);
+        }
         return true;
     }
+
+    /**
+     * 获取会话对应的用户，SSH 用户名统一为 git，这里优先使用秘钥所属用户
+     *
+     * @param session 会话
+     * @return 用户
+     */
+    public static String getOwner(ServerSession session) {
+        String owner = session.getAttribute(SECRET_KEY_OWNER);
+        return owner != null ? owner : session.getUsername();
+    }
 }
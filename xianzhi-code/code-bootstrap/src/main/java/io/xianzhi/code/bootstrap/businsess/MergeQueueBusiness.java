@@ -0,0 +1,1053 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.businsess;
+
+import io.xianzhi.code.bootstrap.dao.dataobj.ProjectDO;
+import io.xianzhi.code.bootstrap.dao.dataobj.PullRequestDO;
+import io.xianzhi.code.bootstrap.dao.mapper.ProjectMapper;
+import io.xianzhi.code.bootstrap.dao.mapper.PullRequestMapper;
+import io.xianzhi.code.bootstrap.maintenance.CommitIndexer;
+import io.xianzhi.code.bootstrap.maintenance.MergeabilityChecker;
+import io.xianzhi.code.bootstrap.maintenance.RepositoryMaintenanceScheduler;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.RefAdvertisementCache;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
+import io.xianzhi.code.bootstrap.service.PipelineService;
+import io.xianzhi.code.model.code.PullRequestCode;
+import io.xianzhi.code.model.enums.MergeQueueRejectReasonEnum;
+import io.xianzhi.code.model.enums.MergeStatusEnum;
+import io.xianzhi.code.model.enums.PullRequestStatusEnum;
+import io.xianzhi.code.model.event.PipelineFinishedEvent;
+import io.xianzhi.code.model.vo.MergeQueueEntryVO;
+import io.xianzhi.code.model.vo.MergeQueueStatsVO;
+import io.xianzhi.core.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.lib.BatchRefUpdate;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.merge.MergeStrategy;
+import org.eclipse.jgit.merge.ResolveMerger;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.ReceiveCommand;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 合并队列业务类
+ * <p>
+ * 每个目标分支一条队列。空闲时取出队首最多 maxBatchSize 个合并请求组成批次，在目标分支上依次做内存合并，
+ * 生成一串预合并提交(第 i 个提交包含前 i 个合并请求)，冲突或源分支不存在的合并请求直接移出队列，移出原因记录在合并请求上。
+ * 在批次最后一个提交上运行流水线，成功后把目标分支原子地快进到该提交；失败时在前一半的预合并提交上重新运行，
+ * 前一半成功就先合并前一半，剩余的回到队首重新组批，直到定位出单个失败的合并请求并移出队列。
+ * 目标分支在验证期间被直接推送时快进失败，整个批次回到队首在新的分支上重新构建。
+ * 预合并提交通过 {@value #R_MERGE_QUEUE}&lt;分支&gt; 引用提供给流水线拉取，合并后随目标分支一起原子删除。
+ * 队列只保存在内存中，重启后需要重新加入。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MergeQueueBusiness implements InitializingBean, DisposableBean {
+
+    /**
+     * 预合并提交引用的前缀
+     */
+    public static final String R_MERGE_QUEUE = Constants.R_REFS + "merge-queue/";
+
+    /**
+     * 预合并提交的提交人名称
+     */
+    private static final String COMMITTER_NAME = "XianZhi";
+
+    /**
+     * 预合并提交的提交人邮箱
+     */
+    private static final String COMMITTER_EMAIL = "noreply@xianzhi.io";
+
+    /**
+     * 吞吐量统计窗口
+     */
+    private static final long WINDOW_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 项目持久层
+     */
+    private final ProjectMapper projectMapper;
+
+    /**
+     * 合并请求持久层
+     */
+    private final PullRequestMapper pullRequestMapper;
+
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+
+    /**
+     * 引用广播缓存
+     */
+    private final RefAdvertisementCache refAdvertisementCache;
+
+    /**
+     * 仓库后台维护
+     */
+    private final RepositoryMaintenanceScheduler repositoryMaintenanceScheduler;
+
+    /**
+     * 提交索引
+     */
+    private final CommitIndexer commitIndexer;
+
+    /**
+     * 合并请求冲突检查
+     */
+    private final MergeabilityChecker mergeabilityChecker;
+
+    /**
+     * 流水线接口
+     */
+    private final PipelineService pipelineService;
+
+    /**
+     * 项目ID和目标分支 -> 队列
+     */
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * 流水线ID -> 等待该流水线结果的队列
+     */
+    private final Map<String, Lane> pipelines = new ConcurrentHashMap<>();
+
+    /**
+     * 最近一小时合并的 [合并时间, 排队耗时]，访问时需要同步
+     */
+    private final Deque<long[]> recentMerges = new ArrayDeque<>();
+
+    /**
+     * 批次序号
+     */
+    private final AtomicLong batchSequence = new AtomicLong();
+
+    /**
+     * 累计合并的合并请求数量
+     */
+    private final LongAdder merged = new LongAdder();
+
+    /**
+     * 构建的批次数量
+     */
+    private final LongAdder batches = new LongAdder();
+
+    /**
+     * 二分次数
+     */
+    private final LongAdder bisections = new LongAdder();
+
+    /**
+     * 目标分支被更新而重新构建批次的次数
+     */
+    private final LongAdder rebuilds = new LongAdder();
+
+    /**
+     * 因冲突移出队列的数量
+     */
+    private final LongAdder conflicts = new LongAdder();
+
+    /**
+     * 因源分支或目标分支不存在移出队列的数量
+     */
+    private final LongAdder branchMissing = new LongAdder();
+
+    /**
+     * 因流水线失败移出队列的数量
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 流水线超时次数
+     */
+    private final LongAdder pipelineTimeouts = new LongAdder();
+
+    /**
+     * 出错次数
+     */
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * 批次线程池
+     */
+    private ScheduledThreadPoolExecutor executor;
+
+    /**
+     * 把合并请求加入目标分支的队列
+     *
+     * @param pullRequestDO 合并请求
+     * @throws BusinessException 如果已经在队列中
+     */
+    public void enqueue(PullRequestDO pullRequestDO) {
+        Lane lane = lanes.computeIfAbsent(laneKey(pullRequestDO.getProjectId(), pullRequestDO.getTargetBranch()),
+                key -> new Lane(pullRequestDO.getProjectId(), pullRequestDO.getTargetBranch()));
+        synchronized (lane) {
+            if (lane.find(pullRequestDO.getId()) != null) {
+                throw new BusinessException(PullRequestCode.PULL_REQUEST_QUEUED);
+            }
+            String sourceProjectId = StringUtils.hasText(pullRequestDO.getSourceProjectId()) ? pullRequestDO.getSourceProjectId() : pullRequestDO.getProjectId();
+            lane.waiting.addLast(new Entry(pullRequestDO.getId(), sourceProjectId, pullRequestDO.getSourceBranch(),
+                    pullRequestDO.getTitle(), System.currentTimeMillis()));
+        }
+        if (StringUtils.hasText(pullRequestDO.getQueueRejectReason())) {
+            pullRequestMapper.updateQueueRejectionById(pullRequestDO.getId(), null, null, null);
+        }
+        schedule(lane, 0);
+    }
+
+    /**
+     * 把等待中的合并请求移出队列
+     *
+     * @param pullRequestId 合并请求ID
+     * @throws BusinessException 如果不在队列中或者正在验证
+     */
+    public void dequeue(String pullRequestId) {
+        for (Lane lane : lanes.values()) {
+            synchronized (lane) {
+                if (lane.batch != null && lane.batch.contains(pullRequestId)) {
+                    throw new BusinessException(PullRequestCode.PULL_REQUEST_MERGING);
+                }
+                if (lane.waiting.removeIf(entry -> entry.pullRequestId.equals(pullRequestId))) {
+                    return;
+                }
+            }
+        }
+        throw new BusinessException(PullRequestCode.PULL_REQUEST_NOT_QUEUED);
+    }
+
+    /**
+     * 查询目标分支的队列，正在验证的批次排在最前
+     *
+     * @param projectId    项目ID
+     * @param targetBranch 目标分支
+     * @return 队列条目
+     */
+    public List<MergeQueueEntryVO> list(String projectId, String targetBranch) {
+        Lane lane = lanes.get(laneKey(projectId, targetBranch));
+        List<MergeQueueEntryVO> list = new ArrayList<>();
+        if (lane == null) {
+            return list;
+        }
+        synchronized (lane) {
+            Batch batch = lane.batch;
+            if (batch != null) {
+                List<Entry> entries = batch.entries;
+                for (int i = 0; i < entries.size(); i++) {
+                    MergeQueueEntryVO mergeQueueEntryVO = toVO(entries.get(i), list.size(), true);
+                    // 二分时只有前 testing 个合并请求在当前流水线的验证范围内
+                    if (batch.pipelineId != null && i < batch.testing) {
+                        mergeQueueEntryVO.setPipelineId(batch.pipelineId);
+                        mergeQueueEntryVO.setRefName(batch.refName);
+                        mergeQueueEntryVO.setCommitId(batch.heads.get(batch.testing - 1).name());
+                    }
+                    list.add(mergeQueueEntryVO);
+                }
+            }
+            for (Entry entry : lane.waiting) {
+                list.add(toVO(entry, list.size(), false));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 流水线结束后继续处理等待该结果的批次
+     *
+     * @param event 流水线结束事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPipelineFinished(PipelineFinishedEvent event) {
+        Lane lane = event.getPipelineId() == null ? null : pipelines.remove(event.getPipelineId());
+        if (lane == null) {
+            return;
+        }
+        execute(() -> onResult(lane, event.getPipelineId(), Boolean.TRUE.equals(event.getSuccess())));
+    }
+
+    /**
+     * 查询合并队列统计信息
+     *
+     * @return 统计信息
+     */
+    public MergeQueueStatsVO stats() {
+        int activeLanes = 0;
+        int waiting = 0;
+        int testing = 0;
+        for (Lane lane : lanes.values()) {
+            synchronized (lane) {
+                if (lane.batch == null && lane.waiting.isEmpty()) {
+                    continue;
+                }
+                activeLanes++;
+                waiting += lane.waiting.size();
+                testing += lane.batch == null ? 0 : lane.batch.entries.size();
+            }
+        }
+        MergeQueueStatsVO stats = new MergeQueueStatsVO();
+        stats.setLanes(activeLanes);
+        stats.setWaiting(waiting);
+        stats.setTesting(testing);
+        stats.setMerged(merged.sum());
+        synchronized (recentMerges) {
+            prune(System.currentTimeMillis());
+            long total = 0;
+            long max = 0;
+            for (long[] recent : recentMerges) {
+                total += recent[1];
+                max = Math.max(max, recent[1]);
+            }
+            stats.setMergedLastHour(recentMerges.size());
+            stats.setAvgLatencyMillis(recentMerges.isEmpty() ? 0 : total / recentMerges.size());
+            stats.setMaxLatencyMillis(max);
+        }
+        stats.setBatches(batches.sum());
+        stats.setBisections(bisections.sum());
+        stats.setRebuilds(rebuilds.sum());
+        stats.setConflicts(conflicts.sum());
+        stats.setBranchMissing(branchMissing.sum());
+        stats.setRejected(rejected.sum());
+        stats.setPipelineTimeouts(pipelineTimeouts.sum());
+        stats.setFailed(failed.sum());
+        return stats;
+    }
+
+    /**
+     * 初始化批次线程池
+     */
+    @Override
+    public void afterPropertiesSet() {
+        AtomicInteger sequence = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(Math.max(1, codeServerProperties.getMergeQueue().getThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "merge-queue-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 停止处理，正在验证的批次不会合并
+     */
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 空闲时取出队首的合并请求组成批次并开始验证
+     *
+     * @param lane 队列
+     */
+    private void startBatch(Lane lane) {
+        Batch batch;
+        synchronized (lane) {
+            if (lane.batch != null || lane.waiting.isEmpty()) {
+                return;
+            }
+            int size = Math.min(Math.max(1, codeServerProperties.getMergeQueue().getMaxBatchSize()), lane.waiting.size());
+            List<Entry> entries = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                entries.add(lane.waiting.pollFirst());
+            }
+            batch = new Batch(batchSequence.incrementAndGet(), entries);
+            lane.batch = batch;
+        }
+        batches.increment();
+        List<Rejection> rejections;
+        try {
+            rejections = build(lane, batch);
+        } catch (Exception e) {
+            failed.increment();
+            log.error("构建合并批次失败: {}/{}", lane.projectId, lane.targetBranch, e);
+            retry(lane, batch);
+            return;
+        }
+        for (Rejection rejection : rejections) {
+            reject(rejection);
+        }
+        if (batch.entries.isEmpty()) {
+            release(lane, batch, 0);
+            return;
+        }
+        test(lane, batch, batch.entries.size());
+    }
+
+    /**
+     * 在目标分支上依次内存合并批次中的合并请求，生成预合并提交，冲突和源分支不可用的合并请求从批次中去掉
+     *
+     * @param lane  队列
+     * @param batch 批次
+     * @return 去掉的合并请求
+     * @throws IOException 如果读写仓库失败
+     */
+    private List<Rejection> build(Lane lane, Batch batch) throws IOException {
+        List<Rejection> rejections = new ArrayList<>();
+        File gitDir = locate(lane.projectId);
+        if (gitDir == null) {
+            log.warn("目标项目已不存在, 清空合并队列: {}", lane.projectId);
+            batch.entries.forEach(entry -> rejections.add(Rejection.missing(entry, MergeQueueRejectReasonEnum.TARGET_MISSING, "目标项目不存在")));
+            batch.entries = List.of();
+            return rejections;
+        }
+        List<Entry> entries = new ArrayList<>();
+        List<ObjectId> heads = new ArrayList<>();
+        try (RepositoryLockManager.Hold ignored = repositoryLockManager.shared(gitDir);
+             Repository repository = repositoryPool.acquire(gitDir);
+             ObjectInserter inserter = repository.newObjectInserter();
+             ObjectReader reader = inserter.newReader();
+             RevWalk revWalk = new RevWalk(reader)) {
+            Ref targetRef = repository.exactRef(Constants.R_HEADS + lane.targetBranch);
+            if (targetRef == null || targetRef.getObjectId() == null) {
+                log.warn("目标分支已不存在, 清空批次: {}/{}", lane.projectId, lane.targetBranch);
+                batch.entries.forEach(entry -> rejections.add(Rejection.missing(entry, MergeQueueRejectReasonEnum.TARGET_MISSING, "目标分支不存在")));
+                batch.entries = List.of();
+                return rejections;
+            }
+            ObjectId tip = targetRef.getObjectId();
+            batch.base = tip.copy();
+            PersonIdent ident = new PersonIdent(COMMITTER_NAME, COMMITTER_EMAIL);
+            for (Entry entry : batch.entries) {
+                ObjectId source = sourceTip(lane, repository, entry);
+                if (source == null) {
+                    rejections.add(Rejection.missing(entry, MergeQueueRejectReasonEnum.SOURCE_MISSING, "源分支不存在"));
+                    continue;
+                }
+                if (!reader.has(source)) {
+                    // fork 项目的新提交还没有迁移到对象池
+                    rejections.add(Rejection.missing(entry, MergeQueueRejectReasonEnum.SOURCE_MISSING, "源提交尚未同步到目标仓库: " + source.name()));
+                    continue;
+                }
+                RevCommit tipCommit = revWalk.parseCommit(tip);
+                RevCommit sourceCommit = revWalk.parseCommit(source);
+                if (revWalk.isMergedInto(sourceCommit, tipCommit)) {
+                    entries.add(entry);
+                    heads.add(tip);
+                    continue;
+                }
+                ResolveMerger merger = (ResolveMerger) MergeStrategy.RECURSIVE.newMerger(inserter, repository.getConfig());
+                if (!merger.merge(tipCommit, sourceCommit)) {
+                    rejections.add(new Rejection(entry, MergeQueueRejectReasonEnum.CONFLICT, source.copy(), tip.copy(),
+                            String.join("\n", new TreeSet<>(merger.getUnmergedPaths()))));
+                    continue;
+                }
+                CommitBuilder commit = new CommitBuilder();
+                commit.setTreeId(merger.getResultTreeId());
+                commit.setParentIds(tipCommit, sourceCommit);
+                commit.setAuthor(ident);
+                commit.setCommitter(ident);
+                commit.setMessage("Merge pull request " + entry.pullRequestId + " from " + entry.sourceBranch + " into " + lane.targetBranch
+                        + (StringUtils.hasText(entry.title) ? "\n\n" + entry.title : "") + "\n");
+                tip = inserter.insert(commit);
+                entries.add(entry);
+                heads.add(tip);
+            }
+            inserter.flush();
+        }
+        batch.entries = entries;
+        batch.heads = heads;
+        return rejections;
+    }
+
+    /**
+     * 在批次前 count 个合并请求的预合并提交上运行流水线，不运行流水线时直接合并
+     *
+     * @param lane  队列
+     * @param batch 批次
+     * @param count 验证的合并请求数量
+     */
+    private void test(Lane lane, Batch batch, int count) {
+        batch.pipelineId = null;
+        batch.testing = count;
+        if (!Boolean.TRUE.equals(codeServerProperties.getMergeQueue().getRunPipeline())) {
+            merge(lane, batch);
+            return;
+        }
+        ObjectId head = batch.heads.get(count - 1);
+        String refName = R_MERGE_QUEUE + lane.targetBranch;
+        try {
+            publish(lane, refName, head);
+        } catch (Exception e) {
+            failed.increment();
+            log.error("发布合并批次预合并提交失败: {}/{}", lane.projectId, lane.targetBranch, e);
+            retry(lane, batch);
+            return;
+        }
+        // 先登记再触发，回调可能在触发事件发布的过程中就到达
+        String pipelineId = pipelineService.newPipelineId();
+        batch.refName = refName;
+        batch.pipelineId = pipelineId;
+        long timeout = codeServerProperties.getMergeQueue().getPipelineTimeout().toMillis();
+        batch.timeout = executor.schedule(() -> {
+            if (pipelines.remove(pipelineId, lane)) {
+                pipelineTimeouts.increment();
+                log.warn("合并批次流水线超时: {}, {}/{}", pipelineId, lane.projectId, lane.targetBranch);
+                onResult(lane, pipelineId, false);
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+        pipelines.put(pipelineId, lane);
+        try {
+            pipelineService.triggerPipeline(pipelineId, lane.projectId, refName, head.name());
+        } catch (Exception e) {
+            if (!pipelines.remove(pipelineId, lane)) {
+                // 结果已经到达并由回调处理
+                return;
+            }
+            batch.timeout.cancel(false);
+            batch.pipelineId = null;
+            failed.increment();
+            log.error("触发合并批次流水线失败: {}/{}", lane.projectId, lane.targetBranch, e);
+            retry(lane, batch);
+        }
+    }
+
+    /**
+     * 处理流水线结果，失败时二分
+     *
+     * @param lane       队列
+     * @param pipelineId 流水线ID
+     * @param success    是否成功
+     */
+    private void onResult(Lane lane, String pipelineId, boolean success) {
+        Batch batch;
+        synchronized (lane) {
+            batch = lane.batch;
+        }
+        if (batch == null || !pipelineId.equals(batch.pipelineId)) {
+            return;
+        }
+        if (batch.timeout != null) {
+            batch.timeout.cancel(false);
+        }
+        if (success) {
+            merge(lane, batch);
+            return;
+        }
+        if (batch.testing == 1) {
+            Entry entry = batch.entries.get(0);
+            rejected.increment();
+            log.info("合并请求流水线失败, 移出合并队列: {}", entry.pullRequestId);
+            pullRequestMapper.updateQueueRejectionById(entry.pullRequestId, MergeQueueRejectReasonEnum.PIPELINE_FAILED.getCode(), pipelineId, LocalDateTime.now());
+            release(lane, batch, 1);
+            return;
+        }
+        bisections.increment();
+        test(lane, batch, (batch.testing + 1) / 2);
+    }
+
+    /**
+     * 把目标分支快进到验证通过的预合并提交，目标分支已经被更新时重新构建
+     *
+     * @param lane  队列
+     * @param batch 批次
+     */
+    private void merge(Lane lane, Batch batch) {
+        int count = batch.testing;
+        boolean forwarded;
+        try {
+            forwarded = fastForward(lane, batch.base, batch.heads.get(count - 1));
+        } catch (Exception e) {
+            failed.increment();
+            log.error("合并批次失败: {}/{}", lane.projectId, lane.targetBranch, e);
+            retry(lane, batch);
+            return;
+        }
+        if (!forwarded) {
+            rebuilds.increment();
+            release(lane, batch, 0);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Entry entry : batch.entries.subList(0, count)) {
+            pullRequestMapper.updateStatusById(entry.pullRequestId, PullRequestStatusEnum.MERGED.getCode());
+            merged.increment();
+            synchronized (recentMerges) {
+                recentMerges.addLast(new long[]{now, now - entry.enqueuedAt});
+                prune(now);
+            }
+        }
+        log.info("合并批次 {} 合并完成: {}/{}, 合并请求数量: {}", batch.id, lane.projectId, lane.targetBranch, count);
+        release(lane, batch, count);
+    }
+
+    /**
+     * 原子地把目标分支从合并基准快进到预合并提交，同时删除预合并提交引用
+     *
+     * @param lane 队列
+     * @param base 构建批次时的目标分支提交
+     * @param head 预合并提交
+     * @return 目标分支已经被更新时返回 false
+     * @throws IOException 如果更新引用失败
+     */
+    private boolean fastForward(Lane lane, ObjectId base, ObjectId head) throws IOException {
+        File gitDir = locate(lane.projectId);
+        if (gitDir == null) {
+            throw new IOException("目标项目已不存在: " + lane.projectId);
+        }
+        String targetRef = Constants.R_HEADS + lane.targetBranch;
+        String queueRef = R_MERGE_QUEUE + lane.targetBranch;
+        ReceiveCommand command = new ReceiveCommand(base, head, targetRef);
+        try (RepositoryLockManager.Hold ignored = repositoryLockManager.shared(gitDir);
+             Repository repository = repositoryPool.acquire(gitDir);
+             RepositoryLockManager.Hold refs = repositoryLockManager.lockRefs(gitDir, List.of(targetRef, queueRef));
+             RevWalk revWalk = new RevWalk(repository)) {
+            BatchRefUpdate batchRefUpdate = repository.getRefDatabase().newBatchUpdate();
+            batchRefUpdate.setAtomic(true);
+            batchRefUpdate.setRefLogIdent(new PersonIdent(COMMITTER_NAME, COMMITTER_EMAIL));
+            batchRefUpdate.setRefLogMessage("merge queue", false);
+            batchRefUpdate.addCommand(command);
+            Ref queue = repository.exactRef(queueRef);
+            if (queue != null && queue.getObjectId() != null) {
+                batchRefUpdate.addCommand(new ReceiveCommand(queue.getObjectId(), ObjectId.zeroId(), queueRef));
+            }
+            batchRefUpdate.execute(revWalk, NullProgressMonitor.INSTANCE);
+        }
+        if (command.getResult() != ReceiveCommand.Result.OK) {
+            log.info("目标分支已被更新, 重新构建合并批次: {}/{}, {}", lane.projectId, lane.targetBranch, command.getResult());
+            return false;
+        }
+        // 与推送后的处理一致
+        refAdvertisementCache.invalidate(gitDir);
+        repositoryMaintenanceScheduler.recordPush(gitDir);
+        commitIndexer.submit(gitDir, lane.projectId);
+        mergeabilityChecker.submit(lane.projectId, List.of(lane.targetBranch));
+        return true;
+    }
+
+    /**
+     * 把预合并提交引用指向待验证的提交，供流水线拉取
+     *
+     * @param lane    队列
+     * @param refName 预合并提交引用
+     * @param head    待验证的提交
+     * @throws IOException 如果更新引用失败
+     */
+    private void publish(Lane lane, String refName, ObjectId head) throws IOException {
+        File gitDir = locate(lane.projectId);
+        if (gitDir == null) {
+            throw new IOException("目标项目已不存在: " + lane.projectId);
+        }
+        try (RepositoryLockManager.Hold ignored = repositoryLockManager.shared(gitDir);
+             Repository repository = repositoryPool.acquire(gitDir);
+             RepositoryLockManager.Hold refs = repositoryLockManager.lockRefs(gitDir, List.of(refName))) {
+            RefUpdate refUpdate = repository.updateRef(refName);
+            refUpdate.setNewObjectId(head);
+            refUpdate.setForceUpdate(true);
+            refUpdate.setRefLogIdent(new PersonIdent(COMMITTER_NAME, COMMITTER_EMAIL));
+            refUpdate.setRefLogMessage("merge queue", false);
+            RefUpdate.Result result = refUpdate.update();
+            if (result != RefUpdate.Result.NEW && result != RefUpdate.Result.FORCED
+                    && result != RefUpdate.Result.FAST_FORWARD && result != RefUpdate.Result.NO_CHANGE) {
+                throw new IOException("更新预合并提交引用失败: " + refName + ", " + result);
+            }
+        }
+        refAdvertisementCache.invalidate(gitDir);
+    }
+
+    /**
+     * 读取合并请求的源分支，fork 项目在源仓库中读取
+     *
+     * @param lane       队列
+     * @param repository 目标仓库
+     * @param entry      队列条目
+     * @return 源提交，源分支不存在时返回 null
+     * @throws IOException 如果读取引用失败
+     */
+    private ObjectId sourceTip(Lane lane, Repository repository, Entry entry) throws IOException {
+        if (!StringUtils.hasText(entry.sourceBranch)) {
+            return null;
+        }
+        String refName = Constants.R_HEADS + entry.sourceBranch;
+        if (lane.projectId.equals(entry.sourceProjectId)) {
+            Ref ref = repository.exactRef(refName);
+            return ref == null ? null : ref.getObjectId();
+        }
+        File sourceDir = locate(entry.sourceProjectId);
+        if (sourceDir == null) {
+            return null;
+        }
+        try (RepositoryLockManager.Hold ignored = repositoryLockManager.shared(sourceDir);
+             Repository source = repositoryPool.acquire(sourceDir)) {
+            Ref ref = source.exactRef(refName);
+            return ref == null ? null : ref.getObjectId();
+        }
+    }
+
+    /**
+     * 移出无法合并的合并请求并记录原因，冲突时同时更新冲突文件
+     *
+     * @param rejection 无法合并的合并请求
+     */
+    private void reject(Rejection rejection) {
+        String pullRequestId = rejection.entry.pullRequestId;
+        LocalDateTime now = LocalDateTime.now();
+        if (rejection.reason == MergeQueueRejectReasonEnum.CONFLICT) {
+            conflicts.increment();
+            pullRequestMapper.updateMergeStatusById(pullRequestId, MergeStatusEnum.CONFLICT.getCode(), rejection.detail,
+                    rejection.source.name(), rejection.target.name(), now);
+        } else {
+            branchMissing.increment();
+        }
+        log.info("合并请求无法合并, 移出合并队列: {}, {}", pullRequestId, rejection.reason.getCode());
+        pullRequestMapper.updateQueueRejectionById(pullRequestId, rejection.reason.getCode(), rejection.detail, now);
+    }
+
+    /**
+     * 结束批次，前 done 个合并请求已经处理完，其余的按原顺序回到队首，然后开始下一个批次
+     *
+     * @param lane  队列
+     * @param batch 批次
+     * @param done  已经处理完的数量
+     */
+    private void release(Lane lane, Batch batch, int done) {
+        synchronized (lane) {
+            List<Entry> rest = batch.entries.subList(Math.min(done, batch.entries.size()), batch.entries.size());
+            for (int i = rest.size() - 1; i >= 0; i--) {
+                lane.waiting.addFirst(rest.get(i));
+            }
+            if (lane.batch == batch) {
+                lane.batch = null;
+            }
+        }
+        schedule(lane, 0);
+    }
+
+    /**
+     * 批次出错，全部合并请求回到队首，等待一段时间后重试
+     *
+     * @param lane  队列
+     * @param batch 批次
+     */
+    private void retry(Lane lane, Batch batch) {
+        synchronized (lane) {
+            for (int i = batch.original.size() - 1; i >= 0; i--) {
+                lane.waiting.addFirst(batch.original.get(i));
+            }
+            if (lane.batch == batch) {
+                lane.batch = null;
+            }
+        }
+        schedule(lane, codeServerProperties.getMergeQueue().getRetryDelay().toMillis());
+    }
+
+    /**
+     * 延迟开始下一个批次
+     *
+     * @param lane  队列
+     * @param delay 延迟(毫秒)
+     */
+    private void schedule(Lane lane, long delay) {
+        try {
+            executor.schedule(() -> startBatch(lane), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("合并队列已停止: {}/{}", lane.projectId, lane.targetBranch);
+        }
+    }
+
+    /**
+     * 在批次线程池中执行
+     *
+     * @param task 任务
+     */
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("合并队列已停止");
+        }
+    }
+
+    /**
+     * 查询项目的仓库目录
+     *
+     * @param projectId 项目ID
+     * @return 仓库目录，项目不存在时返回 null
+     */
+    private File locate(String projectId) {
+        return projectMapper.selectProjectById(projectId)
+                .map((ProjectDO projectDO) -> repositoryLocationResolver.locate(projectDO.getId(), projectDO.getProjectGroupId(), projectDO.getProjectPath()))
+                .orElse(null);
+    }
+
+    /**
+     * 去掉统计窗口之外的合并记录，调用方需要持有 recentMerges 的锁
+     *
+     * @param now 当前时间
+     */
+    private void prune(long now) {
+        while (!recentMerges.isEmpty() && recentMerges.peekFirst()[0] < now - WINDOW_MILLIS) {
+            recentMerges.pollFirst();
+        }
+    }
+
+    private MergeQueueEntryVO toVO(Entry entry, int position, boolean testing) {
+        MergeQueueEntryVO mergeQueueEntryVO = new MergeQueueEntryVO();
+        mergeQueueEntryVO.setPullRequestId(entry.pullRequestId);
+        mergeQueueEntryVO.setPosition(position);
+        mergeQueueEntryVO.setTesting(testing);
+        mergeQueueEntryVO.setEnqueuedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.enqueuedAt), ZoneId.systemDefault()));
+        return mergeQueueEntryVO;
+    }
+
+    private static String laneKey(String projectId, String targetBranch) {
+        return projectId + "\0" + targetBranch;
+    }
+
+    /**
+     * 单个目标分支的队列，字段在 synchronized (lane) 中访问
+     */
+    @RequiredArgsConstructor
+    private static class Lane {
+
+        /**
+         * 项目ID
+         */
+        private final String projectId;
+
+        /**
+         * 目标分支
+         */
+        private final String targetBranch;
+
+        /**
+         * 等待中的合并请求
+         */
+        private final Deque<Entry> waiting = new ArrayDeque<>();
+
+        /**
+         * 正在验证的批次
+         */
+        private Batch batch;
+
+        /**
+         * 查找队列中的合并请求
+         *
+         * @param pullRequestId 合并请求ID
+         * @return 队列条目，不在队列中时返回 null
+         */
+        private Entry find(String pullRequestId) {
+            if (batch != null && batch.contains(pullRequestId)) {
+                return batch.original.stream().filter(entry -> entry.pullRequestId.equals(pullRequestId)).findFirst().orElse(null);
+            }
+            return waiting.stream().filter(entry -> entry.pullRequestId.equals(pullRequestId)).findFirst().orElse(null);
+        }
+    }
+
+    /**
+     * 队列条目
+     */
+    @RequiredArgsConstructor
+    private static class Entry {
+
+        /**
+         * 合并请求ID
+         */
+        private final String pullRequestId;
+
+        /**
+         * 源项目ID
+         */
+        private final String sourceProjectId;
+
+        /**
+         * 源分支
+         */
+        private final String sourceBranch;
+
+        /**
+         * 合并请求标题，写入预合并提交说明
+         */
+        private final String title;
+
+        /**
+         * 加入队列的时间
+         */
+        private final long enqueuedAt;
+    }
+
+    /**
+     * 批次，只由批次线程修改，正在验证时不会有第二个线程处理同一个批次
+     */
+    private static class Batch {
+
+        /**
+         * 批次序号
+         */
+        private final long id;
+
+        /**
+         * 组批时取出的合并请求
+         */
+        private final List<Entry> original;
+
+        /**
+         * 构建成功的合并请求，与 heads 一一对应
+         */
+        private volatile List<Entry> entries;
+
+        /**
+         * 第 i 个元素为合并前 i+1 个合并请求后的预合并提交
+         */
+        private volatile List<ObjectId> heads = List.of();
+
+        /**
+         * 构建批次时的目标分支提交
+         */
+        private volatile ObjectId base;
+
+        /**
+         * 正在验证前多少个合并请求
+         */
+        private volatile int testing;
+
+        /**
+         * 正在等待的流水线ID
+         */
+        private volatile String pipelineId;
+
+        /**
+         * 流水线检出的预合并提交引用
+         */
+        private volatile String refName;
+
+        /**
+         * 流水线超时任务
+         */
+        private volatile ScheduledFuture<?> timeout;
+
+        private Batch(long id, List<Entry> original) {
+            this.id = id;
+            this.original = original;
+            this.entries = original;
+        }
+
+        /**
+         * 是否包含该合并请求
+         *
+         * @param pullRequestId 合并请求ID
+         * @return 是否包含
+         */
+        private boolean contains(String pullRequestId) {
+            return original.stream().anyMatch(entry -> entry.pullRequestId.equals(pullRequestId));
+        }
+    }
+
+    /**
+     * 无法合并的合并请求
+     */
+    @RequiredArgsConstructor
+    private static class Rejection {
+
+        /**
+         * 队列条目
+         */
+        private final Entry entry;
+
+        /**
+         * 移出原因
+         */
+        private final MergeQueueRejectReasonEnum reason;
+
+        /**
+         * 源提交，不是冲突时为 null
+         */
+        private final ObjectId source;
+
+        /**
+         * 目标提交，不是冲突时为 null
+         */
+        private final ObjectId target;
+
+        /**
+         * 移出说明，冲突时为冲突文件，每行一个路径
+         */
+        private final String detail;
+
+        /**
+         * 源分支或目标分支不可用
+         *
+         * @param entry  队列条目
+         * @param reason 移出原因
+         * @param detail 移出说明
+         * @return 无法合并的合并请求
+         */
+        private static Rejection missing(Entry entry, MergeQueueRejectReasonEnum reason, String detail) {
+            return new Rejection(entry, reason, null, null, detail);
+        }
+    }
+}
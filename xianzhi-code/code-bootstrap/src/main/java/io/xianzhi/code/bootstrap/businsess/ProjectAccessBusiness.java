@@ -0,0 +1,197 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.businsess;
+
+import io.xianzhi.code.bootstrap.dao.dataobj.ProjectDO;
+import io.xianzhi.code.bootstrap.dao.mapper.ProjectGroupMemberMapper;
+import io.xianzhi.code.bootstrap.dao.mapper.ProjectMapper;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.model.enums.ProjectTypeEnum;
+import io.xianzhi.code.model.enums.VisibilityEnum;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 项目访问权限业务类
+ * <p>
+ * git 传输在读取仓库前按项目可见性和成员关系判断访问权限：公开项目任何人可读，内部项目登录用户可读，
+ * 私有项目只有个人项目的所有者和项目组成员可读；推送要求是个人项目的所有者，或者在项目组中拥有可写角色。
+ * CI 轮询 info/refs 的频率很高，项目信息和成员角色在本地缓存一小段时间，不是每次请求都查库。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Component
+@RequiredArgsConstructor
+public class ProjectAccessBusiness {
+
+    /**
+     * 缓存的最大数量，超出后清空
+     */
+    private static final int MAX_CACHED_ENTRIES = 100000;
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 项目持久层
+     */
+    private final ProjectMapper projectMapper;
+
+    /**
+     * 项目组成员持久层
+     */
+    private final ProjectGroupMemberMapper projectGroupMemberMapper;
+
+    /**
+     * 项目ID -> 项目可见性和归属
+     */
+    private final Map<String, Cached<ProjectDO>> projects = new ConcurrentHashMap<>();
+
+    /**
+     * 项目组ID/用户ID -> 角色编码
+     */
+    private final Map<String, Cached<String>> roles = new ConcurrentHashMap<>();
+
+    /**
+     * 判断用户是否可以读取项目仓库
+     *
+     * @param projectId 项目ID
+     * @param userId    用户ID，匿名访问为 null
+     * @return 是否可读
+     */
+    public boolean canRead(String projectId, String userId) {
+        Optional<ProjectDO> project = getProject(projectId);
+        if (project.isEmpty()) {
+            return false;
+        }
+        String visibility = project.get().getProjectVisibility();
+        if (VisibilityEnum.PUBLIC.getCode().equals(visibility)) {
+            return true;
+        }
+        if (!StringUtils.hasText(userId)) {
+            return false;
+        }
+        if (VisibilityEnum.INNER.getCode().equals(visibility)) {
+            return true;
+        }
+        return isOwner(project.get(), userId) || getRole(project.get().getProjectGroupId(), userId).isPresent();
+    }
+
+    /**
+     * 判断用户是否可以推送到项目仓库
+     *
+     * @param projectId 项目ID
+     * @param userId    用户ID
+     * @return 是否可写
+     */
+    public boolean canWrite(String projectId, String userId) {
+        if (!StringUtils.hasText(userId)) {
+            return false;
+        }
+        Optional<ProjectDO> project = getProject(projectId);
+        if (project.isEmpty()) {
+            return false;
+        }
+        if (isOwner(project.get(), userId)) {
+            return true;
+        }
+        return getRole(project.get().getProjectGroupId(), userId)
+                .filter(role -> codeServerProperties.getAccess().getWriteRoles().contains(role))
+                .isPresent();
+    }
+
+    /**
+     * 个人项目的分组ID就是所有者的用户ID
+     *
+     * @param project 项目
+     * @param userId  用户ID
+     * @return 是否是个人项目的所有者
+     */
+    private boolean isOwner(ProjectDO project, String userId) {
+        return ProjectTypeEnum.PERSONAL.getCode().equals(project.getProjectType()) && userId.equals(project.getProjectGroupId());
+    }
+
+    /**
+     * 查询项目的可见性和归属
+     *
+     * @param projectId 项目ID
+     * @return 项目信息
+     */
+    private Optional<ProjectDO> getProject(String projectId) {
+        long now = System.currentTimeMillis();
+        Cached<ProjectDO> cached = projects.get(projectId);
+        if (cached != null && cached.expiresAt > now) {
+            return Optional.ofNullable(cached.value);
+        }
+        Optional<ProjectDO> project = projectMapper.selectProjectById(projectId);
+        if (projects.size() >= MAX_CACHED_ENTRIES) {
+            projects.clear();
+        }
+        projects.put(projectId, new Cached<>(project.orElse(null), now + codeServerProperties.getAccess().getCacheTtl().toMillis()));
+        return project;
+    }
+
+    /**
+     * 查询用户在项目组中的角色
+     *
+     * @param groupId 项目组ID
+     * @param userId  用户ID
+     * @return 角色编码，不是成员时为空
+     */
+    private Optional<String> getRole(String groupId, String userId) {
+        String key = groupId + "/" + userId;
+        long now = System.currentTimeMillis();
+        Cached<String> cached = roles.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            return Optional.ofNullable(cached.value);
+        }
+        Optional<String> role = projectGroupMemberMapper.selectRoleCodeByGroupIdAndUserId(groupId, userId);
+        if (roles.size() >= MAX_CACHED_ENTRIES) {
+            roles.clear();
+        }
+        roles.put(key, new Cached<>(role.orElse(null), now + codeServerProperties.getAccess().getCacheTtl().toMillis()));
+        return role;
+    }
+
+    /**
+     * 缓存的查询结果
+     *
+     * @param <V> 结果类型
+     */
+    @RequiredArgsConstructor
+    private static class Cached<V> {
+
+        /**
+         * 查询结果，不存在时为 null
+         */
+        private final V value;
+
+        /**
+         * 过期时间
+         */
+        private final long expiresAt;
+    }
+}
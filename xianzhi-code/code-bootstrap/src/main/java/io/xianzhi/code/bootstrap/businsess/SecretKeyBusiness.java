@@ -16,12 +16,36 @@
 
 package io.xianzhi.code.bootstrap.businsess;
 
+import io.xianzhi.code.bootstrap.dao.dataobj.SecretKeyDO;
+import io.xianzhi.code.bootstrap.dao.mapper.SecretKeyMapper;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.model.event.SecretKeyChangeEvent;
+import io.xianzhi.code.model.vo.SecretKeyStatsVO;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 密钥业务类
+ * <p>
+ * SSH 每次建立连接都要根据公钥指纹找到秘钥，这里在内存中维护 指纹 -> 秘钥 的索引，启动时全量加载，
+ * 本节点新增、删除秘钥时通过事件立即更新，另外定时全量刷新以同步其他节点的变更。
+ * 索引中没有的指纹按需查库一次，未知指纹短时间内不再查库，避免扫描请求打到数据库。
+ * </p>
  *
  * @author Max
  * @since 1.0.0
@@ -29,5 +53,207 @@ import org.springframework.stereotype.Component;
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class SecretKeyBusiness {
+public class SecretKeyBusiness implements InitializingBean, DisposableBean {
+
+    /**
+     * 未知指纹缓存的最大数量，超出后清空
+     */
+    private static final int MAX_MISSES = 10000;
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 秘钥持久层
+     */
+    private final SecretKeyMapper secretKeyMapper;
+
+    /**
+     * 公钥指纹 -> 秘钥信息
+     */
+    private volatile Map<String, SecretKeyInfo> keys = new ConcurrentHashMap<>();
+
+    /**
+     * 未知指纹 -> 查库时间
+     */
+    private final Map<String, Long> misses = new ConcurrentHashMap<>();
+
+    /**
+     * 命中索引的次数
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * 查库次数
+     */
+    private final LongAdder lookups = new LongAdder();
+
+    /**
+     * 未知指纹的次数
+     */
+    private final LongAdder unknown = new LongAdder();
+
+    /**
+     * 全量刷新线程
+     */
+    private ScheduledExecutorService refresher;
+
+    /**
+     * 根据公钥指纹查询秘钥
+     *
+     * @param fingerprint 公钥指纹
+     * @return 秘钥信息
+     */
+    public Optional<SecretKeyInfo> getSecretKeyByFingerprint(String fingerprint) {
+        SecretKeyInfo info = keys.get(fingerprint);
+        if (info != null) {
+            hits.increment();
+            return Optional.of(info);
+        }
+        Long missedAt = misses.get(fingerprint);
+        if (missedAt != null && System.currentTimeMillis() - missedAt < codeServerProperties.getSecretKey().getMissTtl().toMillis()) {
+            unknown.increment();
+            return Optional.empty();
+        }
+        // 其他节点新增的秘钥在下次全量刷新前按需加载
+        try {
+            info = load(fingerprint);
+        } catch (Exception e) {
+            log.error("查询秘钥失败, fingerprint: {}", fingerprint, e);
+            return Optional.empty();
+        }
+        if (info == null) {
+            unknown.increment();
+        }
+        return Optional.ofNullable(info);
+    }
+
+    /**
+     * 秘钥变更后更新索引
+     *
+     * @param event 秘钥变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSecretKeyChange(SecretKeyChangeEvent event) {
+        if (StringUtils.hasText(event.getFingerprint())) {
+            load(event.getFingerprint());
+        } else {
+            reload();
+        }
+    }
+
+    /**
+     * 查询索引统计信息
+     *
+     * @return 统计信息
+     */
+    public SecretKeyStatsVO stats() {
+        SecretKeyStatsVO stats = new SecretKeyStatsVO();
+        stats.setSize(keys.size());
+        stats.setHits(hits.sum());
+        stats.setLookups(lookups.sum());
+        stats.setUnknown(unknown.sum());
+        return stats;
+    }
+
+    /**
+     * 启动时加载全部秘钥并开启定时刷新
+     */
+    @Override
+    public void afterPropertiesSet() {
+        reload();
+        long interval = Math.max(1000, codeServerProperties.getSecretKey().getRefreshInterval().toMillis());
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "secret-key-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::reload, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止定时刷新
+     */
+    @Override
+    public void destroy() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * 全量加载秘钥，失败时保留旧索引
+     */
+    private void reload() {
+        try {
+            List<SecretKeyDO> secretKeys = secretKeyMapper.selectAllSecretKeys();
+            Map<String, SecretKeyInfo> loaded = new ConcurrentHashMap<>(Math.max(16, secretKeys.size() * 2));
+            for (SecretKeyDO secretKey : secretKeys) {
+                loaded.put(secretKey.getFingerprint(), new SecretKeyInfo(secretKey));
+            }
+            keys = loaded;
+            misses.clear();
+            log.debug("秘钥索引加载完成, 数量: {}", loaded.size());
+        } catch (Exception e) {
+            log.error("加载秘钥索引失败", e);
+        }
+    }
+
+    /**
+     * 从数据库加载单个指纹，秘钥已删除时从索引中移除
+     *
+     * @param fingerprint 公钥指纹
+     * @return 秘钥信息
+     */
+    private SecretKeyInfo load(String fingerprint) {
+        lookups.increment();
+        Optional<SecretKeyDO> secretKey = secretKeyMapper.selectSecretKeyByFingerprint(fingerprint);
+        if (secretKey.isEmpty()) {
+            keys.remove(fingerprint);
+            if (misses.size() >= MAX_MISSES) {
+                misses.clear();
+            }
+            misses.put(fingerprint, System.currentTimeMillis());
+            return null;
+        }
+        SecretKeyInfo info = new SecretKeyInfo(secretKey.get());
+        keys.put(fingerprint, info);
+        misses.remove(fingerprint);
+        return info;
+    }
+
+    /**
+     * 秘钥信息
+     */
+    @Getter
+    public static class SecretKeyInfo {
+
+        /**
+         * 秘钥ID
+         */
+        private final String id;
+
+        /**
+         * 秘钥所属用户ID
+         */
+        private final String userId;
+
+        /**
+         * 部署秘钥所属项目ID
+         */
+        private final String projectId;
+
+        /**
+         * 构造方法
+         *
+         * @param secretKey 秘钥
+         */
+        SecretKeyInfo(SecretKeyDO secretKey) {
+            this.id = secretKey.getId();
+            this.userId = secretKey.getUserId();
+            this.projectId = secretKey.getProjectId();
+        }
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.businsess;
+
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.core.code.CommonCode;
+import io.xianzhi.core.result.ResponseResult;
+import io.xianzhi.system.facade.SystemParamFacade;
+import io.xianzhi.system.model.event.SystemParamChangeEvent;
+import io.xianzhi.system.model.vo.SystemParamVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 系统参数本地缓存
+ * <p>
+ * 代码服务在请求链路上读取系统参数，每次都走系统参数接口代价太高，这里按参数编码缓存在本地，
+ * 系统参数变更事件到达时立即失效，另外按 TTL 兜底刷新。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SystemParamCache {
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 系统参数接口
+     */
+    private final SystemParamFacade systemParamFacade;
+
+    /**
+     * 参数编码 -> 参数值
+     */
+    private final Map<String, CachedParam> params = new ConcurrentHashMap<>();
+
+    /**
+     * 获取系统参数值
+     *
+     * @param paramCode 参数编码
+     * @return 参数值
+     */
+    public Optional<String> getParamValue(String paramCode) {
+        CachedParam cached = params.get(paramCode);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt < codeServerProperties.getSystemParamTtl().toMillis()) {
+            return Optional.ofNullable(cached.value);
+        }
+        try {
+            ResponseResult<SystemParamVO> result = systemParamFacade.getSystemParamByParamCode(paramCode);
+            String value = null;
+            if (result != null && CommonCode.SUCCESS.code().equals(result.code()) && result.getData() != null) {
+                value = result.getData().getParamValue();
+            }
+            params.put(paramCode, new CachedParam(StringUtils.hasText(value) ? value : null, System.currentTimeMillis()));
+            return Optional.ofNullable(StringUtils.hasText(value) ? value : null);
+        } catch (Exception e) {
+            // 刷新失败时继续使用旧值, 不让系统参数服务的抖动影响 git 请求
+            log.error("刷新系统参数失败, paramCode: {}", paramCode, e);
+            return cached == null ? Optional.empty() : Optional.ofNullable(cached.value);
+        }
+    }
+
+    /**
+     * 系统参数变更后失效本地缓存
+     *
+     * @param event 系统参数变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSystemParamChange(SystemParamChangeEvent event) {
+        if (StringUtils.hasText(event.getParamCode())) {
+            params.remove(event.getParamCode());
+        } else {
+            params.clear();
+        }
+    }
+
+    /**
+     * 缓存的参数值
+     */
+    @RequiredArgsConstructor
+    private static class CachedParam {
+
+        /**
+         * 参数值
+         */
+        private final String value;
+
+        /**
+         * 加载时间
+         */
+        private final long loadedAt;
+    }
+}
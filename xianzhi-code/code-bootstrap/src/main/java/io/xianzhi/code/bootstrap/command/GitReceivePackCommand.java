@@ -0,0 +1,180 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.command;
+
+import io.xianzhi.code.bootstrap.authenticator.XianZhiPublicKeyAuthenticator;
+import io.xianzhi.code.bootstrap.businsess.ProjectAccessBusiness;
+import io.xianzhi.code.bootstrap.executor.AdmissionController;
+import io.xianzhi.code.bootstrap.executor.GitCommandExecutor;
+import io.xianzhi.code.bootstrap.factory.XianZhiReceivePackFactory;
+import io.xianzhi.code.bootstrap.repository.ReceiveQuarantine;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
+import org.apache.sshd.common.util.threads.CloseableExecutorService;
+import org.apache.sshd.git.AbstractGitCommand;
+import org.apache.sshd.git.GitLocationResolver;
+import org.apache.sshd.server.session.ServerSession;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.ReceivePack;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * SSH git-receive-pack 命令
+ * <p>
+ * 推送的 pack 边读边写入隔离区，检查通过后再移入正式仓库，详见 {@link XianZhiReceivePackFactory}。
+ * 执行前检查秘钥所属用户对项目的写权限，部署秘钥只能推送到所属项目。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+public class GitReceivePackCommand extends AbstractGitCommand {
+    private final GitLocationResolver resolver;
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+    /**
+     * git命令执行器
+     */
+    private final GitCommandExecutor gitCommandExecutor;
+    /**
+     * git传输准入控制
+     */
+    private final AdmissionController admissionController;
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+    /**
+     * receive-pack 工厂
+     */
+    private final XianZhiReceivePackFactory receivePackFactory;
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+    /**
+     * 项目访问权限
+     */
+    private final ProjectAccessBusiness projectAccessBusiness;
+
+    public GitReceivePackCommand(GitLocationResolver resolver, RepositoryPool repositoryPool, GitCommandExecutor gitCommandExecutor, AdmissionController admissionController, RepositoryLockManager repositoryLockManager, XianZhiReceivePackFactory receivePackFactory, RepositoryLocationResolver repositoryLocationResolver, ProjectAccessBusiness projectAccessBusiness, String command, CloseableExecutorService executor) {
+        super(resolver, command, executor);
+        this.resolver = resolver;
+        this.repositoryPool = repositoryPool;
+        this.gitCommandExecutor = gitCommandExecutor;
+        this.admissionController = admissionController;
+        this.repositoryLockManager = repositoryLockManager;
+        this.receivePackFactory = receivePackFactory;
+        this.repositoryLocationResolver = repositoryLocationResolver;
+        this.projectAccessBusiness = projectAccessBusiness;
+    }
+
+    @Override
+    public void run() {
+        ServerSession session = getServerSession(); // 从 AbstractGitCommand 获取会话
+        if (session == null) {
+            handleError("No server session available");
+            return;
+        }
+
+        try {
+            // 拆分命令参数
+            String[] args = getCommand().split("\\s+");
+            FileSystem fs = getFileSystem(); // 从 AbstractGitCommand 获取文件系统
+            if (fs == null) {
+                throw new IOException("No file system available");
+            }
+
+            // 使用 GitLocationResolver 解析仓库路径
+            Path repoPath = resolver.resolveRootDirectory(getCommand(), args, session, fs);
+            if (null == repoPath) {
+                throw new IOException("没有找到仓库路径");
+            }
+            File repoDir = repoPath.toFile();
+
+            if (!repoDir.exists() || !repoDir.isDirectory()) {
+                throw new IOException("没有找到仓库路径: " + repoDir.getAbsolutePath());
+            }
+
+            if (!canPush(session, repoDir)) {
+                handleError("没有仓库的推送权限");
+                return;
+            }
+
+            // 按用户获取并发许可, 再按仓库排队准入, 持有仓库共享锁, 从句柄池借出仓库, close 即归还
+            try (GitCommandExecutor.Permit ignored = gitCommandExecutor.acquire(XianZhiPublicKeyAuthenticator.getOwner(session));
+                 AdmissionController.Ticket admission = admissionController.admit(repoDir.getPath());
+                 RepositoryLockManager.Hold lock = repositoryLockManager.shared(repoDir);
+                 Repository repository = repositoryPool.acquire(repoDir);
+                 ReceiveQuarantine quarantine = ReceiveQuarantine.create(repository)) {
+                String user = XianZhiPublicKeyAuthenticator.getOwner(session);
+                String host = session.getClientAddress() instanceof InetSocketAddress address ? address.getHostString() : "ssh";
+                PersonIdent ident = new PersonIdent(user, user + "@" + host);
+                ReceivePack receivePack = receivePackFactory.newReceivePack(repository, quarantine, ident);
+                receivePack.setBiDirectionalPipe(true);
+                receivePack.receive(getInputStream(), getOutputStream(), getErrorStream());
+            }
+
+            onExit(0); // 成功退出
+        } catch (IOException e) {
+            handleError("无法执行GIT命令 git-receive-pack: " + e.getMessage());
+        } catch (RejectedExecutionException e) {
+            handleError(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            handleError("git-receive-pack 被中断");
+        }
+    }
+
+    /**
+     * 检查会话是否可以推送到仓库：秘钥所属用户需要有项目的写权限，部署秘钥还必须属于该项目
+     *
+     * @param session 会话
+     * @param repoDir 仓库目录
+     * @return 是否可以推送
+     */
+    private boolean canPush(ServerSession session, File repoDir) {
+        String projectId = repositoryLocationResolver.findProjectId(repoDir).orElse(null);
+        if (projectId == null) {
+            return false;
+        }
+        String deployProjectId = session.getAttribute(XianZhiPublicKeyAuthenticator.SECRET_KEY_PROJECT);
+        if (deployProjectId != null && !deployProjectId.equals(projectId)) {
+            return false;
+        }
+        return projectAccessBusiness.canWrite(projectId, session.getAttribute(XianZhiPublicKeyAuthenticator.SECRET_KEY_OWNER));
+    }
+
+    private void handleError(String message) {
+        try {
+            getErrorStream().write((message + "\n").getBytes());
+            getErrorStream().flush();
+        } catch (IOException ignored) {
+        }
+        onExit(1); // 异常退出
+    }
+}
\ No newline at end of file
@@ -16,18 +16,29 @@
 
 package io.xianzhi.code.bootstrap.command;
 
+import io.xianzhi.code.bootstrap.authenticator.XianZhiPublicKeyAuthenticator;
+import io.xianzhi.code.bootstrap.businsess.ProjectAccessBusiness;
+import io.xianzhi.code.bootstrap.executor.AdmissionController;
+import io.xianzhi.code.bootstrap.executor.GitCommandExecutor;
+import io.xianzhi.code.bootstrap.factory.XianZhiUploadPackFactory;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
 import org.apache.sshd.common.util.threads.CloseableExecutorService;
 import org.apache.sshd.git.AbstractGitCommand;
 import org.apache.sshd.git.GitLocationResolver;
 import org.apache.sshd.server.session.ServerSession;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.transport.GitProtocolConstants;
 import org.eclipse.jgit.transport.UploadPack;
+import org.springframework.util.StringUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.FileSystem;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @author Max
@@ -35,10 +46,45 @@ import java.nio.file.Path;
  */
 public class GitUploadPackCommand extends AbstractGitCommand {
     private final GitLocationResolver resolver;
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+    /**
+     * git命令执行器
+     */
+    private final GitCommandExecutor gitCommandExecutor;
+    /**
+     * git传输准入控制
+     */
+    private final AdmissionController admissionController;
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+    /**
+     * upload-pack 工厂
+     */
+    private final XianZhiUploadPackFactory uploadPackFactory;
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+    /**
+     * 项目访问权限
+     */
+    private final ProjectAccessBusiness projectAccessBusiness;
 
-    public GitUploadPackCommand(GitLocationResolver resolver, String command, CloseableExecutorService executor) {
+    public GitUploadPackCommand(GitLocationResolver resolver, RepositoryPool repositoryPool, GitCommandExecutor gitCommandExecutor, AdmissionController admissionController, RepositoryLockManager repositoryLockManager, XianZhiUploadPackFactory uploadPackFactory, RepositoryLocationResolver repositoryLocationResolver, ProjectAccessBusiness projectAccessBusiness, String command, CloseableExecutorService executor) {
         super(resolver, command, executor);
         this.resolver = resolver;
+        this.repositoryPool = repositoryPool;
+        this.gitCommandExecutor = gitCommandExecutor;
+        this.admissionController = admissionController;
+        this.repositoryLockManager = repositoryLockManager;
+        this.uploadPackFactory = uploadPackFactory;
+        this.repositoryLocationResolver = repositoryLocationResolver;
+        this.projectAccessBusiness = projectAccessBusiness;
     }
 
     @Override
@@ -68,19 +114,54 @@ public class GitUploadPackCommand extends AbstractGitCommand {
                 throw new IOException("没有找到仓库路径: " + repoDir.getAbsolutePath());
             }
 
-            try (Repository repository = new FileRepositoryBuilder()
-                    .setGitDir(repoDir)
-                    .setMustExist(true)
-                    .build()) {
-                UploadPack uploadPack = new UploadPack(repository);
+            if (!canRead(session, repoDir)) {
+                handleError("没有仓库的读取权限");
+                return;
+            }
+
+            // 按用户获取并发许可, 再按仓库排队准入, 持有仓库共享锁, 从句柄池借出仓库, close 即归还
+            try (GitCommandExecutor.Permit ignored = gitCommandExecutor.acquire(XianZhiPublicKeyAuthenticator.getOwner(session));
+                 AdmissionController.Ticket ticket = admissionController.admit(repoDir.getPath());
+                 RepositoryLockManager.Hold lock = repositoryLockManager.shared(repoDir);
+                 Repository repository = repositoryPool.acquire(repoDir)) {
+                UploadPack uploadPack = uploadPackFactory.newUploadPack(repository);
                 uploadPack.setBiDirectionalPipe(true);
-                uploadPack.upload(getInputStream(), getOutputStream(), getErrorStream());
+                // 客户端通过 SSH 环境变量 GIT_PROTOCOL 请求 protocol v2
+                String gitProtocol = getEnvironment().getEnv().get(GitProtocolConstants.PROTOCOL_ENVIRONMENT_VARIABLE);
+                if (StringUtils.hasText(gitProtocol)) {
+                    uploadPack.setExtraParameters(Arrays.asList(gitProtocol.split(":")));
+                }
+                uploadPack.upload(getInputStream(), ticket.throttle(getOutputStream()), getErrorStream());
             }
 
             onExit(0); // 成功退出
         } catch (IOException e) {
             handleError("无法执行GIT命令 git-upload-pack: " + e.getMessage());
+        } catch (RejectedExecutionException e) {
+            handleError(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            handleError("git-upload-pack 被中断");
+        }
+    }
+
+    /**
+     * 检查会话是否可以读取仓库：秘钥所属用户需要有项目的读权限，部署秘钥还必须属于该项目
+     *
+     * @param session 会话
+     * @param repoDir 仓库目录
+     * @return 是否可以读取
+     */
+    private boolean canRead(ServerSession session, File repoDir) {
+        String projectId = repositoryLocationResolver.findProjectId(repoDir).orElse(null);
+        if (projectId == null) {
+            return false;
+        }
+        String deployProjectId = session.getAttribute(XianZhiPublicKeyAuthenticator.SECRET_KEY_PROJECT);
+        if (deployProjectId != null && !deployProjectId.equals(projectId)) {
+            return false;
         }
+        return projectAccessBusiness.canRead(projectId, session.getAttribute(XianZhiPublicKeyAuthenticator.SECRET_KEY_OWNER));
     }
 
     private void handleError(String message) {
@@ -16,6 +16,7 @@
 
 package io.xianzhi.code.bootstrap.config;
 
+import io.xianzhi.code.bootstrap.filter.GitAuthenticationFilter;
 import io.xianzhi.code.bootstrap.filter.GitFilter;
 import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
 import jakarta.servlet.http.HttpServlet;
@@ -106,6 +107,11 @@ public class HttpServerConfig {
      */
     private final GitFilter gitFilter;
 
+    /**
+     * Git 认证过滤器，在 GitFilter 之前解析请求携带的访问令牌。
+     */
+    private final GitAuthenticationFilter gitAuthenticationFilter;
+
     /**
      * 配置并返回 GitServlet 实例，用于处理 Git 的 HTTP 请求。
      *
@@ -133,6 +139,22 @@ public class HttpServerConfig {
         return registrationBean;
     }
 
+    /**
+     * 注册 Git 认证过滤器，顺序在 GitFilter 之前，GitFilter 按认证后的用户校验仓库权限。
+     *
+     * @return {@link FilterRegistrationBean} 对象
+     */
+    @Bean
+    public FilterRegistrationBean<GitAuthenticationFilter> gitAuthenticationFilterRegistration() {
+        FilterRegistrationBean<GitAuthenticationFilter> registrationBean = new FilterRegistrationBean<>();
+        registrationBean.setFilter(gitAuthenticationFilter);
+        registrationBean.addUrlPatterns("/*");
+        registrationBean.setName("GitAuthenticationFilter");
+        registrationBean.setOrder(0);
+        log.info("Registered GitAuthenticationFilter for Git requests");
+        return registrationBean;
+    }
+
     @Bean
     public FilterRegistrationBean<GitFilter> gitFilter(GitServlet gitServlet, CodeServerProperties codeServerProperties) {
         FilterRegistrationBean<GitFilter> registrationBean = new FilterRegistrationBean<>();
@@ -16,9 +16,17 @@
 
 package io.xianzhi.code.bootstrap.config;
 
+import io.xianzhi.code.bootstrap.businsess.ProjectAccessBusiness;
+import io.xianzhi.code.bootstrap.executor.AdmissionController;
+import io.xianzhi.code.bootstrap.executor.GitCommandExecutor;
 import io.xianzhi.code.bootstrap.factory.DisableShellFactory;
 import io.xianzhi.code.bootstrap.factory.XianZhiGitCommandFactory;
+import io.xianzhi.code.bootstrap.factory.XianZhiReceivePackFactory;
+import io.xianzhi.code.bootstrap.factory.XianZhiUploadPackFactory;
 import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.sshd.git.GitLocationResolver;
@@ -51,6 +59,38 @@ public class SShServerConfig {
      * 本地仓库加载
      */
     private final GitLocationResolver gitLocationResolver;
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+    /**
+     * git命令执行器
+     */
+    private final GitCommandExecutor gitCommandExecutor;
+    /**
+     * git传输准入控制
+     */
+    private final AdmissionController admissionController;
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+    /**
+     * upload-pack 工厂
+     */
+    private final XianZhiUploadPackFactory uploadPackFactory;
+    /**
+     * receive-pack 工厂
+     */
+    private final XianZhiReceivePackFactory receivePackFactory;
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+    /**
+     * 项目访问权限
+     */
+    private final ProjectAccessBusiness projectAccessBusiness;
 
 
     @Bean
@@ -60,7 +100,7 @@ public class SShServerConfig {
         // 设置主机密钥
         sshd.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
         // 设置命令工厂
-        sshd.setCommandFactory(new XianZhiGitCommandFactory(gitLocationResolver));
+        sshd.setCommandFactory(new XianZhiGitCommandFactory(gitLocationResolver, repositoryPool, gitCommandExecutor, admissionController, repositoryLockManager, uploadPackFactory, receivePackFactory, repositoryLocationResolver, projectAccessBusiness));
         // 设置公钥
         sshd.setPublickeyAuthenticator(xianZhiPublicKeyAuthenticator);
         // 禁用shell
@@ -16,7 +16,14 @@
 
 package io.xianzhi.code.bootstrap.controller;
 
+import io.xianzhi.code.bootstrap.service.BranchService;
+import io.xianzhi.code.model.page.BranchPage;
+import io.xianzhi.code.model.vo.BranchVO;
+import io.xianzhi.code.model.vo.CursorListVO;
+import io.xianzhi.core.result.ResponseResult;
 import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -30,4 +37,20 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 @RequestMapping(value = "/c/branch")
 public class BranchController {
+
+    /**
+     * 分支接口
+     */
+    private final BranchService branchService;
+
+    /**
+     * 按分支名称游标分页查询分支列表
+     *
+     * @param branchPage 查询条件
+     * @return 分支列表
+     */
+    @PostMapping(value = "/listBranches")
+    public ResponseResult<CursorListVO<BranchVO>> listBranches(@RequestBody BranchPage branchPage) {
+        return ResponseResult.success(branchService.listBranches(branchPage));
+    }
 }
@@ -16,10 +16,28 @@
 
 package io.xianzhi.code.bootstrap.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.xianzhi.code.bootstrap.service.CommitService;
+import io.xianzhi.code.model.dto.BlameDTO;
+import io.xianzhi.code.model.page.CommitPage;
+import io.xianzhi.code.model.vo.BlameVO;
+import io.xianzhi.code.model.vo.CommitVO;
+import io.xianzhi.code.model.vo.CursorListVO;
+import io.xianzhi.core.result.ResponseResult;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
 /**
  * 提交信息接口
  *
@@ -30,4 +48,111 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 @RequestMapping(value = "/c/commit")
 public class CommitController {
+
+    /**
+     * 提交信息接口
+     */
+    private final CommitService commitService;
+
+    /**
+     * JSON 序列化
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 按提交时间倒序游标分页查询提交历史
+     *
+     * @param commitPage 查询条件
+     * @return 提交列表
+     */
+    @PostMapping(value = "/listCommits")
+    public ResponseResult<CursorListVO<CommitVO>> listCommits(@RequestBody CommitPage commitPage) {
+        return ResponseResult.success(commitService.listCommits(commitPage));
+    }
+
+    /**
+     * 逐行追溯文件，以 NDJSON 流式输出：每行一个行区间，得到一个输出一个，不保证按行号排序，最后一行为追溯结果
+     * <p>
+     * 输出第一个行区间之前的错误按普通接口返回，之后客户端断开时停止追溯。
+     * </p>
+     *
+     * @param blameDTO 查询条件
+     * @param response 响应
+     * @throws IOException 如果写出响应失败
+     */
+    @PostMapping(value = "/blame")
+    public void blame(@RequestBody @Validated BlameDTO blameDTO, HttpServletResponse response) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response);
+        BlameVO blameVO = commitService.blame(blameDTO, writer::write);
+        writer.write(blameVO);
+        writer.flush();
+    }
+
+    /**
+     * NDJSON 输出，第一次写出时才设置响应类型，之前抛出的异常仍然可以按普通接口返回
+     */
+    @RequiredArgsConstructor
+    private static class NdjsonWriter {
+
+        /**
+         * 两次刷新之间的最短间隔，避免每个行区间一个 chunk
+         */
+        private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+        /**
+         * JSON 序列化
+         */
+        private final ObjectMapper objectMapper;
+
+        /**
+         * 响应
+         */
+        private final HttpServletResponse response;
+
+        /**
+         * 响应输出流，第一次写出时获取
+         */
+        private OutputStream out;
+
+        /**
+         * 上次刷新的时间
+         */
+        private long flushedAt;
+
+        /**
+         * 写出一行
+         *
+         * @param value 内容
+         */
+        private void write(Object value) {
+            try {
+                if (out == null) {
+                    response.setContentType("application/x-ndjson");
+                    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                    out = response.getOutputStream();
+                    flushedAt = System.nanoTime();
+                }
+                out.write(objectMapper.writeValueAsBytes(value));
+                out.write('\n');
+                if (System.nanoTime() - flushedAt >= FLUSH_INTERVAL_NANOS) {
+                    flush();
+                }
+            } catch (IOException e) {
+                // 客户端已断开, 中止追溯
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * 把已经写出的内容发送给客户端
+         *
+         * @throws IOException 如果写出失败
+         */
+        private void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+                flushedAt = System.nanoTime();
+            }
+        }
+    }
 }
@@ -16,8 +16,16 @@
 
 package io.xianzhi.code.bootstrap.controller;
 
+import io.xianzhi.code.bootstrap.service.KeysService;
+import io.xianzhi.code.model.dto.SecretKeyDTO;
+import io.xianzhi.common.idempotent.annotations.Idempotent;
+import io.xianzhi.core.result.ResponseResult;
 import lombok.RequiredArgsConstructor;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -28,6 +36,35 @@ import org.springframework.web.bind.annotation.RestController;
  */
 @RestController
 @RequiredArgsConstructor
-@RequestMapping(value = "/")
+@RequestMapping(value = "/c/keys")
 public class KeysController {
+
+    /**
+     * 秘钥服务
+     */
+    private final KeysService keysService;
+
+    /**
+     * 新增秘钥 (幂等)
+     *
+     * @param secretKeyDTO 秘钥入参
+     * @return 秘钥ID
+     */
+    @Idempotent
+    @PostMapping(value = "/createSecretKey")
+    public ResponseResult<String> createSecretKey(@RequestBody @Validated SecretKeyDTO secretKeyDTO) {
+        return ResponseResult.success(keysService.createSecretKey(secretKeyDTO));
+    }
+
+    /**
+     * 删除秘钥
+     *
+     * @param id 秘钥ID
+     * @return 响应信息
+     */
+    @PostMapping(value = "/deletedSecretKey")
+    public ResponseResult<Object> deletedSecretKey(@RequestParam(value = "id") String id) {
+        keysService.deletedSecretKey(id);
+        return ResponseResult.success();
+    }
 }
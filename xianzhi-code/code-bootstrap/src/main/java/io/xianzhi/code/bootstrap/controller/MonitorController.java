@@ -0,0 +1,345 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.controller;
+
+import io.xianzhi.code.bootstrap.businsess.MergeQueueBusiness;
+import io.xianzhi.code.bootstrap.businsess.SecretKeyBusiness;
+import io.xianzhi.code.bootstrap.executor.AdmissionController;
+import io.xianzhi.code.bootstrap.executor.GitCommandExecutor;
+import io.xianzhi.code.bootstrap.maintenance.CommitIndexer;
+import io.xianzhi.code.bootstrap.maintenance.MergeabilityChecker;
+import io.xianzhi.code.bootstrap.maintenance.ObjectPoolMaintainer;
+import io.xianzhi.code.bootstrap.maintenance.RepositoryLayoutMigrator;
+import io.xianzhi.code.bootstrap.maintenance.RepositoryMaintenanceScheduler;
+import io.xianzhi.code.bootstrap.repository.BlameCache;
+import io.xianzhi.code.bootstrap.repository.BranchCache;
+import io.xianzhi.code.bootstrap.repository.CommitLogCache;
+import io.xianzhi.code.bootstrap.repository.DiffCache;
+import io.xianzhi.code.bootstrap.repository.RefAdvertisementCache;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.repository.UploadPackStatistics;
+import io.xianzhi.code.model.vo.AdmissionStatsVO;
+import io.xianzhi.code.model.vo.BlameStatsVO;
+import io.xianzhi.code.model.vo.BranchCacheStatsVO;
+import io.xianzhi.code.model.vo.CommitIndexStatsVO;
+import io.xianzhi.code.model.vo.CommitLogStatsVO;
+import io.xianzhi.code.model.vo.DiffCacheStatsVO;
+import io.xianzhi.code.model.vo.GitExecutorStatsVO;
+import io.xianzhi.code.model.vo.MaintenanceStatsVO;
+import io.xianzhi.code.model.vo.MergeQueueStatsVO;
+import io.xianzhi.code.model.vo.MergeabilityStatsVO;
+import io.xianzhi.code.model.vo.ObjectPoolStatsVO;
+import io.xianzhi.code.model.vo.RefCacheStatsVO;
+import io.xianzhi.code.model.vo.RepositoryLockStatsVO;
+import io.xianzhi.code.model.vo.RepositoryPoolStatsVO;
+import io.xianzhi.code.model.vo.SecretKeyStatsVO;
+import io.xianzhi.code.model.vo.StorageMigrationStatsVO;
+import io.xianzhi.code.model.vo.UploadPackStatsVO;
+import io.xianzhi.core.result.ResponseResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 代码服务监控接口
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(value = "/c/monitor")
+public class MonitorController {
+
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+
+    /**
+     * git命令执行器
+     */
+    private final GitCommandExecutor gitCommandExecutor;
+
+    /**
+     * 引用通告缓存
+     */
+    private final RefAdvertisementCache refAdvertisementCache;
+
+    /**
+     * 仓库后台维护
+     */
+    private final RepositoryMaintenanceScheduler repositoryMaintenanceScheduler;
+
+    /**
+     * upload-pack 统计
+     */
+    private final UploadPackStatistics uploadPackStatistics;
+
+    /**
+     * 秘钥业务类
+     */
+    private final SecretKeyBusiness secretKeyBusiness;
+
+    /**
+     * git传输准入控制
+     */
+    private final AdmissionController admissionController;
+
+    /**
+     * 仓库存储布局迁移
+     */
+    private final RepositoryLayoutMigrator repositoryLayoutMigrator;
+
+    /**
+     * fork 网络共享对象池维护
+     */
+    private final ObjectPoolMaintainer objectPoolMaintainer;
+
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+
+    /**
+     * 分支列表缓存
+     */
+    private final BranchCache branchCache;
+
+    /**
+     * 提交历史分页缓存
+     */
+    private final CommitLogCache commitLogCache;
+
+    /**
+     * 提交索引
+     */
+    private final CommitIndexer commitIndexer;
+
+    /**
+     * 合并请求差异缓存
+     */
+    private final DiffCache diffCache;
+
+    /**
+     * 合并请求冲突检查
+     */
+    private final MergeabilityChecker mergeabilityChecker;
+
+    /**
+     * 合并队列
+     */
+    private final MergeQueueBusiness mergeQueueBusiness;
+
+    /**
+     * 逐行追溯缓存
+     */
+    private final BlameCache blameCache;
+
+    /**
+     * 查询仓库句柄池统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/repositoryPool")
+    public ResponseResult<RepositoryPoolStatsVO> repositoryPool() {
+        return ResponseResult.success(repositoryPool.stats());
+    }
+
+    /**
+     * 查询SSH git命令线程池统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/gitExecutor")
+    public ResponseResult<GitExecutorStatsVO> gitExecutor() {
+        return ResponseResult.success(gitCommandExecutor.stats());
+    }
+
+    /**
+     * 查询引用通告缓存统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/refCache")
+    public ResponseResult<RefCacheStatsVO> refCache() {
+        return ResponseResult.success(refAdvertisementCache.stats());
+    }
+
+    /**
+     * 查询仓库后台维护统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/maintenance")
+    public ResponseResult<MaintenanceStatsVO> maintenance() {
+        return ResponseResult.success(repositoryMaintenanceScheduler.stats());
+    }
+
+    /**
+     * 查询upload-pack统计信息，包括cached pack命中率和传输吞吐
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/uploadPack")
+    public ResponseResult<UploadPackStatsVO> uploadPack() {
+        return ResponseResult.success(uploadPackStatistics.stats());
+    }
+
+    /**
+     * 查询SSH公钥指纹索引统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/secretKey")
+    public ResponseResult<SecretKeyStatsVO> secretKey() {
+        return ResponseResult.success(secretKeyBusiness.stats());
+    }
+
+    /**
+     * 查询git传输准入统计信息，包括排队时间分布
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/admission")
+    public ResponseResult<AdmissionStatsVO> admission() {
+        return ResponseResult.success(admissionController.stats());
+    }
+
+    /**
+     * 查询仓库存储布局迁移统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/storageMigration")
+    public ResponseResult<StorageMigrationStatsVO> storageMigration() {
+        return ResponseResult.success(repositoryLayoutMigrator.stats());
+    }
+
+    /**
+     * 查询 fork 网络共享对象池维护统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/objectPool")
+    public ResponseResult<ObjectPoolStatsVO> objectPool() {
+        return ResponseResult.success(objectPoolMaintainer.stats());
+    }
+
+    /**
+     * 查询仓库读写锁统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/repositoryLock")
+    public ResponseResult<RepositoryLockStatsVO> repositoryLock() {
+        return ResponseResult.success(repositoryLockManager.stats());
+    }
+
+    /**
+     * 查询分支列表缓存统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/branchCache")
+    public ResponseResult<BranchCacheStatsVO> branchCache() {
+        return ResponseResult.success(branchCache.stats());
+    }
+
+    /**
+     * 查询提交历史分页缓存统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/commitLog")
+    public ResponseResult<CommitLogStatsVO> commitLog() {
+        return ResponseResult.success(commitLogCache.stats());
+    }
+
+    /**
+     * 查询提交索引统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/commitIndex")
+    public ResponseResult<CommitIndexStatsVO> commitIndex() {
+        return ResponseResult.success(commitIndexer.stats());
+    }
+
+    /**
+     * 查询合并请求差异缓存统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/diffCache")
+    public ResponseResult<DiffCacheStatsVO> diffCache() {
+        return ResponseResult.success(diffCache.stats());
+    }
+
+    /**
+     * 查询合并请求冲突检查统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/mergeability")
+    public ResponseResult<MergeabilityStatsVO> mergeability() {
+        return ResponseResult.success(mergeabilityChecker.stats());
+    }
+
+    /**
+     * 查询合并队列统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/mergeQueue")
+    public ResponseResult<MergeQueueStatsVO> mergeQueue() {
+        return ResponseResult.success(mergeQueueBusiness.stats());
+    }
+
+    /**
+     * 查询逐行追溯统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping(value = "/blame")
+    public ResponseResult<BlameStatsVO> blame() {
+        return ResponseResult.success(blameCache.stats());
+    }
+
+    /**
+     * 开始把旧布局的仓库在线迁移到散列布局
+     *
+     * @return 是否本次开始，已经在迁移时返回 false
+     */
+    @PostMapping(value = "/startStorageMigration")
+    public ResponseResult<Boolean> startStorageMigration() {
+        return ResponseResult.success(repositoryLayoutMigrator.start());
+    }
+
+    /**
+     * 开始为全部项目回填提交索引
+     *
+     * @return 是否本次开始，已经在回填时返回 false
+     */
+    @PostMapping(value = "/startCommitBackfill")
+    public ResponseResult<Boolean> startCommitBackfill() {
+        return ResponseResult.success(commitIndexer.startBackfill());
+    }
+}
@@ -17,8 +17,12 @@
 package io.xianzhi.code.bootstrap.controller;
 
 import io.xianzhi.code.bootstrap.service.PipelineService;
+import io.xianzhi.core.result.ResponseResult;
 import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -38,7 +42,19 @@ public class PipelineController {
      */
     private final PipelineService pipelineService;
 
-
-
-
+    /**
+     * 回报流水线结果，请求头携带十六进制的 HmacSHA256(共享密钥, "流水线ID:是否成功") 签名
+     *
+     * @param pipelineId 流水线ID
+     * @param success    是否成功
+     * @param signature  签名
+     * @return 响应信息
+     */
+    @PostMapping(value = "/finishPipeline")
+    public ResponseResult<Object> finishPipeline(@RequestParam(value = "pipelineId") String pipelineId,
+                                                 @RequestParam(value = "success") Boolean success,
+                                                 @RequestHeader(value = "X-Pipeline-Signature", required = false) String signature) {
+        pipelineService.finishPipeline(pipelineId, success, signature);
+        return ResponseResult.success();
+    }
 }
@@ -18,8 +18,11 @@ package io.xianzhi.code.bootstrap.controller;
 
 import io.xianzhi.code.bootstrap.service.ProjectService;
 import io.xianzhi.code.model.dto.AddMemberDTO;
+import io.xianzhi.code.model.dto.BatchCreateProjectDTO;
+import io.xianzhi.code.model.dto.ForkProjectDTO;
 import io.xianzhi.code.model.dto.ImportProjectDTO;
 import io.xianzhi.code.model.dto.ProjectDTO;
+import io.xianzhi.code.model.enums.RefStorageEnum;
 import io.xianzhi.code.model.page.ProjectPage;
 import io.xianzhi.code.model.vo.ProjectVO;
 import io.xianzhi.common.idempotent.annotations.Idempotent;
@@ -61,6 +64,30 @@ public class ProjectController {
         return ResponseResult.success(projectService.createProject(projectDTO));
     }
 
+    /**
+     * 批量新增项目 (幂等)
+     *
+     * @param batchCreateProjectDTO 批量创建项目入参
+     * @return 项目ID列表
+     */
+    @Idempotent
+    @PostMapping(value = "/batchCreateProject")
+    public ResponseResult<List<String>> batchCreateProject(@RequestBody @Validated(value = CreateGroup.class) BatchCreateProjectDTO batchCreateProjectDTO) {
+        return ResponseResult.success(projectService.batchCreateProject(batchCreateProjectDTO));
+    }
+
+    /**
+     * fork 项目 (幂等)
+     *
+     * @param forkProjectDTO fork 项目入参
+     * @return 新项目ID
+     */
+    @Idempotent
+    @PostMapping(value = "/forkProject")
+    public ResponseResult<String> forkProject(@RequestBody @Validated(value = CreateGroup.class) ForkProjectDTO forkProjectDTO) {
+        return ResponseResult.success(projectService.forkProject(forkProjectDTO));
+    }
+
     /**
      * 更新项目
      *
@@ -85,6 +112,19 @@ public class ProjectController {
         return ResponseResult.success();
     }
 
+    /**
+     * 转换项目仓库的引用存储格式，引用数量巨大的仓库可以转换为 reftable
+     *
+     * @param id         项目ID
+     * @param refStorage 目标引用存储格式
+     * @return 响应信息
+     */
+    @PostMapping(value = "/convertRefStorage")
+    public ResponseResult<Object> convertRefStorage(@RequestParam(value = "id") String id, @RequestParam(value = "refStorage") RefStorageEnum refStorage) {
+        projectService.convertRefStorage(id, refStorage);
+        return ResponseResult.success();
+    }
+
     /**
      * 分页查询项目列表
      *
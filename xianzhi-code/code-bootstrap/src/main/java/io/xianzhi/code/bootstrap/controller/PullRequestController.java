@@ -18,7 +18,12 @@ package io.xianzhi.code.bootstrap.controller;
 
 import io.xianzhi.code.bootstrap.service.PullRequestService;
 import io.xianzhi.code.model.dto.PullRequestDTO;
+import io.xianzhi.code.model.dto.PullRequestDiffFileDTO;
+import io.xianzhi.code.model.page.PullRequestDiffPage;
 import io.xianzhi.code.model.page.PullRequestPage;
+import io.xianzhi.code.model.vo.DiffFileVO;
+import io.xianzhi.code.model.vo.MergeQueueEntryVO;
+import io.xianzhi.code.model.vo.PullRequestDiffVO;
 import io.xianzhi.code.model.vo.PullRequestVO;
 import io.xianzhi.common.idempotent.annotations.Idempotent;
 import io.xianzhi.core.result.ListResult;
@@ -29,6 +34,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * 合并请求接口
  *
@@ -104,5 +111,62 @@ public class PullRequestController {
         return ResponseResult.success();
     }
 
+    /**
+     * 分页查询合并请求的变更文件，不包含差异内容
+     *
+     * @param pullRequestDiffPage 查询条件
+     * @return 变更文件列表
+     */
+    @PostMapping(value = "/listDiffFiles")
+    public ResponseResult<PullRequestDiffVO> listDiffFiles(@RequestBody PullRequestDiffPage pullRequestDiffPage) {
+        return ResponseResult.success(pullRequestService.listDiffFiles(pullRequestDiffPage));
+    }
+
+    /**
+     * 查询合并请求中单个文件的差异内容
+     *
+     * @param pullRequestDiffFileDTO 查询条件
+     * @return 文件差异
+     */
+    @PostMapping(value = "/getDiffFile")
+    public ResponseResult<DiffFileVO> getDiffFile(@RequestBody @Validated PullRequestDiffFileDTO pullRequestDiffFileDTO) {
+        return ResponseResult.success(pullRequestService.getDiffFile(pullRequestDiffFileDTO));
+    }
+
+    /**
+     * 把合并请求加入目标分支的合并队列
+     *
+     * @param id 合并请求ID
+     * @return 响应信息
+     */
+    @PostMapping(value = "/enqueueMerge")
+    public ResponseResult<Object> enqueueMerge(@RequestParam(value = "id") String id) {
+        pullRequestService.enqueueMerge(id);
+        return ResponseResult.success();
+    }
+
+    /**
+     * 把合并请求移出合并队列
+     *
+     * @param id 合并请求ID
+     * @return 响应信息
+     */
+    @PostMapping(value = "/dequeueMerge")
+    public ResponseResult<Object> dequeueMerge(@RequestParam(value = "id") String id) {
+        pullRequestService.dequeueMerge(id);
+        return ResponseResult.success();
+    }
 
+    /**
+     * 查询目标分支的合并队列
+     *
+     * @param projectId    项目ID
+     * @param targetBranch 目标分支
+     * @return 队列条目
+     */
+    @PostMapping(value = "/listMergeQueue")
+    public ResponseResult<List<MergeQueueEntryVO>> listMergeQueue(@RequestParam(value = "projectId") String projectId,
+                                                                  @RequestParam(value = "targetBranch") String targetBranch) {
+        return ResponseResult.success(pullRequestService.listMergeQueue(projectId, targetBranch));
+    }
 }
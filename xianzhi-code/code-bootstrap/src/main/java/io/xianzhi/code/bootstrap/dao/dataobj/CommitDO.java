@@ -21,6 +21,8 @@ import io.xianzhi.common.mybatis.plus.base.BaseDO;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
+import java.time.LocalDateTime;
+
 /**
  * 提交信息实体
  *
@@ -31,4 +33,64 @@ import lombok.EqualsAndHashCode;
 @TableName(value = "c_commit")
 @EqualsAndHashCode(callSuper = true)
 public class CommitDO extends BaseDO {
+
+    /**
+     * 项目ID
+     */
+    private String projectId;
+
+    /**
+     * 提交ID
+     */
+    private String commitId;
+
+    /**
+     * 父提交ID，多个以逗号分隔
+     */
+    private String parentIds;
+
+    /**
+     * 提交标题
+     */
+    private String title;
+
+    /**
+     * 完整的提交说明
+     */
+    private String message;
+
+    /**
+     * 作者名称
+     */
+    private String authorName;
+
+    /**
+     * 作者邮箱
+     */
+    private String authorEmail;
+
+    /**
+     * 作者时间
+     */
+    private LocalDateTime authorTime;
+
+    /**
+     * 提交者名称
+     */
+    private String committerName;
+
+    /**
+     * 提交者邮箱
+     */
+    private String committerEmail;
+
+    /**
+     * 提交时间
+     */
+    private LocalDateTime commitTime;
+
+    /**
+     * 相对第一个父提交修改的文件数量
+     */
+    private Integer changedFiles;
 }
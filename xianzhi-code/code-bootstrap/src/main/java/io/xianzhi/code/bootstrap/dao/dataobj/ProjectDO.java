@@ -61,4 +61,8 @@ public class ProjectDO extends BaseDO {
      * 项目类型
      */
     private String projectType;
+    /**
+     * fork 来源项目ID，不是 fork 的项目为空
+     */
+    private String forkFromId;
 }
@@ -16,9 +16,85 @@
 
 package io.xianzhi.code.bootstrap.dao.dataobj;
 
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.xianzhi.common.mybatis.plus.base.BaseDO;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
 /**
+ * 合并请求实体
+ *
  * @author Max
  * @since 1.0.0
  */
-public class PullRequestDO {
+@Data
+@TableName(value = "c_pull_request")
+@EqualsAndHashCode(callSuper = true)
+public class PullRequestDO extends BaseDO {
+
+    /**
+     * 目标项目ID
+     */
+    private String projectId;
+    /**
+     * 源项目ID，与目标项目相同或为 fork 出的项目
+     */
+    private String sourceProjectId;
+    /**
+     * 源分支
+     */
+    private String sourceBranch;
+    /**
+     * 目标分支
+     */
+    private String targetBranch;
+    /**
+     * 标题
+     */
+    private String title;
+    /**
+     * 描述
+     */
+    private String description;
+    /**
+     * 状态，见 PullRequestStatusEnum
+     */
+    private String status;
+    /**
+     * 能否合并，见 MergeStatusEnum
+     */
+    private String mergeStatus;
+    /**
+     * 冲突文件，每行一个路径
+     */
+    private String conflictFiles;
+    /**
+     * 检查能否合并时的源提交ID
+     */
+    private String mergeSourceCommitId;
+    /**
+     * 检查能否合并时的目标提交ID
+     */
+    private String mergeTargetCommitId;
+    /**
+     * 检查能否合并的时间
+     */
+    private LocalDateTime mergeCheckedAt;
+
+    /**
+     * 最近一次移出合并队列的原因，见 MergeQueueRejectReasonEnum，重新加入队列时清空
+     */
+    private String queueRejectReason;
+
+    /**
+     * 移出合并队列的说明，冲突时为冲突文件，流水线失败时为流水线ID
+     */
+    private String queueRejectDetail;
+
+    /**
+     * 移出合并队列的时间
+     */
+    private LocalDateTime queueRejectedAt;
 }
@@ -31,4 +31,29 @@ import lombok.EqualsAndHashCode;
 @TableName(value = "c_secret_key")
 @EqualsAndHashCode(callSuper = true)
 public class SecretKeyDO extends BaseDO {
+
+    /**
+     * 秘钥标题
+     */
+    private String title;
+
+    /**
+     * 公钥内容
+     */
+    private String publicKey;
+
+    /**
+     * 公钥 SHA256 指纹
+     */
+    private String fingerprint;
+
+    /**
+     * 秘钥所属用户ID
+     */
+    private String userId;
+
+    /**
+     * 部署秘钥所属项目ID，为空表示个人秘钥
+     */
+    private String projectId;
 }
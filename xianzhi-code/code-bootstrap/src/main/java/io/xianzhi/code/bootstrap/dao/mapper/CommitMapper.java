@@ -19,6 +19,10 @@ package io.xianzhi.code.bootstrap.dao.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import io.xianzhi.code.bootstrap.dao.dataobj.CommitDO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 提交信息持久层
@@ -28,4 +32,21 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface CommitMapper extends BaseMapper<CommitDO> {
+
+    /**
+     * 查询项目中已经存在的提交ID
+     *
+     * @param projectId 项目ID
+     * @param commitIds 待检查的提交ID
+     * @return 已经存在的提交ID
+     */
+    List<String> selectCommitIdsByProjectIdAndCommitIds(@Param("projectId") String projectId, @Param("commitIds") Collection<String> commitIds);
+
+    /**
+     * 批量新增提交
+     *
+     * @param commits 提交列表
+     * @return 新增数量
+     */
+    int insertBatchSomeColumn(@Param("list") List<CommitDO> commits);
 }
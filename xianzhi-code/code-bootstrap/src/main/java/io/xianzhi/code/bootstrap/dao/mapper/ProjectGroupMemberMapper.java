@@ -19,6 +19,9 @@ package io.xianzhi.code.bootstrap.dao.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import io.xianzhi.code.bootstrap.dao.dataobj.ProjectGroupMemberDO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Optional;
 
 /**
  * 项目组成员持久层
@@ -28,4 +31,13 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface ProjectGroupMemberMapper extends BaseMapper<ProjectGroupMemberDO> {
+
+    /**
+     * 查询用户在项目组中未过期的角色
+     *
+     * @param groupId 项目组ID
+     * @param userId  用户ID
+     * @return 角色编码
+     */
+    Optional<String> selectRoleCodeByGroupIdAndUserId(@Param("groupId") String groupId, @Param("userId") String userId);
 }
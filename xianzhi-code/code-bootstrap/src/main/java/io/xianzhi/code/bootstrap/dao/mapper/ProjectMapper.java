@@ -21,6 +21,7 @@ import io.xianzhi.code.bootstrap.dao.dataobj.ProjectDO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -60,4 +61,30 @@ public interface ProjectMapper extends BaseMapper<ProjectDO> {
      * @return 是否存在
      */
     boolean existsProjectByProjectPathAndGroupIdAndProjectType(@Param("projectPath") String projectPath, @Param("projectGroupId") String projectGroupId, @Param("projectType") String projectType);
+
+    /**
+     * 根据分组ID和项目路径查询项目ID
+     *
+     * @param projectGroupId 项目分组ID
+     * @param projectPath    项目路径
+     * @return 项目ID
+     */
+    Optional<String> selectProjectIdByGroupIdAndProjectPath(@Param("projectGroupId") String projectGroupId, @Param("projectPath") String projectPath);
+
+    /**
+     * 按ID顺序分批查询项目的仓库位置信息
+     *
+     * @param lastId 上一批最后一个项目ID，第一批传 null
+     * @param limit  每批数量
+     * @return 项目列表，只包含ID、分组ID和项目路径
+     */
+    List<ProjectDO> selectProjectLocationsAfterId(@Param("lastId") String lastId, @Param("limit") int limit);
+
+    /**
+     * 批量新增项目
+     *
+     * @param projects 项目列表
+     * @return 新增数量
+     */
+    int insertBatchSomeColumn(@Param("list") List<ProjectDO> projects);
 }
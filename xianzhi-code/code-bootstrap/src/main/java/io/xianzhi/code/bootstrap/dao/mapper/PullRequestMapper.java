@@ -17,8 +17,13 @@
 package io.xianzhi.code.bootstrap.dao.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
-import io.xianzhi.code.bootstrap.dao.dataobj.MergeRequestDO;
+import io.xianzhi.code.bootstrap.dao.dataobj.PullRequestDO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * PR持久层
@@ -27,5 +32,63 @@ import org.apache.ibatis.annotations.Mapper;
  * @since 1.0.0
  */
 @Mapper
-public interface PullRequestMapper extends BaseMapper<MergeRequestDO> {
+public interface PullRequestMapper extends BaseMapper<PullRequestDO> {
+
+    /**
+     * 根据合并请求ID查询合并请求
+     *
+     * @param id 合并请求ID
+     * @return 合并请求
+     */
+    Optional<PullRequestDO> selectPullRequestById(@Param("id") String id);
+
+    /**
+     * 查询以项目为目标或来源的合并请求
+     *
+     * @param projectId 项目ID
+     * @param status    合并请求状态
+     * @return 合并请求列表
+     */
+    List<PullRequestDO> selectPullRequestsByProjectIdAndStatus(@Param("projectId") String projectId, @Param("status") String status);
+
+    /**
+     * 更新能否合并的检查结果
+     *
+     * @param id                  合并请求ID
+     * @param mergeStatus         能否合并
+     * @param conflictFiles       冲突文件
+     * @param mergeSourceCommitId 检查时的源提交ID
+     * @param mergeTargetCommitId 检查时的目标提交ID
+     * @param mergeCheckedAt      检查时间
+     * @return 更新数量
+     */
+    int updateMergeStatusById(@Param("id") String id,
+                              @Param("mergeStatus") String mergeStatus,
+                              @Param("conflictFiles") String conflictFiles,
+                              @Param("mergeSourceCommitId") String mergeSourceCommitId,
+                              @Param("mergeTargetCommitId") String mergeTargetCommitId,
+                              @Param("mergeCheckedAt") LocalDateTime mergeCheckedAt);
+
+    /**
+     * 更新合并请求状态
+     *
+     * @param id     合并请求ID
+     * @param status 合并请求状态
+     * @return 更新数量
+     */
+    int updateStatusById(@Param("id") String id, @Param("status") String status);
+
+    /**
+     * 更新移出合并队列的原因，全部为 null 时清空
+     *
+     * @param id                合并请求ID
+     * @param queueRejectReason 移出原因
+     * @param queueRejectDetail 移出说明
+     * @param queueRejectedAt   移出时间
+     * @return 更新数量
+     */
+    int updateQueueRejectionById(@Param("id") String id,
+                                 @Param("queueRejectReason") String queueRejectReason,
+                                 @Param("queueRejectDetail") String queueRejectDetail,
+                                 @Param("queueRejectedAt") LocalDateTime queueRejectedAt);
 }
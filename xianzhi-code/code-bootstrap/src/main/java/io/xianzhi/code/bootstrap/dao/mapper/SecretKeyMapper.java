@@ -19,6 +19,10 @@ package io.xianzhi.code.bootstrap.dao.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import io.xianzhi.code.bootstrap.dao.dataobj.SecretKeyDO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 /**
  * 秘钥持久层
@@ -28,4 +32,42 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface SecretKeyMapper extends BaseMapper<SecretKeyDO> {
+
+    /**
+     * 查询全部有效秘钥
+     *
+     * @return 秘钥列表
+     */
+    List<SecretKeyDO> selectAllSecretKeys();
+
+    /**
+     * 根据公钥指纹查询秘钥
+     *
+     * @param fingerprint 公钥指纹
+     * @return 秘钥信息
+     */
+    Optional<SecretKeyDO> selectSecretKeyByFingerprint(@Param("fingerprint") String fingerprint);
+
+    /**
+     * 根据秘钥ID查询秘钥
+     *
+     * @param id 秘钥ID
+     * @return 秘钥信息
+     */
+    Optional<SecretKeyDO> selectSecretKeyById(@Param("id") String id);
+
+    /**
+     * 判断公钥指纹是否存在
+     *
+     * @param fingerprint 公钥指纹
+     * @return 是否存在
+     */
+    boolean existsSecretKeyByFingerprint(@Param("fingerprint") String fingerprint);
+
+    /**
+     * 根据秘钥ID删除秘钥
+     *
+     * @param id 秘钥ID
+     */
+    void deletedSecretKeyById(@Param("id") String id);
 }
@@ -0,0 +1,555 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.executor;
+
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.model.vo.AdmissionStatsVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * git 传输准入控制
+ * <p>
+ * SSH 和 HTTP 的 upload-pack/receive-pack 在打开仓库前都要先在这里排队。
+ * 全局和单仓库分别限制并发数，超出时进入该仓库自己的等待队列，有空位时按仓库轮转放行，
+ * 热点仓库的克隆风暴只会占满它自己的队列，其他仓库的请求仍然可以及时得到执行。
+ * 队列已满时立即拒绝并给出建议的重试时间，不让请求在服务端长时间堆积。
+ * 另外可以按全局和单仓库限制 pack 的发送速率。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdmissionController implements InitializingBean {
+
+    /**
+     * 排队时间分布的桶上界(毫秒)
+     */
+    private static final long[] WAIT_BUCKETS = {10, 50, 100, 500, 1000, 5000, 10000, 30000};
+
+    /**
+     * 限速时单次写出的最大字节数，避免一次大块写入长时间睡眠
+     */
+    private static final int THROTTLE_CHUNK = 64 * 1024;
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 保护排队状态的锁
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 仓库 -> 排队状态，仓库空闲后移除
+     */
+    private final Map<String, RepositoryQueue> repositories = new HashMap<>();
+
+    /**
+     * 有请求在等待且仍有并发空位的仓库，按顺序轮转放行
+     */
+    private final Deque<RepositoryQueue> ready = new ArrayDeque<>();
+
+    /**
+     * 排队时间分布
+     */
+    private final LongAdder[] waitHistogram = new LongAdder[WAIT_BUCKETS.length + 1];
+
+    /**
+     * 准入的请求数量
+     */
+    private final LongAdder admitted = new LongAdder();
+
+    /**
+     * 经过排队才准入的请求数量
+     */
+    private final LongAdder delayed = new LongAdder();
+
+    /**
+     * 队列已满被拒绝的请求数量
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 排队超时的请求数量
+     */
+    private final LongAdder timedOut = new LongAdder();
+
+    /**
+     * 累计排队时间(毫秒)
+     */
+    private final LongAdder waitMillis = new LongAdder();
+
+    /**
+     * 因限速累计等待的时间(纳秒)
+     */
+    private final LongAdder throttledNanos = new LongAdder();
+
+    /**
+     * 正在执行的请求数量
+     */
+    private int running;
+
+    /**
+     * 排队中的请求数量
+     */
+    private int queued;
+
+    /**
+     * 请求平均占用时间(毫秒)，用于估算重试时间
+     */
+    private volatile long averageHoldMillis = 1000;
+
+    /**
+     * 全局发送速率限制，未配置时为 null
+     */
+    private ByteRateLimiter globalLimiter;
+
+    /**
+     * 申请准入，必要时排队等待
+     *
+     * @param repository 仓库目录
+     * @return 准入凭证，请求结束后需要关闭
+     * @throws AdmissionRejectedException 如果队列已满或排队超时
+     * @throws InterruptedException       如果等待被中断
+     */
+    public Ticket admit(String repository) throws InterruptedException {
+        CodeServerProperties.Admission config = codeServerProperties.getAdmission();
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            return new Ticket(null, repository);
+        }
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            RepositoryQueue queue = repositories.computeIfAbsent(repository, key -> new RepositoryQueue(config.getPerRepositoryBytesPerSecond()));
+            // 有空位且本仓库没有人在排队时直接放行; 有空位时 ready 一定为空, 不会插队
+            if (running < config.getGlobalLimit() && queue.running < config.getPerRepositoryLimit() && queue.waiters.isEmpty()) {
+                grant(queue);
+                recordWait(0);
+                return new Ticket(queue, repository);
+            }
+            if (queued >= config.getMaxQueue()) {
+                discardIfIdle(repository, queue);
+                rejected.increment();
+                throw new AdmissionRejectedException("代码服务繁忙", retryAfterSeconds());
+            }
+            if (queue.waiters.size() >= config.getPerRepositoryQueue()) {
+                discardIfIdle(repository, queue);
+                rejected.increment();
+                throw new AdmissionRejectedException("当前仓库请求过多", retryAfterSeconds());
+            }
+            Waiter waiter = new Waiter(lock.newCondition());
+            queue.waiters.addLast(waiter);
+            queued++;
+            if (!queue.ready && queue.running < config.getPerRepositoryLimit()) {
+                queue.ready = true;
+                ready.addLast(queue);
+            }
+            long nanos = config.getQueueTimeout().toNanos();
+            try {
+                while (!waiter.granted && nanos > 0) {
+                    nanos = waiter.condition.awaitNanos(nanos);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    release(repository, queue);
+                } else {
+                    abandon(repository, queue, waiter);
+                }
+                throw e;
+            }
+            if (!waiter.granted) {
+                abandon(repository, queue, waiter);
+                timedOut.increment();
+                throw new AdmissionRejectedException("排队超时", retryAfterSeconds());
+            }
+            delayed.increment();
+            recordWait(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return new Ticket(queue, repository);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 查询准入统计信息
+     *
+     * @return 统计信息
+     */
+    public AdmissionStatsVO stats() {
+        AdmissionStatsVO stats = new AdmissionStatsVO();
+        lock.lock();
+        try {
+            stats.setRunning(running);
+            stats.setQueued(queued);
+            stats.setRepositories(repositories.size());
+        } finally {
+            lock.unlock();
+        }
+        long count = admitted.sum();
+        stats.setAdmitted(count);
+        stats.setDelayed(delayed.sum());
+        stats.setRejected(rejected.sum());
+        stats.setTimedOut(timedOut.sum());
+        stats.setAverageQueueWaitMillis(count == 0 ? 0 : waitMillis.sum() / count);
+        stats.setThrottledMillis(TimeUnit.NANOSECONDS.toMillis(throttledNanos.sum()));
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < WAIT_BUCKETS.length; i++) {
+            histogram.put("<=" + WAIT_BUCKETS[i] + "ms", waitHistogram[i].sum());
+        }
+        histogram.put(">" + WAIT_BUCKETS[WAIT_BUCKETS.length - 1] + "ms", waitHistogram[WAIT_BUCKETS.length].sum());
+        stats.setQueueWait(histogram);
+        return stats;
+    }
+
+    /**
+     * 初始化统计和全局限速
+     */
+    @Override
+    public void afterPropertiesSet() {
+        for (int i = 0; i < waitHistogram.length; i++) {
+            waitHistogram[i] = new LongAdder();
+        }
+        CodeServerProperties.Admission config = codeServerProperties.getAdmission();
+        if (config.getGlobalBytesPerSecond() > 0) {
+            globalLimiter = new ByteRateLimiter(config.getGlobalBytesPerSecond());
+        }
+        log.info("git传输准入控制初始化完成, globalLimit: {}, perRepositoryLimit: {}, maxQueue: {}",
+                config.getGlobalLimit(), config.getPerRepositoryLimit(), config.getMaxQueue());
+    }
+
+    /**
+     * 占用一个并发名额，调用方需持有锁
+     *
+     * @param queue 仓库排队状态
+     */
+    private void grant(RepositoryQueue queue) {
+        running++;
+        queue.running++;
+        admitted.increment();
+    }
+
+    /**
+     * 归还并发名额并放行等待的请求，调用方需持有锁
+     *
+     * @param repository 仓库目录
+     * @param queue      仓库排队状态
+     */
+    private void release(String repository, RepositoryQueue queue) {
+        running--;
+        queue.running--;
+        if (!queue.waiters.isEmpty() && !queue.ready) {
+            queue.ready = true;
+            ready.addLast(queue);
+        }
+        dispatch();
+        discardIfIdle(repository, queue);
+    }
+
+    /**
+     * 按仓库轮转，每个仓库每轮放行一个请求，直到全局名额用完，调用方需持有锁
+     */
+    private void dispatch() {
+        CodeServerProperties.Admission config = codeServerProperties.getAdmission();
+        while (running < config.getGlobalLimit() && !ready.isEmpty()) {
+            RepositoryQueue queue = ready.pollFirst();
+            queue.ready = false;
+            if (queue.waiters.isEmpty() || queue.running >= config.getPerRepositoryLimit()) {
+                // 仓库名额满时暂时移出, 等它释放名额后再加入
+                continue;
+            }
+            Waiter waiter = queue.waiters.pollFirst();
+            queued--;
+            grant(queue);
+            waiter.granted = true;
+            waiter.condition.signal();
+            if (!queue.waiters.isEmpty() && queue.running < config.getPerRepositoryLimit()) {
+                queue.ready = true;
+                ready.addLast(queue);
+            }
+        }
+    }
+
+    /**
+     * 放弃排队，调用方需持有锁
+     *
+     * @param repository 仓库目录
+     * @param queue      仓库排队状态
+     * @param waiter     等待者
+     */
+    private void abandon(String repository, RepositoryQueue queue, Waiter waiter) {
+        queue.waiters.remove(waiter);
+        queued--;
+        if (queue.waiters.isEmpty() && queue.ready) {
+            queue.ready = false;
+            ready.remove(queue);
+        }
+        discardIfIdle(repository, queue);
+    }
+
+    /**
+     * 仓库没有执行中和排队中的请求时移除其状态，调用方需持有锁
+     *
+     * @param repository 仓库目录
+     * @param queue      仓库排队状态
+     */
+    private void discardIfIdle(String repository, RepositoryQueue queue) {
+        if (queue.running == 0 && queue.waiters.isEmpty()) {
+            repositories.remove(repository, queue);
+        }
+    }
+
+    /**
+     * 记录排队时间
+     *
+     * @param millis 排队时间(毫秒)
+     */
+    private void recordWait(long millis) {
+        waitMillis.add(millis);
+        int bucket = 0;
+        while (bucket < WAIT_BUCKETS.length && millis > WAIT_BUCKETS[bucket]) {
+            bucket++;
+        }
+        waitHistogram[bucket].increment();
+    }
+
+    /**
+     * 按平均占用时间和排队长度估算客户端的重试等待时间
+     *
+     * @return 建议的重试等待秒数
+     */
+    private long retryAfterSeconds() {
+        int globalLimit = Math.max(1, codeServerProperties.getAdmission().getGlobalLimit());
+        double seconds = averageHoldMillis * (queued + 1.0) / globalLimit / 1000;
+        return Math.min(600, Math.max(1, (long) Math.ceil(seconds)));
+    }
+
+    /**
+     * 仓库排队状态，除限速器外的字段都由锁保护
+     */
+    private static class RepositoryQueue {
+
+        /**
+         * 等待中的请求
+         */
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+        /**
+         * 单仓库发送速率限制，未配置时为 null
+         */
+        private final ByteRateLimiter limiter;
+
+        /**
+         * 正在执行的请求数量
+         */
+        private int running;
+
+        /**
+         * 是否在轮转队列中
+         */
+        private boolean ready;
+
+        /**
+         * 构造方法
+         *
+         * @param bytesPerSecond 单仓库每秒允许发送的字节数，0表示不限制
+         */
+        RepositoryQueue(long bytesPerSecond) {
+            this.limiter = bytesPerSecond > 0 ? new ByteRateLimiter(bytesPerSecond) : null;
+        }
+    }
+
+    /**
+     * 等待者
+     */
+    private static class Waiter {
+
+        /**
+         * 等待条件
+         */
+        private final Condition condition;
+
+        /**
+         * 是否已获得名额
+         */
+        private boolean granted;
+
+        /**
+         * 构造方法
+         *
+         * @param condition 等待条件
+         */
+        Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * 准入凭证
+     */
+    public class Ticket implements AutoCloseable {
+
+        /**
+         * 仓库排队状态，准入控制关闭时为 null
+         */
+        private final RepositoryQueue queue;
+
+        /**
+         * 仓库目录
+         */
+        private final String repository;
+
+        /**
+         * 准入时间
+         */
+        private final long admittedAt = System.nanoTime();
+
+        /**
+         * 是否已归还
+         */
+        private boolean closed;
+
+        /**
+         * 构造方法
+         *
+         * @param queue      仓库排队状态
+         * @param repository 仓库目录
+         */
+        Ticket(RepositoryQueue queue, String repository) {
+            this.queue = queue;
+            this.repository = repository;
+        }
+
+        /**
+         * 包装输出流，按全局和仓库的发送速率限速
+         *
+         * @param out 输出流
+         * @return 限速后的输出流，未配置限速时返回原输出流
+         */
+        public OutputStream throttle(OutputStream out) {
+            if (queue == null || (globalLimiter == null && queue.limiter == null)) {
+                return out;
+            }
+            return new ThrottledOutputStream(out, this);
+        }
+
+        /**
+         * 扣减发送额度，额度不足时等待
+         *
+         * @param bytes 字节数
+         * @throws InterruptedIOException 如果等待被中断
+         */
+        void consume(int bytes) throws InterruptedIOException {
+            long wait = globalLimiter != null ? globalLimiter.reserve(bytes) : 0;
+            if (queue.limiter != null) {
+                wait = Math.max(wait, queue.limiter.reserve(bytes));
+            }
+            if (wait <= 0) {
+                return;
+            }
+            throttledNanos.add(wait);
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("限速等待被中断");
+            }
+        }
+
+        /**
+         * 归还并发名额
+         */
+        @Override
+        public void close() {
+            if (queue == null) {
+                return;
+            }
+            long holdMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - admittedAt);
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                averageHoldMillis = (averageHoldMillis * 7 + holdMillis) / 8;
+                release(repository, queue);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 限速输出流
+     */
+    private static class ThrottledOutputStream extends FilterOutputStream {
+
+        /**
+         * 准入凭证
+         */
+        private final Ticket ticket;
+
+        /**
+         * 构造方法
+         *
+         * @param out    输出流
+         * @param ticket 准入凭证
+         */
+        ThrottledOutputStream(OutputStream out, Ticket ticket) {
+            super(out);
+            this.ticket = ticket;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ticket.consume(1);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, THROTTLE_CHUNK);
+                ticket.consume(n);
+                out.write(b, off, n);
+                off += n;
+                len -= n;
+            }
+        }
+    }
+}
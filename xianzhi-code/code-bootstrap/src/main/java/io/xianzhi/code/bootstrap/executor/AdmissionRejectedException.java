@@ -0,0 +1,47 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.executor;
+
+import lombok.Getter;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 准入被拒绝异常，携带建议的重试等待时间
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Getter
+public class AdmissionRejectedException extends RejectedExecutionException {
+
+    /**
+     * 建议客户端等待多少秒后重试
+     */
+    private final long retryAfterSeconds;
+
+    /**
+     * 构造方法
+     *
+     * @param message           提示信息
+     * @param retryAfterSeconds 建议的重试等待秒数
+     */
+    public AdmissionRejectedException(String message, long retryAfterSeconds) {
+        super(message + ", 请 " + retryAfterSeconds + " 秒后重试");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
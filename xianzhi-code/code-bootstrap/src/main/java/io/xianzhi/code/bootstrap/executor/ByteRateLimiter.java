@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.executor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 字节速率限制(令牌桶)
+ * <p>
+ * 桶容量为一秒的额度，允许短时突发。额度不足时允许透支，调用方按返回的时间等待，
+ * 这样多个请求共享同一个桶时总吞吐仍然被限制在设定速率。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+public class ByteRateLimiter {
+
+    /**
+     * 每秒允许的字节数
+     */
+    private final long bytesPerSecond;
+
+    /**
+     * 当前可用额度，可以为负数表示透支
+     */
+    private double available;
+
+    /**
+     * 上次补充额度的时间
+     */
+    private long lastRefill;
+
+    /**
+     * 构造方法
+     *
+     * @param bytesPerSecond 每秒允许的字节数
+     */
+    public ByteRateLimiter(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.available = bytesPerSecond;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * 预占额度
+     *
+     * @param bytes 字节数
+     * @return 需要等待的纳秒数，0表示无需等待
+     */
+    public synchronized long reserve(long bytes) {
+        long now = System.nanoTime();
+        available = Math.min(bytesPerSecond, available + (now - lastRefill) * (double) bytesPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefill = now;
+        available -= bytes;
+        if (available >= 0) {
+            return 0;
+        }
+        return (long) (-available * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond);
+    }
+}
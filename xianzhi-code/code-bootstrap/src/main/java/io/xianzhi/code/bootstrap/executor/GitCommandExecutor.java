@@ -0,0 +1,219 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.executor;
+
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.model.vo.GitExecutorStatsVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.sshd.common.util.threads.CloseableExecutorService;
+import org.apache.sshd.common.util.threads.SshThreadPoolExecutor;
+import org.apache.sshd.common.util.threads.SshdThreadFactory;
+import org.apache.sshd.common.util.threads.ThreadUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SSH git命令执行器
+ * <p>
+ * 所有 SSH git 命令共用一个弹性线程池，空闲线程按 keepAlive 回收，排队满时直接拒绝。
+ * 在线程池之上再按用户限制并发，避免单个用户占满全部线程，仓库维度的并发由 {@link AdmissionController} 控制。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GitCommandExecutor implements InitializingBean, DisposableBean {
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 用户 -> 并发许可，用户的命令全部结束后移除
+     */
+    private final Map<String, UserPermit> userPermits = new ConcurrentHashMap<>();
+
+    /**
+     * 线程池满被拒绝的命令数量
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 超出并发上限被拒绝的命令数量
+     */
+    private final LongAdder throttled = new LongAdder();
+
+    /**
+     * 线程池
+     */
+    private SshThreadPoolExecutor executor;
+
+    /**
+     * 获取提供给 git 命令使用的线程池。
+     * 命令结束时 SSHD 会关闭命令的线程池，这里返回不可关闭的包装，避免共享线程池被关掉。
+     *
+     * @return 线程池
+     */
+    public CloseableExecutorService executorService() {
+        return ThreadUtils.noClose(executor);
+    }
+
+    /**
+     * 获取用户的并发许可
+     *
+     * @param user 用户
+     * @return 并发许可，使用完成后需要关闭
+     * @throws RejectedExecutionException 如果等待超时
+     * @throws InterruptedException       如果等待被中断
+     */
+    public Permit acquire(String user) throws InterruptedException {
+        CodeServerProperties.GitExecutor config = codeServerProperties.getGitExecutor();
+        // 持有和等待许可的命令都计入引用, 引用归零时移除, 避免每个连接过的用户都留下一条记录
+        UserPermit userPermit = userPermits.compute(user, (key, existing) -> {
+            UserPermit permit = existing != null ? existing : new UserPermit(new Semaphore(config.getPerUserLimit()));
+            permit.references++;
+            return permit;
+        });
+        boolean acquired = false;
+        try {
+            acquired = userPermit.semaphore.tryAcquire(config.getPermitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } finally {
+            if (!acquired) {
+                dereference(user, userPermit);
+            }
+        }
+        if (!acquired) {
+            throttled.increment();
+            throw new RejectedExecutionException("当前用户并发执行的git命令过多, 请稍后重试");
+        }
+        return new Permit(user, userPermit);
+    }
+
+    /**
+     * 释放用户许可的引用，没有命令持有或等待时移除
+     *
+     * @param user       用户
+     * @param userPermit 用户许可
+     */
+    private void dereference(String user, UserPermit userPermit) {
+        userPermits.computeIfPresent(user, (key, existing) -> existing == userPermit && --existing.references == 0 ? null : existing);
+    }
+
+    /**
+     * 查询线程池统计信息
+     *
+     * @return 统计信息
+     */
+    public GitExecutorStatsVO stats() {
+        GitExecutorStatsVO stats = new GitExecutorStatsVO();
+        stats.setActiveCount(executor.getActiveCount());
+        stats.setPoolSize(executor.getPoolSize());
+        stats.setMaxPoolSize(executor.getMaximumPoolSize());
+        stats.setQueueDepth(executor.getQueue().size());
+        stats.setCompletedCount(executor.getCompletedTaskCount());
+        stats.setRejectedCount(rejected.sum());
+        stats.setThrottledCount(throttled.sum());
+        return stats;
+    }
+
+    /**
+     * 初始化线程池
+     */
+    @Override
+    public void afterPropertiesSet() {
+        CodeServerProperties.GitExecutor config = codeServerProperties.getGitExecutor();
+        int maxThreads = Math.max(1, config.getMaxThreads());
+        // core = max 且允许核心线程超时, 线程数随负载在 0 ~ max 之间伸缩
+        executor = new SshThreadPoolExecutor(maxThreads, maxThreads,
+                config.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, config.getQueueCapacity())),
+                new SshdThreadFactory("git-executor"),
+                (task, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("git命令排队已满, 请稍后重试");
+                });
+        executor.allowCoreThreadTimeOut(true);
+        log.info("git命令线程池初始化完成, maxThreads: {}, queueCapacity: {}", maxThreads, config.getQueueCapacity());
+    }
+
+    /**
+     * 关闭线程池
+     */
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 用户的并发许可
+     */
+    @RequiredArgsConstructor
+    private static class UserPermit {
+
+        /**
+         * 许可
+         */
+        private final Semaphore semaphore;
+
+        /**
+         * 持有和等待许可的命令数量，只在 {@link #userPermits} 的 compute 中修改
+         */
+        private int references;
+    }
+
+    /**
+     * 并发许可
+     */
+    @RequiredArgsConstructor
+    public class Permit implements AutoCloseable {
+
+        /**
+         * 用户
+         */
+        private final String user;
+
+        /**
+         * 用户许可
+         */
+        private final UserPermit userPermit;
+
+        /**
+         * 释放许可
+         */
+        @Override
+        public void close() {
+            userPermit.semaphore.release();
+            dereference(user, userPermit);
+        }
+    }
+}
@@ -16,10 +16,15 @@
 
 package io.xianzhi.code.bootstrap.factory;
 
+import io.xianzhi.code.bootstrap.businsess.ProjectAccessBusiness;
+import io.xianzhi.code.bootstrap.command.GitReceivePackCommand;
 import io.xianzhi.code.bootstrap.command.GitUploadPackCommand;
+import io.xianzhi.code.bootstrap.executor.AdmissionController;
+import io.xianzhi.code.bootstrap.executor.GitCommandExecutor;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
 import lombok.Getter;
-import org.apache.sshd.common.util.threads.CloseableExecutorService;
-import org.apache.sshd.common.util.threads.ThreadUtils;
 import org.apache.sshd.git.AbstractGitCommand;
 import org.apache.sshd.git.AbstractGitCommandFactory;
 import org.apache.sshd.git.GitLocationResolver;
@@ -37,15 +42,53 @@ public class XianZhiGitCommandFactory extends AbstractGitCommandFactory {
     private static final String GIT_COMMAND_PREFIX = "git ";
     @Getter
     private final GitLocationResolver gitLocationResolver;
-    CloseableExecutorService executorService = ThreadUtils.newFixedThreadPool("git-executor",2);
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+    /**
+     * git命令执行器
+     */
+    private final GitCommandExecutor gitCommandExecutor;
+    /**
+     * git传输准入控制
+     */
+    private final AdmissionController admissionController;
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+    /**
+     * upload-pack 工厂
+     */
+    private final XianZhiUploadPackFactory uploadPackFactory;
+    /**
+     * receive-pack 工厂
+     */
+    private final XianZhiReceivePackFactory receivePackFactory;
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+    /**
+     * 项目访问权限
+     */
+    private final ProjectAccessBusiness projectAccessBusiness;
 
-
-    public XianZhiGitCommandFactory(GitLocationResolver gitLocationResolver) {
+    public XianZhiGitCommandFactory(GitLocationResolver gitLocationResolver, RepositoryPool repositoryPool, GitCommandExecutor gitCommandExecutor, AdmissionController admissionController, RepositoryLockManager repositoryLockManager, XianZhiUploadPackFactory uploadPackFactory, XianZhiReceivePackFactory receivePackFactory, RepositoryLocationResolver repositoryLocationResolver, ProjectAccessBusiness projectAccessBusiness) {
         super(GIT_FACTORY_NAME, GIT_COMMAND_PREFIX);
         if (gitLocationResolver == null) {
             throw new IllegalArgumentException("GitLocationResolver cannot be null");
         }
         this.gitLocationResolver = gitLocationResolver;
+        this.repositoryPool = repositoryPool;
+        this.gitCommandExecutor = gitCommandExecutor;
+        this.admissionController = admissionController;
+        this.repositoryLockManager = repositoryLockManager;
+        this.uploadPackFactory = uploadPackFactory;
+        this.receivePackFactory = receivePackFactory;
+        this.repositoryLocationResolver = repositoryLocationResolver;
+        this.projectAccessBusiness = projectAccessBusiness;
         withGitLocationResolver(gitLocationResolver);
     }
 
@@ -63,7 +106,10 @@ public class XianZhiGitCommandFactory extends AbstractGitCommandFactory {
         String arguments = parts.length > 1 ? parts[1] : "";
 
         if ("git-upload-pack".equals(commandType)) {
-            return new GitUploadPackCommand(gitLocationResolver, arguments, executorService);
+            return new GitUploadPackCommand(gitLocationResolver, repositoryPool, gitCommandExecutor, admissionController, repositoryLockManager, uploadPackFactory, repositoryLocationResolver, projectAccessBusiness, arguments, gitCommandExecutor.executorService());
+        }
+        if ("git-receive-pack".equals(commandType)) {
+            return new GitReceivePackCommand(gitLocationResolver, repositoryPool, gitCommandExecutor, admissionController, repositoryLockManager, receivePackFactory, repositoryLocationResolver, projectAccessBusiness, arguments, gitCommandExecutor.executorService());
         }
 
         throw new IllegalArgumentException("Unsupported Git command: " + commandType);
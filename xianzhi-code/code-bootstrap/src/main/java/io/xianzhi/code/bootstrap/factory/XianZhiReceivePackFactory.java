@@ -16,17 +16,44 @@
 
 package io.xianzhi.code.bootstrap.factory;
 
+import io.xianzhi.code.bootstrap.maintenance.CommitIndexer;
+import io.xianzhi.code.bootstrap.maintenance.MergeabilityChecker;
+import io.xianzhi.code.bootstrap.maintenance.RepositoryMaintenanceScheduler;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.ReceiveQuarantine;
+import io.xianzhi.code.bootstrap.repository.RefAdvertisementCache;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockTimeoutException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.lib.BatchRefUpdate;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.ReceiveCommand;
 import org.eclipse.jgit.transport.ReceivePack;
 import org.eclipse.jgit.transport.resolver.ReceivePackFactory;
 import org.eclipse.jgit.transport.resolver.ServiceNotAuthorizedException;
 import org.eclipse.jgit.transport.resolver.ServiceNotEnabledException;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 
 /**
+ * receive-pack 工厂，SSH 和 HTTP 两条链路共用同一套 ReceivePack 配置
+ * <p>
+ * 推送的 pack 边读边写入隔离区并建立索引，读取过程中超出大小上限立即中断；
+ * 连通性检查只遍历新对象，检查通过后才把 pack 移入正式仓库，并通过一次原子的 {@link BatchRefUpdate} 更新全部引用，
+ * 迁移和更新期间持有这些引用的更新锁。
+ * 推送完成后使引用通告缓存失效，并记录推送次数供后台维护判断是否需要重新打包。
+ * </p>
+ *
  * @author Max
  * @since 1.0.0
  */
@@ -34,6 +61,42 @@ import org.springframework.stereotype.Component;
 @Component
 @RequiredArgsConstructor
 public class XianZhiReceivePackFactory implements ReceivePackFactory<HttpServletRequest> {
+
+    /**
+     * HTTP 请求中保存隔离区的属性名称，只在 POST 推送时创建，推送结束后由 receive-pack 错误处理器关闭
+     */
+    public static final String QUARANTINE_ATTRIBUTE = XianZhiReceivePackFactory.class.getName() + ".quarantine";
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 引用通告缓存
+     */
+    private final RefAdvertisementCache refAdvertisementCache;
+
+    /**
+     * 仓库后台维护
+     */
+    private final RepositoryMaintenanceScheduler repositoryMaintenanceScheduler;
+
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+
+    /**
+     * 提交索引
+     */
+    private final CommitIndexer commitIndexer;
+
+    /**
+     * 合并请求冲突检查
+     */
+    private final MergeabilityChecker mergeabilityChecker;
+
     /**
      * Create and configure a new ReceivePack instance for a repository.
      *
@@ -48,6 +111,132 @@ public class XianZhiReceivePackFactory implements ReceivePackFactory<HttpServlet
      */
     @Override
     public ReceivePack create(HttpServletRequest req, Repository db) throws ServiceNotEnabledException, ServiceNotAuthorizedException {
-        return null;
+        String user = req.getRemoteUser();
+        // GitAuthenticationFilter 认证、GitFilter 校验写权限后才会到这里, 这里只兜底拒绝匿名推送
+        if (!StringUtils.hasText(user)) {
+            throw new ServiceNotAuthorizedException();
+        }
+        PersonIdent ident = new PersonIdent(user, user + "@" + req.getRemoteHost());
+        if (!"POST".equals(req.getMethod())) {
+            // info/refs 只通告引用, 不接收对象, 不创建隔离区
+            ReceivePack receivePack = new ReceivePack(db);
+            configure(receivePack, ident);
+            return receivePack;
+        }
+        ReceiveQuarantine quarantine;
+        try {
+            quarantine = ReceiveQuarantine.create(db);
+        } catch (IOException e) {
+            log.error("创建推送隔离区失败: {}", db.getDirectory(), e);
+            throw new ServiceNotEnabledException(e.getMessage(), e);
+        }
+        req.setAttribute(QUARANTINE_ATTRIBUTE, quarantine);
+        return newReceivePack(db, quarantine, ident);
+    }
+
+    /**
+     * 创建并配置 ReceivePack，调用方负责在推送结束后关闭隔离区
+     *
+     * @param db         仓库
+     * @param quarantine 推送隔离区
+     * @param ident      推送人，用于写入引用日志
+     * @return ReceivePack
+     */
+    public ReceivePack newReceivePack(Repository db, ReceiveQuarantine quarantine, PersonIdent ident) {
+        ReceivePack receivePack = new ReceivePack(quarantine.getRepository());
+        configure(receivePack, ident);
+        // 在 ReceivePack 执行引用更新之前由这里完成迁移和更新, ReceivePack 只负责回报结果
+        receivePack.setPreReceiveHook((rp, commands) -> applyCommands(db, quarantine, ident, commands));
+        File gitDir = db.getDirectory();
+        receivePack.setPostReceiveHook((rp, commands) -> {
+            refAdvertisementCache.invalidate(gitDir);
+            repositoryMaintenanceScheduler.recordPush(gitDir);
+            // 只入队, 推送响应不等待索引
+            commitIndexer.submit(gitDir);
+            mergeabilityChecker.onPush(gitDir, commands);
+        });
+        return receivePack;
+    }
+
+    /**
+     * 设置通告和接收共用的参数，info/refs 通告的能力与实际推送时保持一致
+     *
+     * @param receivePack ReceivePack
+     * @param ident       推送人
+     */
+    private void configure(ReceivePack receivePack, PersonIdent ident) {
+        CodeServerProperties.Receive config = codeServerProperties.getReceive();
+        receivePack.setRefLogIdent(ident);
+        receivePack.setTimeout((int) codeServerProperties.getTransfer().getTimeout().toSeconds());
+        receivePack.setAtomic(true);
+        if (config.getMaxPackSize() > 0) {
+            receivePack.setMaxPackSizeLimit(config.getMaxPackSize());
+        }
+        if (config.getMaxObjectSize() > 0) {
+            receivePack.setMaxObjectSizeLimit(config.getMaxObjectSize());
+        }
+        receivePack.setCheckReceivedObjects(Boolean.TRUE.equals(config.getCheckReceivedObjects()));
+    }
+
+    /**
+     * 把隔离区的 pack 移入正式仓库，再原子地更新全部引用
+     *
+     * @param db         仓库
+     * @param quarantine 推送隔离区
+     * @param ident      推送人
+     * @param commands   推送命令
+     */
+    private void applyCommands(Repository db, ReceiveQuarantine quarantine, PersonIdent ident, Collection<ReceiveCommand> commands) {
+        List<ReceiveCommand> pending = ReceiveCommand.filter(commands, ReceiveCommand.Result.NOT_ATTEMPTED);
+        if (pending.isEmpty()) {
+            return;
+        }
+        // 同一引用的并发推送在这里排队, 而不是在引用锁文件上直接失败
+        RepositoryLockManager.Hold lock;
+        try {
+            lock = repositoryLockManager.lockRefs(db.getDirectory(), pending.stream().map(ReceiveCommand::getRefName).toList());
+        } catch (RepositoryLockTimeoutException e) {
+            for (ReceiveCommand command : pending) {
+                command.setResult(ReceiveCommand.Result.REJECTED_OTHER_REASON, e.getMessage());
+            }
+            return;
+        }
+        try (lock) {
+            try {
+                quarantine.migrate();
+            } catch (IOException e) {
+                log.error("迁移推送对象失败: {}", db.getDirectory(), e);
+                ReceiveCommand.abort(pending);
+                return;
+            }
+            updateRefs(db, ident, pending);
+        }
+    }
+
+    /**
+     * 原子地更新全部引用
+     *
+     * @param db      仓库
+     * @param ident   推送人
+     * @param pending 待执行的推送命令
+     */
+    private void updateRefs(Repository db, PersonIdent ident, List<ReceiveCommand> pending) {
+        BatchRefUpdate batchRefUpdate = db.getRefDatabase().newBatchUpdate();
+        batchRefUpdate.setAtomic(true);
+        // 快进检查已经由 ReceivePack 按仓库配置完成
+        batchRefUpdate.setAllowNonFastForwards(true);
+        batchRefUpdate.setRefLogIdent(ident);
+        batchRefUpdate.setRefLogMessage("push", true);
+        batchRefUpdate.addCommand(pending);
+        try (RevWalk revWalk = new RevWalk(db)) {
+            batchRefUpdate.execute(revWalk, NullProgressMonitor.INSTANCE);
+        } catch (IOException e) {
+            log.error("更新引用失败: {}", db.getDirectory(), e);
+            for (ReceiveCommand command : pending) {
+                if (command.getResult() == ReceiveCommand.Result.NOT_ATTEMPTED) {
+                    command.setResult(ReceiveCommand.Result.REJECTED_OTHER_REASON, e.getMessage());
+                }
+            }
+        }
     }
 }
@@ -16,17 +16,42 @@
 
 package io.xianzhi.code.bootstrap.factory;
 
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.PackfileUriPublisher;
+import io.xianzhi.code.bootstrap.repository.PartialClonePolicy;
+import io.xianzhi.code.bootstrap.repository.RefAdvertisementCache;
+import io.xianzhi.code.bootstrap.repository.UploadPackStatistics;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.Pack;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.ConfigConstants;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.pack.PackConfig;
+import org.eclipse.jgit.transport.TransferConfig;
 import org.eclipse.jgit.transport.UploadPack;
 import org.eclipse.jgit.transport.resolver.ServiceNotAuthorizedException;
 import org.eclipse.jgit.transport.resolver.ServiceNotEnabledException;
 import org.eclipse.jgit.transport.resolver.UploadPackFactory;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
+import java.io.IOException;
+
 /**
+ * upload-pack 工厂，SSH 和 HTTP 两条链路共用同一套 UploadPack 配置
+ * <p>
+ * JGit 在打包时会检查带位图索引的 pack(后台维护 GC 生成的全部分支和标签的 pack)，
+ * 如果客户端需要的对象完整覆盖了这个 pack，就把它作为 cached pack 原样输出，只对剩余的增量对象重新打包。
+ * 这里挂上统计钩子记录 cached pack 命中情况，热门仓库命中率下降时提前安排重新打包。
+ * </p>
+ * <p>
+ * 实时打包的增量窗口按仓库大小分档配置，pack 直接写入响应流，不在内存中缓冲。
+ * CI 等只需要最新代码的客户端可以使用 --depth 浅克隆或 --filter=blob:none 等部分克隆，限制见 {@link PartialClonePolicy}。
+ * </p>
+ *
  * @author Max
  * @since 1.0.0
  */
@@ -34,6 +59,47 @@ import org.springframework.stereotype.Component;
 @Component
 @RequiredArgsConstructor
 public class XianZhiUploadPackFactory implements UploadPackFactory<HttpServletRequest> {
+
+    /**
+     * upload-pack 配置节
+     */
+    private static final String UPLOAD_PACK_SECTION = "uploadpack";
+
+    /**
+     * 是否允许部分克隆过滤
+     */
+    private static final String ALLOW_FILTER = "allowfilter";
+
+    /**
+     * 是否允许拉取可达的任意对象
+     */
+    private static final String ALLOW_REACHABLE_SHA1_IN_WANT = "allowreachablesha1inwant";
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 引用通告缓存
+     */
+    private final RefAdvertisementCache refAdvertisementCache;
+
+    /**
+     * upload-pack 统计
+     */
+    private final UploadPackStatistics uploadPackStatistics;
+
+    /**
+     * packfile-uris 发布
+     */
+    private final PackfileUriPublisher packfileUriPublisher;
+
+    /**
+     * 浅克隆和部分克隆限制
+     */
+    private final PartialClonePolicy partialClonePolicy;
+
     /**
      * Create and configure a new UploadPack instance for a repository.
      *
@@ -48,6 +114,96 @@ public class XianZhiUploadPackFactory implements UploadPackFactory<HttpServletRe
      */
     @Override
     public UploadPack create(HttpServletRequest req, Repository db) throws ServiceNotEnabledException, ServiceNotAuthorizedException {
-        return null;
+        try {
+            return newUploadPack(db);
+        } catch (IOException e) {
+            log.error("创建upload-pack失败: {}", db.getDirectory(), e);
+            throw new ServiceNotEnabledException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 创建并配置 UploadPack
+     *
+     * @param db 仓库
+     * @return UploadPack
+     * @throws IOException 如果读取引用失败
+     */
+    public UploadPack newUploadPack(Repository db) throws IOException {
+        CodeServerProperties.Transfer transfer = codeServerProperties.getTransfer();
+        long repositorySize = repositorySize(db);
+        UploadPack uploadPack = new UploadPack(db);
+        uploadPack.setTransferConfig(transferConfig(db, transfer, codeServerProperties.getPartialClone()));
+        uploadPack.setPackConfig(packConfig(db, transfer, repositorySize));
+        uploadPack.setTimeout((int) transfer.getTimeout().toSeconds());
+        uploadPack.setPreUploadHook(partialClonePolicy);
+        // 仓库未变化时直接使用缓存的引用列表, ls-remote 轮询不再遍历引用
+        uploadPack.setAdvertisedRefs(refAdvertisementCache.getAdvertisedRefs(db));
+        // protocol v2 clone 可以直接从 OSS 下载已上传的 cached pack
+        uploadPack.setCachedPackUriProvider(packfileUriPublisher.uriProvider(db));
+        File gitDir = db.getDirectory();
+        uploadPack.setPostUploadHook(statistics ->
+                uploadPackStatistics.record(gitDir, statistics, uploadPack.getFilterSpec(), repositorySize));
+        return uploadPack;
+    }
+
+    /**
+     * 按配置覆盖仓库的协议版本和部分克隆开关
+     *
+     * @param db           仓库
+     * @param transfer     传输配置
+     * @param partialClone 部分克隆配置
+     * @return 传输配置
+     */
+    private TransferConfig transferConfig(Repository db, CodeServerProperties.Transfer transfer, CodeServerProperties.PartialClone partialClone) {
+        Config config = new Config(db.getConfig());
+        config.setInt(ConfigConstants.CONFIG_PROTOCOL_SECTION, null, ConfigConstants.CONFIG_KEY_VERSION,
+                Boolean.TRUE.equals(transfer.getProtocolV2()) ? 2 : 0);
+        config.setBoolean(UPLOAD_PACK_SECTION, null, ALLOW_FILTER, Boolean.TRUE.equals(partialClone.getAllowFilter()));
+        config.setBoolean(UPLOAD_PACK_SECTION, null, ALLOW_REACHABLE_SHA1_IN_WANT,
+                Boolean.TRUE.equals(partialClone.getAllowReachableSha1InWant()));
+        return new TransferConfig(config);
+    }
+
+    /**
+     * 按仓库大小选择打包配置
+     *
+     * @param db       仓库
+     * @param transfer 传输配置
+     * @param size     仓库 pack 总大小
+     * @return 打包配置
+     */
+    private PackConfig packConfig(Repository db, CodeServerProperties.Transfer transfer, long size) {
+        CodeServerProperties.PackSettings settings;
+        if (size >= transfer.getLargeRepositorySize()) {
+            settings = transfer.getLarge();
+        } else if (size >= transfer.getMediumRepositorySize()) {
+            settings = transfer.getMedium();
+        } else {
+            settings = transfer.getSmall();
+        }
+        PackConfig packConfig = new PackConfig(db);
+        packConfig.setDeltaSearchWindowSize(settings.getDeltaSearchWindowSize());
+        packConfig.setMaxDeltaDepth(settings.getMaxDeltaDepth());
+        packConfig.setDeltaSearchMemoryLimit(settings.getDeltaSearchMemoryLimit());
+        packConfig.setThreads(settings.getThreads());
+        return packConfig;
+    }
+
+    /**
+     * 统计仓库 pack 文件总大小，后台维护后 pack 数量很少，这里只是几次 stat
+     *
+     * @param db 仓库
+     * @return pack 总大小
+     */
+    private long repositorySize(Repository db) {
+        if (!(db instanceof FileRepository fileRepository)) {
+            return 0L;
+        }
+        long size = 0L;
+        for (Pack pack : fileRepository.getObjectDatabase().getPacks()) {
+            size += pack.getPackFile().length();
+        }
+        return size;
     }
 }
@@ -0,0 +1,178 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.filter;
+
+import io.xianzhi.core.content.Context;
+import io.xianzhi.core.content.ContextHolder;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Base64;
+
+/**
+ * smart-HTTP 认证
+ * <p>
+ * git 客户端只会发送 HTTP Basic 认证，这里把 Basic 的密码(或 Bearer)当作访问令牌，
+ * 交给资源服务器同一个令牌解析器校验，校验通过后把用户ID作为 remoteUser 传给 {@link GitFilter} 和 GitServlet。
+ * 没有携带凭证的请求按匿名放行，由 {@link GitFilter} 按仓库可见性决定是否返回401要求认证；
+ * 携带了无效凭证的请求直接返回401。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GitAuthenticationFilter implements Filter {
+
+    /**
+     * 仓库名称后缀
+     */
+    private static final String GIT_SUFFIX = ".git/";
+
+    /**
+     * Basic 认证前缀
+     */
+    private static final String BASIC_PREFIX = "Basic ";
+
+    /**
+     * Bearer 认证前缀
+     */
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    /**
+     * 要求客户端提供凭证的认证质询
+     */
+    private static final String BASIC_CHALLENGE = "Basic realm=\"XianZhi\"";
+
+    /**
+     * 访问令牌解析
+     */
+    private final OpaqueTokenIntrospector opaqueTokenIntrospector;
+
+    /**
+     * 只处理 git 请求，解析请求携带的访问令牌
+     *
+     * @param request  The request to process
+     * @param response The response associated with the request
+     * @param chain    Provides access to the next filter in the chain
+     * @throws IOException      if an I/O error occurs during this filter's processing of the request
+     * @throws ServletException if the processing fails for any other reason
+     */
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse resp = (HttpServletResponse) response;
+        String uri = req.getRequestURI();
+        String token = uri == null || !uri.contains(GIT_SUFFIX) ? null : resolveToken(req.getHeader(HttpHeaders.AUTHORIZATION));
+        if (token == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String userId;
+        try {
+            OAuth2AuthenticatedPrincipal principal = opaqueTokenIntrospector.introspect(token);
+            userId = principal instanceof Context context ? context.getUniqueKey() : principal.getName();
+        } catch (RuntimeException e) {
+            log.debug("git请求认证失败: {}, {}", uri, e.getMessage());
+            userId = null;
+        }
+        try {
+            if (!StringUtils.hasText(userId)) {
+                resp.setHeader(HttpHeaders.WWW_AUTHENTICATE, BASIC_CHALLENGE);
+                resp.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+            chain.doFilter(new AuthenticatedRequest(req, userId), response);
+        } finally {
+            // 令牌解析器会设置用户上下文, 请求结束后清理, 避免线程复用时串号
+            ContextHolder.remove();
+        }
+    }
+
+    /**
+     * 从 Authorization 请求头中取出访问令牌
+     *
+     * @param authorization 请求头
+     * @return 访问令牌，没有携带时返回 null
+     */
+    private String resolveToken(String authorization) {
+        if (!StringUtils.hasText(authorization)) {
+            return null;
+        }
+        if (authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return authorization.substring(BEARER_PREFIX.length()).trim();
+        }
+        if (!authorization.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length())) {
+            return null;
+        }
+        String credentials;
+        try {
+            credentials = new String(Base64.getDecoder().decode(authorization.substring(BASIC_PREFIX.length()).trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            // 格式错误按无效凭证处理
+            return "";
+        }
+        // 用户名可以任意填写, 以令牌中的用户为准
+        int index = credentials.indexOf(':');
+        return index < 0 ? "" : credentials.substring(index + 1);
+    }
+
+    /**
+     * 携带认证用户的请求包装
+     */
+    private static class AuthenticatedRequest extends HttpServletRequestWrapper {
+
+        /**
+         * 用户ID
+         */
+        private final String userId;
+
+        AuthenticatedRequest(HttpServletRequest request, String userId) {
+            super(request);
+            this.userId = userId;
+        }
+
+        @Override
+        public String getRemoteUser() {
+            return userId;
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return () -> userId;
+        }
+
+        @Override
+        public String getAuthType() {
+            return HttpServletRequest.BASIC_AUTH;
+        }
+    }
+}
@@ -16,22 +16,41 @@
 
 package io.xianzhi.code.bootstrap.filter;
 
+import io.xianzhi.code.bootstrap.businsess.ProjectAccessBusiness;
+import io.xianzhi.code.bootstrap.businsess.SystemParamCache;
+import io.xianzhi.code.bootstrap.executor.AdmissionController;
+import io.xianzhi.code.bootstrap.executor.AdmissionRejectedException;
+import io.xianzhi.code.bootstrap.factory.XianZhiReceivePackFactory;
 import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.ReceiveQuarantine;
+import io.xianzhi.code.bootstrap.repository.RefAdvertisementCache;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockTimeoutException;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
 import io.xianzhi.core.code.CommonCode;
 import io.xianzhi.core.exception.BusinessException;
-import io.xianzhi.core.result.ResponseResult;
-import io.xianzhi.system.facade.SystemParamFacade;
 import io.xianzhi.system.model.enums.SystemParamEnum;
-import io.xianzhi.system.model.vo.SystemParamVO;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.jgit.http.server.GitServlet;
+import org.eclipse.jgit.http.server.ServletUtils;
+import org.eclipse.jgit.transport.GitProtocolConstants;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.ContentCachingResponseWrapper;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Optional;
 
 /**
  * @author Max
@@ -41,6 +60,26 @@ import java.io.IOException;
 @Component
 @RequiredArgsConstructor
 public class GitFilter implements Filter {
+    /**
+     * 引用发现请求路径后缀
+     */
+    private static final String INFO_REFS = "/info/refs";
+    /**
+     * 仓库名称后缀
+     */
+    private static final String GIT_SUFFIX = ".git";
+    /**
+     * upload-pack 服务名称
+     */
+    private static final String UPLOAD_PACK = "git-upload-pack";
+    /**
+     * receive-pack 服务名称
+     */
+    private static final String RECEIVE_PACK = "git-receive-pack";
+    /**
+     * 要求客户端提供凭证的认证质询
+     */
+    private static final String BASIC_CHALLENGE = "Basic realm=\"XianZhi\"";
     /**
      * GitServlet 实例，用于处理 Git 请求
      */
@@ -50,9 +89,29 @@ public class GitFilter implements Filter {
      */
     private final CodeServerProperties codeServerProperties;
     /**
-     * 系统服务参数
+     * 系统参数本地缓存
+     */
+    private final SystemParamCache systemParamCache;
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+    /**
+     * 引用通告缓存
+     */
+    private final RefAdvertisementCache refAdvertisementCache;
+    /**
+     * git传输准入控制
+     */
+    private final AdmissionController admissionController;
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+    /**
+     * 项目访问权限
      */
-    private final SystemParamFacade systemParamFacade;
+    private final ProjectAccessBusiness projectAccessBusiness;
 
 
     /**
@@ -84,28 +143,323 @@ public class GitFilter implements Filter {
         HttpServletRequest req = (HttpServletRequest) request;
         HttpServletResponse resp = (HttpServletResponse) response;
         String pathInfo = req.getPathInfo() != null ? req.getPathInfo() : req.getServletPath();
-        log.info("GitFilter pathInfo: {}", pathInfo);
-        ResponseResult<SystemParamVO> result = systemParamFacade.getSystemParamByParamCode(SystemParamEnum.CODE_SERVER_URL.getCode());
-        String codeServerUrl = null;
-        if (result.code().equals(CommonCode.SUCCESS.code()) && result.getData() != null) {
-            codeServerUrl = result.getData().getParamValue();
-        } else {
-            throw new BusinessException(CommonCode.ERROR);
+        // 非 git 请求直接放行, 不做任何额外查询
+        if (pathInfo == null || !pathInfo.contains(GIT_SUFFIX)) {
+            chain.doFilter(request, response);
+            return;
         }
-        if (pathInfo != null && pathInfo.endsWith(".git")) {
-            pathInfo = pathInfo.replace(".git", "");
-            log.info("Forwarding Git request: {}", pathInfo);
+        if (pathInfo.endsWith(GIT_SUFFIX)) {
+            String codeServerUrl = systemParamCache.getParamValue(SystemParamEnum.CODE_SERVER_URL.getCode())
+                    .orElseThrow(() -> new BusinessException(CommonCode.ERROR));
+            pathInfo = pathInfo.replace(GIT_SUFFIX, "");
+            log.debug("Redirecting Git request: {}", pathInfo);
             resp.sendRedirect(codeServerUrl + pathInfo);
             return;
         }
-
-
-        if (pathInfo != null && pathInfo.endsWith(".git/info/refs")) {
-            log.info("Forwarding Git request: {}", pathInfo);
-            gitServlet.service(req, resp);
+        if (pathInfo.endsWith(GIT_SUFFIX + INFO_REFS)) {
+            log.debug("Forwarding Git request: {}", pathInfo);
+            // 先校验权限再读缓存, 私有仓库的引用不能从缓存泄露
+            File repoDir = authorize(req, resp, pathInfo.substring(0, pathInfo.length() - INFO_REFS.length()),
+                    RECEIVE_PACK.equals(req.getParameter("service")));
+            if (repoDir == null) {
+                return;
+            }
+            if (isCacheable(req)) {
+                serviceInfoRefs(new GitServletRequest(req, pathInfo), resp, repoDir);
+            } else {
+                gitServlet.service(new GitServletRequest(req, pathInfo), resp);
+            }
+        } else if (pathInfo.endsWith(GIT_SUFFIX + "/" + UPLOAD_PACK) || pathInfo.endsWith(GIT_SUFFIX + "/" + RECEIVE_PACK)) {
+            // pack 由 GitServlet 直接写入响应流, 这里不能缓冲响应, 否则整个 pack 会被缓冲在内存中
+            log.debug("Forwarding Git request: {}", pathInfo);
+            File repoDir = authorize(req, resp, pathInfo.substring(0, pathInfo.lastIndexOf('/')), pathInfo.endsWith(RECEIVE_PACK));
+            if (repoDir == null) {
+                return;
+            }
+            servicePack(new GitServletRequest(req, pathInfo), resp, repoDir, pathInfo);
         } else {
-            log.info("Not a Git request, passing to next filter: {}", pathInfo);
             chain.doFilter(request, response);
         }
     }
+
+    /**
+     * 解析仓库并校验读写权限。仓库不存在或没有权限时，匿名请求返回401要求客户端提供凭证，
+     * 已认证的请求在不可读时返回404，不暴露私有仓库是否存在，可读但不可写时返回403
+     *
+     * @param req   请求
+     * @param resp  响应
+     * @param name  仓库名称
+     * @param write 是否是推送
+     * @return 仓库目录，校验不通过时已写入响应并返回 null
+     * @throws IOException if an I/O error occurs
+     */
+    private File authorize(HttpServletRequest req, HttpServletResponse resp, String name, boolean write) throws IOException {
+        File repoDir;
+        try {
+            repoDir = repositoryLocationResolver.resolve(name);
+        } catch (BusinessException e) {
+            repoDir = null;
+        }
+        Optional<String> projectId = repoDir == null || !repoDir.isDirectory() ? Optional.empty() : repositoryLocationResolver.findProjectId(repoDir);
+        String user = req.getRemoteUser();
+        boolean readable = projectId.isPresent() && projectAccessBusiness.canRead(projectId.get(), user);
+        if (readable && (!write || projectAccessBusiness.canWrite(projectId.get(), user))) {
+            return repoDir;
+        }
+        // 推送必须经过认证, 匿名请求返回401让客户端提供凭证
+        if (user == null) {
+            resp.setHeader(HttpHeaders.WWW_AUTHENTICATE, BASIC_CHALLENGE);
+            resp.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+        } else if (readable) {
+            resp.sendError(HttpServletResponse.SC_FORBIDDEN);
+        } else {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+        return null;
+    }
+
+    /**
+     * 只缓存 protocol v0/v1 的 upload-pack 引用发现，v2 的 info/refs 只返回能力列表，无需缓存
+     *
+     * @param req 请求
+     * @return 是否走缓存
+     */
+    private boolean isCacheable(HttpServletRequest req) {
+        String protocol = req.getHeader(GitProtocolConstants.PROTOCOL_HEADER);
+        return "GET".equals(req.getMethod())
+                && UPLOAD_PACK.equals(req.getParameter("service"))
+                && (protocol == null || !protocol.contains(GitProtocolConstants.VERSION_2_REQUEST));
+    }
+
+    /**
+     * 处理 smart-HTTP 引用发现，仓库引用未变化时直接返回缓存的响应或304
+     *
+     * @param req     请求
+     * @param resp    响应
+     * @param repoDir 已校验权限的仓库目录
+     * @throws IOException      if an I/O error occurs
+     * @throws ServletException if the processing fails
+     */
+    private void serviceInfoRefs(HttpServletRequest req, HttpServletResponse resp, File repoDir) throws IOException, ServletException {
+        String service = req.getParameter("service");
+        long version = refAdvertisementCache.version(repoDir);
+        String etag = refAdvertisementCache.etag(version);
+        if (refAdvertisementCache.notModified(req.getHeader(HttpHeaders.IF_NONE_MATCH), version)) {
+            resp.setHeader(HttpHeaders.ETAG, etag);
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        RefAdvertisementCache.Advertisement advertisement = refAdvertisementCache.getAdvertisement(repoDir, version, service);
+        if (advertisement != null) {
+            resp.setHeader(HttpHeaders.ETAG, etag);
+            resp.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache, max-age=0, must-revalidate");
+            resp.setHeader(HttpHeaders.PRAGMA, "no-cache");
+            resp.setContentType(advertisement.getContentType());
+            ServletUtils.send(advertisement.getBody(), req, resp);
+            return;
+        }
+        // 未命中时捕获 GitServlet 的响应体写入缓存, 捕获时禁用 gzip 以便缓存内容对所有客户端通用
+        // GitServlet 会从仓库池借出句柄, 与 upload-pack 一样持有共享锁, 转换引用格式等独占操作不会与之并发
+        RepositoryLockManager.Hold lock = shared(resp, repoDir);
+        if (lock == null) {
+            return;
+        }
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(resp);
+        try (lock) {
+            gitServlet.service(new IdentityEncodingRequest(req), wrapper);
+        }
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK) {
+            refAdvertisementCache.putAdvertisement(repoDir, version, service,
+                    new RefAdvertisementCache.Advertisement(wrapper.getContentType(), wrapper.getContentAsByteArray()));
+            wrapper.setHeader(HttpHeaders.ETAG, etag);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    /**
+     * 处理 smart-HTTP 的 upload-pack/receive-pack，与 SSH 共用同一套准入控制，排队已满时返回 429 和 Retry-After，
+     * 仓库正在被删除或迁移而等不到共享锁时返回 503
+     *
+     * @param req      请求
+     * @param resp     响应
+     * @param repoDir  已校验权限的仓库目录
+     * @param pathInfo 请求路径
+     * @throws IOException      if an I/O error occurs
+     * @throws ServletException if the processing fails
+     */
+    private void servicePack(HttpServletRequest req, HttpServletResponse resp, File repoDir, String pathInfo) throws IOException, ServletException {
+        AdmissionController.Ticket ticket;
+        try {
+            ticket = admissionController.admit(repoDir.getPath());
+        } catch (AdmissionRejectedException e) {
+            resp.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            resp.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        try (ticket) {
+            RepositoryLockManager.Hold lock = shared(resp, repoDir);
+            if (lock == null) {
+                return;
+            }
+            try (lock) {
+                gitServlet.service(req, pathInfo.endsWith(UPLOAD_PACK) ? new ThrottledResponse(resp, ticket) : resp);
+            } finally {
+                // 推送在进入 receive-pack 错误处理器之前失败时, 隔离区由这里关闭
+                if (req.getAttribute(XianZhiReceivePackFactory.QUARANTINE_ATTRIBUTE) instanceof ReceiveQuarantine quarantine) {
+                    req.removeAttribute(XianZhiReceivePackFactory.QUARANTINE_ATTRIBUTE);
+                    quarantine.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取仓库共享锁，仓库正在被删除、迁移或转换引用格式而等待超时时返回 503 和 Retry-After
+     *
+     * @param resp    响应
+     * @param repoDir 仓库目录
+     * @return 锁，等待超时时已写入响应并返回 null
+     * @throws IOException if an I/O error occurs
+     */
+    private RepositoryLockManager.Hold shared(HttpServletResponse resp, File repoDir) throws IOException {
+        try {
+            return repositoryLockManager.shared(repoDir);
+        } catch (RepositoryLockTimeoutException e) {
+            resp.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(codeServerProperties.getRepositoryLock().getSharedTimeout().toSeconds()));
+            resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * GitServlet 按 pathInfo 匹配服务和仓库，请求没有经过 GitServlet 的映射，这里补上 pathInfo
+     */
+    private static class GitServletRequest extends HttpServletRequestWrapper {
+
+        /**
+         * 请求路径
+         */
+        private final String pathInfo;
+
+        GitServletRequest(HttpServletRequest request, String pathInfo) {
+            super(request);
+            this.pathInfo = pathInfo;
+        }
+
+        @Override
+        public String getServletPath() {
+            return "";
+        }
+
+        @Override
+        public String getPathInfo() {
+            return pathInfo;
+        }
+    }
+
+    /**
+     * 去掉 Accept-Encoding 的请求包装
+     */
+    private static class IdentityEncodingRequest extends HttpServletRequestWrapper {
+
+        IdentityEncodingRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+    }
+
+    /**
+     * 按准入凭证限速的响应包装，未配置限速时直接使用原始输出流
+     */
+    private static class ThrottledResponse extends HttpServletResponseWrapper {
+
+        /**
+         * 准入凭证
+         */
+        private final AdmissionController.Ticket ticket;
+
+        /**
+         * 限速后的输出流
+         */
+        private ServletOutputStream outputStream;
+
+        ThrottledResponse(HttpServletResponse response, AdmissionController.Ticket ticket) {
+            super(response);
+            this.ticket = ticket;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                OutputStream throttled = ticket.throttle(delegate);
+                outputStream = throttled == delegate ? delegate : new ThrottledOutputStream(delegate, throttled);
+            }
+            return outputStream;
+        }
+    }
+
+    /**
+     * 限速的 ServletOutputStream
+     */
+    private static class ThrottledOutputStream extends ServletOutputStream {
+
+        /**
+         * 原始输出流
+         */
+        private final ServletOutputStream delegate;
+
+        /**
+         * 限速输出流
+         */
+        private final OutputStream throttled;
+
+        ThrottledOutputStream(ServletOutputStream delegate, OutputStream throttled) {
+            this.delegate = delegate;
+            this.throttled = throttled;
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            throttled.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            throttled.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            throttled.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            throttled.close();
+        }
+    }
 }
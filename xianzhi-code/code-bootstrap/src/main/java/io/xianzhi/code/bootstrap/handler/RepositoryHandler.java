@@ -16,7 +16,17 @@
 
 package io.xianzhi.code.bootstrap.handler;
 
+import io.xianzhi.code.bootstrap.maintenance.CommitIndexer;
 import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.BranchCache;
+import io.xianzhi.code.bootstrap.repository.ObjectPool;
+import io.xianzhi.code.bootstrap.repository.RefAdvertisementCache;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockTimeoutException;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
+import io.xianzhi.code.model.code.ProjectCode;
+import io.xianzhi.code.model.enums.RefStorageEnum;
 import io.xianzhi.core.code.CommonCode;
 import io.xianzhi.core.exception.BusinessException;
 import lombok.RequiredArgsConstructor;
@@ -24,13 +34,32 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.lib.BatchRefUpdate;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.transport.ReceiveCommand;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 仓库信息处理
@@ -43,29 +72,82 @@ import java.util.List;
 @RequiredArgsConstructor
 public class RepositoryHandler {
 
+    /**
+     * README文件名称
+     */
+    private static final String README_FILE = "README.md";
+
+    /**
+     * 初始提交的提交人名称
+     */
+    private static final String COMMITTER_NAME = "XianZhi";
+
+    /**
+     * 初始提交的提交人邮箱
+     */
+    private static final String COMMITTER_EMAIL = "noreply@xianzhi.io";
+
     /**
      * 代码服务配置
      */
     private final CodeServerProperties codeServerProperties;
 
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+
+    /**
+     * 引用通告缓存
+     */
+    private final RefAdvertisementCache refAdvertisementCache;
+
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+
+    /**
+     * 分支列表缓存
+     */
+    private final BranchCache branchCache;
+
+    /**
+     * 提交索引
+     */
+    private final CommitIndexer commitIndexer;
+
     /**
      * 创建项目仓库
+     * <p>
+     * 初始提交直接通过 {@link ObjectInserter} 写入 README 对象、目录树和提交对象，
+     * 所有分支通过一次 {@link BatchRefUpdate} 创建，不再克隆工作目录再推送。
+     * </p>
      *
+     * @param projectId     项目ID，决定仓库的存储位置
      * @param projectPath   项目路径，不能为空
      * @param groupId       项目组ID，不能为空
      * @param initBranch    是否初始化分支
      * @param branchList    分支列表，当initBranch为true时生效
      * @param defaultBranch 默认分支名称，当initBranch为true时生效
      * @param addReadmeFile 是否添加README文件
+     * @param refStorage    引用存储格式，为空时使用默认配置
      * @throws BusinessException 如果输入参数无效
      * @throws RuntimeException  如果IO操作失败
      */
-    public void createRepository(String projectPath,
+    public void createRepository(String projectId,
+                                 String projectPath,
                                  String groupId,
                                  boolean initBranch,
                                  List<String> branchList,
                                  String defaultBranch,
-                                 boolean addReadmeFile) {
+                                 boolean addReadmeFile,
+                                 RefStorageEnum refStorage) {
         // 验证输入参数
         if (!StringUtils.hasText(projectPath)) {
             throw new BusinessException(CommonCode.ERROR.getCode(), "项目路径不能为空");
@@ -73,79 +155,376 @@ public class RepositoryHandler {
         if (!StringUtils.hasText(groupId)) {
             throw new BusinessException(CommonCode.ERROR.getCode(), "项目组ID不能为空");
         }
+        // 设置默认分支名称，如果未提供则使用配置的默认分支
+        String defaultBranchName = StringUtils.hasText(defaultBranch) ? defaultBranch : codeServerProperties.getDefaultBranch();
+        Set<String> branches = new LinkedHashSet<>();
+        branches.add(defaultBranchName);
+        if (branchList != null) {
+            branches.addAll(branchList);
+        }
+        for (String branch : branches) {
+            if (!Repository.isValidRefName(Constants.R_HEADS + branch)) {
+                throw new BusinessException(CommonCode.PARAM_CHECK_ERROR.getCode(), "分支名称不合法: " + branch);
+            }
+        }
 
         // 构造仓库完整路径
-        String repositoryPath = codeServerProperties.getRepositoryDir() + "/" + groupId + "/" + projectPath + "/.git";
-        File repoDir = new File(repositoryPath);
-
-        try {
-            // 创建仓库目录
-            if (!repoDir.exists() && !repoDir.mkdirs()) {
-                throw new RuntimeException("无法创建仓库目录: " + repositoryPath);
+        File repoDir = repositoryLocationResolver.locate(projectId, groupId, projectPath);
+        File projectDir = ownedDir(repoDir);
+        boolean created = !projectDir.exists();
+        try (RepositoryLockManager.Hold ignored = exclusive(repoDir);
+             Git git = Git.init().setDirectory(repoDir).setBare(true).setInitialBranch(defaultBranchName).call()) {
+            log.info("仓库创建成功: {}", git.getRepository().getDirectory());
+            initRefStorage(git.getRepository(), refStorage);
+            // 如果需要初始化分支
+            if (initBranch) {
+                initBranches(git.getRepository(), projectPath, branches, addReadmeFile);
             }
+        } catch (IOException e) {
+            cleanup(projectDir, created);
+            throw new RuntimeException("创建仓库时发生IO错误: " + e.getMessage(), e);
+        } catch (GitAPIException e) {
+            cleanup(projectDir, created);
+            throw new RuntimeException("Git操作失败: " + e.getMessage(), e);
+        }
+        refAdvertisementCache.invalidate(repoDir);
+        repositoryLocationResolver.invalidate(groupId, projectPath);
+        commitIndexer.submit(repoDir, projectId);
+    }
 
-            // 使用JGit初始化Git仓库
-            try (Git git = Git.init().setDirectory(repoDir).setBare(true).call()) {
-                System.out.println("仓库创建成功: " + git.getRepository().getDirectory());
-
-                // 如果需要初始化分支
-                if (initBranch) {
-                    // 设置默认分支名称，如果未提供则使用"main"
-                    String defaultBranchName = StringUtils.hasText(defaultBranch) ? defaultBranch : "main";
-
-                    // 创建工作目录用于初始化提交
-                    File workDir = new File(repositoryPath + "_work");
-                    try (Git workGit = Git.cloneRepository()
-                            .setURI(git.getRepository().getDirectory().toURI().toString())
-                            .setDirectory(workDir)
-                            .call()) {
-
-                        // 如果需要添加README文件
-                        if (addReadmeFile) {
-                            File readmeFile = new File(workDir, "README.md");
-                            try (FileWriter writer = new FileWriter(readmeFile)) {
-                                writer.write("# " + projectPath + "\n\n项目初始化README文件");
-                            }
-                            // 添加并提交README文件
-                            workGit.add().addFilepattern("README.md").call();
-                            workGit.commit().setMessage("Initial commit with README").call();
-                            // 推送到远程
-                            workGit.push().call();
-                        }
-
-                        // 创建其他分支
-                        if (branchList != null && !branchList.isEmpty()) {
-                            for (String branch : branchList) {
-                                if (!branch.equals(defaultBranchName)) {
-                                    workGit.checkout()
-                                            .setCreateBranch(true)
-                                            .setName(branch)
-                                            .call();
-                                    workGit.push().call();
-                                }
-                            }
-                            // 切换回默认分支
-                            workGit.checkout()
-                                    .setName(defaultBranchName)
-                                    .call();
-                        }
-                    } finally {
-                        // 清理临时工作目录
-                        FileUtils.deleteDirectory(workDir);
-                    }
-
-                    // 设置默认分支
-                    git.getRepository().getConfig()
-                            .setString("init", null, "defaultBranch", defaultBranchName);
-                    git.getRepository().getConfig().save();
+    /**
+     * fork 项目仓库
+     * <p>
+     * 源仓库第一次被 fork 时为整个 fork 网络创建共享对象池，源仓库现有的对象文件硬链接进对象池，
+     * 源仓库和新仓库都通过 alternates 读取对象池，新仓库只包含从源仓库复制的分支和标签引用，
+     * 因此无论源仓库多大，fork 都只是元数据操作。之后推送到各成员的新对象由后台维护迁移到对象池。
+     * </p>
+     *
+     * @param sourceProjectId   源项目ID
+     * @param sourceProjectPath 源项目路径
+     * @param sourceGroupId     源项目组ID
+     * @param projectId         新项目ID
+     * @param projectPath       新项目路径
+     * @param groupId           新项目组ID
+     * @param refStorage        引用存储格式，为空时使用默认配置
+     * @throws BusinessException 如果源仓库不存在
+     * @throws RuntimeException  如果IO操作失败
+     */
+    public void forkRepository(String sourceProjectId,
+                               String sourceProjectPath,
+                               String sourceGroupId,
+                               String projectId,
+                               String projectPath,
+                               String groupId,
+                               RefStorageEnum refStorage) {
+        File sourceDir = repositoryLocationResolver.locate(sourceProjectId, sourceGroupId, sourceProjectPath);
+        if (!sourceDir.isDirectory()) {
+            throw new BusinessException(ProjectCode.PROJECT_NOT_EXIST);
+        }
+        File repoDir = repositoryLocationResolver.locate(projectId, groupId, projectPath);
+        File projectDir = ownedDir(repoDir);
+        boolean created = !projectDir.exists();
+        long start = System.currentTimeMillis();
+        // 持有源仓库共享锁并借出期间, 后台维护不会重新打包, 链接的 pack 文件不会被删除
+        try (RepositoryLockManager.Hold ignored = shared(sourceDir);
+             RepositoryLockManager.Hold target = exclusive(repoDir);
+             Repository source = repositoryPool.acquire(sourceDir)) {
+            File existingPool = ObjectPool.getPoolDir(sourceDir);
+            File poolDir = existingPool != null ? existingPool : repositoryLocationResolver.getPoolRepositoryDir(sourceProjectId);
+            // 先读取引用再链接对象, 引用指向的对象一定已经在链接的文件中
+            List<Ref> sourceRefs = source.getRefDatabase().getRefs();
+            Ref head = source.exactRef(Constants.HEAD);
+            ReentrantLock lock = ObjectPool.lock(poolDir);
+            lock.lock();
+            try {
+                if (!poolDir.exists()) {
+                    Git.init().setDirectory(poolDir).setBare(true).call().close();
                 }
+                int linked = ObjectPool.seed(sourceDir, poolDir);
+                try (Repository pool = new FileRepositoryBuilder().setGitDir(poolDir).setMustExist(true).build()) {
+                    ObjectPool.updateMemberRefs(pool, sourceProjectId, sourceRefs);
+                    List<Ref> forkRefs = initFork(repoDir, poolDir, sourceRefs, head, refStorage);
+                    ObjectPool.updateMemberRefs(pool, projectId, forkRefs);
+                }
+                if (existingPool == null) {
+                    ObjectPool.join(sourceDir, poolDir);
+                    repositoryPool.invalidate(sourceDir);
+                }
+                log.info("仓库fork完成: {} -> {}, 对象池: {}, 链接文件: {}, 耗时: {}ms",
+                        sourceDir, repoDir, poolDir, linked, System.currentTimeMillis() - start);
+            } finally {
+                lock.unlock();
             }
         } catch (IOException e) {
-            throw new RuntimeException("创建仓库时发生IO错误: " + e.getMessage(), e);
+            cleanup(projectDir, created);
+            throw new RuntimeException("fork仓库时发生IO错误: " + e.getMessage(), e);
         } catch (GitAPIException e) {
+            cleanup(projectDir, created);
             throw new RuntimeException("Git操作失败: " + e.getMessage(), e);
         }
+        refAdvertisementCache.invalidate(repoDir);
+        repositoryLocationResolver.invalidate(groupId, projectPath);
+        commitIndexer.submit(repoDir, projectId);
+    }
+
+    /**
+     * 删除项目仓库，同时释放句柄池中的仓库和引用缓存，旧布局的目录和迁移留下的链接一并删除。
+     * 属于 fork 网络的仓库同时从对象池中移除自己的引用，最后一个成员删除后对象池一并删除。
+     *
+     * @param projectId   项目ID
+     * @param projectPath 项目路径
+     * @param groupId     项目组ID
+     */
+    public void deleteRepository(String projectId, String projectPath, String groupId) {
+        File repoDir = repositoryLocationResolver.getRepositoryDir(projectId);
+        File legacyDir = repositoryLocationResolver.getLegacyRepositoryDir(groupId, projectPath);
+        for (File gitDir : List.of(repoDir, legacyDir)) {
+            try (RepositoryLockManager.Hold ignored = exclusive(gitDir)) {
+                leavePool(projectId, gitDir);
+                repositoryPool.invalidate(gitDir);
+                refAdvertisementCache.invalidate(gitDir);
+                branchCache.invalidate(gitDir);
+                FileUtils.deleteQuietly(ownedDir(gitDir));
+            }
+        }
+        repositoryLocationResolver.invalidate(groupId, projectPath);
     }
 
+    /**
+     * 转换项目仓库的引用存储格式
+     * <p>
+     * 引用数量巨大(CI 标签、合并请求引用)的仓库使用 reftable 后，引用通告和单个引用查找不再需要
+     * 扫描 refs 目录和整个 packed-refs，批量更新也只追加一个新表。转换期间持有仓库独占锁，
+     * 等待已借出的句柄全部归还，等待超时直接拒绝，转换完成后释放句柄池中的旧句柄。
+     * </p>
+     *
+     * @param projectId   项目ID
+     * @param projectPath 项目路径
+     * @param groupId     项目组ID
+     * @param refStorage  目标引用存储格式
+     * @throws BusinessException 如果仓库不存在或正在使用
+     */
+    public void convertRefStorage(String projectId, String projectPath, String groupId, RefStorageEnum refStorage) {
+        File repoDir = repositoryLocationResolver.locate(projectId, groupId, projectPath);
+        if (!repoDir.isDirectory()) {
+            throw new BusinessException(ProjectCode.PROJECT_NOT_EXIST);
+        }
+        // 所有从仓库池借出句柄的读写都持有共享锁, 独占锁等到它们全部归还后才转换, 等待超时提示仓库正在使用
+        try (RepositoryLockManager.Hold ignored = exclusive(repoDir)) {
+            convert(repoDir, refStorage);
+        }
+    }
 
+    /**
+     * 转换引用存储格式，调用方持有仓库独占锁
+     *
+     * @param repoDir    仓库目录
+     * @param refStorage 目标引用存储格式
+     */
+    private void convert(File repoDir, RefStorageEnum refStorage) {
+        repositoryPool.invalidate(repoDir);
+        try (Repository repository = new FileRepositoryBuilder().setGitDir(repoDir).setMustExist(true).build()) {
+            String current = repository.getConfig().getString(ConfigConstants.CONFIG_EXTENSIONS_SECTION, null, ConfigConstants.CONFIG_KEY_REF_STORAGE);
+            boolean reftable = ConfigConstants.CONFIG_REF_STORAGE_REFTABLE.equalsIgnoreCase(current);
+            if (reftable == (refStorage == RefStorageEnum.REFTABLE)) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            ((FileRepository) repository).convertRefStorage(refStorage.getCode(), true, false);
+            log.info("仓库引用格式转换完成: {}, {}, 耗时: {}ms", repoDir, refStorage.getCode(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            throw new RuntimeException("转换仓库引用格式失败: " + e.getMessage(), e);
+        } finally {
+            repositoryPool.invalidate(repoDir);
+            refAdvertisementCache.invalidate(repoDir);
+        }
+    }
+
+    /**
+     * 初始化 fork 仓库，通过 alternates 读取对象池，一次性复制源仓库的分支和标签
+     *
+     * @param repoDir    fork 仓库目录
+     * @param poolDir    对象池仓库目录
+     * @param sourceRefs 源仓库引用
+     * @param head       源仓库 HEAD
+     * @param refStorage 引用存储格式
+     * @return fork 仓库的引用
+     * @throws IOException     如果写入失败
+     * @throws GitAPIException 如果初始化仓库失败
+     */
+    private List<Ref> initFork(File repoDir, File poolDir, List<Ref> sourceRefs, Ref head, RefStorageEnum refStorage) throws IOException, GitAPIException {
+        String defaultBranch = head != null && head.isSymbolic() && head.getTarget().getName().startsWith(Constants.R_HEADS)
+                ? Repository.shortenRefName(head.getTarget().getName())
+                : codeServerProperties.getDefaultBranch();
+        try (Git git = Git.init().setDirectory(repoDir).setBare(true).setInitialBranch(defaultBranch).call()) {
+            initRefStorage(git.getRepository(), refStorage);
+        }
+        // alternates 写入后重新打开仓库, 保证对象库加载到对象池
+        ObjectPool.join(repoDir, poolDir);
+        try (Repository repository = new FileRepositoryBuilder().setGitDir(repoDir).setMustExist(true).build()) {
+            BatchRefUpdate batchRefUpdate = repository.getRefDatabase().newBatchUpdate();
+            batchRefUpdate.setAtomic(true);
+            batchRefUpdate.setRefLogMessage("fork: Created from source repository", false);
+            for (Ref ref : sourceRefs) {
+                String name = ref.getName();
+                if (ref.isSymbolic() || ref.getObjectId() == null || !(name.startsWith(Constants.R_HEADS) || name.startsWith(Constants.R_TAGS))) {
+                    continue;
+                }
+                batchRefUpdate.addCommand(new ReceiveCommand(ObjectId.zeroId(), ref.getObjectId(), name));
+            }
+            if (!batchRefUpdate.getCommands().isEmpty()) {
+                try (RevWalk revWalk = new RevWalk(repository)) {
+                    batchRefUpdate.execute(revWalk, NullProgressMonitor.INSTANCE);
+                }
+            }
+            for (ReceiveCommand command : batchRefUpdate.getCommands()) {
+                if (command.getResult() != ReceiveCommand.Result.OK) {
+                    throw new IOException("复制引用失败: " + command.getRefName() + ", " + command.getResult());
+                }
+            }
+            return repository.getRefDatabase().getRefs();
+        }
+    }
+
+    /**
+     * 按配置转换新建仓库的引用存储格式，空仓库转换引用格式几乎没有开销，需要在写入引用前完成
+     *
+     * @param repository 新建仓库
+     * @param refStorage 引用存储格式，为空时使用默认配置
+     * @throws IOException 如果转换失败
+     */
+    private void initRefStorage(Repository repository, RefStorageEnum refStorage) throws IOException {
+        RefStorageEnum format = refStorage != null ? refStorage : codeServerProperties.getStorage().getDefaultRefStorage();
+        if (format == RefStorageEnum.REFTABLE) {
+            ((FileRepository) repository).convertRefStorage(format.getCode(), true, false);
+        }
+    }
+
+    /**
+     * 仓库删除前从所属的对象池中移除自己的引用，对象池没有成员后删除
+     *
+     * @param projectId 项目ID
+     * @param gitDir    仓库目录
+     */
+    private void leavePool(String projectId, File gitDir) {
+        try {
+            File poolDir = gitDir.isDirectory() ? ObjectPool.getPoolDir(gitDir) : null;
+            if (poolDir == null || !poolDir.isDirectory()) {
+                return;
+            }
+            ReentrantLock lock = ObjectPool.lock(poolDir);
+            lock.lock();
+            try {
+                boolean empty;
+                try (Repository pool = new FileRepositoryBuilder().setGitDir(poolDir).setMustExist(true).build()) {
+                    ObjectPool.removeMember(pool, projectId);
+                    empty = ObjectPool.members(pool).isEmpty();
+                }
+                if (empty) {
+                    FileUtils.deleteQuietly(poolDir);
+                    log.info("fork网络已没有成员, 删除对象池: {}", poolDir);
+                }
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException e) {
+            // 残留的引用在下次对象池维护时清理
+            log.warn("从对象池移除仓库失败: {}, {}", gitDir, e.getMessage());
+        }
+    }
+
+    /**
+     * 在内存中生成初始提交并一次性创建全部分支
+     *
+     * @param repository    仓库
+     * @param projectPath   项目路径
+     * @param branches      分支列表，第一个为默认分支
+     * @param addReadmeFile 是否添加README文件
+     * @throws IOException 如果写入对象或引用失败
+     */
+    private void initBranches(Repository repository, String projectPath, Set<String> branches, boolean addReadmeFile) throws IOException {
+        ObjectId commitId;
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+            TreeFormatter tree = new TreeFormatter();
+            if (addReadmeFile) {
+                byte[] readme = ("# " + projectPath + "\n\n项目初始化README文件").getBytes(StandardCharsets.UTF_8);
+                tree.append(README_FILE, FileMode.REGULAR_FILE, inserter.insert(Constants.OBJ_BLOB, readme));
+            }
+            PersonIdent ident = new PersonIdent(COMMITTER_NAME, COMMITTER_EMAIL);
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(inserter.insert(tree));
+            commit.setAuthor(ident);
+            commit.setCommitter(ident);
+            commit.setMessage(addReadmeFile ? "Initial commit with README" : "Initial commit");
+            commitId = inserter.insert(commit);
+            inserter.flush();
+        }
+
+        BatchRefUpdate batchRefUpdate = repository.getRefDatabase().newBatchUpdate();
+        batchRefUpdate.setAtomic(true);
+        batchRefUpdate.setRefLogMessage("branch: Created from initial commit", false);
+        for (String branch : branches) {
+            batchRefUpdate.addCommand(new ReceiveCommand(ObjectId.zeroId(), commitId, Constants.R_HEADS + branch));
+        }
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            batchRefUpdate.execute(revWalk, NullProgressMonitor.INSTANCE);
+        }
+        for (ReceiveCommand command : batchRefUpdate.getCommands()) {
+            if (command.getResult() != ReceiveCommand.Result.OK) {
+                throw new IOException("创建分支失败: " + command.getRefName() + ", " + command.getResult());
+            }
+        }
+    }
+
+    /**
+     * 获取仓库共享锁，等待超时时提示仓库正在使用
+     *
+     * @param gitDir 仓库目录
+     * @return 锁
+     * @throws BusinessException 如果等待超时
+     */
+    private RepositoryLockManager.Hold shared(File gitDir) {
+        try {
+            return repositoryLockManager.shared(gitDir);
+        } catch (RepositoryLockTimeoutException e) {
+            throw new BusinessException(ProjectCode.REPOSITORY_BUSY);
+        }
+    }
+
+    /**
+     * 获取仓库独占锁，等待超时时提示仓库正在使用
+     *
+     * @param gitDir 仓库目录
+     * @return 锁
+     * @throws BusinessException 如果等待超时
+     */
+    private RepositoryLockManager.Hold exclusive(File gitDir) {
+        try {
+            return repositoryLockManager.exclusive(gitDir);
+        } catch (RepositoryLockTimeoutException e) {
+            throw new BusinessException(ProjectCode.REPOSITORY_BUSY);
+        }
+    }
+
+    /**
+     * 仓库独占的目录，旧布局为 .git 所在的项目目录，散列布局为仓库目录本身
+     *
+     * @param gitDir 仓库目录
+     * @return 仓库独占的目录
+     */
+    private File ownedDir(File gitDir) {
+        return Constants.DOT_GIT.equals(gitDir.getName()) ? gitDir.getParentFile() : gitDir;
+    }
+
+    /**
+     * 创建失败时清理本次新建的目录
+     *
+     * @param projectDir 项目目录
+     * @param created    目录是否为本次创建
+     */
+    private void cleanup(File projectDir, boolean created) {
+        if (created) {
+            FileUtils.deleteQuietly(projectDir);
+        }
+    }
 }
@@ -16,11 +16,16 @@
 
 package io.xianzhi.code.bootstrap.handler;
 
+import io.xianzhi.code.bootstrap.factory.XianZhiReceivePackFactory;
+import io.xianzhi.code.bootstrap.repository.ReceiveQuarantine;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.errors.PackProtocolException;
+import org.eclipse.jgit.http.server.GitSmartHttpTools;
 import org.eclipse.jgit.http.server.ReceivePackErrorHandler;
+import org.eclipse.jgit.transport.ServiceMayNotContinueException;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
@@ -46,6 +51,26 @@ public class XianZhiReceivePackErrorHandler implements ReceivePackErrorHandler {
      */
     @Override
     public void receive(HttpServletRequest req, HttpServletResponse rsp, ReceivePackRunnable r) throws IOException {
-
+        try {
+            r.receive();
+        } catch (ServiceMayNotContinueException e) {
+            if (!e.isOutput() && !rsp.isCommitted()) {
+                rsp.reset();
+                GitSmartHttpTools.sendError(req, rsp, e.getStatusCode(), e.getMessage());
+            }
+        } catch (Throwable e) {
+            log.error("receive-pack执行失败: {}", req.getRequestURI(), e);
+            if (!rsp.isCommitted()) {
+                rsp.reset();
+                String message = e instanceof PackProtocolException ? e.getMessage() : null;
+                GitSmartHttpTools.sendError(req, rsp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, message);
+            }
+        } finally {
+            // 无论推送成功与否都删除隔离目录, 成功时 pack 已经移入正式仓库
+            if (req.getAttribute(XianZhiReceivePackFactory.QUARANTINE_ATTRIBUTE) instanceof ReceiveQuarantine quarantine) {
+                req.removeAttribute(XianZhiReceivePackFactory.QUARANTINE_ATTRIBUTE);
+                quarantine.close();
+            }
+        }
     }
 }
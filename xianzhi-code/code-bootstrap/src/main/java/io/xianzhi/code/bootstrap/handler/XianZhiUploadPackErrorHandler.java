@@ -20,12 +20,20 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.errors.PackProtocolException;
+import org.eclipse.jgit.http.server.GitSmartHttpTools;
 import org.eclipse.jgit.http.server.UploadPackErrorHandler;
+import org.eclipse.jgit.transport.ServiceMayNotContinueException;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 
 /**
+ * upload-pack 错误处理
+ * <p>
+ * pack 直接写入响应流，响应未提交前出错时按 git 协议格式返回错误，已经开始输出后只能记录日志。
+ * </p>
+ *
  * @author Max
  * @since 1.0.0
  */
@@ -44,6 +52,20 @@ public class XianZhiUploadPackErrorHandler implements UploadPackErrorHandler {
      */
     @Override
     public void upload(HttpServletRequest req, HttpServletResponse rsp, UploadPackRunnable r) throws IOException {
-
+        try {
+            r.upload();
+        } catch (ServiceMayNotContinueException e) {
+            if (!e.isOutput() && !rsp.isCommitted()) {
+                rsp.reset();
+                GitSmartHttpTools.sendError(req, rsp, e.getStatusCode(), e.getMessage());
+            }
+        } catch (Throwable e) {
+            log.error("upload-pack执行失败: {}", req.getRequestURI(), e);
+            if (!rsp.isCommitted()) {
+                rsp.reset();
+                String message = e instanceof PackProtocolException ? e.getMessage() : null;
+                GitSmartHttpTools.sendError(req, rsp, UploadPackErrorHandler.statusCodeForThrowable(e), message);
+            }
+        }
     }
 }
@@ -0,0 +1,292 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.maintenance;
+
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.events.ListenerHandle;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraphWriter;
+import org.eclipse.jgit.internal.storage.commitgraph.GraphCommits;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.LockFile;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * commit-graph 维护
+ * <p>
+ * 为仓库生成 objects/info/commit-graph 并开启 core.commitGraph，之后 {@link RevWalk} 直接从
+ * commit-graph 读取父提交、提交时间和 generation number，不再解压提交对象，log、merge-base、
+ * ahead/behind 等遍历历史的接口都能受益。引用变化后延迟重写，同一仓库按最小间隔合并多次推送。
+ * JGit 不支持分层的 commit-graph 链，每次重写都是完整的一份。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CommitGraphMaintainer implements InitializingBean, DisposableBean {
+
+    /**
+     * commit-graph 文件相对 objects 目录的路径
+     */
+    private static final String COMMIT_GRAPH_FILE = "info/commit-graph";
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+
+    /**
+     * 等待重写的仓库
+     */
+    private final Set<File> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 仓库目录 -> 上次重写时间
+     */
+    private final Map<File, Long> lastWriteAt = new ConcurrentHashMap<>();
+
+    /**
+     * 重写次数
+     */
+    private final LongAdder writes = new LongAdder();
+
+    /**
+     * 重写失败次数
+     */
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * 累计耗时
+     */
+    private final LongAdder timeSpentMillis = new LongAdder();
+
+    /**
+     * 引用变化监听句柄
+     */
+    private ListenerHandle listenerHandle;
+
+    /**
+     * 重写线程
+     */
+    private ScheduledExecutorService executor;
+
+    /**
+     * 安排一次 commit-graph 重写
+     *
+     * @param gitDir 仓库目录
+     */
+    public void scheduleUpdate(File gitDir) {
+        CodeServerProperties.CommitGraph config = codeServerProperties.getCommitGraph();
+        File key = normalize(gitDir);
+        if (executor == null || !pending.add(key)) {
+            return;
+        }
+        long earliest = lastWriteAt.getOrDefault(key, 0L) + config.getMinInterval().toMillis() - System.currentTimeMillis();
+        long delay = Math.max(config.getDelay().toMillis(), earliest);
+        executor.schedule(() -> {
+            pending.remove(key);
+            update(key);
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 仓库是否已有 commit-graph
+     *
+     * @param repository 仓库
+     * @return 是否存在
+     */
+    public boolean hasCommitGraph(Repository repository) {
+        return new File(((FileRepository) repository).getObjectsDirectory(), COMMIT_GRAPH_FILE).isFile();
+    }
+
+    /**
+     * 根据当前全部引用重写 commit-graph
+     *
+     * @param repository 仓库
+     * @throws IOException 如果写入失败
+     */
+    public void writeCommitGraph(Repository repository) throws IOException {
+        if (!Boolean.TRUE.equals(codeServerProperties.getCommitGraph().getEnabled())) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Set<ObjectId> wants = new HashSet<>();
+        for (Ref ref : repository.getRefDatabase().getRefs()) {
+            ObjectId id = ref.getPeeledObjectId() != null ? ref.getPeeledObjectId() : ref.getObjectId();
+            if (id != null) {
+                wants.add(id);
+            }
+        }
+        if (wants.isEmpty()) {
+            return;
+        }
+        File file = new File(((FileRepository) repository).getObjectsDirectory(), COMMIT_GRAPH_FILE);
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("无法创建目录: " + file.getParentFile());
+        }
+        LockFile lock = new LockFile(file);
+        if (!lock.lock()) {
+            throw new IOException("无法锁定commit-graph文件: " + file);
+        }
+        try (RevWalk walk = new RevWalk(repository)) {
+            GraphCommits commits = GraphCommits.fromWalk(NullProgressMonitor.INSTANCE, wants, walk);
+            try (OutputStream out = lock.getOutputStream()) {
+                new CommitGraphWriter(commits).write(NullProgressMonitor.INSTANCE, out);
+            }
+            if (!lock.commit()) {
+                throw new IOException("无法写入commit-graph文件: " + file);
+            }
+        } finally {
+            lock.unlock();
+        }
+        StoredConfig config = repository.getConfig();
+        if (!config.getBoolean("core", null, "commitGraph", false)) {
+            config.setBoolean("core", null, "commitGraph", true);
+            config.save();
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        lastWriteAt.put(normalize(repository.getDirectory()), System.currentTimeMillis());
+        writes.increment();
+        timeSpentMillis.add(elapsed);
+        log.debug("commit-graph重写完成: {}, 耗时: {}ms", repository.getDirectory(), elapsed);
+    }
+
+    /**
+     * commit-graph 重写次数
+     *
+     * @return 次数
+     */
+    public long writes() {
+        return writes.sum();
+    }
+
+    /**
+     * commit-graph 重写失败次数
+     *
+     * @return 次数
+     */
+    public long failures() {
+        return failures.sum();
+    }
+
+    /**
+     * commit-graph 重写累计耗时
+     *
+     * @return 毫秒
+     */
+    public long timeSpentMillis() {
+        return timeSpentMillis.sum();
+    }
+
+    /**
+     * 注册引用变化监听
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (!Boolean.TRUE.equals(codeServerProperties.getCommitGraph().getEnabled())) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "commit-graph-writer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        listenerHandle = Repository.getGlobalListenerList().addRefsChangedListener(event -> {
+            Repository repository = event.getRepository();
+            if (repository != null && repository.getDirectory() != null) {
+                scheduleUpdate(repository.getDirectory());
+            }
+        });
+    }
+
+    /**
+     * 移除监听并停止重写线程
+     */
+    @Override
+    public void destroy() {
+        if (listenerHandle != null) {
+            listenerHandle.remove();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 重写单个仓库的 commit-graph，与其他后台维护一样持有共享锁，仓库正在被删除、迁移或转换时跳过，
+     * 等下一次引用变化或维护窗口再生成
+     *
+     * @param gitDir 仓库目录
+     */
+    private void update(File gitDir) {
+        RepositoryLockManager.Hold lock = repositoryLockManager.tryShared(gitDir);
+        if (lock == null) {
+            log.debug("仓库正在使用, 跳过commit-graph重写: {}", gitDir);
+            return;
+        }
+        try (lock; Repository repository = repositoryPool.acquire(gitDir)) {
+            writeCommitGraph(repository);
+        } catch (RepositoryNotFoundException e) {
+            log.debug("仓库已不存在, 跳过commit-graph重写: {}", gitDir);
+        } catch (Exception e) {
+            failures.increment();
+            log.error("commit-graph重写失败: {}", gitDir, e);
+        }
+    }
+
+    private File normalize(File gitDir) {
+        return gitDir.toPath().toAbsolutePath().normalize().toFile();
+    }
+}
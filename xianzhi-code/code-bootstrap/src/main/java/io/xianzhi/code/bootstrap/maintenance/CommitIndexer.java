@@ -0,0 +1,626 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.maintenance;
+
+import io.xianzhi.code.bootstrap.dao.dataobj.CommitDO;
+import io.xianzhi.code.bootstrap.dao.dataobj.ProjectDO;
+import io.xianzhi.code.bootstrap.dao.mapper.CommitMapper;
+import io.xianzhi.code.bootstrap.dao.mapper.ProjectMapper;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
+import io.xianzhi.code.model.vo.CommitIndexStatsVO;
+import io.xianzhi.system.security.context.UserContextHolder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 提交索引
+ * <p>
+ * 推送完成后在后台把新提交写入 c_commit，推送响应不等待索引。每个仓库在目录下的 {@value #MARKS_FILE} 文件中
+ * 记录每个分支和标签已经索引到的提交(高水位)，索引时从当前引用出发、排除全部高水位，只遍历新收到的提交，
+ * 按批次查重后通过 insertBatchSomeColumn 写入。写入全部完成后才更新高水位，中途失败下次会重新遍历，查重保证不会重复写入。
+ * 同一仓库的多次推送合并为一次索引，存量仓库可以通过回填在索引线程池中并行补齐。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CommitIndexer implements InitializingBean, DisposableBean {
+
+    /**
+     * 高水位文件名
+     */
+    private static final String MARKS_FILE = "xianzhi-commit-index";
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 项目持久层
+     */
+    private final ProjectMapper projectMapper;
+
+    /**
+     * 提交信息持久层
+     */
+    private final CommitMapper commitMapper;
+
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+
+    /**
+     * 仓库目录 -> 索引状态，只保存已排队或正在索引的仓库
+     */
+    private final Map<File, State> states = new ConcurrentHashMap<>();
+
+    /**
+     * 是否正在回填
+     */
+    private final AtomicBoolean backfilling = new AtomicBoolean();
+
+    /**
+     * 完成索引的次数
+     */
+    private final LongAdder completed = new LongAdder();
+
+    /**
+     * 写入的提交数量
+     */
+    private final LongAdder indexedCommits = new LongAdder();
+
+    /**
+     * 队列已满而未索引的次数
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 仓库正在独占使用而跳过的次数
+     */
+    private final LongAdder skippedBusy = new LongAdder();
+
+    /**
+     * 索引失败的次数
+     */
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * 回填已检查的项目数量
+     */
+    private final LongAdder backfillScanned = new LongAdder();
+
+    /**
+     * 索引线程池
+     */
+    private ThreadPoolExecutor workers;
+
+    /**
+     * 回填线程
+     */
+    private ExecutorService backfillExecutor;
+
+    /**
+     * 推送完成后申请索引，只入队不等待
+     *
+     * @param gitDir 仓库目录
+     */
+    public void submit(File gitDir) {
+        if (!Boolean.TRUE.equals(codeServerProperties.getCommitIndex().getEnabled())) {
+            return;
+        }
+        repositoryLocationResolver.findProjectId(gitDir).ifPresentOrElse(projectId -> submit(gitDir, projectId),
+                () -> log.debug("仓库没有对应的项目, 不索引提交: {}", gitDir));
+    }
+
+    /**
+     * 申请索引，同一仓库已经排队时只标记需要再索引一次
+     *
+     * @param gitDir    仓库目录
+     * @param projectId 项目ID
+     */
+    public void submit(File gitDir, String projectId) {
+        if (!Boolean.TRUE.equals(codeServerProperties.getCommitIndex().getEnabled())) {
+            return;
+        }
+        File key = normalize(gitDir);
+        State state = states.compute(key, (k, old) -> {
+            State current = old == null ? new State(projectId) : old;
+            current.dirty = true;
+            return current;
+        });
+        if (!state.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            workers.execute(() -> run(key, state));
+        } catch (RejectedExecutionException e) {
+            states.remove(key, state);
+            rejected.increment();
+        }
+    }
+
+    /**
+     * 开始回填全部项目，已经在回填时不重复开始
+     *
+     * @return 是否本次开始
+     */
+    public boolean startBackfill() {
+        if (!backfilling.compareAndSet(false, true)) {
+            return false;
+        }
+        backfillExecutor.execute(this::backfillAll);
+        return true;
+    }
+
+    /**
+     * 查询索引统计信息
+     *
+     * @return 统计信息
+     */
+    public CommitIndexStatsVO stats() {
+        CommitIndexStatsVO stats = new CommitIndexStatsVO();
+        stats.setBackfilling(backfilling.get());
+        stats.setPending(workers == null ? 0 : workers.getQueue().size());
+        stats.setCompleted(completed.sum());
+        stats.setIndexedCommits(indexedCommits.sum());
+        stats.setRejected(rejected.sum());
+        stats.setSkippedBusy(skippedBusy.sum());
+        stats.setFailed(failed.sum());
+        stats.setBackfillScanned(backfillScanned.sum());
+        return stats;
+    }
+
+    /**
+     * 初始化索引线程池和回填线程，按配置在启动时开始回填
+     */
+    @Override
+    public void afterPropertiesSet() {
+        CodeServerProperties.CommitIndex config = codeServerProperties.getCommitIndex();
+        int threads = Math.max(1, config.getThreads());
+        AtomicInteger sequence = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "commit-indexer-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        workers.allowCoreThreadTimeOut(true);
+        backfillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "commit-index-backfill");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        if (Boolean.TRUE.equals(config.getEnabled()) && Boolean.TRUE.equals(config.getBackfillOnStartup())) {
+            startBackfill();
+        }
+    }
+
+    /**
+     * 停止索引，未完成的仓库没有更新高水位，下次会重新索引
+     */
+    @Override
+    public void destroy() {
+        if (backfillExecutor != null) {
+            backfillExecutor.shutdownNow();
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * 索引仓库直到没有新的索引申请
+     *
+     * @param key   仓库目录
+     * @param state 索引状态
+     */
+    private void run(File key, State state) {
+        while (true) {
+            state.dirty = false;
+            try {
+                index(key, state.projectId);
+            } catch (Exception e) {
+                failed.increment();
+                log.error("索引提交失败: {}", key, e);
+            }
+            // 与 submit 在同一个 key 上串行, 期间的新申请要么被这里看到, 要么在移除后重新排队
+            AtomicBoolean again = new AtomicBoolean();
+            states.compute(key, (k, current) -> {
+                if (current == state && state.dirty) {
+                    again.set(true);
+                    return current;
+                }
+                state.scheduled.set(false);
+                return current == state ? null : current;
+            });
+            if (!again.get()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 索引仓库中尚未索引的提交
+     *
+     * @param gitDir    仓库目录
+     * @param projectId 项目ID
+     * @throws IOException 如果读取仓库失败
+     */
+    private void index(File gitDir, String projectId) throws IOException {
+        RepositoryLockManager.Hold lock = repositoryLockManager.tryShared(gitDir);
+        if (lock == null) {
+            // 仓库正在删除或迁移, 下次推送或回填时再索引
+            skippedBusy.increment();
+            return;
+        }
+        try (lock; Repository repository = repositoryPool.acquire(gitDir)) {
+            Map<String, String> marks = loadMarks(gitDir);
+            Map<String, String> tips = new TreeMap<>();
+            int indexed = 0;
+            try (RevWalk revWalk = new RevWalk(repository);
+                 TreeWalk treeWalk = new TreeWalk(repository, revWalk.getObjectReader())) {
+                revWalk.setRetainBody(false);
+                boolean changed = false;
+                for (Ref ref : repository.getRefDatabase().getRefsByPrefix(Constants.R_HEADS, Constants.R_TAGS)) {
+                    RevCommit tip = peelCommit(revWalk, ref);
+                    if (tip == null) {
+                        continue;
+                    }
+                    tips.put(ref.getName(), tip.name());
+                    if (!tip.name().equals(marks.get(ref.getName()))) {
+                        revWalk.markStart(tip);
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    for (String mark : new HashSet<>(marks.values())) {
+                        markIndexed(revWalk, mark);
+                    }
+                    treeWalk.setRecursive(true);
+                    int batchSize = Math.max(1, codeServerProperties.getCommitIndex().getBatchSize());
+                    List<CommitDO> batch = new ArrayList<>(batchSize);
+                    RevCommit commit;
+                    while ((commit = revWalk.next()) != null) {
+                        revWalk.parseBody(commit);
+                        batch.add(toDO(projectId, commit, changedFiles(revWalk, treeWalk, commit)));
+                        commit.disposeBody();
+                        if (batch.size() >= batchSize) {
+                            indexed += flush(projectId, batch);
+                            batch.clear();
+                        }
+                    }
+                    indexed += flush(projectId, batch);
+                }
+            }
+            if (!tips.equals(marks)) {
+                saveMarks(gitDir, tips);
+            }
+            indexedCommits.add(indexed);
+            completed.increment();
+            if (indexed > 0) {
+                log.debug("索引提交完成: {}, 新增: {}", gitDir, indexed);
+            }
+        } catch (RepositoryNotFoundException e) {
+            log.debug("仓库已不存在, 跳过索引: {}", gitDir);
+        }
+    }
+
+    /**
+     * 把引用解析为提交，指向树或 blob 的标签返回 null
+     *
+     * @param revWalk 提交遍历
+     * @param ref     引用
+     * @return 提交
+     * @throws IOException 如果读取对象失败
+     */
+    private RevCommit peelCommit(RevWalk revWalk, Ref ref) throws IOException {
+        if (ref.isSymbolic() || ref.getObjectId() == null) {
+            return null;
+        }
+        try {
+            RevObject object = revWalk.peel(revWalk.parseAny(ref.getObjectId()));
+            return object instanceof RevCommit commit ? commit : null;
+        } catch (MissingObjectException e) {
+            log.warn("引用指向的对象不存在: {}", ref.getName());
+            return null;
+        }
+    }
+
+    /**
+     * 把高水位及其历史标记为已索引，强制推送后已经被清理的高水位直接忽略
+     *
+     * @param revWalk 提交遍历
+     * @param mark    高水位提交ID
+     * @throws IOException 如果读取提交失败
+     */
+    private void markIndexed(RevWalk revWalk, String mark) throws IOException {
+        if (!ObjectId.isId(mark)) {
+            return;
+        }
+        try {
+            revWalk.markUninteresting(revWalk.parseCommit(ObjectId.fromString(mark)));
+        } catch (MissingObjectException | IncorrectObjectTypeException e) {
+            log.debug("高水位提交已不存在: {}", mark);
+        }
+    }
+
+    /**
+     * 统计提交相对第一个父提交修改的文件数量，根提交统计全部文件
+     *
+     * @param revWalk  提交遍历
+     * @param treeWalk 复用的目录树遍历
+     * @param commit   提交
+     * @return 修改的文件数量
+     * @throws IOException 如果读取目录树失败
+     */
+    private int changedFiles(RevWalk revWalk, TreeWalk treeWalk, RevCommit commit) throws IOException {
+        if (commit.getParentCount() == 0) {
+            treeWalk.setFilter(TreeFilter.ALL);
+            treeWalk.reset(commit.getTree());
+        } else {
+            RevCommit parent = commit.getParent(0);
+            revWalk.parseHeaders(parent);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            treeWalk.reset(parent.getTree(), commit.getTree());
+        }
+        int count = 0;
+        while (treeWalk.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 转换为提交实体
+     *
+     * @param projectId    项目ID
+     * @param commit       提交
+     * @param changedFiles 修改的文件数量
+     * @return 提交实体
+     */
+    private CommitDO toDO(String projectId, RevCommit commit, int changedFiles) {
+        CommitDO commitDO = new CommitDO();
+        commitDO.setProjectId(projectId);
+        commitDO.setCommitId(commit.name());
+        List<String> parentIds = new ArrayList<>(commit.getParentCount());
+        for (RevCommit parent : commit.getParents()) {
+            parentIds.add(parent.name());
+        }
+        commitDO.setParentIds(String.join(",", parentIds));
+        commitDO.setTitle(commit.getShortMessage());
+        commitDO.setMessage(commit.getFullMessage());
+        PersonIdent author = commit.getAuthorIdent();
+        commitDO.setAuthorName(author.getName());
+        commitDO.setAuthorEmail(author.getEmailAddress());
+        commitDO.setAuthorTime(LocalDateTime.ofInstant(author.getWhenAsInstant(), ZoneId.systemDefault()));
+        PersonIdent committer = commit.getCommitterIdent();
+        commitDO.setCommitterName(committer.getName());
+        commitDO.setCommitterEmail(committer.getEmailAddress());
+        commitDO.setCommitTime(LocalDateTime.ofInstant(committer.getWhenAsInstant(), ZoneId.systemDefault()));
+        commitDO.setChangedFiles(changedFiles);
+        return commitDO;
+    }
+
+    /**
+     * 去掉已经存在的提交后批量写入
+     *
+     * @param projectId 项目ID
+     * @param batch     待写入的提交
+     * @return 实际写入的数量
+     */
+    private int flush(String projectId, List<CommitDO> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Set<String> existing = new HashSet<>(commitMapper.selectCommitIdsByProjectIdAndCommitIds(projectId,
+                batch.stream().map(CommitDO::getCommitId).toList()));
+        List<CommitDO> commits = existing.isEmpty() ? new ArrayList<>(batch)
+                : batch.stream().filter(commit -> !existing.contains(commit.getCommitId())).collect(Collectors.toList());
+        if (commits.isEmpty()) {
+            return 0;
+        }
+        // 后台线程没有登录用户, 创建人填充为系统用户
+        UserContextHolder.setAnonymousUser();
+        try {
+            commitMapper.insertBatchSomeColumn(commits);
+        } finally {
+            UserContextHolder.remove();
+        }
+        return commits.size();
+    }
+
+    /**
+     * 读取高水位
+     *
+     * @param gitDir 仓库目录
+     * @return 引用名称 -> 已索引到的提交ID
+     * @throws IOException 如果读取失败
+     */
+    private Map<String, String> loadMarks(File gitDir) throws IOException {
+        Map<String, String> marks = new TreeMap<>();
+        File file = new File(gitDir, MARKS_FILE);
+        if (!file.isFile()) {
+            return marks;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        }
+        for (String name : properties.stringPropertyNames()) {
+            marks.put(name, properties.getProperty(name));
+        }
+        return marks;
+    }
+
+    /**
+     * 原子地保存高水位
+     *
+     * @param gitDir 仓库目录
+     * @param marks  引用名称 -> 已索引到的提交ID
+     * @throws IOException 如果写入失败
+     */
+    private void saveMarks(File gitDir, Map<String, String> marks) throws IOException {
+        Properties properties = new Properties();
+        properties.putAll(marks);
+        File file = new File(gitDir, MARKS_FILE);
+        File tmp = new File(gitDir, MARKS_FILE + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp.toPath())) {
+                properties.store(out, null);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * 回填全部项目，队列剩余容量不足一半时等待，给推送触发的索引留出空间
+     */
+    private void backfillAll() {
+        CodeServerProperties.CommitIndex config = codeServerProperties.getCommitIndex();
+        int reserve = Math.max(1, config.getQueueCapacity() / 2);
+        try {
+            log.info("开始回填提交索引");
+            String lastId = null;
+            while (true) {
+                List<ProjectDO> projects = projectMapper.selectProjectLocationsAfterId(lastId, Math.max(1, config.getBackfillBatchSize()));
+                if (projects.isEmpty()) {
+                    break;
+                }
+                for (ProjectDO project : projects) {
+                    while (workers.getQueue().remainingCapacity() < reserve) {
+                        TimeUnit.MILLISECONDS.sleep(200);
+                    }
+                    backfillScanned.increment();
+                    File gitDir = repositoryLocationResolver.locate(project.getId(), project.getProjectGroupId(), project.getProjectPath());
+                    if (gitDir.isDirectory()) {
+                        submit(gitDir, project.getId());
+                    }
+                    lastId = project.getId();
+                }
+            }
+            log.info("提交索引回填已全部入队, 检查项目: {}", backfillScanned.sum());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("提交索引回填被中断");
+        } catch (Exception e) {
+            log.error("提交索引回填失败", e);
+        } finally {
+            backfilling.set(false);
+        }
+    }
+
+    /**
+     * 规范化仓库目录，同一仓库的不同写法合并为一个索引申请
+     *
+     * @param gitDir 仓库目录
+     * @return 规范化后的仓库目录
+     */
+    private File normalize(File gitDir) {
+        return gitDir.toPath().toAbsolutePath().normalize().toFile();
+    }
+
+    /**
+     * 单个仓库的索引状态
+     */
+    @RequiredArgsConstructor
+    private static class State {
+
+        /**
+         * 项目ID
+         */
+        private final String projectId;
+
+        /**
+         * 是否已经提交到线程池
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * 是否有尚未处理的索引申请
+         */
+        private volatile boolean dirty;
+    }
+}
@@ -0,0 +1,486 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.maintenance;
+
+import io.xianzhi.code.bootstrap.dao.dataobj.PullRequestDO;
+import io.xianzhi.code.bootstrap.dao.mapper.ProjectMapper;
+import io.xianzhi.code.bootstrap.dao.mapper.PullRequestMapper;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.InCoreObjectInserter;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
+import io.xianzhi.code.model.enums.MergeStatusEnum;
+import io.xianzhi.code.model.enums.PullRequestStatusEnum;
+import io.xianzhi.code.model.vo.MergeabilityStatsVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.errors.NoMergeBaseException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.merge.MergeStrategy;
+import org.eclipse.jgit.merge.ResolveMerger;
+import org.eclipse.jgit.transport.ReceiveCommand;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 合并请求冲突检查
+ * <p>
+ * 分支更新后在后台检查以该分支为源或目标的打开的合并请求能否合并，结果和冲突文件写回合并请求，页面直接读取。
+ * 推送后等待 coalesceDelay 再检查，期间和检查过程中同一项目的推送只累积更新的分支，合并为下一次检查，
+ * 检查线程数固定，不同项目并行。合并使用 {@link ResolveMerger} 在内存中执行，结果对象写入 {@link InCoreObjectInserter}，
+ * 不需要工作区，也不会在仓库中留下对象；源提交和目标提交都没有变化的合并请求不重复检查。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MergeabilityChecker implements InitializingBean, DisposableBean {
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 项目持久层
+     */
+    private final ProjectMapper projectMapper;
+
+    /**
+     * 合并请求持久层
+     */
+    private final PullRequestMapper pullRequestMapper;
+
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+
+    /**
+     * 项目ID -> 等待检查的状态，只保存已排队或正在检查的项目
+     */
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+
+    /**
+     * 合并到已排队检查中的推送次数
+     */
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * 执行的内存合并次数
+     */
+    private final LongAdder merges = new LongAdder();
+
+    /**
+     * 可以合并的次数
+     */
+    private final LongAdder mergeable = new LongAdder();
+
+    /**
+     * 存在冲突的次数
+     */
+    private final LongAdder conflicts = new LongAdder();
+
+    /**
+     * 两侧提交都没有变化而跳过的次数
+     */
+    private final LongAdder unchanged = new LongAdder();
+
+    /**
+     * 源提交和目标提交不在同一个仓库中而推迟的次数
+     */
+    private final LongAdder deferred = new LongAdder();
+
+    /**
+     * 等待检查的项目过多而未检查的次数
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 仓库正在独占使用而跳过的次数
+     */
+    private final LongAdder skippedBusy = new LongAdder();
+
+    /**
+     * 检查失败的次数
+     */
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * 检查线程池
+     */
+    private ScheduledThreadPoolExecutor executor;
+
+    /**
+     * 推送完成后申请检查，只入队不等待
+     *
+     * @param gitDir   仓库目录
+     * @param commands 引用更新命令
+     */
+    public void onPush(File gitDir, Collection<ReceiveCommand> commands) {
+        if (!Boolean.TRUE.equals(codeServerProperties.getMergeability().getEnabled())) {
+            return;
+        }
+        Set<String> branches = new HashSet<>();
+        for (ReceiveCommand command : commands) {
+            if (command.getResult() == ReceiveCommand.Result.OK && command.getRefName().startsWith(Constants.R_HEADS)) {
+                branches.add(command.getRefName().substring(Constants.R_HEADS.length()));
+            }
+        }
+        if (branches.isEmpty()) {
+            return;
+        }
+        repositoryLocationResolver.findProjectId(gitDir).ifPresent(projectId -> submit(projectId, branches));
+    }
+
+    /**
+     * 申请检查以这些分支为源或目标的合并请求，同一项目已经排队时只累积分支
+     *
+     * @param projectId 项目ID
+     * @param branches  更新的分支名称
+     */
+    public void submit(String projectId, Collection<String> branches) {
+        if (!Boolean.TRUE.equals(codeServerProperties.getMergeability().getEnabled()) || branches.isEmpty()) {
+            return;
+        }
+        State state = states.compute(projectId, (key, old) -> {
+            State current = old == null ? new State() : old;
+            current.branches.addAll(branches);
+            return current;
+        });
+        if (!state.scheduled.compareAndSet(false, true)) {
+            coalesced.increment();
+            return;
+        }
+        if (states.size() > codeServerProperties.getMergeability().getMaxPendingProjects()) {
+            states.remove(projectId, state);
+            rejected.increment();
+            return;
+        }
+        schedule(projectId, state);
+    }
+
+    /**
+     * 查询检查统计信息
+     *
+     * @return 统计信息
+     */
+    public MergeabilityStatsVO stats() {
+        MergeabilityStatsVO stats = new MergeabilityStatsVO();
+        stats.setPending(states.size());
+        stats.setCoalesced(coalesced.sum());
+        stats.setMerges(merges.sum());
+        stats.setMergeable(mergeable.sum());
+        stats.setConflicts(conflicts.sum());
+        stats.setUnchanged(unchanged.sum());
+        stats.setDeferred(deferred.sum());
+        stats.setRejected(rejected.sum());
+        stats.setSkippedBusy(skippedBusy.sum());
+        stats.setFailed(failed.sum());
+        return stats;
+    }
+
+    /**
+     * 初始化检查线程池
+     */
+    @Override
+    public void afterPropertiesSet() {
+        AtomicInteger sequence = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(Math.max(1, codeServerProperties.getMergeability().getThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "mergeability-checker-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * 停止检查，未完成的合并请求在下次推送时重新检查
+     */
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 延迟执行检查
+     *
+     * @param projectId 项目ID
+     * @param state     等待检查的状态
+     */
+    private void schedule(String projectId, State state) {
+        try {
+            executor.schedule(() -> run(projectId, state), codeServerProperties.getMergeability().getCoalesceDelay().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            states.remove(projectId, state);
+            rejected.increment();
+        }
+    }
+
+    /**
+     * 检查累积的分支，检查期间又有推送时重新延迟执行
+     *
+     * @param projectId 项目ID
+     * @param state     等待检查的状态
+     */
+    private void run(String projectId, State state) {
+        Set<String> branches = new HashSet<>();
+        states.computeIfPresent(projectId, (key, current) -> {
+            if (current == state) {
+                branches.addAll(state.branches);
+                state.branches.clear();
+            }
+            return current;
+        });
+        try {
+            check(projectId, branches);
+        } catch (Exception e) {
+            failed.increment();
+            log.error("检查合并请求能否合并失败: {}", projectId, e);
+        }
+        // 与 submit 在同一个 key 上串行, 期间累积的分支要么被这里看到, 要么在移除后重新排队
+        AtomicBoolean again = new AtomicBoolean();
+        states.compute(projectId, (key, current) -> {
+            if (current == state && !state.branches.isEmpty()) {
+                again.set(true);
+                return current;
+            }
+            return current == state ? null : current;
+        });
+        if (again.get()) {
+            schedule(projectId, state);
+        }
+    }
+
+    /**
+     * 检查以这些分支为源或目标的打开的合并请求
+     *
+     * @param projectId 项目ID
+     * @param branches  更新的分支名称
+     */
+    private void check(String projectId, Set<String> branches) {
+        if (branches.isEmpty()) {
+            return;
+        }
+        List<PullRequestDO> pullRequests = pullRequestMapper.selectPullRequestsByProjectIdAndStatus(projectId, PullRequestStatusEnum.OPEN.getCode());
+        for (PullRequestDO pullRequestDO : pullRequests) {
+            boolean targetMoved = projectId.equals(pullRequestDO.getProjectId()) && branches.contains(pullRequestDO.getTargetBranch());
+            boolean sourceMoved = projectId.equals(sourceProjectId(pullRequestDO)) && branches.contains(pullRequestDO.getSourceBranch());
+            if (!targetMoved && !sourceMoved) {
+                continue;
+            }
+            try {
+                check(pullRequestDO);
+            } catch (Exception e) {
+                failed.increment();
+                log.error("检查合并请求能否合并失败: {}", pullRequestDO.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * 检查单个合并请求，源项目与目标项目不同时同时持有两个仓库的共享锁
+     *
+     * @param pullRequestDO 合并请求
+     * @throws IOException 如果读取仓库失败
+     */
+    private void check(PullRequestDO pullRequestDO) throws IOException {
+        File targetDir = locate(pullRequestDO.getProjectId());
+        File sourceDir = locate(sourceProjectId(pullRequestDO));
+        if (targetDir == null || sourceDir == null) {
+            return;
+        }
+        RepositoryLockManager.Hold targetLock = repositoryLockManager.tryShared(targetDir);
+        if (targetLock == null) {
+            skippedBusy.increment();
+            return;
+        }
+        try (targetLock; Repository target = repositoryPool.acquire(targetDir)) {
+            if (sourceDir.equals(targetDir)) {
+                check(pullRequestDO, target, target);
+                return;
+            }
+            RepositoryLockManager.Hold sourceLock = repositoryLockManager.tryShared(sourceDir);
+            if (sourceLock == null) {
+                skippedBusy.increment();
+                return;
+            }
+            try (sourceLock; Repository source = repositoryPool.acquire(sourceDir)) {
+                check(pullRequestDO, target, source);
+            }
+        }
+    }
+
+    /**
+     * 在同时拥有源提交和目标提交的仓库中执行内存合并，fork 项目的新提交迁移到对象池之前可能两边都不完整，此时推迟检查
+     *
+     * @param pullRequestDO    合并请求
+     * @param targetRepository 目标仓库
+     * @param sourceRepository 源仓库
+     * @throws IOException 如果读取仓库失败
+     */
+    private void check(PullRequestDO pullRequestDO, Repository targetRepository, Repository sourceRepository) throws IOException {
+        ObjectId target = branchTip(targetRepository, pullRequestDO.getTargetBranch());
+        ObjectId source = branchTip(sourceRepository, pullRequestDO.getSourceBranch());
+        if (target == null || source == null) {
+            save(pullRequestDO, MergeStatusEnum.UNKNOWN, null, source, target);
+            return;
+        }
+        if (target.name().equals(pullRequestDO.getMergeTargetCommitId()) && source.name().equals(pullRequestDO.getMergeSourceCommitId())
+                && StringUtils.hasText(pullRequestDO.getMergeStatus()) && !MergeStatusEnum.UNCHECKED.getCode().equals(pullRequestDO.getMergeStatus())) {
+            unchanged.increment();
+            return;
+        }
+        Repository repository;
+        if (targetRepository.getObjectDatabase().has(source)) {
+            repository = targetRepository;
+        } else if (sourceRepository.getObjectDatabase().has(target)) {
+            repository = sourceRepository;
+        } else {
+            deferred.increment();
+            save(pullRequestDO, MergeStatusEnum.UNCHECKED, null, null, null);
+            return;
+        }
+        merges.increment();
+        try (InCoreObjectInserter inserter = new InCoreObjectInserter(repository.newObjectReader())) {
+            ResolveMerger merger = (ResolveMerger) MergeStrategy.RECURSIVE.newMerger(inserter, repository.getConfig());
+            if (merger.merge(target, source)) {
+                mergeable.increment();
+                save(pullRequestDO, MergeStatusEnum.MERGEABLE, null, source, target);
+                return;
+            }
+            Set<String> paths = new TreeSet<>(merger.getUnmergedPaths());
+            if (merger.getFailingPaths() != null) {
+                paths.addAll(merger.getFailingPaths().keySet());
+            }
+            conflicts.increment();
+            save(pullRequestDO, MergeStatusEnum.CONFLICT, paths.stream()
+                    .limit(Math.max(1, codeServerProperties.getMergeability().getMaxConflictFiles()))
+                    .collect(Collectors.joining("\n")), source, target);
+        } catch (NoMergeBaseException e) {
+            log.warn("合并请求无法计算合并基准: {}, {}", pullRequestDO.getId(), e.getMessage());
+            save(pullRequestDO, MergeStatusEnum.UNKNOWN, null, source, target);
+        }
+    }
+
+    /**
+     * 保存检查结果
+     *
+     * @param pullRequestDO 合并请求
+     * @param mergeStatus   能否合并
+     * @param conflictFiles 冲突文件
+     * @param source        源提交
+     * @param target        目标提交
+     */
+    private void save(PullRequestDO pullRequestDO, MergeStatusEnum mergeStatus, String conflictFiles, ObjectId source, ObjectId target) {
+        pullRequestMapper.updateMergeStatusById(pullRequestDO.getId(), mergeStatus.getCode(), conflictFiles,
+                source == null ? null : source.name(), target == null ? null : target.name(), LocalDateTime.now());
+    }
+
+    /**
+     * 查询分支指向的提交
+     *
+     * @param repository 仓库
+     * @param branch     分支名称
+     * @return 提交ID，分支不存在时返回 null
+     * @throws IOException 如果读取引用失败
+     */
+    private ObjectId branchTip(Repository repository, String branch) throws IOException {
+        if (!StringUtils.hasText(branch)) {
+            return null;
+        }
+        Ref ref = repository.exactRef(Constants.R_HEADS + branch);
+        return ref == null ? null : ref.getObjectId();
+    }
+
+    /**
+     * 查询项目的仓库目录
+     *
+     * @param projectId 项目ID
+     * @return 仓库目录，项目不存在时返回 null
+     */
+    private File locate(String projectId) {
+        return projectMapper.selectProjectById(projectId)
+                .map(projectDO -> repositoryLocationResolver.locate(projectDO.getId(), projectDO.getProjectGroupId(), projectDO.getProjectPath()))
+                .orElse(null);
+    }
+
+    /**
+     * 源项目ID，为空时与目标项目相同
+     *
+     * @param pullRequestDO 合并请求
+     * @return 源项目ID
+     */
+    private String sourceProjectId(PullRequestDO pullRequestDO) {
+        return StringUtils.hasText(pullRequestDO.getSourceProjectId()) ? pullRequestDO.getSourceProjectId() : pullRequestDO.getProjectId();
+    }
+
+    /**
+     * 单个项目的等待检查状态
+     */
+    private static class State {
+
+        /**
+         * 是否已经提交到线程池
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * 累积的更新分支，只在 states.compute 中读写
+         */
+        private final Set<String> branches = new HashSet<>();
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.maintenance;
+
+import io.xianzhi.code.bootstrap.dao.dataobj.ProjectDO;
+import io.xianzhi.code.bootstrap.dao.mapper.ProjectMapper;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.ObjectPool;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
+import io.xianzhi.code.model.vo.ObjectPoolStatsVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.internal.storage.file.PackIndex;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectDatabase;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.storage.pack.PackConfig;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TagOpt;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * fork 网络共享对象池维护
+ * <p>
+ * fork 网络中的仓库不能单独执行 JGit GC，否则会把对象池中的对象重新打包回成员仓库。
+ * 维护以整个网络为单位进行：先把每个成员的引用通过本地 fetch 同步到对象池的 {@code refs/forks/<项目ID>/*}，
+ * 成员独有的新对象随之进入对象池；全部成员同步成功后按需重新打包对象池；最后删除成员中
+ * 已经完全被对象池包含的 pack 和松散对象，成员仓库只保留尚未迁移的新对象。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ObjectPoolMaintainer {
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 项目持久层
+     */
+    private final ProjectMapper projectMapper;
+
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+
+    /**
+     * 对象池目录 -> 上次维护时间
+     */
+    private final Map<File, Long> lastMaintained = new ConcurrentHashMap<>();
+
+    /**
+     * 完成维护的对象池数量
+     */
+    private final LongAdder maintained = new LongAdder();
+
+    /**
+     * 成员引用同步到对象池的次数
+     */
+    private final LongAdder mirrored = new LongAdder();
+
+    /**
+     * 从对象池移除的已删除成员数量
+     */
+    private final LongAdder removedMembers = new LongAdder();
+
+    /**
+     * 对象池重新打包的次数
+     */
+    private final LongAdder poolRepacks = new LongAdder();
+
+    /**
+     * 成员中已被对象池包含而删除的 pack 数量
+     */
+    private final LongAdder dedupedPacks = new LongAdder();
+
+    /**
+     * 成员中已被对象池包含而删除的松散对象数量
+     */
+    private final LongAdder dedupedLooseObjects = new LongAdder();
+
+    /**
+     * 成员正在使用而跳过的次数
+     */
+    private final LongAdder skippedBusy = new LongAdder();
+
+    /**
+     * 维护失败的次数
+     */
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * 维护对象池所在的整个 fork 网络，距离上次维护不足配置的间隔或正在 fork 时跳过
+     *
+     * @param poolDir 对象池仓库目录
+     * @return 是否执行了维护
+     */
+    public boolean maintain(File poolDir) {
+        File key = poolDir.toPath().toAbsolutePath().normalize().toFile();
+        long now = System.currentTimeMillis();
+        Long last = lastMaintained.get(key);
+        if (last != null && now - last < codeServerProperties.getMaintenance().getPoolInterval().toMillis()) {
+            return false;
+        }
+        ReentrantLock lock = ObjectPool.lock(key);
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            if (!key.isDirectory()) {
+                return false;
+            }
+            lastMaintained.put(key, now);
+            maintainNetwork(key);
+            maintained.increment();
+            return true;
+        } catch (IOException | GitAPIException e) {
+            failed.increment();
+            log.error("对象池维护失败: {}", key, e);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 查询对象池维护统计信息
+     *
+     * @return 统计信息
+     */
+    public ObjectPoolStatsVO stats() {
+        ObjectPoolStatsVO stats = new ObjectPoolStatsVO();
+        stats.setMaintained(maintained.sum());
+        stats.setMirrored(mirrored.sum());
+        stats.setRemovedMembers(removedMembers.sum());
+        stats.setPoolRepacks(poolRepacks.sum());
+        stats.setDedupedPacks(dedupedPacks.sum());
+        stats.setDedupedLooseObjects(dedupedLooseObjects.sum());
+        stats.setSkippedBusy(skippedBusy.sum());
+        stats.setFailed(failed.sum());
+        return stats;
+    }
+
+    /**
+     * 同步成员、重新打包对象池并删除成员中的重复对象
+     *
+     * @param poolDir 对象池仓库目录
+     * @throws IOException     如果读写仓库失败
+     * @throws GitAPIException 如果同步成员失败
+     */
+    private void maintainNetwork(File poolDir) throws IOException, GitAPIException {
+        long start = System.currentTimeMillis();
+        try (Repository pool = new FileRepositoryBuilder().setGitDir(poolDir).setMustExist(true).build()) {
+            List<File> members = new ArrayList<>();
+            boolean complete = true;
+            for (String projectId : ObjectPool.members(pool)) {
+                File memberDir = locateMember(projectId, poolDir);
+                if (memberDir == null) {
+                    // 项目已删除或已不在这个网络中, 它的对象在下次重新打包时回收
+                    ObjectPool.removeMember(pool, projectId);
+                    removedMembers.increment();
+                    continue;
+                }
+                RepositoryLockManager.Hold lock = repositoryLockManager.tryShared(memberDir);
+                if (lock == null || repositoryPool.leases(memberDir) > 0) {
+                    skippedBusy.increment();
+                    complete = false;
+                    if (lock != null) {
+                        lock.close();
+                    }
+                    continue;
+                }
+                try (lock) {
+                    mirror(pool, projectId, memberDir);
+                }
+                members.add(memberDir);
+            }
+            // 有成员没有同步时, 它的新引用可能指向只被旧快照引用的对象, 本轮不能重新打包对象池
+            if (complete) {
+                repackIfNeeded(pool);
+            }
+            // 删除 pack 文件时不能有读写正在进行, 借出句柄的读写都持有共享锁, 拿不到独占锁时跳过这个成员
+            for (File memberDir : members) {
+                try (RepositoryLockManager.Hold lock = repositoryLockManager.tryExclusive(memberDir)) {
+                    if (lock == null) {
+                        skippedBusy.increment();
+                        continue;
+                    }
+                    dedup(pool.getObjectDatabase(), memberDir);
+                }
+            }
+            log.info("对象池维护完成: {}, 成员: {}, 耗时: {}ms", poolDir, members.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 查找成员仓库目录
+     *
+     * @param projectId 成员项目ID
+     * @param poolDir   对象池仓库目录
+     * @return 成员仓库目录，项目不存在或已不使用该对象池时返回 null
+     * @throws IOException 如果读取 alternates 失败
+     */
+    private File locateMember(String projectId, File poolDir) throws IOException {
+        Optional<ProjectDO> project = projectMapper.selectProjectById(projectId);
+        if (project.isEmpty()) {
+            return null;
+        }
+        File memberDir = repositoryLocationResolver.locate(projectId, project.get().getProjectGroupId(), project.get().getProjectPath());
+        if (!memberDir.isDirectory()) {
+            return null;
+        }
+        File memberPool = ObjectPool.getPoolDir(memberDir);
+        return memberPool != null && memberPool.equals(poolDir) ? memberDir : null;
+    }
+
+    /**
+     * 把成员的全部引用同步到对象池，成员独有的对象随之写入对象池，成员已删除的引用一并删除
+     *
+     * @param pool      对象池仓库
+     * @param projectId 成员项目ID
+     * @param memberDir 成员仓库目录
+     * @throws GitAPIException 如果 fetch 失败
+     */
+    private void mirror(Repository pool, String projectId, File memberDir) throws GitAPIException {
+        RefSpec refSpec = new RefSpec("+" + Constants.R_REFS + "*:" + ObjectPool.R_FORKS + projectId + "/*");
+        Git.wrap(pool).fetch()
+                .setRemote(memberDir.getAbsolutePath())
+                .setRefSpecs(refSpec)
+                .setRemoveDeletedRefs(true)
+                .setTagOpt(TagOpt.NO_TAGS)
+                .setProgressMonitor(NullProgressMonitor.INSTANCE)
+                .call();
+        mirrored.increment();
+    }
+
+    /**
+     * 松散对象或 pack 文件过多时重新打包对象池，对象池没有 alternates，可以直接使用 JGit GC
+     *
+     * @param pool 对象池仓库
+     * @throws IOException 如果打包失败
+     */
+    private void repackIfNeeded(Repository pool) throws IOException {
+        CodeServerProperties.Maintenance config = codeServerProperties.getMaintenance();
+        GC gc = new GC((FileRepository) pool);
+        GC.RepoStatistics statistics = gc.getStatistics();
+        if (statistics.numberOfLooseObjects < config.getLooseObjectThreshold()
+                && statistics.numberOfPackFiles < config.getPackFileThreshold()) {
+            return;
+        }
+        PackConfig packConfig = new PackConfig(pool);
+        packConfig.setBuildBitmaps(true);
+        packConfig.setThreads(Math.max(1, config.getPackThreads()));
+        gc.setPackConfig(packConfig);
+        gc.setProgressMonitor(NullProgressMonitor.INSTANCE);
+        gc.setAuto(false);
+        try {
+            gc.gc().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            throw new IOException("对象池重新打包失败: " + e.getMessage(), e);
+        }
+        poolRepacks.increment();
+    }
+
+    /**
+     * 删除成员中已经完全被对象池包含的 pack 和松散对象，调用方持有成员仓库独占锁
+     * <p>
+     * 只按对象是否存在于对象池判断，不依赖可达性，同步之后新推送的对象不在对象池中，会继续保留在成员仓库。
+     * </p>
+     *
+     * @param poolDatabase 对象池对象库
+     * @param memberDir    成员仓库目录
+     * @throws IOException 如果读取索引或删除文件失败
+     */
+    private void dedup(ObjectDatabase poolDatabase, File memberDir) throws IOException {
+        File objects = new File(memberDir, Constants.OBJECTS);
+        boolean changed = false;
+        File packDir = new File(objects, "pack");
+        File[] packs = packDir.listFiles(file -> file.isFile() && file.getName().startsWith("pack-") && file.getName().endsWith(".pack"));
+        if (packs != null) {
+            for (File pack : packs) {
+                String base = pack.getName().substring(0, pack.getName().length() - ".pack".length());
+                File index = new File(packDir, base + ".idx");
+                // 带 .keep 的 pack 正在被写入或被显式保留
+                if (!index.isFile() || new File(packDir, base + ".keep").exists() || !containsAll(poolDatabase, PackIndex.open(index))) {
+                    continue;
+                }
+                Files.deleteIfExists(pack.toPath());
+                File[] related = packDir.listFiles(file -> file.getName().startsWith(base + "."));
+                if (related != null) {
+                    for (File file : related) {
+                        Files.deleteIfExists(file.toPath());
+                    }
+                }
+                dedupedPacks.increment();
+                changed = true;
+            }
+        }
+        File[] looseDirs = objects.listFiles(file -> file.isDirectory() && file.getName().matches("[0-9a-f]{2}"));
+        if (looseDirs != null) {
+            for (File looseDir : looseDirs) {
+                File[] looseObjects = looseDir.listFiles(file -> file.isFile() && ObjectId.isId(looseDir.getName() + file.getName()));
+                if (looseObjects == null) {
+                    continue;
+                }
+                for (File looseObject : looseObjects) {
+                    if (poolDatabase.has(ObjectId.fromString(looseDir.getName() + looseObject.getName()))) {
+                        Files.deleteIfExists(looseObject.toPath());
+                        dedupedLooseObjects.increment();
+                        changed = true;
+                    }
+                }
+            }
+        }
+        if (changed) {
+            repositoryPool.invalidate(memberDir);
+        }
+    }
+
+    /**
+     * 判断 pack 中的对象是否全部存在于对象池
+     *
+     * @param poolDatabase 对象池对象库
+     * @param index        pack 索引
+     * @return 是否全部存在
+     * @throws IOException 如果读取对象池失败
+     */
+    private boolean containsAll(ObjectDatabase poolDatabase, PackIndex index) throws IOException {
+        for (PackIndex.MutableEntry entry : index) {
+            if (!poolDatabase.has(entry.toObjectId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.maintenance;
+
+import io.xianzhi.code.bootstrap.dao.dataobj.ProjectDO;
+import io.xianzhi.code.bootstrap.dao.mapper.ProjectMapper;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.RefAdvertisementCache;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
+import io.xianzhi.code.model.vo.StorageMigrationStatsVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 仓库存储布局在线迁移
+ * <p>
+ * 按项目ID分批扫描项目，把仍在 {@code 分组/项目路径/.git} 下的仓库改名到散列目录，
+ * 同一文件系统内只是一次目录 rename，不复制数据。原位置留下指向新目录的相对链接，
+ * 迁移瞬间仍在使用旧路径的请求可以继续完成。句柄池和锁按真实路径归一，迁移后旧路径和散列路径共用同一个句柄和锁。
+ * 迁移时持有仓库独占锁，拿不到锁或正在被借出的仓库本轮跳过，隔一段时间后重试。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RepositoryLayoutMigrator implements InitializingBean, DisposableBean {
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 项目持久层
+     */
+    private final ProjectMapper projectMapper;
+
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+
+    /**
+     * 引用通告缓存
+     */
+    private final RefAdvertisementCache refAdvertisementCache;
+
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+
+    /**
+     * 是否正在迁移
+     */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * 已检查的项目数量
+     */
+    private final LongAdder scanned = new LongAdder();
+
+    /**
+     * 已迁移的仓库数量
+     */
+    private final LongAdder migrated = new LongAdder();
+
+    /**
+     * 正在使用而跳过的次数
+     */
+    private final LongAdder skippedBusy = new LongAdder();
+
+    /**
+     * 迁移失败的次数
+     */
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * 迁移线程
+     */
+    private ExecutorService executor;
+
+    /**
+     * 开始迁移，已经在迁移时不重复开始
+     *
+     * @return 是否本次开始
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.execute(this::migrateAll);
+        return true;
+    }
+
+    /**
+     * 查询迁移统计信息
+     *
+     * @return 统计信息
+     */
+    public StorageMigrationStatsVO stats() {
+        StorageMigrationStatsVO stats = new StorageMigrationStatsVO();
+        stats.setRunning(running.get());
+        stats.setScanned(scanned.sum());
+        stats.setMigrated(migrated.sum());
+        stats.setSkippedBusy(skippedBusy.sum());
+        stats.setFailed(failed.sum());
+        return stats;
+    }
+
+    /**
+     * 初始化迁移线程，按配置在启动时开始迁移
+     */
+    @Override
+    public void afterPropertiesSet() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "repository-layout-migrator");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        if (Boolean.TRUE.equals(codeServerProperties.getStorage().getMigrateOnStartup())) {
+            start();
+        }
+    }
+
+    /**
+     * 停止迁移线程，正在迁移的仓库在 rename 之间被打断也不会丢失数据
+     */
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 迁移全部仓库，跳过的仓库按配置重试若干轮
+     */
+    private void migrateAll() {
+        CodeServerProperties.Storage config = codeServerProperties.getStorage();
+        try {
+            log.info("开始迁移仓库存储布局");
+            int busy = migratePass();
+            for (int round = 0; busy > 0 && round < config.getMigrateRetryRounds(); round++) {
+                log.info("仓库存储布局迁移有 {} 个仓库正在使用, {} 后重试", busy, config.getMigrateRetryDelay());
+                TimeUnit.MILLISECONDS.sleep(config.getMigrateRetryDelay().toMillis());
+                busy = migratePass();
+            }
+            log.info("仓库存储布局迁移结束, 已迁移: {}, 未迁移: {}", migrated.sum(), busy);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("仓库存储布局迁移被中断");
+        } catch (Exception e) {
+            log.error("仓库存储布局迁移失败", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 扫描一遍全部项目
+     *
+     * @return 正在使用而跳过的仓库数量
+     * @throws InterruptedException 如果被中断
+     */
+    private int migratePass() throws InterruptedException {
+        CodeServerProperties.Storage config = codeServerProperties.getStorage();
+        int busy = 0;
+        String lastId = null;
+        while (true) {
+            List<ProjectDO> projects = projectMapper.selectProjectLocationsAfterId(lastId, Math.max(1, config.getMigrateBatchSize()));
+            if (projects.isEmpty()) {
+                return busy;
+            }
+            for (ProjectDO project : projects) {
+                scanned.increment();
+                if (!migrate(project)) {
+                    busy++;
+                }
+                lastId = project.getId();
+            }
+            TimeUnit.MILLISECONDS.sleep(config.getMigratePause().toMillis());
+        }
+    }
+
+    /**
+     * 迁移单个仓库
+     *
+     * @param project 项目
+     * @return 仓库正在使用而跳过时返回 false
+     */
+    private boolean migrate(ProjectDO project) {
+        File legacyDir = repositoryLocationResolver.getLegacyRepositoryDir(project.getProjectGroupId(), project.getProjectPath());
+        File hashedDir = repositoryLocationResolver.getRepositoryDir(project.getId());
+        Path legacy = legacyDir.toPath();
+        // 已迁移(旧位置是链接)或没有旧仓库时无需处理
+        if (!Files.isDirectory(legacy, LinkOption.NOFOLLOW_LINKS) || hashedDir.exists()) {
+            return true;
+        }
+        RepositoryLockManager.Hold lock = repositoryLockManager.tryExclusive(legacyDir);
+        if (lock == null) {
+            skippedBusy.increment();
+            return false;
+        }
+        try (lock) {
+            // 独占锁挡住了 git 传输, 页面浏览等直接借出句柄的读取仍需要检查
+            if (repositoryPool.leases(legacyDir) > 0) {
+                skippedBusy.increment();
+                return false;
+            }
+            return move(project, legacyDir, hashedDir);
+        }
+    }
+
+    /**
+     * 把旧目录改名到散列目录并留下兼容链接，调用方持有旧目录的独占锁
+     *
+     * @param project   项目
+     * @param legacyDir 旧目录
+     * @param hashedDir 散列目录
+     * @return 总是返回 true，失败计入统计不再重试
+     */
+    private boolean move(ProjectDO project, File legacyDir, File hashedDir) {
+        Path legacy = legacyDir.toPath();
+        // 句柄池和引用通告缓存按真实路径归一, 移动后旧路径解析到散列目录, 需要在移动前失效
+        repositoryPool.invalidate(legacyDir);
+        refAdvertisementCache.invalidate(legacyDir);
+        try {
+            Path target = hashedDir.toPath();
+            Files.createDirectories(target.getParent());
+            Files.move(legacy, target, StandardCopyOption.ATOMIC_MOVE);
+            try {
+                Files.createSymbolicLink(legacy, legacy.getParent().relativize(target));
+            } catch (IOException | UnsupportedOperationException e) {
+                log.warn("创建仓库兼容链接失败: {}, {}", legacy, e.getMessage());
+            }
+        } catch (IOException e) {
+            failed.increment();
+            log.error("迁移仓库失败: {} -> {}", legacyDir, hashedDir, e);
+            return true;
+        }
+        repositoryLocationResolver.invalidate(project.getProjectGroupId(), project.getProjectPath());
+        migrated.increment();
+        log.debug("仓库已迁移: {} -> {}", legacyDir, hashedDir);
+        return true;
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.maintenance;
+
+import io.xianzhi.code.bootstrap.executor.GitCommandExecutor;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.ObjectPool;
+import io.xianzhi.code.bootstrap.repository.PackfileUriPublisher;
+import io.xianzhi.code.bootstrap.repository.ReceiveQuarantine;
+import io.xianzhi.code.bootstrap.repository.RefAdvertisementCache;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
+import io.xianzhi.code.model.vo.MaintenanceStatsVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.pack.PackConfig;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 仓库后台维护
+ * <p>
+ * 记录每个仓库的推送次数，在维护窗口内且 git 命令负载较低时，对松散对象、pack 文件过多
+ * 或缺少位图索引的仓库执行 JGit GC(重新打包并生成位图)。每天第一次进入窗口时全量扫描一遍仓库。
+ * 打包完成后同时重写 commit-graph。fork 网络的成员交给 {@link ObjectPoolMaintainer} 按网络维护。
+ * 正在被 upload-pack/receive-pack 使用的仓库本轮跳过，通过并发数、打包线程数和仓库之间的停顿限制IO。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RepositoryMaintenanceScheduler implements InitializingBean, DisposableBean {
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+
+    /**
+     * git命令执行器
+     */
+    private final GitCommandExecutor gitCommandExecutor;
+
+    /**
+     * 引用通告缓存
+     */
+    private final RefAdvertisementCache refAdvertisementCache;
+
+    /**
+     * commit-graph 维护
+     */
+    private final CommitGraphMaintainer commitGraphMaintainer;
+
+    /**
+     * packfile-uris 发布
+     */
+    private final PackfileUriPublisher packfileUriPublisher;
+
+    /**
+     * fork 网络共享对象池维护
+     */
+    private final ObjectPoolMaintainer objectPoolMaintainer;
+
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+
+    /**
+     * 仓库目录 -> 上次维护后的推送次数
+     */
+    private final Map<File, AtomicLong> pushes = new ConcurrentHashMap<>();
+
+    /**
+     * 主动申请重新打包的仓库
+     */
+    private final Set<File> repackRequests = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 已提交维护任务的仓库
+     */
+    private final Set<File> scheduled = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 正在维护的仓库数量
+     */
+    private final AtomicInteger running = new AtomicInteger();
+
+    /**
+     * 完成维护的次数
+     */
+    private final LongAdder completed = new LongAdder();
+
+    /**
+     * 维护失败的次数
+     */
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * 因仓库正在使用而跳过的次数
+     */
+    private final LongAdder skippedBusy = new LongAdder();
+
+    /**
+     * 累计回收的磁盘空间
+     */
+    private final LongAdder reclaimedBytes = new LongAdder();
+
+    /**
+     * 累计耗时
+     */
+    private final LongAdder timeSpentMillis = new LongAdder();
+
+    /**
+     * 上次全量扫描的日期
+     */
+    private volatile LocalDate lastFullScan;
+
+    /**
+     * 定时检查线程
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 维护线程池
+     */
+    private ThreadPoolExecutor workers;
+
+    /**
+     * 记录一次推送，receive-pack 完成后调用
+     *
+     * @param gitDir 仓库目录
+     */
+    public void recordPush(File gitDir) {
+        pushes.computeIfAbsent(normalize(gitDir), key -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * 申请在下一个维护窗口重新打包，不再判断松散对象和 pack 数量
+     *
+     * @param gitDir 仓库目录
+     */
+    public void requestRepack(File gitDir) {
+        repackRequests.add(normalize(gitDir));
+    }
+
+    /**
+     * 查询维护统计信息
+     *
+     * @return 统计信息
+     */
+    public MaintenanceStatsVO stats() {
+        MaintenanceStatsVO stats = new MaintenanceStatsVO();
+        stats.setRunning(running.get());
+        stats.setPending(workers == null ? 0 : workers.getQueue().size());
+        stats.setCompleted(completed.sum());
+        stats.setFailed(failed.sum());
+        stats.setSkippedBusy(skippedBusy.sum());
+        stats.setReclaimedBytes(reclaimedBytes.sum());
+        stats.setTimeSpentMillis(timeSpentMillis.sum());
+        stats.setCommitGraphWrites(commitGraphMaintainer.writes());
+        stats.setCommitGraphFailures(commitGraphMaintainer.failures());
+        stats.setCommitGraphTimeSpentMillis(commitGraphMaintainer.timeSpentMillis());
+        return stats;
+    }
+
+    /**
+     * 启动定时检查
+     */
+    @Override
+    public void afterPropertiesSet() {
+        CodeServerProperties.Maintenance config = codeServerProperties.getMaintenance();
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            log.info("仓库后台维护未开启");
+            return;
+        }
+        AtomicInteger index = new AtomicInteger();
+        int concurrency = Math.max(1, config.getConcurrency());
+        workers = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "repository-maintenance-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "repository-maintenance-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getCheckInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止维护
+     */
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * 定时检查，负载允许时提交待维护的仓库
+     */
+    private void check() {
+        try {
+            if (!lowLoad()) {
+                return;
+            }
+            Set<File> candidates = new LinkedHashSet<>(repackRequests);
+            pushes.forEach((key, count) -> {
+                if (count.get() > 0) {
+                    candidates.add(key);
+                }
+            });
+            LocalDate today = LocalDate.now();
+            if (!today.equals(lastFullScan)) {
+                lastFullScan = today;
+                repositoryLocationResolver.listRepositoryDirs().forEach(gitDir -> candidates.add(normalize(gitDir)));
+            }
+            for (File gitDir : candidates) {
+                if (scheduled.add(gitDir)) {
+                    workers.execute(() -> maintain(gitDir));
+                }
+            }
+        } catch (RejectedExecutionException e) {
+            log.warn("仓库维护任务提交失败: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("仓库维护检查失败", e);
+        }
+    }
+
+    /**
+     * 检查并维护单个仓库
+     *
+     * @param gitDir 仓库目录
+     */
+    private void maintain(File gitDir) {
+        CodeServerProperties.Maintenance config = codeServerProperties.getMaintenance();
+        running.incrementAndGet();
+        try {
+            // 排队期间可能已经离开维护窗口, 留到下一个窗口
+            if (!lowLoad()) {
+                return;
+            }
+            if (repositoryPool.leases(gitDir) > 0) {
+                skippedBusy.increment();
+                return;
+            }
+            // 共享锁与推送、拉取互不影响, 只避开正在删除或迁移的仓库
+            RepositoryLockManager.Hold lock = repositoryLockManager.tryShared(gitDir);
+            if (lock == null) {
+                skippedBusy.increment();
+                return;
+            }
+            try (lock) {
+                // 没有进行中的推送, 清理进程异常退出后残留的推送隔离目录
+                ReceiveQuarantine.cleanup(gitDir, codeServerProperties.getReceive().getQuarantineRetention());
+                AtomicLong pushCount = pushes.get(gitDir);
+                long pushed = pushCount == null ? 0 : pushCount.get();
+                File poolDir = ObjectPool.getPoolDir(gitDir);
+                if (poolDir != null) {
+                    // fork 网络成员单独 GC 会把对象池中的对象重新打包回成员, 改为维护整个网络
+                    repackRequests.remove(gitDir);
+                    if (objectPoolMaintainer.maintain(poolDir)) {
+                        completed.increment();
+                    }
+                    if (pushCount != null) {
+                        pushCount.addAndGet(-pushed);
+                    }
+                    return;
+                }
+                try (Repository repository = repositoryPool.acquire(gitDir)) {
+                    GC gc = new GC((FileRepository) repository);
+                    GC.RepoStatistics before = gc.getStatistics();
+                    if (!repackRequests.remove(gitDir) && !needsMaintenance(before, pushed, config)) {
+                        // 不需要重新打包, 但还没有 commit-graph 时补一份
+                        if (!commitGraphMaintainer.hasCommitGraph(repository)) {
+                            commitGraphMaintainer.writeCommitGraph(repository);
+                        }
+                        packfileUriPublisher.publish(repository);
+                        return;
+                    }
+                    long start = System.currentTimeMillis();
+                    PackConfig packConfig = new PackConfig(repository);
+                    packConfig.setBuildBitmaps(true);
+                    packConfig.setThreads(Math.max(1, config.getPackThreads()));
+                    gc.setPackConfig(packConfig);
+                    gc.setProgressMonitor(NullProgressMonitor.INSTANCE);
+                    gc.setAuto(false);
+                    gc.gc().get();
+                    commitGraphMaintainer.writeCommitGraph(repository);
+                    packfileUriPublisher.publish(repository);
+                    GC.RepoStatistics after = gc.getStatistics();
+                    long elapsed = System.currentTimeMillis() - start;
+                    long reclaimed = before.sizeOfLooseObjects + before.sizeOfPackedObjects - after.sizeOfLooseObjects - after.sizeOfPackedObjects;
+                    reclaimedBytes.add(Math.max(0, reclaimed));
+                    timeSpentMillis.add(elapsed);
+                    completed.increment();
+                    if (pushCount != null) {
+                        pushCount.addAndGet(-pushed);
+                    }
+                    refAdvertisementCache.invalidate(gitDir);
+                    log.info("仓库维护完成: {}, 耗时: {}ms, 松散对象: {} -> {}, pack文件: {} -> {}, 回收空间: {}",
+                            gitDir, elapsed, before.numberOfLooseObjects, after.numberOfLooseObjects,
+                            before.numberOfPackFiles, after.numberOfPackFiles, reclaimed);
+                }
+            }
+            TimeUnit.MILLISECONDS.sleep(config.getPauseBetween().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failed.increment();
+            log.error("仓库维护失败: {}", gitDir, e);
+        } finally {
+            running.decrementAndGet();
+            scheduled.remove(gitDir);
+        }
+    }
+
+    /**
+     * 判断仓库是否需要维护
+     *
+     * @param statistics 仓库统计信息
+     * @param pushed     上次维护后的推送次数
+     * @param config     维护配置
+     * @return 是否需要维护
+     */
+    private boolean needsMaintenance(GC.RepoStatistics statistics, long pushed, CodeServerProperties.Maintenance config) {
+        return statistics.numberOfLooseObjects >= config.getLooseObjectThreshold()
+                || statistics.numberOfPackFiles >= config.getPackFileThreshold()
+                || pushed >= config.getPushThreshold()
+                // 有 pack 但没有位图索引, clone 时无法利用位图加速
+                || (statistics.numberOfPackFiles > 0 && statistics.numberOfBitmaps == 0);
+    }
+
+    /**
+     * 是否处于维护窗口内且 git 命令负载较低
+     *
+     * @return 是否可以维护
+     */
+    private boolean lowLoad() {
+        CodeServerProperties.Maintenance config = codeServerProperties.getMaintenance();
+        LocalTime now = LocalTime.now();
+        LocalTime start = config.getWindowStart();
+        LocalTime end = config.getWindowEnd();
+        boolean inWindow = start.isBefore(end)
+                ? !now.isBefore(start) && now.isBefore(end)
+                : !now.isBefore(start) || now.isBefore(end);
+        return inWindow && gitCommandExecutor.stats().getActiveCount() <= config.getMaxActiveCommands();
+    }
+
+    private File normalize(File gitDir) {
+        return gitDir.toPath().toAbsolutePath().normalize().toFile();
+    }
+}
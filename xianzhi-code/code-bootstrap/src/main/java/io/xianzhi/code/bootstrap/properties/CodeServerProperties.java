@@ -16,15 +16,23 @@
 
 package io.xianzhi.code.bootstrap.properties;
 
+import io.xianzhi.code.model.enums.RefStorageEnum;
 import io.xianzhi.core.code.CommonCode;
 import io.xianzhi.core.exception.BusinessException;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 代码托管服务配置类
  *
@@ -57,6 +65,121 @@ public class CodeServerProperties implements InitializingBean {
      */
     private String defaultBranch = "main";
 
+    /**
+     * 系统参数本地缓存时间，参数变更时会主动刷新，这里只是兜底
+     */
+    private Duration systemParamTtl = Duration.ofSeconds(30);
+
+    /**
+     * 仓库句柄池配置
+     */
+    private RepositoryPool repositoryPool = new RepositoryPool();
+
+    /**
+     * SSH git命令线程池配置
+     */
+    private GitExecutor gitExecutor = new GitExecutor();
+
+    /**
+     * 引用通告缓存配置
+     */
+    private RefCache refCache = new RefCache();
+
+    /**
+     * 仓库访问权限配置
+     */
+    private Access access = new Access();
+
+    /**
+     * 仓库后台维护配置
+     */
+    private Maintenance maintenance = new Maintenance();
+
+    /**
+     * commit-graph配置
+     */
+    private CommitGraph commitGraph = new CommitGraph();
+
+    /**
+     * cached pack配置
+     */
+    private CachedPack cachedPack = new CachedPack();
+
+    /**
+     * packfile-uris配置
+     */
+    private PackfileUris packfileUris = new PackfileUris();
+
+    /**
+     * smart-HTTP/SSH 传输配置
+     */
+    private Transfer transfer = new Transfer();
+
+    /**
+     * 推送接收配置
+     */
+    private Receive receive = new Receive();
+
+    /**
+     * 浅克隆和部分克隆配置
+     */
+    private PartialClone partialClone = new PartialClone();
+
+    /**
+     * SSH 公钥指纹索引配置
+     */
+    private SecretKey secretKey = new SecretKey();
+
+    /**
+     * git传输准入控制配置
+     */
+    private Admission admission = new Admission();
+
+    /**
+     * 仓库存储布局配置
+     */
+    private Storage storage = new Storage();
+
+    /**
+     * 仓库读写锁配置
+     */
+    private RepositoryLock repositoryLock = new RepositoryLock();
+
+    /**
+     * 分支列表缓存配置
+     */
+    private BranchCache branchCache = new BranchCache();
+
+    /**
+     * 提交历史查询配置
+     */
+    private CommitLog commitLog = new CommitLog();
+
+    /**
+     * 提交索引配置
+     */
+    private CommitIndex commitIndex = new CommitIndex();
+
+    /**
+     * 合并请求差异配置
+     */
+    private Diff diff = new Diff();
+
+    /**
+     * 合并请求冲突检查配置
+     */
+    private Mergeability mergeability = new Mergeability();
+
+    /**
+     * 合并队列配置
+     */
+    private MergeQueue mergeQueue = new MergeQueue();
+
+    /**
+     * 逐行追溯配置
+     */
+    private Blame blame = new Blame();
+
 
     /**
      * Invoked by the containing {@code BeanFactory} after it has set all bean properties
@@ -78,7 +201,834 @@ public class CodeServerProperties implements InitializingBean {
         if (sshServerPort <= 0 || sshServerPort >= 65535) {
             sshServerPort = 22;
         }
+        if (systemParamTtl == null) {
+            systemParamTtl = Duration.ofSeconds(30);
+        }
+        if (repositoryPool == null) {
+            repositoryPool = new RepositoryPool();
+        }
+        if (gitExecutor == null) {
+            gitExecutor = new GitExecutor();
+        }
+        if (refCache == null) {
+            refCache = new RefCache();
+        }
+        if (access == null) {
+            access = new Access();
+        }
+        if (maintenance == null) {
+            maintenance = new Maintenance();
+        }
+        if (commitGraph == null) {
+            commitGraph = new CommitGraph();
+        }
+        if (cachedPack == null) {
+            cachedPack = new CachedPack();
+        }
+        if (packfileUris == null) {
+            packfileUris = new PackfileUris();
+        }
+        if (transfer == null) {
+            transfer = new Transfer();
+        }
+        if (receive == null) {
+            receive = new Receive();
+        }
+        if (partialClone == null) {
+            partialClone = new PartialClone();
+        }
+        if (secretKey == null) {
+            secretKey = new SecretKey();
+        }
+        if (admission == null) {
+            admission = new Admission();
+        }
+        if (storage == null) {
+            storage = new Storage();
+        }
+        if (repositoryLock == null) {
+            repositoryLock = new RepositoryLock();
+        }
+        if (branchCache == null) {
+            branchCache = new BranchCache();
+        }
+        if (commitLog == null) {
+            commitLog = new CommitLog();
+        }
+        if (commitIndex == null) {
+            commitIndex = new CommitIndex();
+        }
+        if (diff == null) {
+            diff = new Diff();
+        }
+        if (mergeability == null) {
+            mergeability = new Mergeability();
+        }
+        if (mergeQueue == null) {
+            mergeQueue = new MergeQueue();
+        }
+        if (blame == null) {
+            blame = new Blame();
+        }
+    }
+
+    /**
+     * 仓库句柄池配置
+     */
+    @Data
+    public static class RepositoryPool {
+
+        /**
+         * 池中最多缓存的仓库数量
+         */
+        private Integer maxSize = 512;
+
+        /**
+         * 仓库空闲多久后被回收
+         */
+        private Duration idleTimeout = Duration.ofMinutes(10);
+
+        /**
+         * 空闲回收检查间隔
+         */
+        private Duration evictionInterval = Duration.ofMinutes(1);
+    }
+
+    /**
+     * SSH git命令线程池配置
+     */
+    @Data
+    public static class GitExecutor {
+
+        /**
+         * 最大线程数，空闲线程会按 keepAlive 回收，默认CPU核数的8倍(pack传输以IO为主)
+         */
+        private Integer maxThreads = Runtime.getRuntime().availableProcessors() * 8;
+
+        /**
+         * 线程满时的排队数量，超出后直接拒绝
+         */
+        private Integer queueCapacity = 256;
+
+        /**
+         * 空闲线程存活时间
+         */
+        private Duration keepAlive = Duration.ofSeconds(60);
+
+        /**
+         * 单个用户同时执行的git命令数量上限
+         */
+        private Integer perUserLimit = 8;
+
+        /**
+         * 等待并发许可的最长时间
+         */
+        private Duration permitTimeout = Duration.ofSeconds(30);
+    }
+
+    /**
+     * 引用通告缓存配置
+     */
+    @Data
+    public static class RefCache {
+
+        /**
+         * 是否开启引用通告缓存
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 缓存最长保留时间，防止仓库在服务外被修改后一直返回旧数据
+         */
+        private Duration maxAge = Duration.ofMinutes(5);
+    }
+
+    /**
+     * 仓库访问权限配置，SSH 和 HTTP 共用
+     */
+    @Data
+    public static class Access {
+
+        /**
+         * 项目可见性和成员角色的本地缓存时间，权限变更最多延迟这么久生效
+         */
+        private Duration cacheTtl = Duration.ofSeconds(30);
+
+        /**
+         * 可以推送的项目组角色编码
+         */
+        private List<String> writeRoles = new ArrayList<>(List.of("OWNER", "MAINTAINER", "DEVELOPER"));
+    }
+
+    /**
+     * 仓库后台维护配置
+     */
+    @Data
+    public static class Maintenance {
+
+        /**
+         * 是否开启后台维护
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 检查间隔
+         */
+        private Duration checkInterval = Duration.ofMinutes(5);
+
+        /**
+         * 维护窗口开始时间，开始时间大于结束时间表示跨天
+         */
+        private LocalTime windowStart = LocalTime.of(1, 0);
+
+        /**
+         * 维护窗口结束时间
+         */
+        private LocalTime windowEnd = LocalTime.of(6, 0);
+
+        /**
+         * 正在执行的git命令超过该数量时暂停维护
+         */
+        private Integer maxActiveCommands = 4;
+
+        /**
+         * 同时维护的仓库数量
+         */
+        private Integer concurrency = 1;
+
+        /**
+         * 单个仓库打包使用的线程数
+         */
+        private Integer packThreads = 2;
+
+        /**
+         * 两个仓库维护之间的停顿时间，用于限制磁盘IO
+         */
+        private Duration pauseBetween = Duration.ofSeconds(5);
+
+        /**
+         * 松散对象数量超过该值时触发维护
+         */
+        private Integer looseObjectThreshold = 2000;
+
+        /**
+         * pack文件数量超过该值时触发维护
+         */
+        private Integer packFileThreshold = 20;
+
+        /**
+         * 距离上次维护的推送次数超过该值时触发维护
+         */
+        private Integer pushThreshold = 100;
+
+        /**
+         * 同一个 fork 网络的共享对象池两次维护之间的最小间隔
+         */
+        private Duration poolInterval = Duration.ofHours(6);
+    }
+
+    /**
+     * commit-graph配置
+     */
+    @Data
+    public static class CommitGraph {
+
+        /**
+         * 是否生成commit-graph
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 引用变化后延迟多久重写，期间的多次推送合并为一次
+         */
+        private Duration delay = Duration.ofSeconds(30);
+
+        /**
+         * 同一仓库两次重写的最小间隔
+         */
+        private Duration minInterval = Duration.ofMinutes(5);
+    }
+
+    /**
+     * cached pack配置
+     */
+    @Data
+    public static class CachedPack {
+
+        /**
+         * clone 时 cached pack 覆盖的对象比例低于该值视为过期
+         */
+        private Double minCoverage = 0.8;
+
+        /**
+         * 仓库累计多少次过期的 clone 后提前安排重新打包
+         */
+        private Integer staleCloneThreshold = 20;
+    }
+
+    /**
+     * packfile-uris配置
+     */
+    @Data
+    public static class PackfileUris {
+
+        /**
+         * 是否开启，开启后维护生成的 cached pack 会上传到 OSS，protocol v2 的 clone 直接从 OSS 下载
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 存放 pack 的桶名称
+         */
+        private String bucketName = "xianzhi-git-packs";
+
+        /**
+         * 对象键前缀
+         */
+        private String keyPrefix = "packs/";
+
+        /**
+         * 小于该大小的 pack 不上传
+         */
+        private Long minPackSize = 64L * 1024 * 1024;
+
+        /**
+         * 下载地址有效期
+         */
+        private Duration urlExpiry = Duration.ofHours(1);
+    }
+
+    /**
+     * smart-HTTP/SSH 传输配置
+     */
+    @Data
+    public static class Transfer {
+
+        /**
+         * 是否开启 protocol v2，关闭后客户端请求 v2 时回退到 v0
+         */
+        private Boolean protocolV2 = true;
+
+        /**
+         * 读写超时，客户端或服务端超过该时间没有数据往来时中断请求
+         */
+        private Duration timeout = Duration.ofMinutes(5);
+
+        /**
+         * 仓库 pack 总大小超过该值按中型仓库打包
+         */
+        private Long mediumRepositorySize = 256L * 1024 * 1024;
+
+        /**
+         * 仓库 pack 总大小超过该值按大型仓库打包
+         */
+        private Long largeRepositorySize = 2L * 1024 * 1024 * 1024;
+
+        /**
+         * 小型仓库打包配置
+         */
+        private PackSettings small = new PackSettings(10, 50, 0L, 0);
+
+        /**
+         * 中型仓库打包配置
+         */
+        private PackSettings medium = new PackSettings(10, 50, 256L * 1024 * 1024, 2);
+
+        /**
+         * 大型仓库打包配置，大仓库主要依赖 cached pack 和增量复用，缩小窗口限制实时增量计算的CPU消耗
+         */
+        private PackSettings large = new PackSettings(4, 50, 128L * 1024 * 1024, 2);
+    }
+
+    /**
+     * 推送接收配置
+     */
+    @Data
+    public static class Receive {
+
+        /**
+         * 单次推送的 pack 大小上限，读取过程中超出立即中断，0表示不限制
+         */
+        private Long maxPackSize = 2L * 1024 * 1024 * 1024;
+
+        /**
+         * 单个对象的大小上限，0表示不限制
+         */
+        private Long maxObjectSize = 100L * 1024 * 1024;
+
+        /**
+         * 是否校验收到的对象格式，开启后同时检查新对象的连通性
+         */
+        private Boolean checkReceivedObjects = true;
+
+        /**
+         * 隔离目录残留多久后由后台维护清理
+         */
+        private Duration quarantineRetention = Duration.ofHours(1);
+    }
+
+    /**
+     * 浅克隆和部分克隆配置
+     */
+    @Data
+    public static class PartialClone {
+
+        /**
+         * 是否允许部分克隆过滤(blob:none、blob:limit、tree:N)
+         */
+        private Boolean allowFilter = true;
+
+        /**
+         * 是否允许 tree:N 过滤，该过滤需要服务端逐层遍历目录树，开销较大
+         */
+        private Boolean allowTreeFilter = true;
+
+        /**
+         * tree:N 过滤允许的最大深度
+         */
+        private Integer maxTreeDepth = 5;
+
+        /**
+         * 浅克隆允许的最大深度，0表示不限制
+         */
+        private Integer maxDepth = 0;
+
+        /**
+         * 是否允许按对象ID拉取可达对象，部分克隆按需补拉缺失的 blob 时需要
+         */
+        private Boolean allowReachableSha1InWant = true;
+    }
+
+    /**
+     * SSH 公钥指纹索引配置
+     */
+    @Data
+    public static class SecretKey {
+
+        /**
+         * 全量刷新间隔，用于同步其他节点删除的秘钥
+         */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+
+        /**
+         * 未知指纹的缓存时间，期间同一指纹不再查库
+         */
+        private Duration missTtl = Duration.ofSeconds(30);
+    }
+
+    /**
+     * git传输准入控制配置，SSH 和 HTTP 共用
+     */
+    @Data
+    public static class Admission {
+
+        /**
+         * 是否开启准入控制
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 全局最大并发请求数
+         */
+        private Integer globalLimit = Runtime.getRuntime().availableProcessors() * 4;
+
+        /**
+         * 单仓库最大并发请求数
+         */
+        private Integer perRepositoryLimit = 16;
+
+        /**
+         * 全局最大排队请求数
+         */
+        private Integer maxQueue = 512;
+
+        /**
+         * 单仓库最大排队请求数，超出后该仓库的新请求直接拒绝
+         */
+        private Integer perRepositoryQueue = 128;
+
+        /**
+         * 最长排队时间
+         */
+        private Duration queueTimeout = Duration.ofSeconds(30);
+
+        /**
+         * 全局每秒最多发送的字节数，0表示不限制
+         */
+        private Long globalBytesPerSecond = 0L;
+
+        /**
+         * 单仓库每秒最多发送的字节数，0表示不限制
+         */
+        private Long perRepositoryBytesPerSecond = 0L;
+    }
+
+    /**
+     * 仓库存储布局配置
+     */
+    @Data
+    public static class Storage {
+
+        /**
+         * 新建仓库是否使用按项目ID散列的目录布局
+         */
+        private Boolean hashedLayout = true;
+
+        /**
+         * 新建仓库默认的引用存储格式，项目可以单独指定
+         */
+        private RefStorageEnum defaultRefStorage = RefStorageEnum.FILES;
+
+        /**
+         * 分组/项目路径 -> 项目ID 的本地缓存时间
+         */
+        private Duration locationCacheTtl = Duration.ofSeconds(30);
+
+        /**
+         * 是否在启动时把旧布局的仓库迁移到散列布局
+         */
+        private Boolean migrateOnStartup = false;
+
+        /**
+         * 迁移时每批查询的项目数量
+         */
+        private Integer migrateBatchSize = 100;
+
+        /**
+         * 迁移时每个仓库之间的停顿
+         */
+        private Duration migratePause = Duration.ofMillis(100);
+
+        /**
+         * 正在使用而跳过的仓库最多重试几轮
+         */
+        private Integer migrateRetryRounds = 10;
+
+        /**
+         * 每轮重试之间的间隔
+         */
+        private Duration migrateRetryDelay = Duration.ofMinutes(1);
     }
 
+    /**
+     * 仓库读写锁配置
+     */
+    @Data
+    public static class RepositoryLock {
+
+        /**
+         * 获取共享锁(克隆、拉取、推送、后台维护)的最长等待时间
+         */
+        private Duration sharedTimeout = Duration.ofSeconds(30);
+
+        /**
+         * 获取独占锁(创建、删除、迁移、转换引用格式)的最长等待时间
+         */
+        private Duration exclusiveTimeout = Duration.ofSeconds(10);
+
+        /**
+         * 获取引用更新锁的最长等待时间
+         */
+        private Duration refTimeout = Duration.ofSeconds(10);
+
+        /**
+         * 引用更新锁的分段数量，不同引用落在同一分段时才会互相等待
+         */
+        private Integer refStripes = 1024;
 
+        /**
+         * 持有锁超过该时间时在释放时记录告警日志
+         */
+        private Duration slowHoldThreshold = Duration.ofMinutes(5);
+    }
+
+    /**
+     * 分支列表缓存配置
+     */
+    @Data
+    public static class BranchCache {
+
+        /**
+         * 是否开启分支列表缓存
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 最多缓存的仓库数量
+         */
+        private Integer maxRepositories = 256;
+
+        /**
+         * 缓存最长保留时间，防止仓库在服务外被修改后一直返回旧数据
+         */
+        private Duration maxAge = Duration.ofMinutes(5);
+
+        /**
+         * 每页最多返回的分支数量
+         */
+        private Integer maxPageSize = 100;
+
+        /**
+         * 计算领先落后数的线程数，纯CPU计算，默认CPU核数
+         */
+        private Integer aheadBehindThreads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * 计算领先落后数的排队数量，超出后本次不返回领先落后数
+         */
+        private Integer aheadBehindQueueCapacity = 1024;
+
+        /**
+         * 领先落后数的统计上限，超过上限只返回上限值
+         */
+        private Integer aheadBehindLimit = 1000;
+
+        /**
+         * 单次查询等待领先落后数的最长时间
+         */
+        private Duration aheadBehindTimeout = Duration.ofSeconds(3);
+    }
+
+    /**
+     * 提交历史查询配置
+     */
+    @Data
+    public static class CommitLog {
+
+        /**
+         * 每页最多返回的提交数量
+         */
+        private Integer maxPageSize = 100;
+
+        /**
+         * 单次查询最多遍历的提交数量，超出后返回已找到的提交和续查游标
+         */
+        private Integer walkBudget = 20000;
+
+        /**
+         * 最多缓存的分页数量
+         */
+        private Integer maxCachedPages = 4096;
+
+        /**
+         * 最多缓存的续查位置数量
+         */
+        private Integer maxResumePoints = 4096;
+    }
+
+    /**
+     * 提交索引配置
+     */
+    @Data
+    public static class CommitIndex {
+
+        /**
+         * 是否在推送后把新提交写入提交表
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 索引线程数，不同仓库并行索引
+         */
+        private Integer threads = 2;
+
+        /**
+         * 等待索引的仓库数量上限，超出后本次不索引，下次推送或回填时补上
+         */
+        private Integer queueCapacity = 1024;
+
+        /**
+         * 每批写入的提交数量
+         */
+        private Integer batchSize = 500;
+
+        /**
+         * 是否在启动时回填全部仓库
+         */
+        private Boolean backfillOnStartup = false;
+
+        /**
+         * 回填时每批查询的项目数量
+         */
+        private Integer backfillBatchSize = 100;
+    }
+
+    /**
+     * 合并请求差异配置
+     */
+    @Data
+    public static class Diff {
+
+        /**
+         * 文件列表每页最多返回的文件数量
+         */
+        private Integer maxPageSize = 500;
+
+        /**
+         * 内容相似度重命名检测的文件数量上限，新增和删除的文件超过该数量时只检测内容完全相同的重命名
+         */
+        private Integer renameLimit = 1000;
+
+        /**
+         * 单个文件的大小上限(字节)，超过后不计算差异，也不参与内容相似度重命名检测
+         */
+        private Integer maxFileSize = 1024 * 1024;
+
+        /**
+         * 单个文件最多返回的差异行数
+         */
+        private Integer maxFileLines = 10000;
+
+        /**
+         * 差异片段的上下文行数
+         */
+        private Integer contextLines = 3;
+
+        /**
+         * 生成的文件路径(Ant 风格)，只在文件列表中出现，不返回差异内容
+         */
+        private List<String> generatedPatterns = new ArrayList<>(List.of("**/package-lock.json", "**/yarn.lock",
+                "**/pnpm-lock.yaml", "**/go.sum", "**/*.min.js", "**/*.min.css", "**/*.map"));
+
+        /**
+         * 最多缓存的文件列表数量
+         */
+        private Integer maxCachedSummaries = 256;
+
+        /**
+         * 最多缓存的单文件差异数量
+         */
+        private Integer maxCachedFiles = 4096;
+
+        /**
+         * 最多缓存的合并基准数量
+         */
+        private Integer maxCachedMergeBases = 4096;
+    }
+
+    /**
+     * 合并请求冲突检查配置
+     */
+    @Data
+    public static class Mergeability {
+
+        /**
+         * 是否在源分支或目标分支更新后在后台检查能否合并
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 检查线程数，不同项目并行检查
+         */
+        private Integer threads = 2;
+
+        /**
+         * 推送后等待的时间，期间同一项目的推送合并为一次检查
+         */
+        private Duration coalesceDelay = Duration.ofSeconds(2);
+
+        /**
+         * 等待检查的项目数量上限，超出后本次不检查，下次推送时补上
+         */
+        private Integer maxPendingProjects = 1024;
+
+        /**
+         * 最多记录的冲突文件数量
+         */
+        private Integer maxConflictFiles = 1000;
+    }
+
+    /**
+     * 合并队列配置
+     */
+    @Data
+    public static class MergeQueue {
+
+        /**
+         * 构建和合并批次的线程数，不同目标分支并行
+         */
+        private Integer threads = 2;
+
+        /**
+         * 每个批次最多包含的合并请求数量
+         */
+        private Integer maxBatchSize = 8;
+
+        /**
+         * 是否在批次上运行流水线，关闭后批次构建成功即合并。
+         * 开启前需要有 CI 集成监听流水线触发事件，并在执行结束后携带流水线ID回报结果，否则每个批次都会超时
+         */
+        private Boolean runPipeline = false;
+
+        /**
+         * 等待流水线结果的超时时间，超时按失败处理
+         */
+        private Duration pipelineTimeout = Duration.ofHours(1);
+
+        /**
+         * CI 回报流水线结果时签名使用的共享密钥，未配置时拒绝所有回报
+         */
+        private String pipelineSecret;
+
+        /**
+         * 仓库繁忙或读写出错后重新构建批次的等待时间
+         */
+        private Duration retryDelay = Duration.ofSeconds(30);
+    }
+
+    /**
+     * 逐行追溯配置
+     */
+    @Data
+    public static class Blame {
+
+        /**
+         * 最多缓存的追溯结果数量，按 (提交, 路径) 缓存
+         */
+        private Integer maxCachedResults = 1024;
+
+        /**
+         * 单次追溯的CPU时间预算，耗尽后停止追溯，已经输出的行区间依然有效
+         */
+        private Duration cpuBudget = Duration.ofSeconds(5);
+
+        /**
+         * 增量追溯时沿单父提交最多回溯的提交数量，在此范围内找到缓存的追溯结果时从它开始逐个提交比较
+         */
+        private Integer maxIncrementalDepth = 64;
+
+        /**
+         * 追溯文件的大小上限(字节)
+         */
+        private Integer maxFileSize = 1024 * 1024;
+    }
+
+    /**
+     * 打包配置
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PackSettings {
+
+        /**
+         * 增量压缩搜索窗口大小
+         */
+        private Integer deltaSearchWindowSize;
+
+        /**
+         * 增量链最大深度
+         */
+        private Integer maxDeltaDepth;
+
+        /**
+         * 增量搜索窗口内存上限，0表示不限制
+         */
+        private Long deltaSearchMemoryLimit;
+
+        /**
+         * 增量计算线程数，0表示使用CPU核数
+         */
+        private Integer threads;
+    }
 }
@@ -0,0 +1,715 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.model.code.CommitCode;
+import io.xianzhi.code.model.vo.BlameRegionVO;
+import io.xianzhi.code.model.vo.BlameStatsVO;
+import io.xianzhi.code.model.vo.BlameVO;
+import io.xianzhi.core.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.jgit.attributes.AttributesNodeProvider;
+import org.eclipse.jgit.blame.BlameGenerator;
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectDatabase;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.ReflogReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 逐行追溯缓存
+ * <p>
+ * 追溯结果按 (提交ID, 路径) 缓存，提交ID确定了文件的全部历史，缓存不需要随引用变化失效。
+ * 未命中时沿单父提交向前回溯，在 maxIncrementalDepth 个提交内找到缓存的祖先结果，就从祖先开始逐个提交比较文件内容：
+ * 未改动的行沿用父提交的追溯结果，改动的行归属当前提交，与 {@link BlameGenerator} 对单父提交的处理一致，
+ * 只是不需要遍历更早的历史。遇到合并提交、文件在父提交中不存在(新增或重命名)时退回完整追溯。
+ * 完整追溯每得到一个行区间就立即输出，不等整个文件完成；CPU时间预算在追溯读取提交、目录树和文件时检查，
+ * 即使很长一段历史都没有改动这个文件、迟迟得不到下一个行区间，预算耗尽后也会立即停止追溯，结果不缓存。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Component
+public class BlameCache {
+
+    /**
+     * 线程CPU时间
+     */
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 提交ID和路径 -> 追溯结果
+     */
+    private final Map<String, Result> results;
+
+    /**
+     * 直接命中缓存的次数
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * 增量计算的次数
+     */
+    private final LongAdder incrementals = new LongAdder();
+
+    /**
+     * 完整追溯的次数
+     */
+    private final LongAdder fullBlames = new LongAdder();
+
+    /**
+     * CPU时间预算耗尽的次数
+     */
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    /**
+     * 累计消耗的CPU时间(纳秒)
+     */
+    private final LongAdder cpuNanos = new LongAdder();
+
+    /**
+     * 构造方法
+     *
+     * @param codeServerProperties 代码服务配置
+     */
+    public BlameCache(CodeServerProperties codeServerProperties) {
+        this.codeServerProperties = codeServerProperties;
+        this.results = LruCaches.create(() -> codeServerProperties.getBlame().getMaxCachedResults());
+    }
+
+    /**
+     * 逐行追溯文件，行区间按得到的顺序输出，不保证按行号排序
+     *
+     * @param repository 仓库
+     * @param commitId   提交ID
+     * @param path       文件路径
+     * @param consumer   行区间的接收方
+     * @return 追溯结果
+     * @throws BusinessException 如果文件不存在、过大或为二进制文件
+     * @throws IOException       如果读取仓库失败
+     */
+    public BlameVO blame(Repository repository, ObjectId commitId, String path, Consumer<BlameRegionVO> consumer) throws IOException {
+        String key = key(commitId, path);
+        Result cached = results.get(key);
+        if (cached != null) {
+            hits.increment();
+            cached.regions.forEach(region -> consumer.accept(toVO(region)));
+            return toVO(commitId, path, cached.lineCount, false);
+        }
+        Budget budget = new Budget(codeServerProperties.getBlame().getCpuBudget());
+        try (ObjectReader reader = repository.newObjectReader();
+             RevWalk revWalk = new RevWalk(reader)) {
+            RevCommit commit = revWalk.parseCommit(commitId);
+            ObjectId blobId = blobId(reader, commit, path);
+            if (blobId == null) {
+                throw new BusinessException(CommitCode.FILE_NOT_EXIST);
+            }
+            RawText content = load(reader, blobId);
+            if (content == null) {
+                throw new BusinessException(CommitCode.FILE_NOT_SUPPORTED);
+            }
+            DiffAlgorithm algorithm = DiffAlgorithm.getAlgorithm(repository.getConfig().getEnum(ConfigConstants.CONFIG_DIFF_SECTION,
+                    null, ConfigConstants.CONFIG_KEY_ALGORITHM, DiffAlgorithm.SupportedAlgorithm.HISTOGRAM));
+            Result result = incremental(revWalk, reader, algorithm, commit, path, blobId, content);
+            if (result != null) {
+                incrementals.increment();
+                results.put(key, result);
+                result.regions.forEach(region -> consumer.accept(toVO(region)));
+                return toVO(commitId, path, result.lineCount, false);
+            }
+            fullBlames.increment();
+            return full(repository, algorithm, commit, path, content.size(), budget, consumer);
+        } finally {
+            cpuNanos.add(budget.used());
+        }
+    }
+
+    /**
+     * 查询缓存统计信息
+     *
+     * @return 统计信息
+     */
+    public BlameStatsVO stats() {
+        BlameStatsVO stats = new BlameStatsVO();
+        stats.setCachedResults(results.size());
+        stats.setHits(hits.sum());
+        stats.setIncrementals(incrementals.sum());
+        stats.setFullBlames(fullBlames.sum());
+        stats.setBudgetExhausted(budgetExhausted.sum());
+        stats.setCpuMillis(Duration.ofNanos(cpuNanos.sum()).toMillis());
+        return stats;
+    }
+
+    /**
+     * 沿单父提交找到缓存的祖先追溯结果，再逐个提交向后应用文件改动
+     *
+     * @param revWalk   提交遍历
+     * @param reader    对象读取器
+     * @param algorithm 差异算法
+     * @param commit    追溯的提交
+     * @param path      文件路径
+     * @param blobId    文件在追溯提交中的对象ID
+     * @param content   文件在追溯提交中的内容
+     * @return 追溯结果，找不到可用的祖先结果时返回 null
+     * @throws IOException 如果读取提交或文件失败
+     */
+    private Result incremental(RevWalk revWalk, ObjectReader reader, DiffAlgorithm algorithm, RevCommit commit, String path,
+                               ObjectId blobId, RawText content) throws IOException {
+        List<RevCommit> chain = new ArrayList<>();
+        List<ObjectId> blobs = new ArrayList<>();
+        chain.add(commit);
+        blobs.add(blobId);
+        Result base = null;
+        RevCommit current = commit;
+        int maxDepth = codeServerProperties.getBlame().getMaxIncrementalDepth();
+        for (int depth = 0; depth < maxDepth && current.getParentCount() == 1; depth++) {
+            RevCommit parent = revWalk.parseCommit(current.getParent(0));
+            ObjectId parentBlobId = blobId(reader, parent, path);
+            if (parentBlobId == null) {
+                return null;
+            }
+            chain.add(parent);
+            blobs.add(parentBlobId);
+            base = results.get(key(parent, path));
+            if (base != null) {
+                break;
+            }
+            current = parent;
+        }
+        if (base == null) {
+            return null;
+        }
+        Result result = base;
+        RawText previous = null;
+        for (int i = chain.size() - 2; i >= 0; i--) {
+            if (blobs.get(i).equals(blobs.get(i + 1))) {
+                continue;
+            }
+            RawText before = previous != null ? previous : load(reader, blobs.get(i + 1));
+            RawText after = i == 0 ? content : load(reader, blobs.get(i));
+            if (before == null || after == null) {
+                // 中间某个版本过大或为二进制文件
+                return null;
+            }
+            result = apply(result, algorithm.diff(RawTextComparator.DEFAULT, before, after), before.size(), after.size(),
+                    new Source(chain.get(i)), path);
+            previous = after;
+        }
+        return result;
+    }
+
+    /**
+     * 在父提交的追溯结果上应用单个提交的改动
+     *
+     * @param base         父提交的追溯结果
+     * @param edits        父提交到当前提交的改动
+     * @param beforeLines  父提交中的行数
+     * @param afterLines   当前提交中的行数
+     * @param source       当前提交
+     * @param path         文件路径
+     * @return 当前提交的追溯结果
+     */
+    private Result apply(Result base, List<Edit> edits, int beforeLines, int afterLines, Source source, String path) {
+        List<Region> regions = new ArrayList<>();
+        int a = 0;
+        int b = 0;
+        for (Edit edit : edits) {
+            copy(base.regions, a, edit.getBeginA(), b, regions);
+            if (edit.getLengthB() > 0) {
+                append(regions, new Region(edit.getBeginB(), edit.getLengthB(), source, path, edit.getBeginB()));
+            }
+            a = edit.getEndA();
+            b = edit.getEndB();
+        }
+        copy(base.regions, a, beforeLines, b, regions);
+        return new Result(afterLines, List.copyOf(regions));
+    }
+
+    /**
+     * 完整追溯，每得到一个行区间立即输出，预算耗尽时返回已经得到的部分结果
+     *
+     * @param repository 仓库
+     * @param algorithm  差异算法
+     * @param commit     追溯的提交
+     * @param path       文件路径
+     * @param lineCount  文件行数
+     * @param budget     CPU时间预算
+     * @param consumer   行区间的接收方
+     * @return 追溯结果
+     * @throws IOException 如果读取仓库失败
+     */
+    private BlameVO full(Repository repository, DiffAlgorithm algorithm, RevCommit commit, String path, int lineCount,
+                         Budget budget, Consumer<BlameRegionVO> consumer) throws IOException {
+        List<Region> regions = new ArrayList<>();
+        Map<ObjectId, Source> sources = new HashMap<>();
+        int resolved = 0;
+        try (BlameGenerator generator = new BlameGenerator(new BudgetRepository(repository, budget), path)) {
+            generator.setDiffAlgorithm(algorithm);
+            generator.setTextComparator(RawTextComparator.DEFAULT);
+            generator.push(null, commit);
+            while (resolved < lineCount && generator.next()) {
+                RevCommit sourceCommit = generator.getSourceCommit();
+                Source source = sources.computeIfAbsent(sourceCommit.copy(), id -> new Source(sourceCommit));
+                Region region = new Region(generator.getResultStart(), generator.getRegionLength(), source,
+                        generator.getSourcePath(), generator.getSourceStart());
+                regions.add(region);
+                resolved += region.length;
+                consumer.accept(toVO(region));
+                if (budget.exhausted()) {
+                    break;
+                }
+            }
+        } catch (BudgetExhaustedException e) {
+            // 追溯停在两个行区间之间, 已经输出的行区间依然有效
+        }
+        if (resolved < lineCount) {
+            budgetExhausted.increment();
+            return toVO(commit, path, lineCount, true);
+        }
+        regions.sort(Comparator.comparingInt(region -> region.start));
+        List<Region> merged = new ArrayList<>(regions.size());
+        regions.forEach(region -> append(merged, region));
+        results.put(key(commit, path), new Result(lineCount, List.copyOf(merged)));
+        return toVO(commit, path, lineCount, false);
+    }
+
+    /**
+     * 把父提交中 [from, to) 行的追溯结果复制到当前提交从 target 开始的行
+     *
+     * @param regions 父提交的行区间，按行号排序
+     * @param from    起始行(包含)
+     * @param to      结束行(不包含)
+     * @param target  当前提交中的起始行
+     * @param out     当前提交的行区间
+     */
+    private static void copy(List<Region> regions, int from, int to, int target, List<Region> out) {
+        for (int i = find(regions, from); i < regions.size() && from < to; i++) {
+            Region region = regions.get(i);
+            int end = Math.min(region.start + region.length, to);
+            append(out, new Region(target, end - from, region.source, region.sourcePath, region.sourceStart + from - region.start));
+            target += end - from;
+            from = end;
+        }
+    }
+
+    /**
+     * 查找包含某一行的行区间
+     *
+     * @param regions 行区间，按行号排序且首尾相接
+     * @param line    行
+     * @return 行区间下标
+     */
+    private static int find(List<Region> regions, int line) {
+        int low = 0;
+        int high = regions.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (regions.get(mid).start <= line) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 追加行区间，与上一个区间来自同一个提交中连续的行时合并
+     *
+     * @param regions 行区间
+     * @param region  追加的行区间
+     */
+    private static void append(List<Region> regions, Region region) {
+        if (!regions.isEmpty()) {
+            Region last = regions.get(regions.size() - 1);
+            if (last.source.commitId.equals(region.source.commitId) && last.sourcePath.equals(region.sourcePath)
+                    && last.start + last.length == region.start && last.sourceStart + last.length == region.sourceStart) {
+                regions.set(regions.size() - 1, new Region(last.start, last.length + region.length, last.source, last.sourcePath, last.sourceStart));
+                return;
+            }
+        }
+        regions.add(region);
+    }
+
+    /**
+     * 查询文件在提交中的对象ID
+     *
+     * @param reader 对象读取器
+     * @param commit 提交
+     * @param path   文件路径
+     * @return 对象ID，不存在或不是普通文件时返回 null
+     * @throws IOException 如果读取目录树失败
+     */
+    private ObjectId blobId(ObjectReader reader, RevCommit commit, String path) throws IOException {
+        try (TreeWalk treeWalk = TreeWalk.forPath(reader, path, commit.getTree())) {
+            if (treeWalk == null || (treeWalk.getRawMode(0) & FileMode.TYPE_MASK) != FileMode.TYPE_FILE) {
+                return null;
+            }
+            return treeWalk.getObjectId(0);
+        }
+    }
+
+    /**
+     * 读取文件内容
+     *
+     * @param reader 对象读取器
+     * @param blobId 对象ID
+     * @return 文件内容，过大或为二进制文件时返回 null
+     * @throws IOException 如果读取对象失败
+     */
+    private RawText load(ObjectReader reader, ObjectId blobId) throws IOException {
+        if (reader.getObjectSize(blobId, Constants.OBJ_BLOB) > codeServerProperties.getBlame().getMaxFileSize()) {
+            return null;
+        }
+        byte[] content = reader.open(blobId, Constants.OBJ_BLOB).getCachedBytes(Integer.MAX_VALUE);
+        return RawText.isBinary(content) ? null : new RawText(content);
+    }
+
+    private BlameRegionVO toVO(Region region) {
+        BlameRegionVO blameRegionVO = new BlameRegionVO();
+        blameRegionVO.setStartLine(region.start + 1);
+        blameRegionVO.setLineCount(region.length);
+        blameRegionVO.setCommitId(region.source.commitId.name());
+        blameRegionVO.setSourcePath(region.sourcePath);
+        blameRegionVO.setSourceStartLine(region.sourceStart + 1);
+        blameRegionVO.setAuthorName(region.source.authorName);
+        blameRegionVO.setAuthorEmail(region.source.authorEmail);
+        blameRegionVO.setAuthorTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(region.source.authorTime), ZoneId.systemDefault()));
+        blameRegionVO.setTitle(region.source.title);
+        return blameRegionVO;
+    }
+
+    private BlameVO toVO(ObjectId commitId, String path, int lineCount, boolean truncated) {
+        BlameVO blameVO = new BlameVO();
+        blameVO.setCommitId(commitId.name());
+        blameVO.setPath(path);
+        blameVO.setLineCount(lineCount);
+        blameVO.setTruncated(truncated);
+        return blameVO;
+    }
+
+    private static String key(ObjectId commitId, String path) {
+        return commitId.name() + "\0" + path;
+    }
+
+    /**
+     * 追溯结果
+     */
+    @RequiredArgsConstructor
+    private static class Result {
+
+        /**
+         * 文件行数
+         */
+        private final int lineCount;
+
+        /**
+         * 行区间，按行号排序且覆盖全部行
+         */
+        private final List<Region> regions;
+    }
+
+    /**
+     * 行区间，行号从 0 开始
+     */
+    @RequiredArgsConstructor
+    private static class Region {
+
+        /**
+         * 在追溯文件中的起始行
+         */
+        private final int start;
+
+        /**
+         * 行数
+         */
+        private final int length;
+
+        /**
+         * 引入这些行的提交
+         */
+        private final Source source;
+
+        /**
+         * 在引入提交中的文件路径
+         */
+        private final String sourcePath;
+
+        /**
+         * 在引入提交中的起始行
+         */
+        private final int sourceStart;
+    }
+
+    /**
+     * 引入行的提交信息，同一个提交的行区间共用
+     */
+    private static class Source {
+
+        /**
+         * 提交ID
+         */
+        private final ObjectId commitId;
+
+        /**
+         * 作者名称
+         */
+        private final String authorName;
+
+        /**
+         * 作者邮箱
+         */
+        private final String authorEmail;
+
+        /**
+         * 作者时间
+         */
+        private final long authorTime;
+
+        /**
+         * 提交标题
+         */
+        private final String title;
+
+        private Source(RevCommit commit) {
+            PersonIdent author = commit.getAuthorIdent();
+            this.commitId = commit.copy();
+            this.authorName = author.getName();
+            this.authorEmail = author.getEmailAddress();
+            this.authorTime = author.getWhenAsInstant().toEpochMilli();
+            this.title = commit.getShortMessage();
+        }
+    }
+
+    /**
+     * 当前线程的CPU时间预算，不支持线程CPU时间时按经过的时间计算
+     */
+    private static class Budget {
+
+        /**
+         * 是否使用线程CPU时间
+         */
+        private final boolean cpuTime;
+
+        /**
+         * 预算(纳秒)
+         */
+        private final long limit;
+
+        /**
+         * 开始时间(纳秒)
+         */
+        private final long start;
+
+        private Budget(Duration budget) {
+            this.cpuTime = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+            this.limit = budget.toNanos();
+            this.start = now();
+        }
+
+        /**
+         * 预算是否耗尽
+         *
+         * @return 是否耗尽
+         */
+        private boolean exhausted() {
+            return used() >= limit;
+        }
+
+        /**
+         * 已经消耗的时间
+         *
+         * @return 纳秒
+         */
+        private long used() {
+            return now() - start;
+        }
+
+        private long now() {
+            return cpuTime ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime();
+        }
+    }
+
+    /**
+     * 预算耗尽，从追溯内部读取对象时抛出，结束整个追溯
+     */
+    private static class BudgetExhaustedException extends RuntimeException {
+
+        private BudgetExhaustedException() {
+            super("blame budget exhausted", null, false, false);
+        }
+    }
+
+    /**
+     * 读取对象时检查预算的仓库
+     * <p>
+     * {@link BlameGenerator} 的 RevWalk 是私有的，也不经过 RevFilter 遍历历史，无法从外部停止。
+     * 它通过仓库创建对象读取器，这里把读取器包装一层：每处理一个提交都要读取提交或目录树，
+     * 预算耗尽后下一次读取即抛出 {@link BudgetExhaustedException}。其余方法都委托给原仓库，
+     * 关闭时不关闭原仓库的对象库和引用库。
+     * </p>
+     */
+    private static class BudgetRepository extends Repository {
+
+        /**
+         * 每读取多少个对象检查一次预算
+         */
+        private static final int CHECK_INTERVAL = 16;
+
+        /**
+         * 原仓库
+         */
+        private final Repository delegate;
+
+        /**
+         * CPU时间预算
+         */
+        private final Budget budget;
+
+        private BudgetRepository(Repository delegate, Budget budget) {
+            super(new FileRepositoryBuilder().setGitDir(delegate.getDirectory()).setFS(delegate.getFS()));
+            this.delegate = delegate;
+            this.budget = budget;
+        }
+
+        @Override
+        public ObjectReader newObjectReader() {
+            ObjectReader reader = delegate.newObjectReader();
+            return new ObjectReader.Filter() {
+
+                /**
+                 * 读取的对象数量
+                 */
+                private int reads;
+
+                @Override
+                protected ObjectReader delegate() {
+                    return reader;
+                }
+
+                @Override
+                public ObjectLoader open(AnyObjectId objectId) throws MissingObjectException, IOException {
+                    check();
+                    return super.open(objectId);
+                }
+
+                @Override
+                public ObjectLoader open(AnyObjectId objectId, int typeHint) throws MissingObjectException, IncorrectObjectTypeException, IOException {
+                    check();
+                    return super.open(objectId, typeHint);
+                }
+
+                private void check() {
+                    if (++reads % CHECK_INTERVAL == 0 && budget.exhausted()) {
+                        throw new BudgetExhaustedException();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void create(boolean bare) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getIdentifier() {
+            return delegate.getIdentifier();
+        }
+
+        @Override
+        public ObjectDatabase getObjectDatabase() {
+            return delegate.getObjectDatabase();
+        }
+
+        @Override
+        public RefDatabase getRefDatabase() {
+            return delegate.getRefDatabase();
+        }
+
+        @Override
+        public StoredConfig getConfig() {
+            return delegate.getConfig();
+        }
+
+        @Override
+        public AttributesNodeProvider createAttributesNodeProvider() {
+            return delegate.createAttributesNodeProvider();
+        }
+
+        @Override
+        public void scanForRepoChanges() throws IOException {
+            delegate.scanForRepoChanges();
+        }
+
+        @Override
+        public void notifyIndexChanged(boolean internal) {
+            delegate.notifyIndexChanged(internal);
+        }
+
+        @Override
+        public ReflogReader getReflogReader(String refName) throws IOException {
+            return delegate.getReflogReader(refName);
+        }
+
+        @Override
+        protected void doClose() {
+            // 对象库和引用库属于原仓库
+        }
+    }
+}
@@ -0,0 +1,570 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.model.vo.BranchCacheStatsVO;
+import io.xianzhi.code.model.vo.BranchVO;
+import io.xianzhi.code.model.vo.CursorListVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分支列表缓存
+ * <p>
+ * 按仓库缓存 {@code refs/heads/*} 的分支快照(最新提交、作者、时间)，按分支名称排序，支持前缀过滤和游标翻页。
+ * 快照以 {@link RefAdvertisementCache} 的引用版本号判断是否过期，引用变化后只重新解析指向发生变化的分支，
+ * 其余分支连同已经算好的领先落后数直接复用。
+ * 领先落后数只为当前页的分支计算，在固定大小的线程池中并行执行，线程池已满或等待超时的分支本次不返回。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BranchCache implements InitializingBean, DisposableBean {
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 引用通告缓存，提供仓库的引用版本号
+     */
+    private final RefAdvertisementCache refAdvertisementCache;
+
+    /**
+     * 仓库目录 -> 分支快照
+     */
+    private final Map<File, Holder> holders = new ConcurrentHashMap<>();
+
+    /**
+     * 命中次数
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * 刷新次数
+     */
+    private final LongAdder refreshes = new LongAdder();
+
+    /**
+     * 刷新时重新解析的提交数
+     */
+    private final LongAdder parsedCommits = new LongAdder();
+
+    /**
+     * 刷新时直接复用的分支数
+     */
+    private final LongAdder reusedBranches = new LongAdder();
+
+    /**
+     * 计算领先落后数的次数
+     */
+    private final LongAdder aheadBehindComputed = new LongAdder();
+
+    /**
+     * 线程池已满而未计算领先落后数的次数
+     */
+    private final LongAdder aheadBehindRejected = new LongAdder();
+
+    /**
+     * 计算领先落后数超时的次数
+     */
+    private final LongAdder aheadBehindTimeouts = new LongAdder();
+
+    /**
+     * 计算领先落后数的线程池
+     */
+    private ThreadPoolExecutor aheadBehindExecutor;
+
+    /**
+     * 分页查询分支
+     *
+     * @param repository 仓库
+     * @param prefix     分支名称前缀，为空时不过滤
+     * @param cursor     上一页最后一个分支名称，为空时从第一页开始
+     * @param limit      每页数量
+     * @return 分支列表
+     * @throws IOException 如果读取引用或提交失败
+     */
+    public CursorListVO<BranchVO> listBranches(Repository repository, String prefix, String cursor, int limit) throws IOException {
+        Snapshot snapshot = snapshot(repository);
+        NavigableMap<String, Branch> view = snapshot.branches;
+        if (StringUtils.hasText(prefix) && (!StringUtils.hasText(cursor) || cursor.compareTo(prefix) < 0)) {
+            view = view.tailMap(prefix, true);
+        } else if (StringUtils.hasText(cursor)) {
+            view = view.tailMap(cursor, false);
+        }
+        List<Branch> page = new ArrayList<>(limit);
+        boolean more = false;
+        for (Branch branch : view.values()) {
+            if (StringUtils.hasText(prefix) && !branch.name.startsWith(prefix)) {
+                break;
+            }
+            if (page.size() == limit) {
+                more = true;
+                break;
+            }
+            page.add(branch);
+        }
+        fillAheadBehind(repository, snapshot.defaultId, page);
+        List<BranchVO> list = new ArrayList<>(page.size());
+        for (Branch branch : page) {
+            list.add(toVO(branch, snapshot));
+        }
+        return new CursorListVO<>(list, more ? page.get(page.size() - 1).name : null);
+    }
+
+    /**
+     * 移除仓库的缓存，删除仓库时调用
+     *
+     * @param gitDir 仓库目录
+     */
+    public void invalidate(File gitDir) {
+        holders.remove(normalize(gitDir));
+    }
+
+    /**
+     * 查询缓存统计信息
+     *
+     * @return 统计信息
+     */
+    public BranchCacheStatsVO stats() {
+        BranchCacheStatsVO stats = new BranchCacheStatsVO();
+        stats.setSize(holders.size());
+        stats.setHits(hits.sum());
+        stats.setRefreshes(refreshes.sum());
+        stats.setParsedCommits(parsedCommits.sum());
+        stats.setReusedBranches(reusedBranches.sum());
+        stats.setAheadBehindComputed(aheadBehindComputed.sum());
+        stats.setAheadBehindRejected(aheadBehindRejected.sum());
+        stats.setAheadBehindTimeouts(aheadBehindTimeouts.sum());
+        return stats;
+    }
+
+    /**
+     * 初始化领先落后数线程池
+     */
+    @Override
+    public void afterPropertiesSet() {
+        CodeServerProperties.BranchCache config = codeServerProperties.getBranchCache();
+        int threads = Math.max(1, config.getAheadBehindThreads());
+        AtomicInteger sequence = new AtomicInteger();
+        aheadBehindExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getAheadBehindQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "branch-ahead-behind-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        aheadBehindExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 关闭线程池并清空缓存
+     */
+    @Override
+    public void destroy() {
+        if (aheadBehindExecutor != null) {
+            aheadBehindExecutor.shutdownNow();
+        }
+        holders.clear();
+    }
+
+    /**
+     * 获取仓库当前的分支快照，引用版本号变化或超过最长保留时间时增量刷新
+     *
+     * @param repository 仓库
+     * @return 分支快照
+     * @throws IOException 如果读取引用或提交失败
+     */
+    private Snapshot snapshot(Repository repository) throws IOException {
+        if (!Boolean.TRUE.equals(codeServerProperties.getBranchCache().getEnabled())) {
+            return load(repository, null, 0);
+        }
+        File key = normalize(repository.getDirectory());
+        Holder holder = holders.computeIfAbsent(key, k -> new Holder());
+        holder.lastAccessAt = System.currentTimeMillis();
+        trimToSize();
+        // 先取版本号再加载, 加载期间引用发生变化时版本号已递增, 下次查询会再次刷新
+        long version = refAdvertisementCache.version(key);
+        Snapshot snapshot = holder.snapshot;
+        if (fresh(snapshot, version)) {
+            hits.increment();
+            return snapshot;
+        }
+        synchronized (holder) {
+            snapshot = holder.snapshot;
+            if (fresh(snapshot, version)) {
+                hits.increment();
+                return snapshot;
+            }
+            snapshot = load(repository, snapshot, version);
+            holder.snapshot = snapshot;
+            return snapshot;
+        }
+    }
+
+    /**
+     * 读取分支引用生成新快照，指向未变化的分支直接复用旧快照中的数据
+     *
+     * @param repository 仓库
+     * @param previous   旧快照，可以为 null
+     * @param version    读取引用前的引用版本号
+     * @return 新快照
+     * @throws IOException 如果读取引用或提交失败
+     */
+    private Snapshot load(Repository repository, Snapshot previous, long version) throws IOException {
+        refreshes.increment();
+        NavigableMap<String, Branch> branches = new TreeMap<>();
+        int parsed = 0;
+        int reused = 0;
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            for (Ref ref : repository.getRefDatabase().getRefsByPrefix(Constants.R_HEADS)) {
+                ObjectId commitId = ref.getObjectId();
+                if (ref.isSymbolic() || commitId == null) {
+                    continue;
+                }
+                String name = ref.getName().substring(Constants.R_HEADS.length());
+                Branch cached = previous == null ? null : previous.branches.get(name);
+                if (cached != null && cached.commitId.equals(commitId)) {
+                    branches.put(name, cached);
+                    reused++;
+                    continue;
+                }
+                RevCommit commit;
+                try {
+                    commit = revWalk.parseCommit(commitId);
+                } catch (MissingObjectException | IncorrectObjectTypeException e) {
+                    log.warn("分支没有指向有效的提交: {}, {}", repository.getDirectory(), ref.getName());
+                    continue;
+                }
+                PersonIdent author = commit.getAuthorIdent();
+                branches.put(name, new Branch(name, commitId.copy(), commit.getShortMessage(),
+                        author.getName(), author.getEmailAddress(), author.getWhenAsInstant().toEpochMilli()));
+                parsed++;
+            }
+        }
+        parsedCommits.add(parsed);
+        reusedBranches.add(reused);
+        String defaultBranch = null;
+        ObjectId defaultId = null;
+        Ref head = repository.exactRef(Constants.HEAD);
+        if (head != null) {
+            Ref target = head.getTarget();
+            if (target.getName().startsWith(Constants.R_HEADS)) {
+                defaultBranch = target.getName().substring(Constants.R_HEADS.length());
+            }
+            defaultId = target.getObjectId();
+        }
+        return new Snapshot(version, Collections.unmodifiableNavigableMap(branches), defaultBranch, defaultId);
+    }
+
+    /**
+     * 为当前页的分支并行计算与默认分支的领先落后数，已经算过且两端都未变化的分支直接复用
+     *
+     * @param repository 仓库
+     * @param defaultId  默认分支的最新提交，为 null 时不计算
+     * @param page       当前页的分支
+     */
+    private void fillAheadBehind(Repository repository, ObjectId defaultId, List<Branch> page) {
+        if (defaultId == null) {
+            return;
+        }
+        CodeServerProperties.BranchCache config = codeServerProperties.getBranchCache();
+        int limit = Math.max(1, config.getAheadBehindLimit());
+        List<Future<?>> futures = new ArrayList<>();
+        for (Branch branch : page) {
+            AheadBehind aheadBehind = branch.aheadBehind;
+            if (aheadBehind != null && aheadBehind.baseId.equals(defaultId)) {
+                continue;
+            }
+            if (branch.commitId.equals(defaultId)) {
+                branch.aheadBehind = new AheadBehind(defaultId, 0, 0);
+                continue;
+            }
+            try {
+                futures.add(aheadBehindExecutor.submit(() -> {
+                    branch.aheadBehind = count(repository, branch.commitId, defaultId, limit);
+                    return null;
+                }));
+            } catch (RejectedExecutionException e) {
+                aheadBehindRejected.increment();
+            }
+        }
+        long deadline = System.nanoTime() + config.getAheadBehindTimeout().toNanos();
+        for (Future<?> future : futures) {
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                aheadBehindTimeouts.increment();
+            } catch (ExecutionException e) {
+                log.warn("计算分支领先落后数失败: {}", repository.getDirectory(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(pending -> pending.cancel(true));
+                return;
+            }
+        }
+    }
+
+    /**
+     * 统计分支与默认分支的领先落后数
+     *
+     * @param repository 仓库
+     * @param commitId   分支的最新提交
+     * @param baseId     默认分支的最新提交
+     * @param limit      统计上限
+     * @return 领先落后数
+     * @throws IOException 如果读取提交失败
+     */
+    private AheadBehind count(Repository repository, ObjectId commitId, ObjectId baseId, int limit) throws IOException {
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            revWalk.setRetainBody(false);
+            int ahead = count(revWalk, commitId, baseId, limit);
+            revWalk.reset();
+            int behind = count(revWalk, baseId, commitId, limit);
+            aheadBehindComputed.increment();
+            return new AheadBehind(baseId, ahead, behind);
+        }
+    }
+
+    /**
+     * 统计从 start 可达、从 exclude 不可达的提交数
+     *
+     * @param revWalk 提交遍历
+     * @param start   起点
+     * @param exclude 排除的提交
+     * @param limit   统计上限
+     * @return 提交数
+     * @throws IOException 如果读取提交失败
+     */
+    private int count(RevWalk revWalk, ObjectId start, ObjectId exclude, int limit) throws IOException {
+        revWalk.markStart(revWalk.parseCommit(start));
+        revWalk.markUninteresting(revWalk.parseCommit(exclude));
+        int count = 0;
+        while (count < limit && revWalk.next() != null) {
+            if (Thread.interrupted()) {
+                throw new IOException("计算领先落后数被中断");
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 转换为出参
+     *
+     * @param branch   分支
+     * @param snapshot 分支所在快照
+     * @return 分支出参
+     */
+    private BranchVO toVO(Branch branch, Snapshot snapshot) {
+        BranchVO branchVO = new BranchVO();
+        branchVO.setBranchName(branch.name);
+        branchVO.setDefaultBranch(branch.name.equals(snapshot.defaultBranch));
+        branchVO.setCommitId(branch.commitId.name());
+        branchVO.setCommitMessage(branch.message);
+        branchVO.setAuthorName(branch.authorName);
+        branchVO.setAuthorEmail(branch.authorEmail);
+        branchVO.setCommitTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(branch.commitTime), ZoneId.systemDefault()));
+        AheadBehind aheadBehind = branch.aheadBehind;
+        if (aheadBehind != null && aheadBehind.baseId.equals(snapshot.defaultId)) {
+            branchVO.setAhead(aheadBehind.ahead);
+            branchVO.setBehind(aheadBehind.behind);
+        }
+        return branchVO;
+    }
+
+    /**
+     * 超出容量时按最近访问时间移除仓库的缓存
+     */
+    private void trimToSize() {
+        int overflow = holders.size() - codeServerProperties.getBranchCache().getMaxRepositories();
+        if (overflow <= 0) {
+            return;
+        }
+        List<Map.Entry<File, Holder>> candidates = new ArrayList<>(holders.entrySet());
+        candidates.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccessAt));
+        for (int i = 0; i < overflow && i < candidates.size(); i++) {
+            holders.remove(candidates.get(i).getKey(), candidates.get(i).getValue());
+        }
+    }
+
+    private boolean fresh(Snapshot snapshot, long version) {
+        return snapshot != null && snapshot.version == version
+                && System.currentTimeMillis() - snapshot.createdAt <= codeServerProperties.getBranchCache().getMaxAge().toMillis();
+    }
+
+    private File normalize(File gitDir) {
+        return gitDir.toPath().toAbsolutePath().normalize().toFile();
+    }
+
+    /**
+     * 单个仓库的缓存
+     */
+    private static class Holder {
+
+        /**
+         * 最近访问时间
+         */
+        private volatile long lastAccessAt;
+
+        /**
+         * 当前快照
+         */
+        private volatile Snapshot snapshot;
+    }
+
+    /**
+     * 仓库某一引用版本的分支快照
+     */
+    @RequiredArgsConstructor
+    private static class Snapshot {
+
+        /**
+         * 引用版本号
+         */
+        private final long version;
+
+        /**
+         * 分支名称 -> 分支
+         */
+        private final NavigableMap<String, Branch> branches;
+
+        /**
+         * 默认分支名称
+         */
+        private final String defaultBranch;
+
+        /**
+         * 默认分支的最新提交
+         */
+        private final ObjectId defaultId;
+
+        /**
+         * 创建时间
+         */
+        private final long createdAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 分支
+     */
+    @RequiredArgsConstructor
+    private static class Branch {
+
+        /**
+         * 分支名称
+         */
+        private final String name;
+
+        /**
+         * 最新提交ID
+         */
+        private final ObjectId commitId;
+
+        /**
+         * 最新提交的标题
+         */
+        private final String message;
+
+        /**
+         * 作者名称
+         */
+        private final String authorName;
+
+        /**
+         * 作者邮箱
+         */
+        private final String authorEmail;
+
+        /**
+         * 作者时间
+         */
+        private final long commitTime;
+
+        /**
+         * 与默认分支的领先落后数，分支指向不变时跨快照复用
+         */
+        private volatile AheadBehind aheadBehind;
+    }
+
+    /**
+     * 与某个默认分支提交比较的领先落后数
+     */
+    @RequiredArgsConstructor
+    private static class AheadBehind {
+
+        /**
+         * 比较时默认分支的最新提交
+         */
+        private final ObjectId baseId;
+
+        /**
+         * 领先的提交数
+         */
+        private final int ahead;
+
+        /**
+         * 落后的提交数
+         */
+        private final int behind;
+    }
+}
@@ -0,0 +1,541 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.model.code.CommitCode;
+import io.xianzhi.code.model.vo.CommitLogStatsVO;
+import io.xianzhi.code.model.vo.CommitVO;
+import io.xianzhi.code.model.vo.CursorListVO;
+import io.xianzhi.core.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.jgit.errors.StopWalkException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.TreeRevFilter;
+import org.eclipse.jgit.revwalk.filter.AndRevFilter;
+import org.eclipse.jgit.revwalk.filter.AuthorRevFilter;
+import org.eclipse.jgit.revwalk.filter.CommitTimeRevFilter;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.revwalk.filter.SubStringRevFilter;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 提交历史分页缓存
+ * <p>
+ * 按提交时间倒序遍历提交历史，游标为上一页最后遍历到的提交ID。每页遍历结束时记录遍历队列中尚未处理的提交(续查位置)，
+ * 下一页直接从续查位置继续遍历，深处的分页和第一页的代价相同；续查位置被淘汰时才从起点重新遍历到游标。
+ * 路径过滤使用 {@link TreeRevFilter} 逐个提交比较目录树，合并提交与某个父提交相同时只沿该父提交继续，
+ * 与 git log 默认的历史简化一致，有 commit-graph 的仓库还会先经过 changed-path 布隆过滤器。
+ * 分页和续查位置以起点提交ID和过滤条件为 key，提交ID确定了全部历史，缓存不需要随引用变化失效，fork 网络内可以共用。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Component
+public class CommitLogCache {
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 分页 key -> 分页结果
+     */
+    private final Map<String, LogPage> pages;
+
+    /**
+     * 续查 key -> 续查位置
+     */
+    private final Map<String, ResumePoint> resumePoints;
+
+    /**
+     * 分页缓存命中次数
+     */
+    private final LongAdder pageHits = new LongAdder();
+
+    /**
+     * 续查位置命中次数
+     */
+    private final LongAdder resumeHits = new LongAdder();
+
+    /**
+     * 从起点重新遍历到游标的次数
+     */
+    private final LongAdder rewalks = new LongAdder();
+
+    /**
+     * 累计遍历的提交数
+     */
+    private final LongAdder walkedCommits = new LongAdder();
+
+    /**
+     * 遍历预算耗尽的次数
+     */
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    /**
+     * 构造方法
+     *
+     * @param codeServerProperties 代码服务配置
+     */
+    public CommitLogCache(CodeServerProperties codeServerProperties) {
+        this.codeServerProperties = codeServerProperties;
+        this.pages = LruCaches.create(() -> codeServerProperties.getCommitLog().getMaxCachedPages());
+        this.resumePoints = LruCaches.create(() -> codeServerProperties.getCommitLog().getMaxResumePoints());
+    }
+
+    /**
+     * 分页查询提交历史
+     *
+     * @param repository 仓库
+     * @param tip        起点提交
+     * @param filter     过滤条件
+     * @param cursor     游标，为 null 时从起点开始
+     * @param limit      每页数量
+     * @return 提交列表，遍历预算耗尽时返回的数量可能少于每页数量，此时 nextCursor 不为空
+     * @throws BusinessException 如果游标不在起点的提交历史中
+     * @throws IOException       如果读取提交失败
+     */
+    public CursorListVO<CommitVO> log(Repository repository, ObjectId tip, Filter filter, ObjectId cursor, int limit) throws IOException {
+        String resumeKey = resumeKey(tip, filter, cursor);
+        String pageKey = resumeKey + "\0" + limit;
+        LogPage page = pages.get(pageKey);
+        if (page != null) {
+            pageHits.increment();
+            return toVO(page);
+        }
+        ResumePoint start;
+        if (cursor == null) {
+            start = new ResumePoint(new ObjectId[]{tip}, null);
+        } else {
+            start = resumePoints.get(resumeKey);
+            if (start != null) {
+                resumeHits.increment();
+            } else {
+                // 续查位置已经被淘汰或者引用移动了, 从起点重新遍历, 跳过游标之前的提交
+                rewalks.increment();
+                start = new ResumePoint(new ObjectId[]{tip}, cursor);
+            }
+        }
+        page = walk(repository, filter, start, limit);
+        pages.put(pageKey, page);
+        if (page.nextCursor != null) {
+            resumePoints.put(resumeKey(tip, filter, page.nextCursor), page.next);
+        }
+        return toVO(page);
+    }
+
+    /**
+     * 查询缓存统计信息
+     *
+     * @return 统计信息
+     */
+    public CommitLogStatsVO stats() {
+        CommitLogStatsVO stats = new CommitLogStatsVO();
+        stats.setPages(pages.size());
+        stats.setResumePoints(resumePoints.size());
+        stats.setPageHits(pageHits.sum());
+        stats.setResumeHits(resumeHits.sum());
+        stats.setRewalks(rewalks.sum());
+        stats.setWalkedCommits(walkedCommits.sum());
+        stats.setBudgetExhausted(budgetExhausted.sum());
+        return stats;
+    }
+
+    /**
+     * 从续查位置开始遍历一页
+     *
+     * @param repository 仓库
+     * @param filter     过滤条件
+     * @param start      续查位置
+     * @param limit      每页数量
+     * @return 分页结果
+     * @throws IOException 如果读取提交失败
+     */
+    private LogPage walk(Repository repository, Filter filter, ResumePoint start, int limit) throws IOException {
+        int budget = Math.max(limit, codeServerProperties.getCommitLog().getWalkBudget());
+        List<LogCommit> commits = new ArrayList<>(limit);
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            revWalk.sort(RevSort.COMMIT_TIME_DESC);
+            Tracker tracker = new Tracker(revWalk, filter.toRevFilter(revWalk), budget, start.skipUntil);
+            revWalk.setRevFilter(tracker);
+            for (ObjectId id : start.frontier) {
+                RevCommit commit = revWalk.parseCommit(id);
+                tracker.frontier.add(commit);
+                revWalk.markStart(commit);
+            }
+            RevCommit commit;
+            while (commits.size() < limit && (commit = revWalk.next()) != null) {
+                commits.add(new LogCommit(commit));
+            }
+            walkedCommits.add(tracker.walked);
+            if (tracker.exhausted) {
+                budgetExhausted.increment();
+            } else if (commits.size() < limit) {
+                if (tracker.skipUntil != null) {
+                    throw new BusinessException(CommitCode.CURSOR_INVALID);
+                }
+                return new LogPage(commits, null, null);
+            }
+            ObjectId[] frontier = tracker.frontier.stream().map(ObjectId::copy).toArray(ObjectId[]::new);
+            if (frontier.length == 0) {
+                return new LogPage(commits, null, null);
+            }
+            return new LogPage(commits, tracker.last.copy(), new ResumePoint(frontier, tracker.skipUntil));
+        }
+    }
+
+    /**
+     * 转换为出参
+     *
+     * @param page 分页结果
+     * @return 提交列表
+     */
+    private CursorListVO<CommitVO> toVO(LogPage page) {
+        List<CommitVO> list = new ArrayList<>(page.commits.size());
+        for (LogCommit commit : page.commits) {
+            CommitVO commitVO = new CommitVO();
+            commitVO.setCommitId(commit.commitId);
+            commitVO.setParentIds(commit.parentIds);
+            commitVO.setTitle(commit.title);
+            commitVO.setMessage(commit.message);
+            commitVO.setAuthorName(commit.authorName);
+            commitVO.setAuthorEmail(commit.authorEmail);
+            commitVO.setAuthorTime(toLocalDateTime(commit.authorTime));
+            commitVO.setCommitterName(commit.committerName);
+            commitVO.setCommitterEmail(commit.committerEmail);
+            commitVO.setCommitTime(toLocalDateTime(commit.commitTime));
+            list.add(commitVO);
+        }
+        return new CursorListVO<>(list, page.nextCursor == null ? null : page.nextCursor.name());
+    }
+
+    private LocalDateTime toLocalDateTime(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
+    }
+
+    private String resumeKey(ObjectId tip, Filter filter, ObjectId cursor) {
+        return tip.name() + "\0" + filter.key() + "\0" + (cursor == null ? "" : cursor.name());
+    }
+
+    /**
+     * 提交历史过滤条件
+     */
+    @RequiredArgsConstructor
+    public static class Filter {
+
+        /**
+         * 文件或目录路径，为 null 时不过滤
+         */
+        private final String path;
+
+        /**
+         * 作者名称或邮箱，为 null 时不过滤
+         */
+        private final String author;
+
+        /**
+         * 提交时间起始，为 null 时不过滤
+         */
+        private final Instant since;
+
+        /**
+         * 提交时间截止，为 null 时不过滤
+         */
+        private final Instant until;
+
+        /**
+         * 缓存 key 中的过滤条件部分
+         *
+         * @return key
+         */
+        private String key() {
+            return (path == null ? "" : path) + "\0" + (author == null ? "" : author)
+                    + "\0" + (since == null ? "" : since.toEpochMilli()) + "\0" + (until == null ? "" : until.toEpochMilli());
+        }
+
+        /**
+         * 组合提交过滤器，代价低的时间和作者过滤放在目录树比较之前
+         *
+         * @param revWalk 提交遍历
+         * @return 提交过滤器
+         */
+        private RevFilter toRevFilter(RevWalk revWalk) {
+            List<RevFilter> filters = new ArrayList<>();
+            if (since != null && until != null) {
+                filters.add(CommitTimeRevFilter.between(Date.from(since), Date.from(until)));
+            } else if (since != null) {
+                filters.add(CommitTimeRevFilter.after(Date.from(since)));
+            } else if (until != null) {
+                filters.add(CommitTimeRevFilter.before(Date.from(until)));
+            }
+            if (author != null) {
+                filters.add(AuthorRevFilter.create(SubStringRevFilter.safe(author) ? author : Pattern.quote(author)));
+            }
+            if (path != null) {
+                filters.add(new TreeRevFilter(revWalk, AndTreeFilter.create(PathFilterGroup.createFromStrings(path), TreeFilter.ANY_DIFF)));
+            }
+            if (filters.isEmpty()) {
+                return RevFilter.ALL;
+            }
+            return filters.size() == 1 ? filters.get(0) : AndRevFilter.create(filters.toArray(new RevFilter[0]));
+        }
+    }
+
+    /**
+     * 跟踪遍历进度的过滤器
+     * <p>
+     * RevWalk 每从队列中取出一个提交都会先调用过滤器，之后才把父提交加入队列，
+     * 这里据此维护队列中尚未处理的提交，遍历暂停后它们就是下一页的续查位置。
+     * 目录树过滤会改写合并提交的父提交，所以在委托过滤之后再读取父提交。
+     * </p>
+     */
+    private static class Tracker extends RevFilter {
+
+        /**
+         * 实际的过滤条件
+         */
+        private final RevFilter delegate;
+
+        /**
+         * 遍历预算
+         */
+        private final int budget;
+
+        /**
+         * 已经从队列中取出的提交
+         */
+        private final RevFlag popped;
+
+        /**
+         * 队列中尚未处理的提交
+         */
+        private final Set<RevCommit> frontier = new LinkedHashSet<>();
+
+        /**
+         * 重新遍历时需要跳过到的游标，找到后置为 null
+         */
+        private ObjectId skipUntil;
+
+        /**
+         * 已经遍历的提交数
+         */
+        private int walked;
+
+        /**
+         * 最后遍历的提交
+         */
+        private RevCommit last;
+
+        /**
+         * 遍历预算是否耗尽
+         */
+        private boolean exhausted;
+
+        private Tracker(RevWalk revWalk, RevFilter delegate, int budget, ObjectId skipUntil) {
+            this(delegate, budget, revWalk.newFlag("popped"), skipUntil);
+        }
+
+        private Tracker(RevFilter delegate, int budget, RevFlag popped, ObjectId skipUntil) {
+            this.delegate = delegate;
+            this.budget = budget;
+            this.popped = popped;
+            this.skipUntil = skipUntil;
+        }
+
+        @Override
+        public boolean include(RevWalk walker, RevCommit commit) throws IOException {
+            if (walked >= budget) {
+                // 当前提交留在续查位置中, 下一页从它开始
+                exhausted = true;
+                throw StopWalkException.INSTANCE;
+            }
+            walked++;
+            last = commit;
+            frontier.remove(commit);
+            commit.add(popped);
+            boolean skipping = skipUntil != null;
+            if (skipping && skipUntil.equals(commit)) {
+                skipUntil = null;
+            }
+            boolean include;
+            try {
+                include = delegate.include(walker, commit);
+            } finally {
+                for (RevCommit parent : commit.getParents()) {
+                    if (!parent.has(popped)) {
+                        frontier.add(parent);
+                    }
+                }
+            }
+            return !skipping && include;
+        }
+
+        @Override
+        public boolean requiresCommitBody() {
+            return delegate.requiresCommitBody();
+        }
+
+        /**
+         * 复制过滤条件和遍历预算，遍历状态从头开始，标记仍使用同一个 RevWalk 分配的标志
+         *
+         * @return 新的过滤器
+         */
+        @Override
+        public RevFilter clone() {
+            return new Tracker(delegate.clone(), budget, popped, skipUntil);
+        }
+    }
+
+    /**
+     * 续查位置
+     */
+    @RequiredArgsConstructor
+    private static class ResumePoint {
+
+        /**
+         * 遍历队列中尚未处理的提交
+         */
+        private final ObjectId[] frontier;
+
+        /**
+         * 仍需跳过到的游标，从起点重新遍历且预算在找到游标前耗尽时不为 null
+         */
+        private final ObjectId skipUntil;
+    }
+
+    /**
+     * 分页结果
+     */
+    @RequiredArgsConstructor
+    private static class LogPage {
+
+        /**
+         * 当前页的提交
+         */
+        private final List<LogCommit> commits;
+
+        /**
+         * 下一页的游标
+         */
+        private final ObjectId nextCursor;
+
+        /**
+         * 下一页的续查位置
+         */
+        private final ResumePoint next;
+    }
+
+    /**
+     * 缓存的提交信息
+     */
+    private static class LogCommit {
+
+        /**
+         * 提交ID
+         */
+        private final String commitId;
+
+        /**
+         * 父提交ID
+         */
+        private final List<String> parentIds;
+
+        /**
+         * 提交标题
+         */
+        private final String title;
+
+        /**
+         * 完整的提交说明
+         */
+        private final String message;
+
+        /**
+         * 作者名称
+         */
+        private final String authorName;
+
+        /**
+         * 作者邮箱
+         */
+        private final String authorEmail;
+
+        /**
+         * 作者时间
+         */
+        private final long authorTime;
+
+        /**
+         * 提交者名称
+         */
+        private final String committerName;
+
+        /**
+         * 提交者邮箱
+         */
+        private final String committerEmail;
+
+        /**
+         * 提交时间
+         */
+        private final long commitTime;
+
+        private LogCommit(RevCommit commit) {
+            this.commitId = commit.name();
+            List<String> parents = new ArrayList<>(commit.getParentCount());
+            for (RevCommit parent : commit.getParents()) {
+                parents.add(parent.name());
+            }
+            this.parentIds = List.copyOf(parents);
+            this.title = commit.getShortMessage();
+            this.message = commit.getFullMessage();
+            PersonIdent author = commit.getAuthorIdent();
+            this.authorName = author.getName();
+            this.authorEmail = author.getEmailAddress();
+            this.authorTime = author.getWhenAsInstant().toEpochMilli();
+            PersonIdent committer = commit.getCommitterIdent();
+            this.committerName = committer.getName();
+            this.committerEmail = committer.getEmailAddress();
+            this.commitTime = committer.getWhenAsInstant().toEpochMilli();
+        }
+    }
+}
@@ -0,0 +1,643 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.model.code.PullRequestCode;
+import io.xianzhi.code.model.vo.DiffCacheStatsVO;
+import io.xianzhi.code.model.vo.DiffFileVO;
+import io.xianzhi.code.model.vo.DiffHunkVO;
+import io.xianzhi.core.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.util.RawParseUtils;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 合并请求差异缓存
+ * <p>
+ * 差异分两步返回: 先只比较目录树得到变更文件列表，不读取任何文件内容(内容相似度重命名检测除外)；
+ * 打开某个文件时才读取两侧内容，通过 {@link DiffFormatter} 生成差异片段。文件列表以两侧目录树ID为 key，
+ * 单文件差异以目录树ID和路径为 key，目录树ID确定了全部内容，缓存不需要随引用变化失效。
+ * 重命名检测受 renameLimit 限制，超出时只检测内容完全相同的重命名；二进制、超过大小上限和生成的文件不返回差异内容。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Component
+public class DiffCache {
+
+    /**
+     * 差异片段头，行数为 1 时省略
+     */
+    private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -(\\d+)(?:,(\\d+))? \\+(\\d+)(?:,(\\d+))? @@");
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 目标提交ID:源提交ID -> 合并基准提交ID
+     */
+    private final Map<String, ObjectId> mergeBases;
+
+    /**
+     * 两侧目录树ID -> 文件列表
+     */
+    private final Map<String, Summary> summaries;
+
+    /**
+     * 两侧目录树ID和路径 -> 单文件差异
+     */
+    private final Map<String, FileDiff> files;
+
+    /**
+     * 生成文件路径匹配
+     */
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * 文件列表缓存命中次数
+     */
+    private final LongAdder summaryHits = new LongAdder();
+
+    /**
+     * 文件列表缓存未命中次数
+     */
+    private final LongAdder summaryMisses = new LongAdder();
+
+    /**
+     * 单文件差异缓存命中次数
+     */
+    private final LongAdder fileHits = new LongAdder();
+
+    /**
+     * 单文件差异缓存未命中次数
+     */
+    private final LongAdder fileMisses = new LongAdder();
+
+    /**
+     * 跳过内容相似度重命名检测的次数
+     */
+    private final LongAdder renameLimitExceeded = new LongAdder();
+
+    /**
+     * 构造方法
+     *
+     * @param codeServerProperties 代码服务配置
+     */
+    public DiffCache(CodeServerProperties codeServerProperties) {
+        this.codeServerProperties = codeServerProperties;
+        this.mergeBases = LruCaches.create(() -> codeServerProperties.getDiff().getMaxCachedMergeBases());
+        this.summaries = LruCaches.create(() -> codeServerProperties.getDiff().getMaxCachedSummaries());
+        this.files = LruCaches.create(() -> codeServerProperties.getDiff().getMaxCachedFiles());
+    }
+
+    /**
+     * 查询目标提交与源提交的合并基准，存在多个时取第一个
+     *
+     * @param repository 仓库
+     * @param target     目标提交
+     * @param source     源提交
+     * @return 合并基准提交ID，没有共同历史时返回 null
+     * @throws IOException 如果读取提交失败
+     */
+    public ObjectId mergeBase(Repository repository, ObjectId target, ObjectId source) throws IOException {
+        String key = target.name() + ":" + source.name();
+        ObjectId mergeBase = mergeBases.get(key);
+        if (mergeBase != null) {
+            return mergeBase;
+        }
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            revWalk.setRevFilter(RevFilter.MERGE_BASE);
+            revWalk.markStart(revWalk.parseCommit(target));
+            revWalk.markStart(revWalk.parseCommit(source));
+            RevCommit commit = revWalk.next();
+            if (commit == null) {
+                return null;
+            }
+            mergeBase = commit.copy();
+        }
+        mergeBases.put(key, mergeBase);
+        return mergeBase;
+    }
+
+    /**
+     * 查询两个提交之间的变更文件列表
+     *
+     * @param repository 仓库
+     * @param base       合并基准提交
+     * @param head       源提交
+     * @return 文件列表
+     * @throws IOException 如果读取目录树失败
+     */
+    public Summary summary(Repository repository, ObjectId base, ObjectId head) throws IOException {
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            RevTree baseTree = revWalk.parseCommit(base).getTree();
+            RevTree headTree = revWalk.parseCommit(head).getTree();
+            String key = baseTree.name() + ":" + headTree.name();
+            Summary summary = summaries.get(key);
+            if (summary != null) {
+                summaryHits.increment();
+                return summary;
+            }
+            summaryMisses.increment();
+            summary = scan(repository, revWalk.getObjectReader(), baseTree, headTree, key);
+            summaries.put(key, summary);
+            return summary;
+        }
+    }
+
+    /**
+     * 转换文件列表的一页，不包含差异内容
+     *
+     * @param summary 文件列表
+     * @param offset  起始位置
+     * @param limit   数量
+     * @return 变更文件
+     */
+    public List<DiffFileVO> files(Summary summary, int offset, int limit) {
+        int from = Math.min(Math.max(offset, 0), summary.entries.size());
+        int to = Math.min(from + Math.max(limit, 0), summary.entries.size());
+        List<DiffFileVO> list = new ArrayList<>(to - from);
+        for (DiffEntry entry : summary.entries.subList(from, to)) {
+            list.add(toVO(entry));
+        }
+        return list;
+    }
+
+    /**
+     * 查询单个文件的差异内容
+     *
+     * @param repository 仓库
+     * @param summary    文件列表
+     * @param path       文件路径，删除的文件为原路径，其余为新路径
+     * @return 文件差异
+     * @throws BusinessException 如果文件不在文件列表中
+     * @throws IOException       如果读取文件失败
+     */
+    public DiffFileVO file(Repository repository, Summary summary, String path) throws IOException {
+        Integer index = summary.indexes.get(path);
+        if (index == null) {
+            throw new BusinessException(PullRequestCode.DIFF_FILE_NOT_EXIST);
+        }
+        DiffEntry entry = summary.entries.get(index);
+        DiffFileVO diffFileVO = toVO(entry);
+        if (Boolean.TRUE.equals(diffFileVO.getGenerated())) {
+            return diffFileVO;
+        }
+        String key = summary.key + "\0" + path;
+        FileDiff fileDiff = files.get(key);
+        if (fileDiff != null) {
+            fileHits.increment();
+        } else {
+            fileMisses.increment();
+            fileDiff = diff(repository, entry);
+            files.put(key, fileDiff);
+        }
+        diffFileVO.setBinary(fileDiff.binary);
+        diffFileVO.setTooLarge(fileDiff.tooLarge);
+        diffFileVO.setTruncated(fileDiff.truncated);
+        diffFileVO.setAdditions(fileDiff.additions);
+        diffFileVO.setDeletions(fileDiff.deletions);
+        diffFileVO.setHunks(fileDiff.hunks.stream().map(Hunk::toVO).toList());
+        return diffFileVO;
+    }
+
+    /**
+     * 查询缓存统计信息
+     *
+     * @return 统计信息
+     */
+    public DiffCacheStatsVO stats() {
+        DiffCacheStatsVO stats = new DiffCacheStatsVO();
+        stats.setSummaries(summaries.size());
+        stats.setFiles(files.size());
+        stats.setMergeBases(mergeBases.size());
+        stats.setSummaryHits(summaryHits.sum());
+        stats.setSummaryMisses(summaryMisses.sum());
+        stats.setFileHits(fileHits.sum());
+        stats.setFileMisses(fileMisses.sum());
+        stats.setRenameLimitExceeded(renameLimitExceeded.sum());
+        return stats;
+    }
+
+    /**
+     * 比较两侧目录树并检测重命名
+     *
+     * @param repository 仓库
+     * @param reader     对象读取器
+     * @param baseTree   合并基准的目录树
+     * @param headTree   源提交的目录树
+     * @param key        缓存 key
+     * @return 文件列表
+     * @throws IOException 如果读取目录树失败
+     */
+    private Summary scan(Repository repository, ObjectReader reader, RevTree baseTree, RevTree headTree, String key) throws IOException {
+        CodeServerProperties.Diff config = codeServerProperties.getDiff();
+        try (DiffFormatter formatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            formatter.setReader(reader, repository.getConfig());
+            formatter.setDetectRenames(true);
+            RenameDetector renameDetector = formatter.getRenameDetector();
+            renameDetector.setRenameLimit(config.getRenameLimit());
+            renameDetector.setBigFileThreshold(config.getMaxFileSize());
+            renameDetector.setSkipContentRenamesForBinaryFiles(true);
+            List<DiffEntry> entries = formatter.scan(baseTree, headTree);
+            boolean exceeded = renameDetector.isOverRenameLimit();
+            if (exceeded) {
+                renameLimitExceeded.increment();
+            }
+            Map<String, Integer> indexes = new HashMap<>(entries.size() * 2);
+            for (int i = 0; i < entries.size(); i++) {
+                indexes.put(pathOf(entries.get(i)), i);
+            }
+            return new Summary(key, List.copyOf(entries), indexes, exceeded);
+        }
+    }
+
+    /**
+     * 读取两侧内容并生成差异片段
+     *
+     * @param repository 仓库
+     * @param entry      变更文件
+     * @return 文件差异
+     * @throws IOException 如果读取文件失败
+     */
+    private FileDiff diff(Repository repository, DiffEntry entry) throws IOException {
+        CodeServerProperties.Diff config = codeServerProperties.getDiff();
+        try (ObjectReader reader = repository.newObjectReader()) {
+            int maxFileSize = config.getMaxFileSize();
+            if (size(reader, entry.getOldMode(), entry.getOldId().toObjectId()) > maxFileSize
+                    || size(reader, entry.getNewMode(), entry.getNewId().toObjectId()) > maxFileSize) {
+                return FileDiff.skipped(false, true);
+            }
+            byte[] oldContent = content(reader, entry.getOldMode(), entry.getOldId().toObjectId(), maxFileSize);
+            byte[] newContent = content(reader, entry.getNewMode(), entry.getNewId().toObjectId(), maxFileSize);
+            if (RawText.isBinary(oldContent) || RawText.isBinary(newContent)) {
+                return FileDiff.skipped(true, false);
+            }
+            RawText oldText = new RawText(oldContent);
+            RawText newText = new RawText(newContent);
+            DiffAlgorithm algorithm = DiffAlgorithm.getAlgorithm(repository.getConfig().getEnum(ConfigConstants.CONFIG_DIFF_SECTION,
+                    null, ConfigConstants.CONFIG_KEY_ALGORITHM, DiffAlgorithm.SupportedAlgorithm.HISTOGRAM));
+            EditList edits = algorithm.diff(RawTextComparator.DEFAULT, oldText, newText);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (DiffFormatter formatter = new DiffFormatter(out)) {
+                formatter.setContext(config.getContextLines());
+                formatter.format(edits, oldText, newText);
+            }
+            return parse(out.toByteArray(), config.getMaxFileLines());
+        }
+    }
+
+    /**
+     * 把 {@link DiffFormatter} 输出的差异片段拆分为片段和行
+     *
+     * @param patch    差异片段文本
+     * @param maxLines 最多保留的行数
+     * @return 文件差异
+     */
+    private FileDiff parse(byte[] patch, int maxLines) {
+        List<Hunk> hunks = new ArrayList<>();
+        int additions = 0;
+        int deletions = 0;
+        int kept = 0;
+        boolean truncated = false;
+        Hunk hunk = null;
+        String text = RawParseUtils.decode(StandardCharsets.UTF_8, patch);
+        for (String line : text.split("\n")) {
+            if (line.startsWith("@@")) {
+                Matcher matcher = HUNK_HEADER.matcher(line);
+                if (!matcher.find()) {
+                    continue;
+                }
+                hunk = truncated ? null : new Hunk(line, Integer.parseInt(matcher.group(1)), count(matcher.group(2)),
+                        Integer.parseInt(matcher.group(3)), count(matcher.group(4)));
+                if (hunk != null) {
+                    hunks.add(hunk);
+                }
+                continue;
+            }
+            if (line.startsWith("+")) {
+                additions++;
+            } else if (line.startsWith("-")) {
+                deletions++;
+            }
+            if (hunk == null) {
+                continue;
+            }
+            if (kept >= maxLines) {
+                truncated = true;
+                hunk = null;
+                continue;
+            }
+            hunk.lines.add(line);
+            kept++;
+        }
+        List<Hunk> result = new ArrayList<>(hunks.size());
+        for (Hunk h : hunks) {
+            result.add(h.freeze());
+        }
+        return new FileDiff(false, false, truncated, additions, deletions, result);
+    }
+
+    /**
+     * 转换变更文件，不包含差异内容
+     *
+     * @param entry 变更文件
+     * @return 变更文件出参
+     */
+    private DiffFileVO toVO(DiffEntry entry) {
+        DiffFileVO diffFileVO = new DiffFileVO();
+        diffFileVO.setChangeType(entry.getChangeType().name());
+        if (entry.getChangeType() != DiffEntry.ChangeType.ADD) {
+            diffFileVO.setOldPath(entry.getOldPath());
+            diffFileVO.setOldId(entry.getOldId().name());
+            diffFileVO.setOldMode(entry.getOldMode().toString());
+        }
+        if (entry.getChangeType() != DiffEntry.ChangeType.DELETE) {
+            diffFileVO.setNewPath(entry.getNewPath());
+            diffFileVO.setNewId(entry.getNewId().name());
+            diffFileVO.setNewMode(entry.getNewMode().toString());
+        }
+        if (entry.getChangeType() == DiffEntry.ChangeType.RENAME || entry.getChangeType() == DiffEntry.ChangeType.COPY) {
+            diffFileVO.setScore(entry.getScore());
+        }
+        diffFileVO.setGenerated(isGenerated(pathOf(entry)));
+        return diffFileVO;
+    }
+
+    /**
+     * 判断是否为生成的文件
+     *
+     * @param path 文件路径
+     * @return 是否为生成的文件
+     */
+    private boolean isGenerated(String path) {
+        List<String> patterns = codeServerProperties.getDiff().getGeneratedPatterns();
+        if (patterns == null) {
+            return false;
+        }
+        for (String pattern : patterns) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 查询文件大小，子模块和不存在的一侧为 0
+     *
+     * @param reader 对象读取器
+     * @param mode   文件模式
+     * @param id     对象ID
+     * @return 文件大小
+     * @throws IOException 如果读取对象失败
+     */
+    private long size(ObjectReader reader, FileMode mode, AnyObjectId id) throws IOException {
+        if (mode == FileMode.MISSING || mode == FileMode.GITLINK || ObjectId.zeroId().equals(id)) {
+            return 0;
+        }
+        return reader.getObjectSize(id, Constants.OBJ_BLOB);
+    }
+
+    /**
+     * 读取文件内容，子模块按 git diff 的格式输出提交ID
+     *
+     * @param reader      对象读取器
+     * @param mode        文件模式
+     * @param id          对象ID
+     * @param maxFileSize 文件大小上限
+     * @return 文件内容
+     * @throws IOException 如果读取对象失败
+     */
+    private byte[] content(ObjectReader reader, FileMode mode, ObjectId id, int maxFileSize) throws IOException {
+        if (mode == FileMode.MISSING || ObjectId.zeroId().equals(id)) {
+            return new byte[0];
+        }
+        if (mode == FileMode.GITLINK) {
+            return ("Subproject commit " + id.name() + "\n").getBytes(StandardCharsets.US_ASCII);
+        }
+        return reader.open(id, Constants.OBJ_BLOB).getCachedBytes(maxFileSize);
+    }
+
+    /**
+     * 变更文件在文件列表中的路径，删除的文件为原路径，其余为新路径
+     *
+     * @param entry 变更文件
+     * @return 路径
+     */
+    private static String pathOf(DiffEntry entry) {
+        return entry.getChangeType() == DiffEntry.ChangeType.DELETE ? entry.getOldPath() : entry.getNewPath();
+    }
+
+    private static int count(String group) {
+        return group == null ? 1 : Integer.parseInt(group);
+    }
+
+    /**
+     * 变更文件列表
+     */
+    @RequiredArgsConstructor
+    public static class Summary {
+
+        /**
+         * 两侧目录树ID
+         */
+        private final String key;
+
+        /**
+         * 变更文件，按路径排序
+         */
+        private final List<DiffEntry> entries;
+
+        /**
+         * 路径 -> 在变更文件中的位置
+         */
+        private final Map<String, Integer> indexes;
+
+        /**
+         * 是否跳过了内容相似度重命名检测
+         */
+        private final boolean renameLimitExceeded;
+
+        /**
+         * 变更文件总数
+         *
+         * @return 变更文件总数
+         */
+        public int total() {
+            return entries.size();
+        }
+
+        /**
+         * 是否跳过了内容相似度重命名检测
+         *
+         * @return 是否跳过
+         */
+        public boolean isRenameLimitExceeded() {
+            return renameLimitExceeded;
+        }
+    }
+
+    /**
+     * 缓存的单文件差异
+     */
+    @RequiredArgsConstructor
+    private static class FileDiff {
+
+        /**
+         * 是否为二进制文件
+         */
+        private final boolean binary;
+
+        /**
+         * 是否超过大小上限
+         */
+        private final boolean tooLarge;
+
+        /**
+         * 差异行数是否超过上限
+         */
+        private final boolean truncated;
+
+        /**
+         * 新增行数
+         */
+        private final Integer additions;
+
+        /**
+         * 删除行数
+         */
+        private final Integer deletions;
+
+        /**
+         * 差异片段
+         */
+        private final List<Hunk> hunks;
+
+        /**
+         * 不计算差异内容的文件
+         *
+         * @param binary   是否为二进制文件
+         * @param tooLarge 是否超过大小上限
+         * @return 文件差异
+         */
+        private static FileDiff skipped(boolean binary, boolean tooLarge) {
+            return new FileDiff(binary, tooLarge, false, null, null, List.of());
+        }
+    }
+
+    /**
+     * 缓存的差异片段
+     */
+    @RequiredArgsConstructor
+    private static class Hunk {
+
+        /**
+         * 片段头
+         */
+        private final String header;
+
+        /**
+         * 原文件起始行号
+         */
+        private final int oldStart;
+
+        /**
+         * 原文件行数
+         */
+        private final int oldLines;
+
+        /**
+         * 新文件起始行号
+         */
+        private final int newStart;
+
+        /**
+         * 新文件行数
+         */
+        private final int newLines;
+
+        /**
+         * 差异行
+         */
+        private final List<String> lines;
+
+        private Hunk(String header, int oldStart, int oldLines, int newStart, int newLines) {
+            this(header, oldStart, oldLines, newStart, newLines, new ArrayList<>());
+        }
+
+        /**
+         * 转换为只读的片段，之后在多个请求间共用
+         *
+         * @return 只读的片段
+         */
+        private Hunk freeze() {
+            return new Hunk(header, oldStart, oldLines, newStart, newLines, List.copyOf(lines));
+        }
+
+        /**
+         * 转换为出参
+         *
+         * @return 片段出参
+         */
+        private DiffHunkVO toVO() {
+            DiffHunkVO diffHunkVO = new DiffHunkVO();
+            diffHunkVO.setHeader(header);
+            diffHunkVO.setOldStart(oldStart);
+            diffHunkVO.setOldLines(oldLines);
+            diffHunkVO.setNewStart(newStart);
+            diffHunkVO.setNewLines(newLines);
+            diffHunkVO.setLines(lines);
+            return diffHunkVO;
+        }
+    }
+}
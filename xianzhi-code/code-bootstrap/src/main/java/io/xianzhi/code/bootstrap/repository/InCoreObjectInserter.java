@@ -0,0 +1,195 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.transport.PackParser;
+import org.eclipse.jgit.util.IO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 只在内存中保存对象的插入器
+ * <p>
+ * 在内存中合并(冲突检查、预合并)时，合并结果的 blob、目录树以及递归合并生成的虚拟合并基准都写入这里，
+ * 通过 {@link #newReader()} 读取时先查内存再查仓库，不会在仓库中留下任何松散对象，持有共享锁即可执行。
+ * {@link #flush()} 不做任何事，需要保留合并结果时由调用方把需要的对象写回仓库。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+public class InCoreObjectInserter extends ObjectInserter {
+
+    /**
+     * 仓库的对象读取器
+     */
+    private final ObjectReader reader;
+
+    /**
+     * 对象ID -> 内存中的对象
+     */
+    private final Map<ObjectId, ObjectLoader> objects = new ConcurrentHashMap<>();
+
+    /**
+     * 构造方法，关闭插入器时一并关闭读取器
+     *
+     * @param reader 仓库的对象读取器
+     */
+    public InCoreObjectInserter(ObjectReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 插入对象
+     *
+     * @param type   对象类型
+     * @param length 对象大小
+     * @param in     对象内容
+     * @return 对象ID
+     * @throws IOException 如果读取内容失败
+     */
+    @Override
+    public ObjectId insert(int type, long length, InputStream in) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("对象过大, 无法在内存中保存: " + length);
+        }
+        byte[] data = new byte[(int) length];
+        IO.readFully(in, data, 0, data.length);
+        ObjectId id = idFor(type, data);
+        objects.putIfAbsent(id, new ObjectLoader.SmallObject(type, data));
+        return id;
+    }
+
+    /**
+     * 不支持写入 pack
+     *
+     * @param in pack 内容
+     * @return 不返回
+     */
+    @Override
+    public PackParser newPackParser(InputStream in) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 创建先查内存再查仓库的读取器
+     *
+     * @return 读取器
+     */
+    @Override
+    public ObjectReader newReader() {
+        return new Reader(reader.newReader());
+    }
+
+    /**
+     * 内存中的对象不写入仓库
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * 释放内存中的对象和读取器
+     */
+    @Override
+    public void close() {
+        objects.clear();
+        reader.close();
+    }
+
+    /**
+     * 是否为内存中的对象
+     *
+     * @param id 对象ID
+     * @return 是否为内存中的对象
+     */
+    public boolean isInCore(AnyObjectId id) {
+        return objects.containsKey(id);
+    }
+
+    /**
+     * 先查内存再查仓库的读取器
+     */
+    private class Reader extends ObjectReader.Filter {
+
+        /**
+         * 仓库的对象读取器
+         */
+        private final ObjectReader delegate;
+
+        private Reader(ObjectReader delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected ObjectReader delegate() {
+            return delegate;
+        }
+
+        @Override
+        public ObjectReader newReader() {
+            return new Reader(delegate.newReader());
+        }
+
+        @Override
+        public boolean has(AnyObjectId objectId) throws IOException {
+            return objects.containsKey(objectId) || delegate.has(objectId);
+        }
+
+        @Override
+        public boolean has(AnyObjectId objectId, int typeHint) throws IOException {
+            return objects.containsKey(objectId) || delegate.has(objectId, typeHint);
+        }
+
+        @Override
+        public ObjectLoader open(AnyObjectId objectId) throws IOException {
+            return open(objectId, OBJ_ANY);
+        }
+
+        @Override
+        public ObjectLoader open(AnyObjectId objectId, int typeHint) throws IOException {
+            ObjectLoader loader = objects.get(objectId);
+            if (loader == null) {
+                return delegate.open(objectId, typeHint);
+            }
+            if (typeHint != OBJ_ANY && loader.getType() != typeHint) {
+                throw new IncorrectObjectTypeException(objectId.copy(), typeHint);
+            }
+            return loader;
+        }
+
+        @Override
+        public long getObjectSize(AnyObjectId objectId, int typeHint) throws IOException {
+            ObjectLoader loader = objects.get(objectId);
+            return loader == null ? delegate.getObjectSize(objectId, typeHint) : loader.getSize();
+        }
+
+        @Override
+        public ObjectInserter getCreatedFromInserter() {
+            return InCoreObjectInserter.this;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * 本地 LRU 缓存
+ * <p>
+ * 提交历史、差异和 blame 的结果缓存都按访问顺序淘汰，最大数量在每次写入时从配置读取，
+ * 配置刷新后不需要重建缓存。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+public final class LruCaches {
+
+    /**
+     * 初始容量
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    private LruCaches() {
+    }
+
+    /**
+     * 创建线程安全的、按访问顺序淘汰的缓存
+     *
+     * @param maxSize 最大数量，每次写入后读取
+     * @param <V>     缓存内容类型
+     * @return 缓存
+     */
+    public static <V> Map<String, V> create(IntSupplier maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(INITIAL_CAPACITY, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize.getAsInt();
+            }
+        });
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.lib.BatchRefUpdate;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.ReceiveCommand;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * fork 网络共享对象池
+ * <p>
+ * 同一个 fork 网络中的仓库通过 {@code objects/info/alternates} 共同读取一个对象池仓库，
+ * fork 时只需要把源仓库现有的对象文件硬链接进对象池，不复制任何数据。
+ * 对象池中的 {@code refs/forks/<项目ID>/*} 保存每个成员引用的快照，保证成员需要的对象在对象池中始终可达。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+public final class ObjectPool {
+
+    /**
+     * 对象池中成员引用的前缀
+     */
+    public static final String R_FORKS = Constants.R_REFS + "forks/";
+
+    /**
+     * 对象目录名称
+     */
+    private static final String OBJECTS = Constants.OBJECTS;
+
+    /**
+     * alternates 文件相对仓库目录的路径
+     */
+    private static final String ALTERNATES = OBJECTS + "/" + Constants.INFO_ALTERNATES;
+
+    /**
+     * pack 文件后缀，最后链接，保证索引就位后才对对象池可见
+     */
+    private static final String PACK_SUFFIX = ".pack";
+
+    /**
+     * pack 锁文件后缀
+     */
+    private static final String KEEP_SUFFIX = ".keep";
+
+    /**
+     * 对象池目录 -> 锁，创建 fork 和维护对象池互斥
+     */
+    private static final Map<String, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+    private ObjectPool() {
+    }
+
+    /**
+     * 查询仓库所属的对象池
+     *
+     * @param gitDir 仓库目录
+     * @return 对象池仓库目录，不属于任何对象池时返回 null
+     * @throws IOException 如果读取 alternates 失败
+     */
+    public static File getPoolDir(File gitDir) throws IOException {
+        File alternates = new File(gitDir, ALTERNATES);
+        if (!alternates.isFile()) {
+            return null;
+        }
+        for (String line : Files.readAllLines(alternates.toPath(), StandardCharsets.UTF_8)) {
+            String location = line.trim();
+            if (location.isEmpty() || location.startsWith("#")) {
+                continue;
+            }
+            File objects = new File(location);
+            if (!objects.isAbsolute()) {
+                objects = new File(new File(gitDir, OBJECTS), location);
+            }
+            return objects.toPath().normalize().getParent().toFile();
+        }
+        return null;
+    }
+
+    /**
+     * 获取对象池的锁
+     *
+     * @param poolDir 对象池仓库目录
+     * @return 锁
+     */
+    public static ReentrantLock lock(File poolDir) {
+        return LOCKS.computeIfAbsent(poolDir.getAbsolutePath(), key -> new ReentrantLock());
+    }
+
+    /**
+     * 把仓库现有的对象文件硬链接进对象池，已存在的文件跳过，不支持硬链接时退化为复制
+     * <p>
+     * 先链接松散对象和 pack 的附属文件，最后链接 .pack，对象池在任何时刻看到的 pack 都是完整的。
+     * </p>
+     *
+     * @param gitDir  仓库目录
+     * @param poolDir 对象池仓库目录
+     * @return 新链接的文件数量
+     * @throws IOException 如果链接失败
+     */
+    public static int seed(File gitDir, File poolDir) throws IOException {
+        File source = new File(gitDir, OBJECTS);
+        File target = new File(poolDir, OBJECTS);
+        int linked = 0;
+        File[] looseDirs = source.listFiles(file -> file.isDirectory() && file.getName().matches("[0-9a-f]{2}"));
+        if (looseDirs != null) {
+            for (File looseDir : looseDirs) {
+                File[] objects = looseDir.listFiles(File::isFile);
+                if (objects == null) {
+                    continue;
+                }
+                for (File object : objects) {
+                    if (link(object, new File(new File(target, looseDir.getName()), object.getName()))) {
+                        linked++;
+                    }
+                }
+            }
+        }
+        File[] packFiles = new File(source, "pack").listFiles(file -> file.isFile()
+                && file.getName().startsWith("pack-") && !file.getName().endsWith(KEEP_SUFFIX));
+        if (packFiles != null) {
+            Arrays.sort(packFiles, Comparator.comparing(file -> file.getName().endsWith(PACK_SUFFIX)));
+            for (File packFile : packFiles) {
+                if (link(packFile, new File(new File(target, "pack"), packFile.getName()))) {
+                    linked++;
+                }
+            }
+        }
+        return linked;
+    }
+
+    /**
+     * 让仓库通过 alternates 读取对象池，使用绝对路径，仓库迁移到散列目录后依然有效
+     *
+     * @param gitDir  仓库目录
+     * @param poolDir 对象池仓库目录
+     * @throws IOException 如果写入失败
+     */
+    public static void join(File gitDir, File poolDir) throws IOException {
+        File alternates = new File(gitDir, ALTERNATES);
+        Files.createDirectories(alternates.getParentFile().toPath());
+        File tmp = new File(alternates.getParentFile(), alternates.getName() + "." + UUID.randomUUID() + ".tmp");
+        String location = new File(poolDir, OBJECTS).toPath().toAbsolutePath().normalize() + "\n";
+        try {
+            Files.writeString(tmp.toPath(), location, StandardCharsets.UTF_8);
+            Files.move(tmp.toPath(), alternates.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * 把成员的引用写入对象池的 {@code refs/forks/<项目ID>/*}，只新增和更新，不删除
+     *
+     * @param pool      对象池仓库
+     * @param projectId 成员项目ID
+     * @param refs      成员引用
+     * @throws IOException 如果更新引用失败
+     */
+    public static void updateMemberRefs(Repository pool, String projectId, Collection<Ref> refs) throws IOException {
+        String prefix = R_FORKS + projectId + "/";
+        Map<String, ObjectId> current = new HashMap<>();
+        for (Ref ref : pool.getRefDatabase().getRefsByPrefix(prefix)) {
+            current.put(ref.getName(), ref.getObjectId());
+        }
+        BatchRefUpdate batchRefUpdate = pool.getRefDatabase().newBatchUpdate();
+        batchRefUpdate.setAllowNonFastForwards(true);
+        for (Ref ref : refs) {
+            if (ref.isSymbolic() || ref.getObjectId() == null || !ref.getName().startsWith(Constants.R_REFS)) {
+                continue;
+            }
+            String name = prefix + ref.getName().substring(Constants.R_REFS.length());
+            ObjectId old = current.get(name);
+            if (!ref.getObjectId().equals(old)) {
+                batchRefUpdate.addCommand(new ReceiveCommand(old == null ? ObjectId.zeroId() : old, ref.getObjectId(), name));
+            }
+        }
+        execute(pool, batchRefUpdate);
+    }
+
+    /**
+     * 删除成员在对象池中的引用，成员的对象在下次对象池维护时随之回收
+     *
+     * @param pool      对象池仓库
+     * @param projectId 成员项目ID
+     * @throws IOException 如果删除引用失败
+     */
+    public static void removeMember(Repository pool, String projectId) throws IOException {
+        BatchRefUpdate batchRefUpdate = pool.getRefDatabase().newBatchUpdate();
+        for (Ref ref : pool.getRefDatabase().getRefsByPrefix(R_FORKS + projectId + "/")) {
+            batchRefUpdate.addCommand(new ReceiveCommand(ref.getObjectId(), ObjectId.zeroId(), ref.getName()));
+        }
+        execute(pool, batchRefUpdate);
+    }
+
+    /**
+     * 列出对象池中的成员项目ID
+     *
+     * @param pool 对象池仓库
+     * @return 成员项目ID
+     * @throws IOException 如果读取引用失败
+     */
+    public static Set<String> members(Repository pool) throws IOException {
+        Set<String> members = new LinkedHashSet<>();
+        for (Ref ref : pool.getRefDatabase().getRefsByPrefix(R_FORKS)) {
+            String name = ref.getName().substring(R_FORKS.length());
+            int slash = name.indexOf('/');
+            if (slash > 0) {
+                members.add(name.substring(0, slash));
+            }
+        }
+        return members;
+    }
+
+    /**
+     * 执行引用批量更新
+     *
+     * @param pool           对象池仓库
+     * @param batchRefUpdate 批量更新
+     * @throws IOException 如果有引用更新失败
+     */
+    private static void execute(Repository pool, BatchRefUpdate batchRefUpdate) throws IOException {
+        List<ReceiveCommand> commands = batchRefUpdate.getCommands();
+        if (commands.isEmpty()) {
+            return;
+        }
+        try (RevWalk revWalk = new RevWalk(pool)) {
+            batchRefUpdate.execute(revWalk, NullProgressMonitor.INSTANCE);
+        }
+        for (ReceiveCommand command : commands) {
+            if (command.getResult() != ReceiveCommand.Result.OK) {
+                throw new IOException("更新对象池引用失败: " + command.getRefName() + ", " + command.getResult());
+            }
+        }
+    }
+
+    /**
+     * 硬链接单个文件，目标已存在时跳过
+     *
+     * @param source 源文件
+     * @param target 目标文件
+     * @return 是否新链接
+     * @throws IOException 如果链接和复制都失败
+     */
+    private static boolean link(File source, File target) throws IOException {
+        if (target.exists()) {
+            return false;
+        }
+        Files.createDirectories(target.getParentFile().toPath());
+        try {
+            Files.createLink(target.toPath(), source.toPath());
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } catch (NoSuchFileException e) {
+            // 源文件在扫描后被清理, 其中的对象已经在别的 pack 中
+            log.debug("对象文件已不存在: {}", source);
+            return false;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            // 对象池与仓库不在同一个文件系统, 退化为复制
+            File tmp = new File(target.getParentFile(), target.getName() + "." + UUID.randomUUID() + ".tmp");
+            try {
+                Files.copy(source.toPath(), tmp.toPath());
+                Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                return true;
+            } finally {
+                Files.deleteIfExists(tmp.toPath());
+            }
+        }
+    }
+}
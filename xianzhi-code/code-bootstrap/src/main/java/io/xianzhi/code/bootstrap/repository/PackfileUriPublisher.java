@@ -0,0 +1,314 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.common.oss.OSSHandler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.Pack;
+import org.eclipse.jgit.internal.storage.pack.CachedPackUriProvider;
+import org.eclipse.jgit.internal.storage.pack.PackExt;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * packfile-uris 发布
+ * <p>
+ * 后台维护生成带位图索引的 pack 后，把它上传到 OSS。protocol v2 的 clone 如果声明支持 packfile-uris，
+ * 并且 JGit 选中了这个 pack 作为 cached pack，就只把 OSS 预签名下载地址发给客户端，
+ * 客户端直接从对象存储下载历史数据，服务端只发送剩余的增量对象。
+ * 上传记录保存在仓库目录下，服务重启后不需要重新上传。pack 路径按相对仓库目录保存，仓库迁移到新的存储位置后记录依然有效。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PackfileUriPublisher {
+
+    /**
+     * 上传记录文件名
+     */
+    private static final String METADATA_FILE = "xianzhi-packfile-uri";
+
+    /**
+     * pack 文件末尾校验和的长度
+     */
+    private static final int CHECKSUM_LENGTH = 20;
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * OSS处理
+     */
+    private final OSSHandler ossHandler;
+
+    /**
+     * 仓库目录 -> 已上传的 pack
+     */
+    private final Map<File, PublishedPack> published = new ConcurrentHashMap<>();
+
+    /**
+     * 桶是否已确认存在
+     */
+    private volatile boolean bucketReady;
+
+    /**
+     * 为 UploadPack 创建 packfile-uris 提供者，未开启时返回 null
+     *
+     * @param repository 仓库
+     * @return packfile-uris 提供者
+     */
+    public CachedPackUriProvider uriProvider(Repository repository) {
+        CodeServerProperties.PackfileUris config = codeServerProperties.getPackfileUris();
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            return null;
+        }
+        File gitDir = repository.getDirectory();
+        return (cachedPack, protocolsSupported) -> {
+            PublishedPack pack = load(gitDir);
+            // 只有 JGit 选中的 cached pack 正好是已上传的那个 pack 时才下发地址
+            if (pack == null || cachedPack.getObjectCount() != pack.objectCount || !pack.localFile.isFile()) {
+                return null;
+            }
+            String url = ossHandler.generatePresignedUrlForDownload(config.getBucketName(), pack.key, config.getUrlExpiry());
+            if (!protocolsSupported.contains(URI.create(url).getScheme())) {
+                return null;
+            }
+            return new CachedPackUriProvider.PackInfo(pack.checksum, url, pack.size);
+        };
+    }
+
+    /**
+     * 上传仓库当前最大的带位图索引的 pack，已上传过的 pack 直接跳过。
+     * 后台维护重新打包后调用。
+     *
+     * @param repository 仓库
+     * @throws IOException 如果读取 pack 失败
+     */
+    public void publish(Repository repository) throws IOException {
+        CodeServerProperties.PackfileUris config = codeServerProperties.getPackfileUris();
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            return;
+        }
+        Pack bitmapPack = null;
+        for (Pack pack : ((FileRepository) repository).getObjectDatabase().getPacks()) {
+            if (pack.getPackFile().create(PackExt.BITMAP_INDEX).isFile()
+                    && (bitmapPack == null || pack.getPackFile().length() > bitmapPack.getPackFile().length())) {
+                bitmapPack = pack;
+            }
+        }
+        if (bitmapPack == null || bitmapPack.getPackFile().length() < config.getMinPackSize()) {
+            return;
+        }
+        File gitDir = repository.getDirectory();
+        File packFile = bitmapPack.getPackFile();
+        String checksum = checksum(packFile);
+        PublishedPack previous = load(gitDir);
+        if (previous != null && previous.checksum.equals(checksum)) {
+            return;
+        }
+        String key = config.getKeyPrefix() + repositoryKey(gitDir) + "/pack-" + checksum + ".pack";
+        long start = System.currentTimeMillis();
+        if (!bucketReady) {
+            if (!ossHandler.doesBucketExist(config.getBucketName())) {
+                ossHandler.createBucket(config.getBucketName());
+            }
+            bucketReady = true;
+        }
+        ossHandler.uploadFile(config.getBucketName(), key, packFile.toPath());
+        PublishedPack pack = new PublishedPack(checksum, key, bitmapPack.getIndex().getObjectCount(), packFile.length(), packFile);
+        save(gitDir, pack);
+        published.put(normalize(gitDir), pack);
+        if (previous != null && !previous.key.equals(key)) {
+            ossHandler.deleteObject(config.getBucketName(), previous.key);
+        }
+        log.info("pack已上传到OSS: {}, key: {}, 大小: {}, 耗时: {}ms", gitDir, key, pack.size, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 读取仓库的上传记录
+     *
+     * @param gitDir 仓库目录
+     * @return 上传记录，没有返回 null
+     */
+    private PublishedPack load(File gitDir) {
+        File key = normalize(gitDir);
+        PublishedPack pack = published.get(key);
+        if (pack != null) {
+            return pack;
+        }
+        File metadata = new File(key, METADATA_FILE);
+        if (!metadata.isFile()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(metadata)) {
+            properties.load(in);
+            pack = new PublishedPack(properties.getProperty("checksum"), properties.getProperty("key"),
+                    Long.parseLong(properties.getProperty("objectCount")), Long.parseLong(properties.getProperty("size")),
+                    resolvePackFile(key, properties.getProperty("packFile")));
+        } catch (IOException | RuntimeException e) {
+            log.warn("读取packfile-uri记录失败: {}", metadata, e);
+            return null;
+        }
+        published.put(key, pack);
+        return pack;
+    }
+
+    /**
+     * 保存上传记录
+     *
+     * @param gitDir 仓库目录
+     * @param pack   上传记录
+     * @throws IOException 如果写入失败
+     */
+    private void save(File gitDir, PublishedPack pack) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("checksum", pack.checksum);
+        properties.setProperty("key", pack.key);
+        properties.setProperty("objectCount", String.valueOf(pack.objectCount));
+        properties.setProperty("size", String.valueOf(pack.size));
+        properties.setProperty("packFile", relativePackFile(gitDir, pack.localFile));
+        try (OutputStream out = new FileOutputStream(new File(gitDir, METADATA_FILE))) {
+            properties.store(out, null);
+        }
+    }
+
+    /**
+     * pack 文件相对仓库目录的路径
+     *
+     * @param gitDir   仓库目录
+     * @param packFile pack 文件
+     * @return 相对路径
+     */
+    private String relativePackFile(File gitDir, File packFile) {
+        Path relative = normalize(gitDir).toPath().relativize(packFile.toPath().toAbsolutePath().normalize());
+        return relative.toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * 解析上传记录中的 pack 路径。旧记录保存的是绝对路径，仓库迁移后原路径不再可靠，按文件名在当前仓库的 pack 目录下查找
+     *
+     * @param gitDir   仓库目录
+     * @param packFile 记录中的 pack 路径
+     * @return pack 文件
+     */
+    private File resolvePackFile(File gitDir, String packFile) {
+        Path path = Paths.get(packFile);
+        if (path.isAbsolute()) {
+            return gitDir.toPath().resolve("objects").resolve("pack").resolve(path.getFileName()).toFile();
+        }
+        return gitDir.toPath().resolve(path).normalize().toFile();
+    }
+
+    /**
+     * 读取 pack 文件末尾的校验和，即客户端 index-pack 校验用的 pack hash
+     *
+     * @param packFile pack 文件
+     * @return 校验和
+     * @throws IOException 如果读取失败
+     */
+    private String checksum(File packFile) throws IOException {
+        byte[] checksum = new byte[CHECKSUM_LENGTH];
+        try (RandomAccessFile file = new RandomAccessFile(packFile, "r")) {
+            file.seek(file.length() - CHECKSUM_LENGTH);
+            file.readFully(checksum);
+        }
+        return HexFormat.of().formatHex(checksum);
+    }
+
+    /**
+     * 仓库在 OSS 中的路径，使用仓库相对仓库根目录的路径。
+     * 旧布局取 .git 所在的项目目录，散列布局取去掉 .git 后缀的仓库目录，同一分片下的仓库互不冲突。
+     *
+     * @param gitDir 仓库目录
+     * @return 路径
+     */
+    private String repositoryKey(File gitDir) {
+        Path root = Paths.get(codeServerProperties.getRepositoryDir()).toAbsolutePath().normalize();
+        Path repository = normalize(gitDir).toPath();
+        String name = repository.getFileName().toString();
+        Path relative;
+        if (Constants.DOT_GIT.equals(name)) {
+            relative = root.relativize(repository.getParent());
+        } else {
+            relative = root.relativize(repository.resolveSibling(StringUtils.stripFilenameExtension(name)));
+        }
+        return relative.toString().replace(File.separatorChar, '/');
+    }
+
+    private File normalize(File gitDir) {
+        return gitDir.toPath().toAbsolutePath().normalize().toFile();
+    }
+
+    /**
+     * 已上传的 pack
+     */
+    @RequiredArgsConstructor
+    private static class PublishedPack {
+
+        /**
+         * pack 校验和
+         */
+        private final String checksum;
+
+        /**
+         * OSS 对象键
+         */
+        private final String key;
+
+        /**
+         * 对象数量
+         */
+        private final long objectCount;
+
+        /**
+         * 文件大小
+         */
+        private final long size;
+
+        /**
+         * 本地 pack 文件
+         */
+        private final File localFile;
+    }
+}
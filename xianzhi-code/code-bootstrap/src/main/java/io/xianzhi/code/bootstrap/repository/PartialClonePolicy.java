@@ -0,0 +1,123 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.transport.FilterSpec;
+import org.eclipse.jgit.transport.PreUploadHook;
+import org.eclipse.jgit.transport.ServiceMayNotContinueException;
+import org.eclipse.jgit.transport.UploadPack;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * 浅克隆和部分克隆限制
+ * <p>
+ * 在开始打包前检查客户端请求的 depth 和过滤条件，超出限制时直接拒绝，
+ * 避免 tree:N 深度过大或超深浅克隆占用大量服务端遍历时间。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PartialClonePolicy implements PreUploadHook {
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * upload-pack 统计
+     */
+    private final UploadPackStatistics uploadPackStatistics;
+
+    /**
+     * Invoked before negotiation round is started.
+     *
+     * @param up         the upload pack instance handling the connection.
+     * @param wants      the list of wanted objects.
+     * @param cntOffered number of objects the client has offered.
+     */
+    @Override
+    public void onBeginNegotiateRound(UploadPack up, Collection<? extends ObjectId> wants, int cntOffered) {
+        // 协商阶段不做限制
+    }
+
+    /**
+     * Invoked after a negotiation round is completed.
+     *
+     * @param up          the upload pack instance handling the connection.
+     * @param wants       the list of wanted objects.
+     * @param cntCommon   number of common objects found.
+     * @param cntNotFound number of objects offered by the client but not found.
+     * @param ready       true if a pack is ready to be sent (the commit graph was completed).
+     */
+    @Override
+    public void onEndNegotiateRound(UploadPack up, Collection<? extends ObjectId> wants, int cntCommon, int cntNotFound, boolean ready) {
+        // 协商阶段不做限制
+    }
+
+    /**
+     * Invoked just before a pack will be sent to the client.
+     *
+     * @param up    the upload pack instance handling the connection.
+     * @param wants the list of wanted objects. These may be RevObject or RevCommit if the processed
+     *              parsed them. Implementors should not rely on the values being parsed.
+     * @param haves the list of common objects. Empty on an initial clone request. These may be RevObject
+     *              or RevCommit if the processed parsed them. Implementors should not rely on the values
+     *              being parsed.
+     * @throws ServiceMayNotContinueException abort; the message will be sent to the user.
+     */
+    @Override
+    public void onSendPack(UploadPack up, Collection<? extends ObjectId> wants, Collection<? extends ObjectId> haves) throws ServiceMayNotContinueException {
+        CodeServerProperties.PartialClone config = codeServerProperties.getPartialClone();
+        int depth = up.getDepth();
+        if (config.getMaxDepth() > 0 && depth > config.getMaxDepth()) {
+            reject(up, "浅克隆深度不能超过 " + config.getMaxDepth());
+        }
+        FilterSpec filterSpec = up.getFilterSpec();
+        if (filterSpec.getTreeDepthLimit() >= 0) {
+            if (!Boolean.TRUE.equals(config.getAllowTreeFilter())) {
+                reject(up, "不支持 tree:N 过滤, 请使用 blob:none");
+            }
+            if (filterSpec.getTreeDepthLimit() > config.getMaxTreeDepth()) {
+                reject(up, "tree:N 过滤深度不能超过 " + config.getMaxTreeDepth());
+            }
+        }
+    }
+
+    /**
+     * 拒绝本次请求
+     *
+     * @param up      upload pack
+     * @param message 提示信息
+     * @throws ServiceMayNotContinueException 总是抛出
+     */
+    private void reject(UploadPack up, String message) throws ServiceMayNotContinueException {
+        uploadPackStatistics.recordRejected();
+        log.debug("拒绝upload-pack请求: {}, {}", up.getRepository().getDirectory(), message);
+        throw new ServiceMayNotContinueException(message);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 池化的仓库句柄
+ * <p>
+ * 池本身持有一个基础引用，每次借出时增加一次引用和租约，
+ * 使用方照常调用 {@link #close()} 归还即可。当池回收且所有租约都归还后，仓库才会真正关闭。
+ * 同一个句柄会同时借给多个使用方，租约按借出线程记录，同一使用方重复调用 {@link #close()} 只归还一次，
+ * 不会把其他使用方的租约也归还掉。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+public class PooledRepository extends FileRepository {
+
+    /**
+     * 当前借出的租约数量
+     */
+    private int leases;
+
+    /**
+     * 借出线程 -> 该线程持有的租约数量
+     */
+    private final Map<Thread, Integer> holders = new HashMap<>();
+
+    /**
+     * 最后一次借出或归还的时间
+     */
+    private volatile long lastAccessAt = System.currentTimeMillis();
+
+    /**
+     * 是否已经从池中移除
+     */
+    private boolean retired;
+
+    /**
+     * 构造方法
+     *
+     * @param builder 已经完成 setup 的仓库构建器
+     * @throws IOException 如果打开仓库失败
+     */
+    PooledRepository(FileRepositoryBuilder builder) throws IOException {
+        super(builder);
+    }
+
+    /**
+     * 借出一次租约
+     *
+     * @return 如果仓库已经被池移除返回false
+     */
+    synchronized boolean lease() {
+        if (retired) {
+            return false;
+        }
+        leases++;
+        holders.merge(Thread.currentThread(), 1, Integer::sum);
+        lastAccessAt = System.currentTimeMillis();
+        incrementOpen();
+        return true;
+    }
+
+    /**
+     * 标记仓库从池中移除
+     *
+     * @param force 是否在仍有租约时强制移除
+     * @return 是否移除成功
+     */
+    synchronized boolean retire(boolean force) {
+        if (retired) {
+            return false;
+        }
+        if (leases > 0 && !force) {
+            return false;
+        }
+        retired = true;
+        return true;
+    }
+
+    /**
+     * 当前借出的租约数量
+     *
+     * @return 租约数量
+     */
+    synchronized int leases() {
+        return leases;
+    }
+
+    /**
+     * 最后一次借出或归还的时间
+     *
+     * @return 时间戳
+     */
+    long lastAccessAt() {
+        return lastAccessAt;
+    }
+
+    /**
+     * 释放池持有的基础引用
+     */
+    void releaseBaseline() {
+        super.close();
+    }
+
+    /**
+     * 归还租约，所有引用都归还后仓库才会真正关闭。
+     * 当前线程没有持有租约时忽略，避免重复关闭把计数减到其他使用方头上，进而被空闲回收提前关闭。
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            Thread thread = Thread.currentThread();
+            Integer held = holders.get(thread);
+            if (held == null) {
+                log.warn("忽略没有租约的仓库归还: {}, 线程: {}", getDirectory(), thread.getName());
+                return;
+            }
+            if (held == 1) {
+                holders.remove(thread);
+            } else {
+                holders.put(thread, held - 1);
+            }
+            leases--;
+            lastAccessAt = System.currentTimeMillis();
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * 推送隔离区
+ * <p>
+ * 推送的 pack 先写入仓库 objects 目录下的独立隔离目录，隔离区仓库通过 alternates 读取正式对象，
+ * 因此增量补全和连通性检查都能正常进行，而正式仓库在检查通过前看不到任何新对象。
+ * 检查通过后把 pack 文件重命名进 objects/pack，同一文件系统内只是一次 rename，不会重复写盘。
+ * 推送失败时直接删除隔离目录。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+public class ReceiveQuarantine implements AutoCloseable {
+
+    /**
+     * 隔离目录名称前缀
+     */
+    private static final String PREFIX = "incoming-";
+
+    /**
+     * pack 锁文件后缀，保留在隔离区由 ReceivePack 自行释放
+     */
+    private static final String KEEP_SUFFIX = ".keep";
+
+    /**
+     * pack 文件后缀，最后移动，保证索引就位后才对正式仓库可见
+     */
+    private static final String PACK_SUFFIX = ".pack";
+
+    /**
+     * 隔离目录
+     */
+    private final File directory;
+
+    /**
+     * 正式仓库的 objects/pack 目录
+     */
+    private final File packDirectory;
+
+    /**
+     * 隔离区仓库，引用读写仍指向正式仓库，对象写入隔离目录
+     */
+    @Getter
+    private final Repository repository;
+
+    /**
+     * 构造方法
+     *
+     * @param directory     隔离目录
+     * @param packDirectory 正式仓库的 pack 目录
+     * @param repository    隔离区仓库
+     */
+    private ReceiveQuarantine(File directory, File packDirectory, Repository repository) {
+        this.directory = directory;
+        this.packDirectory = packDirectory;
+        this.repository = repository;
+    }
+
+    /**
+     * 为仓库创建隔离区
+     *
+     * @param repository 正式仓库
+     * @return 隔离区
+     * @throws IOException 如果创建目录或打开隔离区仓库失败
+     */
+    public static ReceiveQuarantine create(Repository repository) throws IOException {
+        File objects = repository.getObjectDatabase() instanceof ObjectDirectory objectDirectory
+                ? objectDirectory.getDirectory()
+                : new File(repository.getDirectory(), "objects");
+        File directory = new File(objects, PREFIX + UUID.randomUUID());
+        Files.createDirectories(new File(directory, "pack").toPath());
+        try {
+            Repository quarantine = new FileRepositoryBuilder()
+                    .setGitDir(repository.getDirectory())
+                    .setObjectDirectory(directory)
+                    .addAlternateObjectDirectory(objects)
+                    .setMustExist(true)
+                    .build();
+            return new ReceiveQuarantine(directory, new File(objects, "pack"), quarantine);
+        } catch (IOException | RuntimeException e) {
+            FileUtils.deleteQuietly(directory);
+            throw e;
+        }
+    }
+
+    /**
+     * 把隔离区中的 pack 移入正式仓库
+     *
+     * @throws IOException 如果移动失败
+     */
+    public void migrate() throws IOException {
+        File[] files = new File(directory, "pack").listFiles(file -> !file.getName().endsWith(KEEP_SUFFIX));
+        if (files == null || files.length == 0) {
+            return;
+        }
+        // 先移动索引等附属文件, 最后移动 .pack
+        Arrays.sort(files, Comparator.comparing(file -> file.getName().endsWith(PACK_SUFFIX)));
+        for (File file : files) {
+            Files.move(file.toPath(), new File(packDirectory, file.getName()).toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * 关闭隔离区仓库并删除隔离目录，未迁移的对象随之丢弃
+     */
+    @Override
+    public void close() {
+        repository.close();
+        FileUtils.deleteQuietly(directory);
+    }
+
+    /**
+     * 清理进程异常退出后残留的隔离目录
+     *
+     * @param gitDir 仓库目录
+     * @param maxAge 超过该时间的隔离目录视为残留
+     */
+    public static void cleanup(File gitDir, Duration maxAge) {
+        File[] stale = new File(gitDir, "objects").listFiles(file -> file.isDirectory()
+                && file.getName().startsWith(PREFIX)
+                && System.currentTimeMillis() - file.lastModified() > maxAge.toMillis());
+        if (stale == null) {
+            return;
+        }
+        for (File directory : stale) {
+            log.info("清理残留的推送隔离目录: {}", directory);
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.model.vo.RefCacheStatsVO;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.events.ListenerHandle;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 引用通告缓存
+ * <p>
+ * 按仓库缓存 upload-pack 通告的引用列表(已 peel)以及 smart-HTTP info/refs 的完整响应体，
+ * CI 轮询 info/refs 和 ls-remote 时仓库未变化就直接从内存返回，不再遍历全部引用。
+ * 每个仓库维护一个版本号，引用变化(receive-pack、引用更新)时版本号递增，旧缓存随之失效，
+ * 版本号同时作为 info/refs 的 ETag。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RefAdvertisementCache implements InitializingBean, DisposableBean {
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 进程标识，拼入 ETag，避免重启后版本号从头计数导致 ETag 误匹配
+     */
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+
+    /**
+     * 仓库目录 -> 引用版本号，只为已解析并校验过权限的仓库创建，条目数量不超过仓库数量
+     */
+    private final Map<File, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 仓库目录 -> 缓存内容
+     */
+    private final Map<File, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 命中次数
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * 未命中次数
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 返回304的次数
+     */
+    private final LongAdder notModified = new LongAdder();
+
+    /**
+     * 失效次数
+     */
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * 引用变化监听句柄
+     */
+    private ListenerHandle listenerHandle;
+
+    /**
+     * 过期清理线程
+     */
+    private ScheduledExecutorService evictor;
+
+    /**
+     * 获取仓库通告的引用列表，未命中时从引用库加载并缓存
+     *
+     * @param repository 仓库
+     * @return 引用名称 -> 引用，返回副本，调用方可以修改
+     * @throws IOException 如果读取引用失败
+     */
+    public Map<String, Ref> getAdvertisedRefs(Repository repository) throws IOException {
+        if (!enabled() || repository.getDirectory() == null) {
+            return load(repository);
+        }
+        File key = normalize(repository.getDirectory());
+        // 先取版本号再加载, 加载期间引用发生变化时版本号已递增, 写入的旧数据不会被读到
+        long version = version(key);
+        Entry entry = entry(key, version);
+        Map<String, Ref> refs = entry.refs;
+        if (refs != null) {
+            hits.increment();
+            return new LinkedHashMap<>(refs);
+        }
+        misses.increment();
+        refs = load(repository);
+        entry.refs = refs;
+        return new LinkedHashMap<>(refs);
+    }
+
+    /**
+     * 获取缓存的 info/refs 响应
+     *
+     * @param gitDir  仓库目录
+     * @param version 引用版本号
+     * @param service 服务名称，如 git-upload-pack
+     * @return 缓存的响应，未命中返回 null
+     */
+    public Advertisement getAdvertisement(File gitDir, long version, String service) {
+        Entry entry = entries.get(normalize(gitDir));
+        Advertisement advertisement = entry == null || entry.version != version ? null : entry.advertisements.get(service);
+        if (advertisement == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return advertisement;
+    }
+
+    /**
+     * 缓存 info/refs 响应
+     *
+     * @param gitDir        仓库目录
+     * @param version       生成响应前读取的引用版本号
+     * @param service       服务名称
+     * @param advertisement 响应内容
+     */
+    public void putAdvertisement(File gitDir, long version, String service, Advertisement advertisement) {
+        if (enabled()) {
+            entry(normalize(gitDir), version).advertisements.put(service, advertisement);
+        }
+    }
+
+    /**
+     * 获取仓库当前的引用版本号，缓存超过最长保留时间时顺带使其失效。
+     * 首次调用会为仓库创建版本号，调用方只能传入已存在的仓库，不能直接使用请求中的路径
+     *
+     * @param gitDir 仓库目录
+     * @return 引用版本号
+     */
+    public long version(File gitDir) {
+        File key = normalize(gitDir);
+        Entry entry = entries.get(key);
+        if (entry != null && expired(entry)) {
+            invalidate(key);
+        }
+        return versions.computeIfAbsent(key, k -> new AtomicLong()).get();
+    }
+
+    /**
+     * 根据引用版本号生成 ETag
+     *
+     * @param version 引用版本号
+     * @return ETag
+     */
+    public String etag(long version) {
+        return "\"" + epoch + "-" + version + "\"";
+    }
+
+    /**
+     * 判断客户端缓存是否仍然有效
+     *
+     * @param ifNoneMatch 请求头 If-None-Match
+     * @param version     引用版本号
+     * @return 是否可以返回304
+     */
+    public boolean notModified(String ifNoneMatch, long version) {
+        if (!enabled() || ifNoneMatch == null || !ifNoneMatch.contains(etag(version))) {
+            return false;
+        }
+        notModified.increment();
+        return true;
+    }
+
+    /**
+     * 引用发生变化，使仓库的缓存失效
+     *
+     * @param gitDir 仓库目录
+     */
+    public void invalidate(File gitDir) {
+        File key = normalize(gitDir);
+        // 没有版本号说明从未下发过 ETag, 也就没有需要失效的缓存
+        versions.computeIfPresent(key, (k, version) -> {
+            version.incrementAndGet();
+            return version;
+        });
+        if (entries.remove(key) != null) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * 查询缓存统计信息
+     *
+     * @return 统计信息
+     */
+    public RefCacheStatsVO stats() {
+        RefCacheStatsVO stats = new RefCacheStatsVO();
+        stats.setSize(entries.size());
+        stats.setHits(hits.sum());
+        stats.setMisses(misses.sum());
+        stats.setNotModified(notModified.sum());
+        stats.setInvalidations(invalidations.sum());
+        return stats;
+    }
+
+    /**
+     * 注册引用变化监听并启动过期清理
+     */
+    @Override
+    public void afterPropertiesSet() {
+        // JGit 写引用后会在全局监听列表上触发 RefsChangedEvent
+        listenerHandle = Repository.getGlobalListenerList().addRefsChangedListener(event -> {
+            Repository repository = event.getRepository();
+            if (repository != null && repository.getDirectory() != null) {
+                invalidate(repository.getDirectory());
+            }
+        });
+        long interval = Math.max(1000, codeServerProperties.getRefCache().getMaxAge().toMillis());
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ref-cache-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictExpired, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 移除监听并清空缓存
+     */
+    @Override
+    public void destroy() {
+        if (listenerHandle != null) {
+            listenerHandle.remove();
+        }
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        entries.clear();
+    }
+
+    /**
+     * 清理过期的缓存
+     */
+    private void evictExpired() {
+        try {
+            entries.forEach((key, entry) -> {
+                if (expired(entry)) {
+                    invalidate(key);
+                }
+            });
+        } catch (Exception e) {
+            log.error("清理引用通告缓存失败", e);
+        }
+    }
+
+    /**
+     * 获取指定版本的缓存，版本不一致时替换为新的空缓存
+     *
+     * @param key     仓库目录
+     * @param version 引用版本号
+     * @return 缓存
+     */
+    private Entry entry(File key, long version) {
+        return entries.compute(key, (k, old) -> old != null && old.version == version && !expired(old) ? old : new Entry(version));
+    }
+
+    /**
+     * 加载仓库的全部引用，注解标签预先 peel，避免每次通告时再解析标签对象
+     *
+     * @param repository 仓库
+     * @return 引用名称 -> 引用
+     * @throws IOException 如果读取引用失败
+     */
+    private Map<String, Ref> load(Repository repository) throws IOException {
+        RefDatabase refDatabase = repository.getRefDatabase();
+        List<Ref> refs = refDatabase.getRefs();
+        Map<String, Ref> result = new LinkedHashMap<>(refs.size() * 4 / 3 + 1);
+        for (Ref ref : refs) {
+            result.put(ref.getName(), ref.isPeeled() ? ref : refDatabase.peel(ref));
+        }
+        return result;
+    }
+
+    private boolean enabled() {
+        return Boolean.TRUE.equals(codeServerProperties.getRefCache().getEnabled());
+    }
+
+    private boolean expired(Entry entry) {
+        return System.currentTimeMillis() - entry.createdAt > codeServerProperties.getRefCache().getMaxAge().toMillis();
+    }
+
+    private File normalize(File gitDir) {
+        return RepositoryPaths.canonical(gitDir);
+    }
+
+    /**
+     * info/refs 响应内容
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Advertisement {
+
+        /**
+         * 响应类型
+         */
+        private final String contentType;
+
+        /**
+         * 响应体
+         */
+        private final byte[] body;
+    }
+
+    /**
+     * 单个仓库某一版本的缓存
+     */
+    @RequiredArgsConstructor
+    private static class Entry {
+
+        /**
+         * 引用版本号
+         */
+        private final long version;
+
+        /**
+         * 创建时间
+         */
+        private final long createdAt = System.currentTimeMillis();
+
+        /**
+         * 通告的引用列表
+         */
+        private volatile Map<String, Ref> refs;
+
+        /**
+         * 服务名称 -> info/refs 响应
+         */
+        private final Map<String, Advertisement> advertisements = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,443 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.model.vo.RepositoryLockStatsVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 仓库读写锁
+ * <p>
+ * 克隆、拉取、推送和后台打包只读取或追加对象，持有共享锁，互相之间不等待；
+ * 创建、删除、存储布局迁移和引用格式转换会替换整个仓库目录，持有独占锁。
+ * 每个仓库的锁只在有持有者或等待者时存在，不同仓库之间没有任何竞争。锁按仓库的真实路径区分，
+ * 存储布局迁移后通过旧路径链接和散列路径加锁的是同一把锁。
+ * 推送更新引用时按 仓库+引用名 分段加锁，同一个引用的更新排队执行而不是互相触发 lock failure，
+ * 多个分段按下标顺序加锁，不会死锁。所有等待都有超时，并记录等待和持有时间。
+ * </p>
+ * <p>
+ * 共享锁和独占锁不与线程绑定，可以在其他线程释放；引用更新锁必须在获取的线程释放。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RepositoryLockManager implements InitializingBean {
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 仓库目录 -> 锁
+     */
+    private final Map<File, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 各模式的统计信息
+     */
+    private final Map<Mode, Metrics> metrics = new EnumMap<>(Mode.class);
+
+    /**
+     * 因锁不可用而跳过的后台任务次数
+     */
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * 引用更新锁分段
+     */
+    private ReentrantLock[] refLocks;
+
+    /**
+     * 获取共享锁，读取仓库或只追加对象时使用
+     *
+     * @param gitDir 仓库目录
+     * @return 锁，close 即释放
+     * @throws RepositoryLockTimeoutException 如果等待超时
+     */
+    public Hold shared(File gitDir) {
+        return lock(gitDir, Mode.SHARED, codeServerProperties.getRepositoryLock().getSharedTimeout(), false);
+    }
+
+    /**
+     * 获取独占锁，删除、移动或替换仓库目录时使用
+     *
+     * @param gitDir 仓库目录
+     * @return 锁，close 即释放
+     * @throws RepositoryLockTimeoutException 如果等待超时
+     */
+    public Hold exclusive(File gitDir) {
+        return lock(gitDir, Mode.EXCLUSIVE, codeServerProperties.getRepositoryLock().getExclusiveTimeout(), false);
+    }
+
+    /**
+     * 尝试获取共享锁，不等待，后台任务使用
+     *
+     * @param gitDir 仓库目录
+     * @return 锁，不可用时返回 null
+     */
+    public Hold tryShared(File gitDir) {
+        return lock(gitDir, Mode.SHARED, Duration.ZERO, true);
+    }
+
+    /**
+     * 尝试获取独占锁，不等待，后台任务使用
+     *
+     * @param gitDir 仓库目录
+     * @return 锁，不可用时返回 null
+     */
+    public Hold tryExclusive(File gitDir) {
+        return lock(gitDir, Mode.EXCLUSIVE, Duration.ZERO, true);
+    }
+
+    /**
+     * 获取引用更新锁，调用方需要已经持有仓库的共享锁
+     *
+     * @param gitDir   仓库目录
+     * @param refNames 要更新的引用
+     * @return 锁，必须在当前线程 close
+     * @throws RepositoryLockTimeoutException 如果等待超时
+     */
+    public Hold lockRefs(File gitDir, Collection<String> refNames) {
+        File key = normalize(gitDir);
+        int[] stripes = refNames.stream()
+                .mapToInt(refName -> Math.floorMod(31 * key.hashCode() + refName.hashCode(), refLocks.length))
+                .distinct()
+                .sorted()
+                .toArray();
+        Metrics m = metrics.get(Mode.REF);
+        long start = System.nanoTime();
+        long deadline = start + codeServerProperties.getRepositoryLock().getRefTimeout().toNanos();
+        int locked = 0;
+        try {
+            while (locked < stripes.length && refLocks[stripes[locked]].tryLock(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                locked++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        m.waitNanos.add(System.nanoTime() - start);
+        if (locked < stripes.length) {
+            for (int i = locked - 1; i >= 0; i--) {
+                refLocks[stripes[i]].unlock();
+            }
+            m.timeouts.increment();
+            throw new RepositoryLockTimeoutException("仓库引用正在被其他推送更新, 请稍后重试");
+        }
+        m.acquired.increment();
+        m.held.incrementAndGet();
+        return new Hold(Mode.REF, key, null, 0L, stripes);
+    }
+
+    /**
+     * 查询锁统计信息
+     *
+     * @return 统计信息
+     */
+    public RepositoryLockStatsVO stats() {
+        RepositoryLockStatsVO stats = new RepositoryLockStatsVO();
+        stats.setLockedRepositories(entries.size());
+        Metrics shared = metrics.get(Mode.SHARED);
+        stats.setSharedHeld(shared.held.get());
+        stats.setSharedAcquired(shared.acquired.sum());
+        stats.setSharedTimeouts(shared.timeouts.sum());
+        stats.setSharedWaitMillis(TimeUnit.NANOSECONDS.toMillis(shared.waitNanos.sum()));
+        stats.setSharedHoldMillis(TimeUnit.NANOSECONDS.toMillis(shared.holdNanos.sum()));
+        stats.setSharedMaxHoldMillis(TimeUnit.NANOSECONDS.toMillis(shared.maxHoldNanos.get()));
+        Metrics exclusive = metrics.get(Mode.EXCLUSIVE);
+        stats.setExclusiveHeld(exclusive.held.get());
+        stats.setExclusiveAcquired(exclusive.acquired.sum());
+        stats.setExclusiveTimeouts(exclusive.timeouts.sum());
+        stats.setExclusiveWaitMillis(TimeUnit.NANOSECONDS.toMillis(exclusive.waitNanos.sum()));
+        stats.setExclusiveHoldMillis(TimeUnit.NANOSECONDS.toMillis(exclusive.holdNanos.sum()));
+        stats.setExclusiveMaxHoldMillis(TimeUnit.NANOSECONDS.toMillis(exclusive.maxHoldNanos.get()));
+        Metrics ref = metrics.get(Mode.REF);
+        stats.setRefHeld(ref.held.get());
+        stats.setRefAcquired(ref.acquired.sum());
+        stats.setRefTimeouts(ref.timeouts.sum());
+        stats.setRefWaitMillis(TimeUnit.NANOSECONDS.toMillis(ref.waitNanos.sum()));
+        stats.setRefHoldMillis(TimeUnit.NANOSECONDS.toMillis(ref.holdNanos.sum()));
+        stats.setRefMaxHoldMillis(TimeUnit.NANOSECONDS.toMillis(ref.maxHoldNanos.get()));
+        stats.setSkipped(skipped.sum());
+        return stats;
+    }
+
+    /**
+     * 初始化引用更新锁分段和统计信息
+     */
+    @Override
+    public void afterPropertiesSet() {
+        refLocks = new ReentrantLock[Math.max(1, codeServerProperties.getRepositoryLock().getRefStripes())];
+        for (int i = 0; i < refLocks.length; i++) {
+            refLocks[i] = new ReentrantLock();
+        }
+        for (Mode mode : Mode.values()) {
+            metrics.put(mode, new Metrics());
+        }
+    }
+
+    /**
+     * 获取仓库的共享锁或独占锁
+     *
+     * @param gitDir  仓库目录
+     * @param mode    锁模式
+     * @param timeout 最长等待时间
+     * @param skip    不可用时是否返回 null 而不是抛出异常
+     * @return 锁
+     */
+    private Hold lock(File gitDir, Mode mode, Duration timeout, boolean skip) {
+        Metrics m = metrics.get(mode);
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        File key = normalize(gitDir);
+        Entry entry = retain(key);
+        long stamp = 0L;
+        try {
+            while (true) {
+                long remaining = Math.max(0L, deadline - System.nanoTime());
+                stamp = mode == Mode.EXCLUSIVE
+                        ? entry.lock.tryWriteLock(remaining, TimeUnit.NANOSECONDS)
+                        : entry.lock.tryReadLock(remaining, TimeUnit.NANOSECONDS);
+                File current = stamp == 0L ? key : normalize(gitDir);
+                if (current.equals(key)) {
+                    break;
+                }
+                // 等待期间仓库被迁移, 旧路径已经解析到散列目录, 改为在真实路径上重新加锁
+                entry.lock.unlock(stamp);
+                stamp = 0L;
+                release(key);
+                key = current;
+                entry = retain(key);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        m.waitNanos.add(System.nanoTime() - start);
+        if (stamp == 0L) {
+            release(key);
+            if (skip) {
+                skipped.increment();
+                return null;
+            }
+            m.timeouts.increment();
+            throw new RepositoryLockTimeoutException(mode == Mode.EXCLUSIVE ? "仓库正在使用, 请稍后重试" : "仓库正在维护, 请稍后重试");
+        }
+        m.acquired.increment();
+        m.held.incrementAndGet();
+        return new Hold(mode, key, entry, stamp, null);
+    }
+
+    /**
+     * 登记一个持有者或等待者，必要时创建仓库的锁
+     *
+     * @param key 仓库目录
+     * @return 锁
+     */
+    private Entry retain(File key) {
+        return entries.compute(key, (k, entry) -> {
+            Entry retained = entry != null ? entry : new Entry();
+            retained.users++;
+            return retained;
+        });
+    }
+
+    /**
+     * 注销一个持有者或等待者，没有人使用时移除仓库的锁
+     *
+     * @param key 仓库目录
+     */
+    private void release(File key) {
+        entries.computeIfPresent(key, (k, entry) -> --entry.users == 0 ? null : entry);
+    }
+
+    /**
+     * 统一仓库目录的表示，按真实路径归一，存储布局迁移后旧路径和散列路径对应同一把锁
+     *
+     * @param gitDir 仓库目录
+     * @return 规范化后的目录
+     */
+    private File normalize(File gitDir) {
+        return RepositoryPaths.canonical(gitDir);
+    }
+
+    /**
+     * 锁模式
+     */
+    private enum Mode {
+        /**
+         * 共享锁
+         */
+        SHARED,
+        /**
+         * 独占锁
+         */
+        EXCLUSIVE,
+        /**
+         * 引用更新锁
+         */
+        REF
+    }
+
+    /**
+     * 单个仓库的锁
+     */
+    private static class Entry {
+
+        /**
+         * 读写锁，不与线程绑定
+         */
+        private final StampedLock lock = new StampedLock();
+
+        /**
+         * 持有者和等待者数量，只在 {@link ConcurrentHashMap#compute} 中修改
+         */
+        private int users;
+    }
+
+    /**
+     * 单个模式的统计信息
+     */
+    private static class Metrics {
+
+        /**
+         * 获取次数
+         */
+        private final LongAdder acquired = new LongAdder();
+
+        /**
+         * 等待超时次数
+         */
+        private final LongAdder timeouts = new LongAdder();
+
+        /**
+         * 累计等待时间
+         */
+        private final LongAdder waitNanos = new LongAdder();
+
+        /**
+         * 累计持有时间
+         */
+        private final LongAdder holdNanos = new LongAdder();
+
+        /**
+         * 最长持有时间
+         */
+        private final LongAccumulator maxHoldNanos = new LongAccumulator(Long::max, 0L);
+
+        /**
+         * 当前持有数量
+         */
+        private final AtomicInteger held = new AtomicInteger();
+    }
+
+    /**
+     * 已获取的锁，close 即释放，重复 close 无副作用
+     */
+    public class Hold implements AutoCloseable {
+
+        /**
+         * 锁模式
+         */
+        private final Mode mode;
+
+        /**
+         * 仓库目录
+         */
+        private final File key;
+
+        /**
+         * 仓库的锁，引用更新锁为 null
+         */
+        private final Entry entry;
+
+        /**
+         * 读写锁的票据
+         */
+        private final long stamp;
+
+        /**
+         * 引用更新锁的分段下标
+         */
+        private final int[] stripes;
+
+        /**
+         * 获取时间
+         */
+        private final long acquiredAt = System.nanoTime();
+
+        /**
+         * 是否已释放
+         */
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Hold(Mode mode, File key, Entry entry, long stamp, int[] stripes) {
+            this.mode = mode;
+            this.key = key;
+            this.entry = entry;
+            this.stamp = stamp;
+            this.stripes = stripes;
+        }
+
+        /**
+         * 释放锁并记录持有时间
+         */
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            if (mode == Mode.REF) {
+                for (int i = stripes.length - 1; i >= 0; i--) {
+                    refLocks[stripes[i]].unlock();
+                }
+            } else {
+                entry.lock.unlock(stamp);
+                release(key);
+            }
+            long heldNanos = System.nanoTime() - acquiredAt;
+            Metrics m = metrics.get(mode);
+            m.held.decrementAndGet();
+            m.holdNanos.add(heldNanos);
+            m.maxHoldNanos.accumulate(heldNanos);
+            if (heldNanos > codeServerProperties.getRepositoryLock().getSlowHoldThreshold().toNanos()) {
+                log.warn("仓库锁持有时间过长: {}, {}, {}ms", key, mode, TimeUnit.NANOSECONDS.toMillis(heldNanos));
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 等待仓库锁超时异常，git 传输链路按拒绝执行处理
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+public class RepositoryLockTimeoutException extends RejectedExecutionException {
+
+    /**
+     * 构造方法
+     *
+     * @param message 提示信息
+     */
+    public RepositoryLockTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 仓库目录的统一表示
+ * <p>
+ * 存储布局迁移后旧路径是指向散列目录的链接，句柄池、锁和引用通告缓存都按真实路径归一，
+ * 通过旧路径和散列路径访问同一个仓库时使用同一个 key。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+final class RepositoryPaths {
+
+    private RepositoryPaths() {
+    }
+
+    /**
+     * 解析仓库目录的真实路径，目录还不存在(例如正在创建)时解析最近一级存在的上级目录
+     *
+     * @param gitDir 仓库目录
+     * @return 真实路径
+     */
+    static File canonical(File gitDir) {
+        Path path = gitDir.toPath().toAbsolutePath().normalize();
+        Path existing = path;
+        while (existing != null && !Files.exists(existing)) {
+            existing = existing.getParent();
+        }
+        if (existing == null) {
+            return path.toFile();
+        }
+        try {
+            return existing.toRealPath().resolve(existing.relativize(path)).toFile();
+        } catch (IOException e) {
+            return path.toFile();
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.model.vo.RepositoryPoolStatsVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 仓库句柄池
+ * <p>
+ * 按仓库目录缓存已打开的 {@link Repository}，SSH 和 HTTP 两条链路共用，
+ * 避免每次 clone/fetch 都重新扫描 pack 列表、packed-refs 和配置文件。
+ * 借出的仓库由使用方调用 {@link Repository#close()} 归还，池按空闲时间和容量上限回收。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RepositoryPool implements InitializingBean, DisposableBean {
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 仓库目录 -> 仓库句柄
+     */
+    private final Map<File, PooledRepository> repositories = new ConcurrentHashMap<>();
+
+    /**
+     * 命中次数
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * 未命中次数
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 回收次数
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 空闲回收线程
+     */
+    private ScheduledExecutorService evictor;
+
+    /**
+     * 借出仓库，使用完成后必须调用 {@link Repository#close()} 归还
+     *
+     * @param gitDir 仓库目录
+     * @return 仓库句柄
+     * @throws RepositoryNotFoundException 如果仓库不存在
+     * @throws IOException                 如果打开仓库失败
+     */
+    public Repository acquire(File gitDir) throws IOException {
+        File key = normalize(gitDir);
+        PooledRepository repository = repositories.get(key);
+        if (repository != null && repository.lease()) {
+            hits.increment();
+            return repository;
+        }
+        misses.increment();
+        PooledRepository opened = open(key);
+        // 放入池之前先借出, 避免刚放入就被容量回收
+        opened.lease();
+        while (true) {
+            PooledRepository existing = repositories.putIfAbsent(key, opened);
+            if (existing == null) {
+                trimToSize();
+                return opened;
+            }
+            if (existing.lease()) {
+                // 并发打开了同一个仓库, 丢弃自己打开的那份
+                opened.close();
+                opened.releaseBaseline();
+                return existing;
+            }
+            // 已经被回收但尚未从map中移除
+            repositories.remove(key, existing);
+        }
+    }
+
+    /**
+     * 将仓库从池中移除，已借出的句柄在归还后关闭。
+     * 删除、迁移仓库时需要调用，避免继续使用旧目录的缓存数据。
+     *
+     * @param gitDir 仓库目录
+     */
+    public void invalidate(File gitDir) {
+        File key = normalize(gitDir);
+        PooledRepository repository = repositories.get(key);
+        if (repository != null) {
+            evict(key, repository, true);
+        }
+    }
+
+    /**
+     * 查询仓库当前被借出的数量，后台维护据此避开正在使用的仓库
+     *
+     * @param gitDir 仓库目录
+     * @return 借出数量，不在池中返回0
+     */
+    public int leases(File gitDir) {
+        PooledRepository repository = repositories.get(normalize(gitDir));
+        return repository == null ? 0 : repository.leases();
+    }
+
+    /**
+     * 查询池统计信息
+     *
+     * @return 统计信息
+     */
+    public RepositoryPoolStatsVO stats() {
+        RepositoryPoolStatsVO stats = new RepositoryPoolStatsVO();
+        int leased = 0;
+        for (PooledRepository repository : repositories.values()) {
+            leased += repository.leases();
+        }
+        stats.setSize(repositories.size());
+        stats.setLeased(leased);
+        stats.setHits(hits.sum());
+        stats.setMisses(misses.sum());
+        stats.setEvictions(evictions.sum());
+        return stats;
+    }
+
+    /**
+     * 打开仓库
+     *
+     * @param gitDir 仓库目录
+     * @return 仓库句柄
+     * @throws IOException 如果打开仓库失败
+     */
+    private PooledRepository open(File gitDir) throws IOException {
+        FileRepositoryBuilder builder = new FileRepositoryBuilder().setGitDir(gitDir).setMustExist(true);
+        builder.setup();
+        PooledRepository repository = new PooledRepository(builder);
+        if (!repository.getObjectDatabase().exists()) {
+            repository.releaseBaseline();
+            throw new RepositoryNotFoundException(gitDir);
+        }
+        return repository;
+    }
+
+    /**
+     * 超出容量时按最近访问时间回收空闲仓库
+     */
+    private void trimToSize() {
+        int maxSize = codeServerProperties.getRepositoryPool().getMaxSize();
+        int overflow = repositories.size() - maxSize;
+        if (overflow <= 0) {
+            return;
+        }
+        List<Map.Entry<File, PooledRepository>> candidates = new ArrayList<>(repositories.entrySet());
+        candidates.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccessAt()));
+        for (Map.Entry<File, PooledRepository> entry : candidates) {
+            if (overflow <= 0) {
+                break;
+            }
+            if (evict(entry.getKey(), entry.getValue(), false)) {
+                overflow--;
+            }
+        }
+    }
+
+    /**
+     * 回收空闲超时的仓库
+     */
+    private void evictIdle() {
+        long deadline = System.currentTimeMillis() - codeServerProperties.getRepositoryPool().getIdleTimeout().toMillis();
+        repositories.forEach((key, repository) -> {
+            if (repository.lastAccessAt() < deadline) {
+                evict(key, repository, false);
+            }
+        });
+    }
+
+    /**
+     * 从池中移除仓库
+     *
+     * @param key        仓库目录
+     * @param repository 仓库句柄
+     * @param force      是否在仍有租约时强制移除
+     * @return 是否移除
+     */
+    private boolean evict(File key, PooledRepository repository, boolean force) {
+        if (!repository.retire(force)) {
+            return false;
+        }
+        repositories.remove(key, repository);
+        repository.releaseBaseline();
+        evictions.increment();
+        log.debug("回收仓库句柄: {}", key);
+        return true;
+    }
+
+    /**
+     * 统一仓库目录的表示，按真实路径归一，迁移后通过旧路径的链接访问也对应同一个key
+     *
+     * @param gitDir 仓库目录
+     * @return 规范化后的目录
+     */
+    private File normalize(File gitDir) {
+        return RepositoryPaths.canonical(gitDir);
+    }
+
+    /**
+     * 启动空闲回收线程
+     */
+    @Override
+    public void afterPropertiesSet() {
+        long interval = codeServerProperties.getRepositoryPool().getEvictionInterval().toMillis();
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "repository-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 关闭回收线程并释放所有仓库
+     */
+    @Override
+    public void destroy() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        repositories.forEach((key, repository) -> evict(key, repository, true));
+    }
+}
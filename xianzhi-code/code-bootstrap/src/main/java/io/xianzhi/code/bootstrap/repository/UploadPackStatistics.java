@@ -0,0 +1,233 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import io.xianzhi.code.bootstrap.maintenance.RepositoryMaintenanceScheduler;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.model.vo.UploadPackStatsVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.internal.storage.pack.CachedPack;
+import org.eclipse.jgit.storage.pack.PackStatistics;
+import org.eclipse.jgit.transport.FilterSpec;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * upload-pack 统计
+ * <p>
+ * 记录 clone/fetch 次数、cached pack 命中率和传输吞吐。clone 时 cached pack 只覆盖了少量对象
+ * (上次打包后推送了大量新对象)的次数累计到阈值后，申请后台维护重新打包该仓库。
+ * </p>
+ * <p>
+ * 浅克隆和部分克隆单独计数，不参与 cached pack 覆盖率判断。这类 clone 节省的流量按仓库 pack 总大小减去实际输出估算。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UploadPackStatistics {
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 仓库后台维护
+     */
+    private final RepositoryMaintenanceScheduler repositoryMaintenanceScheduler;
+
+    /**
+     * 仓库目录 -> cached pack 过期的 clone 次数
+     */
+    private final Map<File, AtomicInteger> staleClones = new ConcurrentHashMap<>();
+
+    /**
+     * clone 次数
+     */
+    private final LongAdder clones = new LongAdder();
+
+    /**
+     * fetch 次数
+     */
+    private final LongAdder fetches = new LongAdder();
+
+    /**
+     * 使用了 cached pack 的次数
+     */
+    private final LongAdder cachedPackHits = new LongAdder();
+
+    /**
+     * 从 cached pack 直接输出的对象数量
+     */
+    private final LongAdder reusedObjects = new LongAdder();
+
+    /**
+     * 输出的对象总数
+     */
+    private final LongAdder totalObjects = new LongAdder();
+
+    /**
+     * 输出的字节数
+     */
+    private final LongAdder totalBytes = new LongAdder();
+
+    /**
+     * 写出 pack 的耗时
+     */
+    private final LongAdder writeTimeMillis = new LongAdder();
+
+    /**
+     * 浅克隆次数
+     */
+    private final LongAdder shallowRequests = new LongAdder();
+
+    /**
+     * 部分克隆次数
+     */
+    private final LongAdder filteredRequests = new LongAdder();
+
+    /**
+     * 浅克隆和部分克隆输出的字节数
+     */
+    private final LongAdder filteredBytes = new LongAdder();
+
+    /**
+     * 浅克隆和部分克隆相比完整 clone 估算节省的字节数
+     */
+    private final LongAdder savedBytes = new LongAdder();
+
+    /**
+     * 超出浅克隆或过滤限制被拒绝的次数
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 记录一次 upload-pack
+     *
+     * @param gitDir         仓库目录
+     * @param statistics     打包统计
+     * @param filterSpec     客户端请求的过滤条件
+     * @param repositorySize 仓库 pack 总大小
+     */
+    public void record(File gitDir, PackStatistics statistics, FilterSpec filterSpec, long repositorySize) {
+        boolean clone = statistics.getHaves() == 0;
+        boolean shallow = statistics.getDepth() > 0;
+        boolean filtered = filterSpec != null && !filterSpec.isNoOp();
+        if (clone) {
+            clones.increment();
+        } else {
+            fetches.increment();
+        }
+        long reused = 0;
+        for (CachedPack cachedPack : statistics.getReusedPacks()) {
+            try {
+                reused += cachedPack.getObjectCount();
+            } catch (IOException e) {
+                log.debug("读取cached pack对象数量失败: {}", gitDir, e);
+            }
+        }
+        if (!statistics.getReusedPacks().isEmpty()) {
+            cachedPackHits.increment();
+        }
+        reusedObjects.add(reused);
+        totalObjects.add(statistics.getTotalObjects());
+        totalBytes.add(statistics.getTotalBytes());
+        writeTimeMillis.add(statistics.getTimeWriting());
+        if (shallow || filtered) {
+            if (shallow) {
+                shallowRequests.increment();
+            }
+            if (filtered) {
+                filteredRequests.increment();
+            }
+            filteredBytes.add(statistics.getTotalBytes());
+            if (clone) {
+                savedBytes.add(Math.max(0, repositorySize - statistics.getTotalBytes()));
+            }
+            // 浅克隆和部分克隆本来就不会使用 cached pack, 不计入覆盖率
+            return;
+        }
+        if (clone && statistics.getTotalObjects() > 0) {
+            checkCoverage(gitDir, reused, statistics.getTotalObjects());
+        }
+    }
+
+    /**
+     * 记录一次超出限制被拒绝的请求
+     */
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * 查询统计信息
+     *
+     * @return 统计信息
+     */
+    public UploadPackStatsVO stats() {
+        UploadPackStatsVO stats = new UploadPackStatsVO();
+        long cloneCount = clones.sum();
+        long hits = cachedPackHits.sum();
+        long bytes = totalBytes.sum();
+        long millis = writeTimeMillis.sum();
+        stats.setClones(cloneCount);
+        stats.setFetches(fetches.sum());
+        stats.setCachedPackHits(hits);
+        stats.setCachedPackHitRate(cloneCount == 0 ? 0D : (double) hits / cloneCount);
+        stats.setReusedObjects(reusedObjects.sum());
+        stats.setTotalObjects(totalObjects.sum());
+        stats.setTotalBytes(bytes);
+        stats.setBytesPerSecond(millis == 0 ? 0L : bytes * 1000 / millis);
+        stats.setShallowRequests(shallowRequests.sum());
+        stats.setFilteredRequests(filteredRequests.sum());
+        stats.setFilteredBytes(filteredBytes.sum());
+        stats.setSavedBytes(savedBytes.sum());
+        stats.setRejectedRequests(rejected.sum());
+        return stats;
+    }
+
+    /**
+     * 检查 clone 时 cached pack 的覆盖比例
+     *
+     * @param gitDir  仓库目录
+     * @param reused  cached pack 输出的对象数量
+     * @param objects 输出的对象总数
+     */
+    private void checkCoverage(File gitDir, long reused, long objects) {
+        CodeServerProperties.CachedPack config = codeServerProperties.getCachedPack();
+        if ((double) reused / objects >= config.getMinCoverage()) {
+            return;
+        }
+        AtomicInteger count = staleClones.computeIfAbsent(gitDir.toPath().toAbsolutePath().normalize().toFile(), key -> new AtomicInteger());
+        if (count.incrementAndGet() >= config.getStaleCloneThreshold()) {
+            count.set(0);
+            repositoryMaintenanceScheduler.requestRepack(gitDir);
+            log.info("cached pack覆盖率过低, 申请重新打包: {}", gitDir);
+        }
+    }
+}
@@ -16,7 +16,10 @@
 
 package io.xianzhi.code.bootstrap.resolver;
 
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.core.exception.BusinessException;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.jgit.errors.RepositoryNotFoundException;
 import org.eclipse.jgit.lib.Repository;
@@ -26,6 +29,9 @@ import org.eclipse.jgit.transport.resolver.ServiceNotAuthorizedException;
 import org.eclipse.jgit.transport.resolver.ServiceNotEnabledException;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
+import java.io.IOException;
+
 /**
  * 仓库加载
  *
@@ -34,7 +40,19 @@ import org.springframework.stereotype.Component;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class HttpRepositoryResolver implements RepositoryResolver<HttpServletRequest> {
+
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+
     /**
      * Locate and open a reference to a {@link Repository}.
      * <p>
@@ -57,6 +75,19 @@ public class HttpRepositoryResolver implements RepositoryResolver<HttpServletReq
      */
     @Override
     public Repository open(HttpServletRequest req, String name) throws RepositoryNotFoundException, ServiceNotAuthorizedException, ServiceNotEnabledException, ServiceMayNotContinueException {
-        return null;
+        File repoDir;
+        try {
+            repoDir = repositoryLocationResolver.resolve(name);
+        } catch (BusinessException e) {
+            throw new RepositoryNotFoundException(name, e);
+        }
+        try {
+            return repositoryPool.acquire(repoDir);
+        } catch (RepositoryNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            log.error("打开仓库失败, name: {}", name, e);
+            throw new RepositoryNotFoundException(name, e);
+        }
     }
 }
@@ -0,0 +1,350 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.resolver;
+
+import io.xianzhi.code.bootstrap.dao.mapper.ProjectMapper;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.model.code.ProjectCode;
+import io.xianzhi.core.code.CommonCode;
+import io.xianzhi.core.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.lib.Constants;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 仓库存储位置解析
+ * <p>
+ * 仓库按不可变的项目ID散列存放在 {@code repositoryDir/@hashed/ab/cd/<sha256>.git}，
+ * 两级 256 路扇出让单个目录的条目数保持在很小的规模，项目改名也不需要移动数据。
+ * SSH 和 HTTP 都通过这里把 分组/项目路径 解析为存储位置，解析结果在本地缓存一小段时间。
+ * 尚未迁移的仓库仍然位于旧的 {@code repositoryDir/分组/项目路径/.git}，解析时自动兼容。
+ * </p>
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RepositoryLocationResolver {
+
+    /**
+     * 散列存储目录名称
+     */
+    public static final String HASHED_DIR = "@hashed";
+
+    /**
+     * fork 网络共享对象池目录名称
+     */
+    public static final String POOL_DIR = "@pools";
+
+    /**
+     * 仓库名称后缀
+     */
+    private static final String GIT_SUFFIX = Constants.DOT_GIT_EXT;
+
+    /**
+     * 位置缓存的最大数量，超出后清空
+     */
+    private static final int MAX_CACHED_LOCATIONS = 100000;
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 项目持久层
+     */
+    private final ProjectMapper projectMapper;
+
+    /**
+     * 分组/项目路径 -> 项目ID
+     */
+    private final Map<String, CachedLocation> locations = new ConcurrentHashMap<>();
+
+    /**
+     * 仓库目录 -> 项目ID，散列目录无法反推项目ID，在定位仓库时记录
+     */
+    private final Map<File, String> projectIds = new ConcurrentHashMap<>();
+
+    /**
+     * 根据仓库名称解析仓库目录
+     * <p>
+     * 仓库名称格式为 分组/项目路径(.git)，SSH 和 HTTP 两条链路共用此解析规则。
+     * </p>
+     *
+     * @param name 仓库名称，如 group/project.git
+     * @return 仓库目录
+     * @throws BusinessException 如果仓库名称不合法
+     */
+    public File resolve(String name) {
+        if (!StringUtils.hasText(name)) {
+            throw new BusinessException(CommonCode.PARAM_CHECK_ERROR);
+        }
+        String path = StringUtils.trimTrailingCharacter(StringUtils.trimLeadingCharacter(name.trim(), '/'), '/');
+        if (path.endsWith(GIT_SUFFIX)) {
+            path = path.substring(0, path.length() - GIT_SUFFIX.length());
+        }
+        Path root = root();
+        Path legacyDir = root.resolve(path).resolve(Constants.DOT_GIT).normalize();
+        // 只允许 分组/项目/.git 三级目录, 防止路径穿越
+        if (!legacyDir.startsWith(root) || root.relativize(legacyDir).getNameCount() != 3
+                || path.startsWith(HASHED_DIR) || path.startsWith(POOL_DIR)) {
+            log.error("仓库名称不合法: {}", name);
+            throw new BusinessException(ProjectCode.PROJECT_NOT_EXIST);
+        }
+        Path relative = root.relativize(legacyDir);
+        String groupId = relative.getName(0).toString();
+        String projectPath = relative.getName(1).toString();
+        Optional<String> projectId = getProjectId(groupId, projectPath);
+        if (projectId.isEmpty()) {
+            // 没有项目记录的仓库只可能在旧布局中
+            return legacyDir.toFile();
+        }
+        return locate(projectId.get(), groupId, projectPath);
+    }
+
+    /**
+     * 获取项目仓库的实际目录，已迁移或新布局下返回散列目录，否则返回旧目录
+     *
+     * @param projectId   项目ID
+     * @param groupId     项目组ID
+     * @param projectPath 项目路径
+     * @return 仓库目录
+     */
+    public File locate(String projectId, String groupId, String projectPath) {
+        File hashedDir = getRepositoryDir(projectId);
+        File legacyDir = getLegacyRepositoryDir(groupId, projectPath);
+        File repositoryDir;
+        if (hashedDir.isDirectory()) {
+            repositoryDir = hashedDir;
+        } else if (legacyDir.isDirectory() || !Boolean.TRUE.equals(codeServerProperties.getStorage().getHashedLayout())) {
+            repositoryDir = legacyDir;
+        } else {
+            repositoryDir = hashedDir;
+        }
+        if (projectIds.size() >= MAX_CACHED_LOCATIONS) {
+            projectIds.clear();
+        }
+        projectIds.put(repositoryDir, projectId);
+        return repositoryDir;
+    }
+
+    /**
+     * 根据仓库目录查询项目ID，推送等链路在解析仓库名称时已经记录过
+     *
+     * @param gitDir 仓库目录
+     * @return 项目ID
+     */
+    public Optional<String> findProjectId(File gitDir) {
+        Path dir = gitDir.toPath().toAbsolutePath().normalize();
+        String projectId = projectIds.get(dir.toFile());
+        if (projectId != null) {
+            return Optional.of(projectId);
+        }
+        Path root = root();
+        if (!dir.startsWith(root)) {
+            return Optional.empty();
+        }
+        // 旧布局可以从目录反推 分组/项目路径
+        Path relative = root.relativize(dir);
+        String first = relative.getName(0).toString();
+        if (relative.getNameCount() != 3 || HASHED_DIR.equals(first) || POOL_DIR.equals(first)) {
+            return Optional.empty();
+        }
+        return getProjectId(first, relative.getName(1).toString());
+    }
+
+    /**
+     * 获取项目在散列布局下的仓库目录
+     *
+     * @param projectId 项目ID
+     * @return 仓库目录
+     */
+    public File getRepositoryDir(String projectId) {
+        return fanOut(HASHED_DIR, projectId);
+    }
+
+    /**
+     * 获取 fork 网络共享对象池的仓库目录，与项目仓库一样按散列扇出，但不会被解析为可访问的仓库
+     *
+     * @param networkId fork 网络ID，即网络中最早的项目ID
+     * @return 对象池仓库目录
+     */
+    public File getPoolRepositoryDir(String networkId) {
+        return fanOut(POOL_DIR, networkId);
+    }
+
+    /**
+     * 获取项目在旧布局下的仓库目录
+     *
+     * @param groupId     项目组ID
+     * @param projectPath 项目路径
+     * @return 仓库目录
+     */
+    public File getLegacyRepositoryDir(String groupId, String projectPath) {
+        return root().resolve(groupId).resolve(projectPath).resolve(Constants.DOT_GIT).toFile();
+    }
+
+    /**
+     * 列出仓库根目录下的全部仓库，包括散列布局和尚未迁移的旧布局，迁移后留下的链接不重复列出
+     *
+     * @return 仓库目录列表
+     */
+    public List<File> listRepositoryDirs() {
+        List<File> repositoryDirs = new ArrayList<>();
+        File root = root().toFile();
+        for (File first : listDirs(new File(root, HASHED_DIR))) {
+            for (File second : listDirs(first)) {
+                for (File gitDir : listDirs(second)) {
+                    if (gitDir.getName().endsWith(GIT_SUFFIX)) {
+                        repositoryDirs.add(gitDir);
+                    }
+                }
+            }
+        }
+        for (File group : listDirs(root)) {
+            if (HASHED_DIR.equals(group.getName()) || POOL_DIR.equals(group.getName())) {
+                continue;
+            }
+            for (File project : listDirs(group)) {
+                File gitDir = new File(project, Constants.DOT_GIT);
+                if (gitDir.isDirectory() && !Files.isSymbolicLink(gitDir.toPath())) {
+                    repositoryDirs.add(gitDir);
+                }
+            }
+        }
+        return repositoryDirs;
+    }
+
+    /**
+     * 项目路径变更或删除后移除缓存的位置
+     *
+     * @param groupId     项目组ID
+     * @param projectPath 项目路径
+     */
+    public void invalidate(String groupId, String projectPath) {
+        locations.remove(groupId + "/" + projectPath);
+    }
+
+    /**
+     * 查询 分组/项目路径 对应的项目ID
+     *
+     * @param groupId     项目组ID
+     * @param projectPath 项目路径
+     * @return 项目ID
+     */
+    private Optional<String> getProjectId(String groupId, String projectPath) {
+        String key = groupId + "/" + projectPath;
+        long now = System.currentTimeMillis();
+        CachedLocation cached = locations.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            return Optional.ofNullable(cached.projectId);
+        }
+        Optional<String> projectId = projectMapper.selectProjectIdByGroupIdAndProjectPath(groupId, projectPath);
+        if (locations.size() >= MAX_CACHED_LOCATIONS) {
+            locations.clear();
+        }
+        locations.put(key, new CachedLocation(projectId.orElse(null), now + codeServerProperties.getStorage().getLocationCacheTtl().toMillis()));
+        return projectId;
+    }
+
+    /**
+     * 仓库根目录
+     *
+     * @return 仓库根目录
+     */
+    private Path root() {
+        return Paths.get(codeServerProperties.getRepositoryDir()).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 两级 256 路扇出的散列目录
+     *
+     * @param dir 散列存储目录名称
+     * @param id  ID
+     * @return 仓库目录
+     */
+    private File fanOut(String dir, String id) {
+        String hash = hash(id);
+        return root().resolve(dir)
+                .resolve(hash.substring(0, 2))
+                .resolve(hash.substring(2, 4))
+                .resolve(hash + GIT_SUFFIX)
+                .toFile();
+    }
+
+    /**
+     * 列出子目录
+     *
+     * @param dir 目录
+     * @return 子目录，目录不存在时返回空数组
+     */
+    private static File[] listDirs(File dir) {
+        File[] dirs = dir.listFiles(File::isDirectory);
+        return dirs == null ? new File[0] : dirs;
+    }
+
+    /**
+     * 计算ID的散列值
+     *
+     * @param id ID
+     * @return 十六进制 sha256
+     */
+    private static String hash(String id) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(id.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 缓存的位置
+     */
+    @RequiredArgsConstructor
+    private static class CachedLocation {
+
+        /**
+         * 项目ID，项目不存在时为 null
+         */
+        private final String projectId;
+
+        /**
+         * 过期时间
+         */
+        private final long expiresAt;
+    }
+}
@@ -16,6 +16,7 @@
 
 package io.xianzhi.code.bootstrap.resolver;
 
+import io.xianzhi.core.exception.BusinessException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.sshd.git.GitLocationResolver;
@@ -36,6 +37,12 @@ import java.nio.file.Path;
 @Component
 @RequiredArgsConstructor
 public class XianZhiGitLocationResolver implements GitLocationResolver {
+
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+
     /**
      * @param command The complete received command
      * @param args    The command split into arguments - {@code args[0]} is the &quot;pure&quot; command itself
@@ -44,11 +51,20 @@ public class XianZhiGitLocationResolver implements GitLocationResolver {
      *                notice, so <U>highly recommended to avoid it</U>.
      * @param session The {@link ServerSession} through which the command was received
      * @param fs      The {@link FileSystem} associated with the server session
-     * @return The local GIT repository root path
+     * @return The local GIT repository directory
      * @throws IOException If failed to resolve
      */
     @Override
     public Path resolveRootDirectory(String command, String[] args, ServerSession session, FileSystem fs) throws IOException {
-        return null;
+        if (args == null || args.length == 0) {
+            throw new IOException("没有指定仓库路径");
+        }
+        // 仓库路径是最后一个参数, 客户端会用单引号包裹, 如 'group/project.git'
+        String name = args[args.length - 1].replace("'", "").replace("\"", "");
+        try {
+            return repositoryLocationResolver.resolve(name).toPath();
+        } catch (BusinessException e) {
+            throw new IOException("仓库路径不合法: " + name, e);
+        }
     }
 }
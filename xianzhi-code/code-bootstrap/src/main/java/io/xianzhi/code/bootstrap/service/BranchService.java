@@ -16,6 +16,10 @@
 
 package io.xianzhi.code.bootstrap.service;
 
+import io.xianzhi.code.model.page.BranchPage;
+import io.xianzhi.code.model.vo.BranchVO;
+import io.xianzhi.code.model.vo.CursorListVO;
+
 /**
  * 分支接口
  *
@@ -23,4 +27,12 @@ package io.xianzhi.code.bootstrap.service;
  * @since 1.0.0
  */
 public interface BranchService {
+
+    /**
+     * 按分支名称游标分页查询分支列表
+     *
+     * @param branchPage 查询条件
+     * @return 分支列表
+     */
+    CursorListVO<BranchVO> listBranches(BranchPage branchPage);
 }
@@ -16,6 +16,15 @@
 
 package io.xianzhi.code.bootstrap.service;
 
+import io.xianzhi.code.model.dto.BlameDTO;
+import io.xianzhi.code.model.page.CommitPage;
+import io.xianzhi.code.model.vo.BlameRegionVO;
+import io.xianzhi.code.model.vo.BlameVO;
+import io.xianzhi.code.model.vo.CommitVO;
+import io.xianzhi.code.model.vo.CursorListVO;
+
+import java.util.function.Consumer;
+
 /**
  * 提交信息接口
  *
@@ -23,4 +32,21 @@ package io.xianzhi.code.bootstrap.service;
  * @since 1.0.0
  */
 public interface CommitService {
+
+    /**
+     * 按提交时间倒序游标分页查询提交历史
+     *
+     * @param commitPage 查询条件
+     * @return 提交列表
+     */
+    CursorListVO<CommitVO> listCommits(CommitPage commitPage);
+
+    /**
+     * 逐行追溯文件，每得到一个行区间就交给接收方，行区间不保证按行号排序
+     *
+     * @param blameDTO 查询条件
+     * @param consumer 行区间的接收方
+     * @return 追溯结果
+     */
+    BlameVO blame(BlameDTO blameDTO, Consumer<BlameRegionVO> consumer);
 }
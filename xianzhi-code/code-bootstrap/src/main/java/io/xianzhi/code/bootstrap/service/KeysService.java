@@ -16,6 +16,8 @@
 
 package io.xianzhi.code.bootstrap.service;
 
+import io.xianzhi.code.model.dto.SecretKeyDTO;
+
 /**
  * 秘钥接口
  *
@@ -23,4 +25,19 @@ package io.xianzhi.code.bootstrap.service;
  * @since 1.0.0
  */
 public interface KeysService {
+
+    /**
+     * 新增秘钥
+     *
+     * @param secretKeyDTO 秘钥入参
+     * @return 秘钥ID
+     */
+    String createSecretKey(SecretKeyDTO secretKeyDTO);
+
+    /**
+     * 删除秘钥
+     *
+     * @param id 秘钥ID
+     */
+    void deletedSecretKey(String id);
 }
@@ -23,4 +23,30 @@ package io.xianzhi.code.bootstrap.service;
  * @since 1.0.0
  */
 public interface PipelineService {
+
+    /**
+     * 生成流水线ID，调用方在触发前用它登记等待结果，避免结果先于登记到达
+     *
+     * @return 流水线ID
+     */
+    String newPipelineId();
+
+    /**
+     * 在指定提交上触发流水线
+     *
+     * @param pipelineId 流水线ID，结果通过 {@link #finishPipeline(String, Boolean, String)} 回报
+     * @param projectId  项目ID
+     * @param refName    流水线检出的引用
+     * @param commitId   提交ID
+     */
+    void triggerPipeline(String pipelineId, String projectId, String refName, String commitId);
+
+    /**
+     * 回报流水线结果
+     *
+     * @param pipelineId 流水线ID
+     * @param success    是否成功
+     * @param signature  使用共享密钥对流水线ID和结果计算的签名
+     */
+    void finishPipeline(String pipelineId, Boolean success, String signature);
 }
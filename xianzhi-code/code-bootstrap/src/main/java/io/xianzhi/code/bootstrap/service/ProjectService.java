@@ -17,8 +17,11 @@
 package io.xianzhi.code.bootstrap.service;
 
 import io.xianzhi.code.model.dto.AddMemberDTO;
+import io.xianzhi.code.model.dto.BatchCreateProjectDTO;
+import io.xianzhi.code.model.dto.ForkProjectDTO;
 import io.xianzhi.code.model.dto.ImportProjectDTO;
 import io.xianzhi.code.model.dto.ProjectDTO;
+import io.xianzhi.code.model.enums.RefStorageEnum;
 import io.xianzhi.code.model.page.ProjectPage;
 import io.xianzhi.code.model.vo.ProjectVO;
 import io.xianzhi.core.result.ListResult;
@@ -41,6 +44,22 @@ public interface ProjectService {
      */
     String createProject(ProjectDTO projectDTO);
 
+    /**
+     * 批量新增项目，用于分组导入等一次创建大量项目的场景
+     *
+     * @param batchCreateProjectDTO 批量创建项目入参
+     * @return 项目ID列表，与入参顺序一致
+     */
+    List<String> batchCreateProject(BatchCreateProjectDTO batchCreateProjectDTO);
+
+    /**
+     * fork 项目，新仓库与源仓库共享 fork 网络的对象池
+     *
+     * @param forkProjectDTO fork 项目入参
+     * @return 新项目ID
+     */
+    String forkProject(ForkProjectDTO forkProjectDTO);
+
     /**
      * 更新项目
      *
@@ -96,4 +115,11 @@ public interface ProjectService {
      */
     void removeMember(String projectId, List<String> members);
 
+    /**
+     * 转换项目仓库的引用存储格式
+     *
+     * @param id         项目ID
+     * @param refStorage 目标引用存储格式
+     */
+    void convertRefStorage(String id, RefStorageEnum refStorage);
 }
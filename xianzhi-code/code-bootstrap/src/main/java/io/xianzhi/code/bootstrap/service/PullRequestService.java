@@ -17,10 +17,17 @@
 package io.xianzhi.code.bootstrap.service;
 
 import io.xianzhi.code.model.dto.PullRequestDTO;
+import io.xianzhi.code.model.dto.PullRequestDiffFileDTO;
+import io.xianzhi.code.model.page.PullRequestDiffPage;
 import io.xianzhi.code.model.page.PullRequestPage;
+import io.xianzhi.code.model.vo.DiffFileVO;
+import io.xianzhi.code.model.vo.MergeQueueEntryVO;
+import io.xianzhi.code.model.vo.PullRequestDiffVO;
 import io.xianzhi.code.model.vo.PullRequestVO;
 import io.xianzhi.core.result.ListResult;
 
+import java.util.List;
+
 /**
  * PR接口
  *
@@ -64,4 +71,43 @@ public interface PullRequestService {
      * @param id 合并请求ID
      */
     void closePullRequest(String id);
+
+    /**
+     * 分页查询合并请求的变更文件，不包含差异内容
+     *
+     * @param pullRequestDiffPage 查询条件
+     * @return 变更文件列表
+     */
+    PullRequestDiffVO listDiffFiles(PullRequestDiffPage pullRequestDiffPage);
+
+    /**
+     * 查询合并请求中单个文件的差异内容
+     *
+     * @param pullRequestDiffFileDTO 查询条件
+     * @return 文件差异
+     */
+    DiffFileVO getDiffFile(PullRequestDiffFileDTO pullRequestDiffFileDTO);
+
+    /**
+     * 把合并请求加入目标分支的合并队列
+     *
+     * @param id 合并请求ID
+     */
+    void enqueueMerge(String id);
+
+    /**
+     * 把合并请求移出合并队列
+     *
+     * @param id 合并请求ID
+     */
+    void dequeueMerge(String id);
+
+    /**
+     * 查询目标分支的合并队列
+     *
+     * @param projectId    项目ID
+     * @param targetBranch 目标分支
+     * @return 队列条目，正在验证的排在最前
+     */
+    List<MergeQueueEntryVO> listMergeQueue(String projectId, String targetBranch);
 }
@@ -16,7 +16,31 @@
 
 package io.xianzhi.code.bootstrap.service.impl;
 
+import io.xianzhi.code.bootstrap.dao.dataobj.ProjectDO;
+import io.xianzhi.code.bootstrap.dao.mapper.ProjectMapper;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.BranchCache;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockTimeoutException;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
 import io.xianzhi.code.bootstrap.service.BranchService;
+import io.xianzhi.code.model.code.ProjectCode;
+import io.xianzhi.code.model.page.BranchPage;
+import io.xianzhi.code.model.vo.BranchVO;
+import io.xianzhi.code.model.vo.CursorListVO;
+import io.xianzhi.core.code.CommonCode;
+import io.xianzhi.core.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
 
 /**
  * 分支接口实现
@@ -24,5 +48,69 @@ import io.xianzhi.code.bootstrap.service.BranchService;
  * @author Max
  * @since 1.0.0
  */
+@Slf4j
+@Service
+@RequiredArgsConstructor
 public class BranchServiceImpl implements BranchService {
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 项目信息持久层
+     */
+    private final ProjectMapper projectMapper;
+
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+
+    /**
+     * 分支列表缓存
+     */
+    private final BranchCache branchCache;
+
+    /**
+     * 按分支名称游标分页查询分支列表，直接读取仓库引用，不查询分支表
+     *
+     * @param branchPage 查询条件
+     * @return 分支列表
+     */
+    @Override
+    public CursorListVO<BranchVO> listBranches(BranchPage branchPage) {
+        if (!StringUtils.hasText(branchPage.getProjectId())) {
+            throw new BusinessException(CommonCode.PARAM_CHECK_ERROR);
+        }
+        ProjectDO projectDO = projectMapper.selectProjectById(branchPage.getProjectId()).orElseThrow(() -> new BusinessException(ProjectCode.PROJECT_NOT_EXIST));
+        int maxPageSize = codeServerProperties.getBranchCache().getMaxPageSize();
+        int limit = branchPage.getPageSize() == null || branchPage.getPageSize() <= 0 ? maxPageSize : Math.min(branchPage.getPageSize(), maxPageSize);
+        File gitDir = repositoryLocationResolver.locate(projectDO.getId(), projectDO.getProjectGroupId(), projectDO.getProjectPath());
+        RepositoryLockManager.Hold lock;
+        try {
+            lock = repositoryLockManager.shared(gitDir);
+        } catch (RepositoryLockTimeoutException e) {
+            throw new BusinessException(ProjectCode.REPOSITORY_BUSY);
+        }
+        try (lock; Repository repository = repositoryPool.acquire(gitDir)) {
+            return branchCache.listBranches(repository, branchPage.getPrefix(), branchPage.getCursor(), limit);
+        } catch (RepositoryNotFoundException e) {
+            log.warn("项目仓库不存在: {}, {}", projectDO.getId(), gitDir);
+            return new CursorListVO<>(List.of(), null);
+        } catch (IOException e) {
+            throw new RuntimeException("读取分支列表失败: " + e.getMessage(), e);
+        }
+    }
 }
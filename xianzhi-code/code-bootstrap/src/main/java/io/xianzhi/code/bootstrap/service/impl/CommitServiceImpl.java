@@ -0,0 +1,230 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.service.impl;
+
+import io.xianzhi.code.bootstrap.dao.dataobj.ProjectDO;
+import io.xianzhi.code.bootstrap.dao.mapper.ProjectMapper;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.BlameCache;
+import io.xianzhi.code.bootstrap.repository.CommitLogCache;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockTimeoutException;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
+import io.xianzhi.code.bootstrap.service.CommitService;
+import io.xianzhi.code.model.code.CommitCode;
+import io.xianzhi.code.model.code.ProjectCode;
+import io.xianzhi.code.model.dto.BlameDTO;
+import io.xianzhi.code.model.page.CommitPage;
+import io.xianzhi.code.model.vo.BlameRegionVO;
+import io.xianzhi.code.model.vo.BlameVO;
+import io.xianzhi.code.model.vo.CommitVO;
+import io.xianzhi.code.model.vo.CursorListVO;
+import io.xianzhi.core.code.CommonCode;
+import io.xianzhi.core.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.errors.RevisionSyntaxException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 提交信息接口实现
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CommitServiceImpl implements CommitService {
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 项目信息持久层
+     */
+    private final ProjectMapper projectMapper;
+
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+
+    /**
+     * 提交历史分页缓存
+     */
+    private final CommitLogCache commitLogCache;
+
+    /**
+     * 逐行追溯缓存
+     */
+    private final BlameCache blameCache;
+
+    /**
+     * 按提交时间倒序游标分页查询提交历史
+     *
+     * @param commitPage 查询条件
+     * @return 提交列表
+     */
+    @Override
+    public CursorListVO<CommitVO> listCommits(CommitPage commitPage) {
+        if (!StringUtils.hasText(commitPage.getProjectId())) {
+            throw new BusinessException(CommonCode.PARAM_CHECK_ERROR);
+        }
+        ObjectId cursor = null;
+        if (StringUtils.hasText(commitPage.getCursor())) {
+            if (!ObjectId.isId(commitPage.getCursor())) {
+                throw new BusinessException(CommitCode.CURSOR_INVALID);
+            }
+            cursor = ObjectId.fromString(commitPage.getCursor());
+        }
+        CommitLogCache.Filter filter = new CommitLogCache.Filter(normalizePath(commitPage.getPath()),
+                StringUtils.hasText(commitPage.getAuthor()) ? commitPage.getAuthor().trim() : null,
+                toInstant(commitPage.getSince()), toInstant(commitPage.getUntil()));
+        int maxPageSize = codeServerProperties.getCommitLog().getMaxPageSize();
+        int limit = commitPage.getPageSize() == null || commitPage.getPageSize() <= 0 ? maxPageSize : Math.min(commitPage.getPageSize(), maxPageSize);
+        ProjectDO projectDO = projectMapper.selectProjectById(commitPage.getProjectId()).orElseThrow(() -> new BusinessException(ProjectCode.PROJECT_NOT_EXIST));
+        File gitDir = repositoryLocationResolver.locate(projectDO.getId(), projectDO.getProjectGroupId(), projectDO.getProjectPath());
+        RepositoryLockManager.Hold lock;
+        try {
+            lock = repositoryLockManager.shared(gitDir);
+        } catch (RepositoryLockTimeoutException e) {
+            throw new BusinessException(ProjectCode.REPOSITORY_BUSY);
+        }
+        try (lock; Repository repository = repositoryPool.acquire(gitDir)) {
+            boolean defaultRevision = !StringUtils.hasText(commitPage.getRevision());
+            ObjectId tip = resolve(repository, defaultRevision ? Constants.HEAD : commitPage.getRevision().trim());
+            if (tip == null) {
+                if (defaultRevision) {
+                    // 空仓库, 默认分支还没有提交
+                    return new CursorListVO<>(List.of(), null);
+                }
+                throw new BusinessException(CommitCode.REVISION_NOT_EXIST);
+            }
+            return commitLogCache.log(repository, tip, filter, cursor, limit);
+        } catch (RepositoryNotFoundException e) {
+            log.warn("项目仓库不存在: {}, {}", projectDO.getId(), gitDir);
+            return new CursorListVO<>(List.of(), null);
+        } catch (IOException e) {
+            throw new RuntimeException("读取提交历史失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 逐行追溯文件，每得到一个行区间就交给接收方，行区间不保证按行号排序
+     *
+     * @param blameDTO 查询条件
+     * @param consumer 行区间的接收方
+     * @return 追溯结果
+     */
+    @Override
+    public BlameVO blame(BlameDTO blameDTO, Consumer<BlameRegionVO> consumer) {
+        String path = normalizePath(blameDTO.getPath());
+        if (path == null) {
+            throw new BusinessException(CommonCode.PARAM_CHECK_ERROR);
+        }
+        ProjectDO projectDO = projectMapper.selectProjectById(blameDTO.getProjectId()).orElseThrow(() -> new BusinessException(ProjectCode.PROJECT_NOT_EXIST));
+        File gitDir = repositoryLocationResolver.locate(projectDO.getId(), projectDO.getProjectGroupId(), projectDO.getProjectPath());
+        RepositoryLockManager.Hold lock;
+        try {
+            lock = repositoryLockManager.shared(gitDir);
+        } catch (RepositoryLockTimeoutException e) {
+            throw new BusinessException(ProjectCode.REPOSITORY_BUSY);
+        }
+        try (lock; Repository repository = repositoryPool.acquire(gitDir)) {
+            boolean defaultRevision = !StringUtils.hasText(blameDTO.getRevision());
+            ObjectId commitId = resolve(repository, defaultRevision ? Constants.HEAD : blameDTO.getRevision().trim());
+            if (commitId == null) {
+                throw new BusinessException(defaultRevision ? CommitCode.FILE_NOT_EXIST : CommitCode.REVISION_NOT_EXIST);
+            }
+            return blameCache.blame(repository, commitId, path, consumer);
+        } catch (RepositoryNotFoundException e) {
+            log.warn("项目仓库不存在: {}, {}", projectDO.getId(), gitDir);
+            throw new BusinessException(CommitCode.FILE_NOT_EXIST);
+        } catch (IOException e) {
+            throw new RuntimeException("逐行追溯失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 解析分支、标签或提交ID对应的提交
+     *
+     * @param repository 仓库
+     * @param revision   分支、标签或提交ID
+     * @return 提交ID，不存在时返回 null
+     * @throws IOException 如果读取引用失败
+     */
+    private ObjectId resolve(Repository repository, String revision) throws IOException {
+        try {
+            return repository.resolve(revision + "^{commit}");
+        } catch (RevisionSyntaxException e) {
+            throw new BusinessException(CommitCode.REVISION_NOT_EXIST);
+        }
+    }
+
+    /**
+     * 规范化过滤路径，去掉首尾的斜杠，拒绝空段和相对路径段
+     *
+     * @param path 路径
+     * @return 规范化后的路径，为空时返回 null
+     */
+    private String normalizePath(String path) {
+        if (!StringUtils.hasText(path)) {
+            return null;
+        }
+        String normalized = StringUtils.trimTrailingCharacter(StringUtils.trimLeadingCharacter(path.trim(), '/'), '/');
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        for (String segment : normalized.split("/", -1)) {
+            if (segment.isEmpty() || ".".equals(segment) || "..".equals(segment)) {
+                throw new BusinessException(CommonCode.PARAM_CHECK_ERROR);
+            }
+        }
+        return normalized;
+    }
+
+    private Instant toInstant(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
@@ -16,10 +16,27 @@
 
 package io.xianzhi.code.bootstrap.service.impl;
 
+import io.xianzhi.code.bootstrap.dao.dataobj.SecretKeyDO;
+import io.xianzhi.code.bootstrap.dao.mapper.SecretKeyMapper;
 import io.xianzhi.code.bootstrap.service.KeysService;
+import io.xianzhi.code.model.code.SecretKeyCode;
+import io.xianzhi.code.model.dto.SecretKeyDTO;
+import io.xianzhi.code.model.event.SecretKeyChangeEvent;
+import io.xianzhi.core.code.CommonCode;
+import io.xianzhi.core.exception.BusinessException;
+import io.xianzhi.system.security.context.UserContextHolder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.sshd.common.config.keys.KeyUtils;
+import org.apache.sshd.common.config.keys.PublicKeyEntry;
+import org.apache.sshd.common.config.keys.PublicKeyEntryResolver;
+import org.apache.sshd.common.digest.BuiltinDigests;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.PublicKey;
+import java.util.Collections;
 
 /**
  * 秘钥接口实现
@@ -31,4 +48,79 @@ import org.springframework.stereotype.Service;
 @Service
 @RequiredArgsConstructor
 public class KeysServiceImpl implements KeysService {
+
+    /**
+     * 秘钥持久层
+     */
+    private final SecretKeyMapper secretKeyMapper;
+
+    /**
+     * 事件发布
+     */
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * 新增秘钥
+     *
+     * @param secretKeyDTO 秘钥入参
+     * @return 秘钥ID
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public String createSecretKey(SecretKeyDTO secretKeyDTO) {
+        String publicKey = secretKeyDTO.getPublicKey().trim();
+        // 与 SSH 认证使用同样的指纹算法
+        String fingerprint = KeyUtils.getFingerPrint(BuiltinDigests.sha256, parsePublicKey(publicKey));
+        if (secretKeyMapper.existsSecretKeyByFingerprint(fingerprint)) {
+            throw new BusinessException(SecretKeyCode.SECRET_KEY_EXIST);
+        }
+        SecretKeyDO secretKey = new SecretKeyDO();
+        secretKey.setTitle(secretKeyDTO.getTitle());
+        secretKey.setPublicKey(publicKey);
+        secretKey.setFingerprint(fingerprint);
+        secretKey.setUserId(UserContextHolder.getCurrentUserId());
+        secretKey.setProjectId(secretKeyDTO.getProjectId());
+        secretKey.setDeletedFlag(false);
+        secretKeyMapper.insert(secretKey);
+        applicationEventPublisher.publishEvent(new SecretKeyChangeEvent(fingerprint));
+        return secretKey.getId();
+    }
+
+    /**
+     * 删除秘钥
+     *
+     * @param id 秘钥ID
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void deletedSecretKey(String id) {
+        SecretKeyDO secretKey = secretKeyMapper.selectSecretKeyById(id).orElseThrow(() -> new BusinessException(SecretKeyCode.SECRET_KEY_NOT_EXIST));
+        if (!UserContextHolder.admin() && !UserContextHolder.getCurrentUserId().equals(secretKey.getUserId())) {
+            throw new BusinessException(CommonCode.FORBIDDEN);
+        }
+        secretKeyMapper.deletedSecretKeyById(id);
+        applicationEventPublisher.publishEvent(new SecretKeyChangeEvent(secretKey.getFingerprint()));
+    }
+
+    /**
+     * 解析 OpenSSH 格式的公钥
+     *
+     * @param publicKey 公钥内容
+     * @return 公钥
+     */
+    private PublicKey parsePublicKey(String publicKey) {
+        try {
+            PublicKey key = PublicKeyEntry.parsePublicKeyEntry(publicKey)
+                    .resolvePublicKey(null, Collections.emptyMap(), PublicKeyEntryResolver.FAILING);
+            if (key == null) {
+                throw new BusinessException(SecretKeyCode.SECRET_KEY_INVALID);
+            }
+            return key;
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("解析公钥失败: {}", e.getMessage());
+            throw new BusinessException(SecretKeyCode.SECRET_KEY_INVALID);
+        }
+    }
 }
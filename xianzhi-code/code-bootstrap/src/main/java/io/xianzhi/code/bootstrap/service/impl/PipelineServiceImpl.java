@@ -16,10 +16,25 @@
 
 package io.xianzhi.code.bootstrap.service.impl;
 
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
 import io.xianzhi.code.bootstrap.service.PipelineService;
+import io.xianzhi.code.model.code.PullRequestCode;
+import io.xianzhi.code.model.event.PipelineFinishedEvent;
+import io.xianzhi.code.model.event.PipelineTriggeredEvent;
+import io.xianzhi.core.exception.BusinessException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.UUID;
 
 /**
  * 项目接口实现
@@ -31,4 +46,92 @@ import org.springframework.stereotype.Service;
 @Service
 @RequiredArgsConstructor
 public class PipelineServiceImpl implements PipelineService {
+
+    /**
+     * 签名算法
+     */
+    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 事件发布
+     */
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * 生成流水线ID
+     *
+     * @return 流水线ID
+     */
+    @Override
+    public String newPipelineId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    /**
+     * 在指定提交上触发流水线，流水线ID和检出的引用通过 {@link PipelineTriggeredEvent} 发布给 CI 集成，
+     * 执行结束后携带流水线ID回报结果
+     *
+     * @param pipelineId 流水线ID
+     * @param projectId  项目ID
+     * @param refName    流水线检出的引用
+     * @param commitId   提交ID
+     */
+    @Override
+    public void triggerPipeline(String pipelineId, String projectId, String refName, String commitId) {
+        log.info("触发流水线: {}, 项目: {}, 引用: {}, 提交: {}", pipelineId, projectId, refName, commitId);
+        applicationEventPublisher.publishEvent(new PipelineTriggeredEvent(pipelineId, projectId, refName, commitId));
+    }
+
+    /**
+     * 回报流水线结果，签名校验通过后才发布结束事件，避免伪造结果把未验证的批次合并到目标分支
+     *
+     * @param pipelineId 流水线ID
+     * @param success    是否成功
+     * @param signature  使用共享密钥对流水线ID和结果计算的签名
+     * @throws BusinessException 如果签名无效或没有配置共享密钥
+     */
+    @Override
+    public void finishPipeline(String pipelineId, Boolean success, String signature) {
+        boolean result = Boolean.TRUE.equals(success);
+        if (!verify(pipelineId + ":" + result, signature)) {
+            log.warn("流水线结果签名无效: {}", pipelineId);
+            throw new BusinessException(PullRequestCode.PIPELINE_SIGNATURE_INVALID);
+        }
+        log.info("流水线结束: {}, 结果: {}", pipelineId, result);
+        applicationEventPublisher.publishEvent(new PipelineFinishedEvent(pipelineId, result));
+    }
+
+    /**
+     * 使用共享密钥校验签名
+     *
+     * @param payload   签名内容
+     * @param signature 十六进制签名
+     * @return 是否有效，没有配置共享密钥时无效
+     */
+    private boolean verify(String payload, String signature) {
+        String secret = codeServerProperties.getMergeQueue().getPipelineSecret();
+        if (!StringUtils.hasText(secret) || !StringUtils.hasText(signature)) {
+            return false;
+        }
+        byte[] expected;
+        try {
+            Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SIGNATURE_ALGORITHM));
+            expected = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("计算流水线结果签名失败", e);
+        }
+        byte[] actual;
+        try {
+            actual = HexFormat.of().parseHex(signature.trim());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected, actual);
+    }
 }
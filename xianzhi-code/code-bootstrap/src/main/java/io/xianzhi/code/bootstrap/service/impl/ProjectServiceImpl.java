@@ -16,6 +16,7 @@
 
 package io.xianzhi.code.bootstrap.service.impl;
 
+import io.xianzhi.code.bootstrap.businsess.ProjectAccessBusiness;
 import io.xianzhi.code.bootstrap.businsess.ProjectGroupBusiness;
 import io.xianzhi.code.bootstrap.dao.dataobj.ProjectDO;
 import io.xianzhi.code.bootstrap.dao.mapper.ProjectGroupMapper;
@@ -23,8 +24,11 @@ import io.xianzhi.code.bootstrap.dao.mapper.ProjectMapper;
 import io.xianzhi.code.bootstrap.handler.RepositoryHandler;
 import io.xianzhi.code.bootstrap.service.ProjectService;
 import io.xianzhi.code.model.code.ProjectCode;
+import io.xianzhi.code.model.dto.BatchCreateProjectDTO;
+import io.xianzhi.code.model.dto.ForkProjectDTO;
 import io.xianzhi.code.model.dto.ProjectDTO;
 import io.xianzhi.code.model.enums.ProjectTypeEnum;
+import io.xianzhi.code.model.enums.RefStorageEnum;
 import io.xianzhi.code.model.vo.ProjectVO;
 import io.xianzhi.core.code.CommonCode;
 import io.xianzhi.core.exception.BusinessException;
@@ -35,6 +39,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * 项目接口实现
  *
@@ -65,6 +74,11 @@ public class ProjectServiceImpl implements ProjectService {
      */
     private final RepositoryHandler repositoryHandler;
 
+    /**
+     * 项目访问权限
+     */
+    private final ProjectAccessBusiness projectAccessBusiness;
+
     /**
      * 新增项目
      *
@@ -77,7 +91,81 @@ public class ProjectServiceImpl implements ProjectService {
         ProjectDO projectDO = checkedProjectDTO(projectDTO);
         projectMapper.insert(projectDO);
         // 创建真正的仓库
-        repositoryHandler.createRepository(projectDO.getProjectPath(), projectDO.getProjectGroupId(), true, null, null, true);
+        repositoryHandler.createRepository(projectDO.getId(), projectDO.getProjectPath(), projectDO.getProjectGroupId(), true, null, null, true, projectDTO.getRefStorage());
+        return projectDO.getId();
+    }
+
+    /**
+     * 批量新增项目，用于分组导入等一次创建大量项目的场景
+     *
+     * @param batchCreateProjectDTO 批量创建项目入参
+     * @return 项目ID列表，与入参顺序一致
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<String> batchCreateProject(BatchCreateProjectDTO batchCreateProjectDTO) {
+        List<ProjectDO> projects = new ArrayList<>(batchCreateProjectDTO.getProjects().size());
+        List<RefStorageEnum> refStorages = new ArrayList<>(batchCreateProjectDTO.getProjects().size());
+        Set<String> projectPaths = new HashSet<>();
+        Set<String> projectNames = new HashSet<>();
+        for (ProjectDTO projectDTO : batchCreateProjectDTO.getProjects()) {
+            if (StringUtils.hasText(projectDTO.getId())) {
+                throw new BusinessException(CommonCode.PARAM_CHECK_ERROR);
+            }
+            ProjectDO projectDO = checkedProjectDTO(projectDTO);
+            // 同一批次内的项目路径和名称也不能重复
+            String scope = projectDO.getProjectGroupId() + "/" + projectDO.getProjectType() + "/";
+            if (!projectPaths.add(scope + projectDO.getProjectPath())) {
+                throw new BusinessException(ProjectCode.PROJECT_PATH_EXIST);
+            }
+            if (!projectNames.add(scope + projectDO.getProjectName())) {
+                throw new BusinessException(ProjectCode.PROJECT_NAME_EXIST);
+            }
+            // 批量插入会写入全部字段, 需要显式设置删除标记
+            projectDO.setDeletedFlag(false);
+            projects.add(projectDO);
+            refStorages.add(projectDTO.getRefStorage());
+        }
+        projectMapper.insertBatchSomeColumn(projects);
+        List<ProjectDO> createdProjects = new ArrayList<>(projects.size());
+        try {
+            for (int i = 0; i < projects.size(); i++) {
+                ProjectDO projectDO = projects.get(i);
+                repositoryHandler.createRepository(projectDO.getId(), projectDO.getProjectPath(), projectDO.getProjectGroupId(), true, null, null, true, refStorages.get(i));
+                createdProjects.add(projectDO);
+            }
+        } catch (RuntimeException e) {
+            // 数据库会回滚, 已经创建的仓库一并删除
+            log.error("批量创建项目仓库失败, 已创建: {}, 总数: {}", createdProjects.size(), projects.size(), e);
+            createdProjects.forEach(projectDO -> repositoryHandler.deleteRepository(projectDO.getId(), projectDO.getProjectPath(), projectDO.getProjectGroupId()));
+            throw e;
+        }
+        return projects.stream().map(ProjectDO::getId).toList();
+    }
+
+    /**
+     * fork 项目，新仓库与源仓库共享 fork 网络的对象池
+     *
+     * @param forkProjectDTO fork 项目入参
+     * @return 新项目ID
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public String forkProject(ForkProjectDTO forkProjectDTO) {
+        ProjectDO source = projectMapper.selectProjectById(forkProjectDTO.getForkFromId()).orElseThrow(() -> new BusinessException(ProjectCode.PROJECT_NOT_EXIST));
+        // fork 后可以通过共享对象池读取源项目的全部对象，不可读的项目按不存在处理，不暴露项目是否存在
+        if (!projectAccessBusiness.canRead(source.getId(), UserContextHolder.getCurrentUserId())) {
+            throw new BusinessException(ProjectCode.PROJECT_NOT_EXIST);
+        }
+        ProjectDTO projectDTO = forkProjectDTO.getProject();
+        if (StringUtils.hasText(projectDTO.getId())) {
+            throw new BusinessException(CommonCode.PARAM_CHECK_ERROR);
+        }
+        ProjectDO projectDO = checkedProjectDTO(projectDTO);
+        projectDO.setForkFromId(source.getId());
+        projectMapper.insert(projectDO);
+        repositoryHandler.forkRepository(source.getId(), source.getProjectPath(), source.getProjectGroupId(),
+                projectDO.getId(), projectDO.getProjectPath(), projectDO.getProjectGroupId(), projectDTO.getRefStorage());
         return projectDO.getId();
     }
 
@@ -117,6 +205,18 @@ public class ProjectServiceImpl implements ProjectService {
         return null;
     }
 
+    /**
+     * 转换项目仓库的引用存储格式
+     *
+     * @param id         项目ID
+     * @param refStorage 目标引用存储格式
+     */
+    @Override
+    public void convertRefStorage(String id, RefStorageEnum refStorage) {
+        ProjectDO projectDO = projectMapper.selectProjectById(id).orElseThrow(() -> new BusinessException(ProjectCode.PROJECT_NOT_EXIST));
+        repositoryHandler.convertRefStorage(projectDO.getId(), projectDO.getProjectPath(), projectDO.getProjectGroupId(), refStorage);
+    }
+
     /**
      * 检查项目DTO
      *
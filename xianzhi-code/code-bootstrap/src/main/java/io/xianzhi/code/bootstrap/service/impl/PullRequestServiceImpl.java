@@ -16,14 +16,50 @@
 
 package io.xianzhi.code.bootstrap.service.impl;
 
+import io.xianzhi.code.bootstrap.businsess.MergeQueueBusiness;
+import io.xianzhi.code.bootstrap.businsess.ProjectAccessBusiness;
+import io.xianzhi.code.bootstrap.dao.dataobj.ProjectDO;
+import io.xianzhi.code.bootstrap.dao.dataobj.PullRequestDO;
+import io.xianzhi.code.bootstrap.dao.mapper.ProjectMapper;
+import io.xianzhi.code.bootstrap.dao.mapper.PullRequestMapper;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.DiffCache;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockTimeoutException;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
 import io.xianzhi.code.bootstrap.service.PullRequestService;
+import io.xianzhi.code.model.code.CommitCode;
+import io.xianzhi.code.model.code.ProjectCode;
+import io.xianzhi.code.model.code.PullRequestCode;
 import io.xianzhi.code.model.dto.PullRequestDTO;
+import io.xianzhi.code.model.dto.PullRequestDiffFileDTO;
+import io.xianzhi.code.model.enums.MergeStatusEnum;
+import io.xianzhi.code.model.enums.PullRequestStatusEnum;
+import io.xianzhi.code.model.page.PullRequestDiffPage;
 import io.xianzhi.code.model.page.PullRequestPage;
+import io.xianzhi.code.model.vo.DiffFileVO;
+import io.xianzhi.code.model.vo.MergeQueueEntryVO;
+import io.xianzhi.code.model.vo.PullRequestDiffVO;
 import io.xianzhi.code.model.vo.PullRequestVO;
+import io.xianzhi.core.code.CommonCode;
+import io.xianzhi.core.exception.BusinessException;
 import io.xianzhi.core.result.ListResult;
+import io.xianzhi.system.security.context.UserContextHolder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.errors.RevisionSyntaxException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
 
 /**
  * PR接口实现
@@ -36,6 +72,50 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class PullRequestServiceImpl implements PullRequestService {
 
+    /**
+     * 代码服务配置
+     */
+    private final CodeServerProperties codeServerProperties;
+
+    /**
+     * 项目信息持久层
+     */
+    private final ProjectMapper projectMapper;
+
+    /**
+     * 合并请求持久层
+     */
+    private final PullRequestMapper pullRequestMapper;
+
+    /**
+     * 仓库存储位置解析
+     */
+    private final RepositoryLocationResolver repositoryLocationResolver;
+
+    /**
+     * 仓库句柄池
+     */
+    private final RepositoryPool repositoryPool;
+
+    /**
+     * 仓库读写锁
+     */
+    private final RepositoryLockManager repositoryLockManager;
+
+    /**
+     * 合并请求差异缓存
+     */
+    private final DiffCache diffCache;
+
+    /**
+     * 合并队列
+     */
+    private final MergeQueueBusiness mergeQueueBusiness;
+
+    /**
+     * 项目访问权限
+     */
+    private final ProjectAccessBusiness projectAccessBusiness;
 
     /**
      * 分页查询合并请求列表
@@ -88,4 +168,167 @@ public class PullRequestServiceImpl implements PullRequestService {
     public void closePullRequest(String id) {
 
     }
+
+    /**
+     * 分页查询合并请求的变更文件，比较合并基准与源提交，不包含差异内容
+     *
+     * @param pullRequestDiffPage 查询条件
+     * @return 变更文件列表
+     */
+    @Override
+    public PullRequestDiffVO listDiffFiles(PullRequestDiffPage pullRequestDiffPage) {
+        if (!StringUtils.hasText(pullRequestDiffPage.getProjectId()) || !StringUtils.hasText(pullRequestDiffPage.getTargetRevision())
+                || !StringUtils.hasText(pullRequestDiffPage.getSourceRevision())) {
+            throw new BusinessException(CommonCode.PARAM_CHECK_ERROR);
+        }
+        int maxPageSize = codeServerProperties.getDiff().getMaxPageSize();
+        int pageSize = pullRequestDiffPage.getPageSize() == null || pullRequestDiffPage.getPageSize() <= 0 ? maxPageSize : Math.min(pullRequestDiffPage.getPageSize(), maxPageSize);
+        int pageNo = pullRequestDiffPage.getPageNo() == null || pullRequestDiffPage.getPageNo() <= 0 ? 1 : pullRequestDiffPage.getPageNo();
+        File gitDir = locate(pullRequestDiffPage.getProjectId());
+        try (RepositoryLockManager.Hold ignored = shared(gitDir); Repository repository = repositoryPool.acquire(gitDir)) {
+            ObjectId target = resolve(repository, pullRequestDiffPage.getTargetRevision().trim());
+            ObjectId source = resolve(repository, pullRequestDiffPage.getSourceRevision().trim());
+            ObjectId base = diffCache.mergeBase(repository, target, source);
+            if (base == null) {
+                throw new BusinessException(PullRequestCode.NO_COMMON_HISTORY);
+            }
+            DiffCache.Summary summary = diffCache.summary(repository, base, source);
+            PullRequestDiffVO pullRequestDiffVO = new PullRequestDiffVO();
+            pullRequestDiffVO.setTargetCommitId(target.name());
+            pullRequestDiffVO.setBaseCommitId(base.name());
+            pullRequestDiffVO.setHeadCommitId(source.name());
+            pullRequestDiffVO.setTotal(summary.total());
+            pullRequestDiffVO.setRenameLimitExceeded(summary.isRenameLimitExceeded());
+            pullRequestDiffVO.setFiles(diffCache.files(summary, (int) Math.min((long) (pageNo - 1) * pageSize, Integer.MAX_VALUE), pageSize));
+            return pullRequestDiffVO;
+        } catch (RepositoryNotFoundException e) {
+            throw new BusinessException(ProjectCode.PROJECT_NOT_EXIST);
+        } catch (IOException e) {
+            throw new RuntimeException("比较合并请求差异失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 查询合并请求中单个文件的差异内容
+     *
+     * @param pullRequestDiffFileDTO 查询条件
+     * @return 文件差异
+     */
+    @Override
+    public DiffFileVO getDiffFile(PullRequestDiffFileDTO pullRequestDiffFileDTO) {
+        if (!ObjectId.isId(pullRequestDiffFileDTO.getBaseCommitId()) || !ObjectId.isId(pullRequestDiffFileDTO.getHeadCommitId())) {
+            throw new BusinessException(CommitCode.REVISION_NOT_EXIST);
+        }
+        File gitDir = locate(pullRequestDiffFileDTO.getProjectId());
+        try (RepositoryLockManager.Hold ignored = shared(gitDir); Repository repository = repositoryPool.acquire(gitDir)) {
+            DiffCache.Summary summary = diffCache.summary(repository, ObjectId.fromString(pullRequestDiffFileDTO.getBaseCommitId()),
+                    ObjectId.fromString(pullRequestDiffFileDTO.getHeadCommitId()));
+            return diffCache.file(repository, summary, pullRequestDiffFileDTO.getPath());
+        } catch (MissingObjectException | IncorrectObjectTypeException e) {
+            throw new BusinessException(CommitCode.REVISION_NOT_EXIST);
+        } catch (RepositoryNotFoundException e) {
+            throw new BusinessException(ProjectCode.PROJECT_NOT_EXIST);
+        } catch (IOException e) {
+            throw new RuntimeException("读取文件差异失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 把合并请求加入目标分支的合并队列，合并队列会直接更新目标分支，要求当前用户可以推送到目标项目
+     *
+     * @param id 合并请求ID
+     */
+    @Override
+    public void enqueueMerge(String id) {
+        PullRequestDO pullRequestDO = getWritablePullRequest(id);
+        if (!PullRequestStatusEnum.OPEN.getCode().equals(pullRequestDO.getStatus())) {
+            throw new BusinessException(PullRequestCode.PULL_REQUEST_NOT_OPEN);
+        }
+        // 冲突检查已经发现冲突的合并请求不进入队列，避免占用一次预合并
+        if (MergeStatusEnum.CONFLICT.getCode().equals(pullRequestDO.getMergeStatus())) {
+            throw new BusinessException(PullRequestCode.PULL_REQUEST_CONFLICT);
+        }
+        mergeQueueBusiness.enqueue(pullRequestDO);
+    }
+
+    /**
+     * 把合并请求移出合并队列
+     *
+     * @param id 合并请求ID
+     */
+    @Override
+    public void dequeueMerge(String id) {
+        mergeQueueBusiness.dequeue(getWritablePullRequest(id).getId());
+    }
+
+    /**
+     * 查询目标分支的合并队列
+     *
+     * @param projectId    项目ID
+     * @param targetBranch 目标分支
+     * @return 队列条目，正在验证的排在最前
+     */
+    @Override
+    public List<MergeQueueEntryVO> listMergeQueue(String projectId, String targetBranch) {
+        return mergeQueueBusiness.list(projectId, targetBranch);
+    }
+
+    /**
+     * 查询合并请求，并校验当前用户可以推送到目标项目
+     *
+     * @param id 合并请求ID
+     * @return 合并请求
+     */
+    private PullRequestDO getWritablePullRequest(String id) {
+        PullRequestDO pullRequestDO = pullRequestMapper.selectPullRequestById(id).orElseThrow(() -> new BusinessException(PullRequestCode.PULL_REQUEST_NOT_EXIST));
+        if (!projectAccessBusiness.canWrite(pullRequestDO.getProjectId(), UserContextHolder.getCurrentUserId())) {
+            throw new BusinessException(CommonCode.FORBIDDEN);
+        }
+        return pullRequestDO;
+    }
+
+    /**
+     * 查询项目的仓库目录
+     *
+     * @param projectId 项目ID
+     * @return 仓库目录
+     */
+    private File locate(String projectId) {
+        ProjectDO projectDO = projectMapper.selectProjectById(projectId).orElseThrow(() -> new BusinessException(ProjectCode.PROJECT_NOT_EXIST));
+        return repositoryLocationResolver.locate(projectDO.getId(), projectDO.getProjectGroupId(), projectDO.getProjectPath());
+    }
+
+    /**
+     * 获取仓库共享锁
+     *
+     * @param gitDir 仓库目录
+     * @return 共享锁
+     */
+    private RepositoryLockManager.Hold shared(File gitDir) {
+        try {
+            return repositoryLockManager.shared(gitDir);
+        } catch (RepositoryLockTimeoutException e) {
+            throw new BusinessException(ProjectCode.REPOSITORY_BUSY);
+        }
+    }
+
+    /**
+     * 解析分支、标签或提交ID对应的提交
+     *
+     * @param repository 仓库
+     * @param revision   分支、标签或提交ID
+     * @return 提交ID
+     * @throws IOException 如果读取引用失败
+     */
+    private ObjectId resolve(Repository repository, String revision) throws IOException {
+        try {
+            ObjectId id = repository.resolve(revision + "^{commit}");
+            if (id == null) {
+                throw new BusinessException(CommitCode.REVISION_NOT_EXIST);
+            }
+            return id;
+        } catch (RevisionSyntaxException e) {
+            throw new BusinessException(CommitCode.REVISION_NOT_EXIST);
+        }
+    }
 }
@@ -0,0 +1,389 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.businsess;
+
+import io.xianzhi.code.bootstrap.dao.dataobj.ProjectDO;
+import io.xianzhi.code.bootstrap.dao.dataobj.PullRequestDO;
+import io.xianzhi.code.bootstrap.dao.mapper.ProjectMapper;
+import io.xianzhi.code.bootstrap.dao.mapper.PullRequestMapper;
+import io.xianzhi.code.bootstrap.maintenance.CommitIndexer;
+import io.xianzhi.code.bootstrap.maintenance.MergeabilityChecker;
+import io.xianzhi.code.bootstrap.maintenance.RepositoryMaintenanceScheduler;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.RefAdvertisementCache;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
+import io.xianzhi.code.bootstrap.service.PipelineService;
+import io.xianzhi.code.model.enums.MergeQueueRejectReasonEnum;
+import io.xianzhi.code.model.enums.MergeStatusEnum;
+import io.xianzhi.code.model.enums.PullRequestStatusEnum;
+import io.xianzhi.code.model.event.PipelineFinishedEvent;
+import io.xianzhi.code.model.vo.MergeQueueStatsVO;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 合并队列业务测试
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+class MergeQueueBusinessTest {
+
+    private static final String PROJECT_ID = "1";
+
+    private static final String TARGET_BRANCH = "main";
+
+    private static final String TARGET_REF = Constants.R_HEADS + TARGET_BRANCH;
+
+    private static final String QUEUE_REF = MergeQueueBusiness.R_MERGE_QUEUE + TARGET_BRANCH;
+
+    /**
+     * 包含该文件的预合并提交流水线失败
+     */
+    private static final String BROKEN_FILE = "broken.txt";
+
+    @TempDir
+    File tempDir;
+
+    private PullRequestMapper pullRequestMapper;
+
+    private PipelineService pipelineService;
+
+    private RepositoryPool repositoryPool;
+
+    private RefAdvertisementCache refAdvertisementCache;
+
+    private MergeQueueBusiness mergeQueueBusiness;
+
+    private Repository repository;
+
+    private ObjectId base;
+
+    /**
+     * 已触发的流水线 [流水线ID, 提交ID]
+     */
+    private final BlockingQueue<String[]> triggered = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        CodeServerProperties properties = new CodeServerProperties();
+        properties.setRepositoryDir(new File(tempDir, "repository").getAbsolutePath());
+        properties.getMergeQueue().setRunPipeline(true);
+        ProjectMapper projectMapper = mock(ProjectMapper.class);
+        ProjectDO projectDO = new ProjectDO();
+        projectDO.setId(PROJECT_ID);
+        projectDO.setProjectGroupId("group");
+        projectDO.setProjectPath("project");
+        when(projectMapper.selectProjectById(PROJECT_ID)).thenReturn(Optional.of(projectDO));
+        when(projectMapper.selectProjectIdByGroupIdAndProjectPath(anyString(), anyString())).thenReturn(Optional.empty());
+        pullRequestMapper = mock(PullRequestMapper.class);
+        pipelineService = mock(PipelineService.class);
+        AtomicInteger pipelineSequence = new AtomicInteger();
+        when(pipelineService.newPipelineId()).thenAnswer(invocation -> "pipeline-" + pipelineSequence.incrementAndGet());
+        doAnswer(invocation -> {
+            triggered.add(new String[]{invocation.getArgument(0), invocation.getArgument(3)});
+            return null;
+        }).when(pipelineService).triggerPipeline(anyString(), anyString(), anyString(), anyString());
+
+        RepositoryLocationResolver repositoryLocationResolver = new RepositoryLocationResolver(properties, projectMapper);
+        repositoryPool = new RepositoryPool(properties);
+        repositoryPool.afterPropertiesSet();
+        RepositoryLockManager repositoryLockManager = new RepositoryLockManager(properties);
+        repositoryLockManager.afterPropertiesSet();
+        refAdvertisementCache = new RefAdvertisementCache(properties);
+        refAdvertisementCache.afterPropertiesSet();
+        mergeQueueBusiness = new MergeQueueBusiness(properties, projectMapper, pullRequestMapper, repositoryLocationResolver,
+                repositoryPool, repositoryLockManager, refAdvertisementCache, mock(RepositoryMaintenanceScheduler.class),
+                mock(CommitIndexer.class), mock(MergeabilityChecker.class), pipelineService);
+        mergeQueueBusiness.afterPropertiesSet();
+
+        File gitDir = repositoryLocationResolver.locate(PROJECT_ID, "group", "project");
+        try (Git git = Git.init().setGitDir(gitDir).setBare(true).setInitialBranch(TARGET_BRANCH).call()) {
+            repository = git.getRepository();
+        }
+        base = commit(TARGET_BRANCH, null, Map.of("README.md", "base"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mergeQueueBusiness.destroy();
+        repository.close();
+        repositoryPool.destroy();
+        refAdvertisementCache.destroy();
+    }
+
+    @Test
+    void passingBatchFastForwardsTargetBranch() throws Exception {
+        branch("pr-1", "1.txt");
+        branch("pr-2", "2.txt");
+        branch("pr-3", "3.txt");
+        commit("pr-conflict", base, Map.of("README.md", "conflict"));
+        ObjectId tip = commit(TARGET_BRANCH, base, Map.of("README.md", "main"));
+
+        // 第一个批次验证期间加入的合并请求在下一个批次中一起验证
+        enqueue("pr-1");
+        String[] first = nextPipeline();
+        enqueue("pr-2");
+        enqueue("pr-conflict");
+        enqueue("pr-3");
+        finish(first, true);
+        String[] second = nextPipeline();
+
+        assertEquals(ObjectId.fromString(second[1]), resolve(QUEUE_REF));
+        RevCommit head = parse(second[1]);
+        // pr-conflict 被移出批次, 预合并提交只包含 pr-2 和 pr-3, 冲突是与合并了 pr-2 的预合并提交比较的
+        RevCommit mergedSecond = head.getParent(0);
+        assertEquals(ObjectId.fromString(first[1]), mergedSecond.getParent(0));
+        assertEquals(resolve(Constants.R_HEADS + "pr-3"), head.getParent(1));
+        verify(pullRequestMapper).updateMergeStatusById(eq("pr-conflict"), eq(MergeStatusEnum.CONFLICT.getCode()), eq("README.md"),
+                eq(resolve(Constants.R_HEADS + "pr-conflict").name()), eq(mergedSecond.name()), any());
+        verify(pullRequestMapper).updateQueueRejectionById(eq("pr-conflict"), eq(MergeQueueRejectReasonEnum.CONFLICT.getCode()), eq("README.md"), any());
+
+        finish(second, true);
+        await(() -> mergeQueueBusiness.stats().getMerged() == 3);
+
+        assertEquals(head, resolve(TARGET_REF));
+        assertEquals(tip, parse(first[1]).getParent(0));
+        assertNull(repository.exactRef(QUEUE_REF));
+        for (String pullRequestId : new String[]{"pr-1", "pr-2", "pr-3"}) {
+            verify(pullRequestMapper).updateStatusById(pullRequestId, PullRequestStatusEnum.MERGED.getCode());
+        }
+        verify(pullRequestMapper, never()).updateStatusById(eq("pr-conflict"), anyString());
+        MergeQueueStatsVO stats = mergeQueueBusiness.stats();
+        assertEquals(2L, stats.getBatches());
+        assertEquals(1L, stats.getConflicts());
+        assertEquals(0L, stats.getBisections());
+        assertTrue(mergeQueueBusiness.list(PROJECT_ID, TARGET_BRANCH).isEmpty());
+    }
+
+    @Test
+    void failingBatchIsBisectedUntilTheBrokenPullRequestIsRejected() throws Exception {
+        branch("pr-1", "1.txt");
+        branch("pr-2", "2.txt");
+        branch("pr-broken", BROKEN_FILE);
+        branch("pr-4", "4.txt");
+
+        enqueue("pr-1");
+        String[] first = nextPipeline();
+        enqueue("pr-2");
+        enqueue("pr-broken");
+        enqueue("pr-4");
+        finish(first, true);
+        // [pr-2, pr-broken, pr-4] 失败 -> [pr-2, pr-broken] 失败 -> [pr-2] 成功并合并
+        // [pr-broken, pr-4] 失败 -> [pr-broken] 失败并移出 -> [pr-4] 成功并合并
+        int[] expectedSizes = {3, 2, 1, 2, 1, 1};
+        String brokenPipeline = null;
+        for (int expectedSize : expectedSizes) {
+            String[] pipeline = nextPipeline();
+            assertEquals(expectedSize, countMerges(pipeline[1]), pipeline[0]);
+            boolean success = !hasFile(pipeline[1], BROKEN_FILE);
+            if (!success && expectedSize == 1) {
+                brokenPipeline = pipeline[0];
+            }
+            finish(pipeline, success);
+        }
+        await(() -> mergeQueueBusiness.stats().getMerged() == 3);
+
+        ObjectId tip = resolve(TARGET_REF);
+        assertTrue(hasFile(tip.name(), "1.txt"));
+        assertTrue(hasFile(tip.name(), "2.txt"));
+        assertTrue(hasFile(tip.name(), "4.txt"));
+        assertFalse(hasFile(tip.name(), BROKEN_FILE));
+        verify(pullRequestMapper).updateQueueRejectionById(eq("pr-broken"), eq(MergeQueueRejectReasonEnum.PIPELINE_FAILED.getCode()),
+                eq(brokenPipeline), any());
+        verify(pullRequestMapper, never()).updateStatusById(eq("pr-broken"), anyString());
+        MergeQueueStatsVO stats = mergeQueueBusiness.stats();
+        assertEquals(3L, stats.getBisections());
+        assertEquals(1L, stats.getRejected());
+        assertTrue(triggered.isEmpty());
+    }
+
+    @Test
+    void batchIsRebuiltWhenTargetBranchMoves() throws Exception {
+        branch("pr-1", "1.txt");
+
+        enqueue("pr-1");
+        String[] first = nextPipeline();
+        // 验证期间目标分支被直接推送, 快进失败后在新的分支上重新构建
+        ObjectId pushed = commit(TARGET_BRANCH, base, Map.of("README.md", "base", "pushed.txt", "pushed"));
+        finish(first, true);
+        String[] second = nextPipeline();
+
+        assertEquals(pushed, resolve(TARGET_REF));
+        assertEquals(pushed, parse(second[1]).getParent(0));
+        finish(second, true);
+        await(() -> mergeQueueBusiness.stats().getMerged() == 1);
+
+        assertEquals(ObjectId.fromString(second[1]), resolve(TARGET_REF));
+        assertEquals(1L, mergeQueueBusiness.stats().getRebuilds());
+        verify(pullRequestMapper, times(1)).updateStatusById("pr-1", PullRequestStatusEnum.MERGED.getCode());
+    }
+
+    @Test
+    void resultReportedWhileTriggeringIsNotLost() throws Exception {
+        branch("pr-1", "1.txt");
+        // 流水线在触发事件发布的过程中就回报了结果
+        doAnswer(invocation -> {
+            mergeQueueBusiness.onPipelineFinished(new PipelineFinishedEvent(invocation.getArgument(0), true));
+            return null;
+        }).when(pipelineService).triggerPipeline(anyString(), anyString(), anyString(), anyString());
+
+        enqueue("pr-1");
+        await(() -> mergeQueueBusiness.stats().getMerged() == 1);
+
+        assertTrue(hasFile(resolve(TARGET_REF).name(), "1.txt"));
+        assertEquals(0L, mergeQueueBusiness.stats().getFailed());
+    }
+
+    private void enqueue(String sourceBranch) {
+        PullRequestDO pullRequestDO = new PullRequestDO();
+        pullRequestDO.setId(sourceBranch);
+        pullRequestDO.setProjectId(PROJECT_ID);
+        pullRequestDO.setSourceBranch(sourceBranch);
+        pullRequestDO.setTargetBranch(TARGET_BRANCH);
+        pullRequestDO.setTitle(sourceBranch);
+        mergeQueueBusiness.enqueue(pullRequestDO);
+    }
+
+    private String[] nextPipeline() throws InterruptedException {
+        String[] pipeline = triggered.poll(10, TimeUnit.SECONDS);
+        assertNotNull(pipeline, "流水线未触发");
+        return pipeline;
+    }
+
+    private void finish(String[] pipeline, boolean success) {
+        mergeQueueBusiness.onPipelineFinished(new PipelineFinishedEvent(pipeline[0], success));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 从合并基准创建源分支，新增一个文件
+     */
+    private void branch(String name, String file) throws IOException {
+        commit(name, resolve(TARGET_REF), Map.of("README.md", "base", file, name));
+    }
+
+    private ObjectId commit(String branch, ObjectId parent, Map<String, String> files) throws IOException {
+        ObjectId commitId;
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+            TreeFormatter tree = new TreeFormatter();
+            for (Map.Entry<String, String> file : new TreeMap<>(files).entrySet()) {
+                tree.append(file.getKey(), FileMode.REGULAR_FILE,
+                        inserter.insert(Constants.OBJ_BLOB, file.getValue().getBytes(StandardCharsets.UTF_8)));
+            }
+            PersonIdent ident = new PersonIdent("test", "test@xianzhi.io");
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(inserter.insert(tree));
+            if (parent != null) {
+                commit.setParentId(parent);
+            }
+            commit.setAuthor(ident);
+            commit.setCommitter(ident);
+            commit.setMessage(branch);
+            commitId = inserter.insert(commit);
+            inserter.flush();
+        }
+        RefUpdate refUpdate = repository.updateRef(Constants.R_HEADS + branch);
+        refUpdate.setNewObjectId(commitId);
+        refUpdate.setForceUpdate(true);
+        RefUpdate.Result result = refUpdate.update();
+        assertTrue(result == RefUpdate.Result.NEW || result == RefUpdate.Result.FORCED || result == RefUpdate.Result.FAST_FORWARD, result.name());
+        return commitId;
+    }
+
+    private ObjectId resolve(String refName) throws IOException {
+        return repository.exactRef(refName).getObjectId();
+    }
+
+    private RevCommit parse(String commitId) throws IOException {
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            RevCommit commit = revWalk.parseCommit(ObjectId.fromString(commitId));
+            for (RevCommit parent : commit.getParents()) {
+                revWalk.parseHeaders(parent);
+            }
+            return commit;
+        }
+    }
+
+    /**
+     * 预合并提交沿第一父提交回到目标分支经过的合并提交数量
+     */
+    private int countMerges(String commitId) throws IOException {
+        ObjectId tip = resolve(TARGET_REF);
+        int count = 0;
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            RevCommit commit = revWalk.parseCommit(ObjectId.fromString(commitId));
+            while (!commit.equals(tip)) {
+                assertEquals(2, commit.getParentCount());
+                count++;
+                commit = revWalk.parseCommit(commit.getParent(0));
+            }
+        }
+        return count;
+    }
+
+    private boolean hasFile(String commitId, String path) throws IOException {
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            RevCommit commit = revWalk.parseCommit(ObjectId.fromString(commitId));
+            try (TreeWalk treeWalk = TreeWalk.forPath(repository, path, commit.getTree())) {
+                return treeWalk != null;
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.handler;
+
+import io.xianzhi.code.bootstrap.dao.mapper.ProjectMapper;
+import io.xianzhi.code.bootstrap.maintenance.CommitIndexer;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.bootstrap.repository.BranchCache;
+import io.xianzhi.code.bootstrap.repository.RefAdvertisementCache;
+import io.xianzhi.code.bootstrap.repository.RepositoryLockManager;
+import io.xianzhi.code.bootstrap.repository.RepositoryPool;
+import io.xianzhi.code.bootstrap.resolver.RepositoryLocationResolver;
+import io.xianzhi.code.model.code.ProjectCode;
+import io.xianzhi.code.model.enums.RefStorageEnum;
+import io.xianzhi.core.exception.BusinessException;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 仓库信息处理测试
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+class RepositoryHandlerTest {
+
+    private static final String PROJECT_ID = "1";
+
+    private static final String GROUP_ID = "group";
+
+    private static final String PROJECT_PATH = "project";
+
+    @TempDir
+    File tempDir;
+
+    private RepositoryPool repositoryPool;
+
+    private RefAdvertisementCache refAdvertisementCache;
+
+    private RepositoryLocationResolver repositoryLocationResolver;
+
+    private RepositoryLockManager repositoryLockManager;
+
+    private RepositoryHandler repositoryHandler;
+
+    @BeforeEach
+    void setUp() {
+        CodeServerProperties properties = new CodeServerProperties();
+        properties.setRepositoryDir(new File(tempDir, "repository").getAbsolutePath());
+        properties.getRepositoryLock().setExclusiveTimeout(Duration.ofMillis(100));
+        ProjectMapper projectMapper = mock(ProjectMapper.class);
+        when(projectMapper.selectProjectIdByGroupIdAndProjectPath(anyString(), anyString())).thenReturn(Optional.empty());
+        repositoryPool = new RepositoryPool(properties);
+        repositoryPool.afterPropertiesSet();
+        refAdvertisementCache = new RefAdvertisementCache(properties);
+        refAdvertisementCache.afterPropertiesSet();
+        repositoryLocationResolver = new RepositoryLocationResolver(properties, projectMapper);
+        repositoryLockManager = new RepositoryLockManager(properties);
+        repositoryLockManager.afterPropertiesSet();
+        repositoryHandler = new RepositoryHandler(properties, repositoryPool, refAdvertisementCache, repositoryLocationResolver, repositoryLockManager,
+                mock(BranchCache.class), mock(CommitIndexer.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        repositoryPool.destroy();
+        refAdvertisementCache.destroy();
+    }
+
+    @Test
+    void convertRefStorageRoundTrip() throws Exception {
+        File repoDir = createRepository();
+        Map<String, ObjectId> refs = refs(repoDir);
+        assertEquals(2, refs.size());
+
+        repositoryHandler.convertRefStorage(PROJECT_ID, PROJECT_PATH, GROUP_ID, RefStorageEnum.REFTABLE);
+
+        assertEquals(ConfigConstants.CONFIG_REF_STORAGE_REFTABLE, refStorage(repoDir));
+        assertEquals(refs, refs(repoDir));
+        assertEquals(Constants.R_HEADS + "main", head(repoDir));
+
+        repositoryHandler.convertRefStorage(PROJECT_ID, PROJECT_PATH, GROUP_ID, RefStorageEnum.FILES);
+
+        assertNull(refStorage(repoDir));
+        assertEquals(refs, refs(repoDir));
+        assertEquals(Constants.R_HEADS + "main", head(repoDir));
+    }
+
+    @Test
+    void convertRefStorageToCurrentFormatIsNoop() throws Exception {
+        File repoDir = createRepository();
+        long version = refAdvertisementCache.version(repoDir);
+
+        repositoryHandler.convertRefStorage(PROJECT_ID, PROJECT_PATH, GROUP_ID, RefStorageEnum.FILES);
+
+        assertNull(refStorage(repoDir));
+        // 引用通告缓存仍然会失效, 转换前后客户端都能拿到最新的引用
+        assertNotEquals(version, refAdvertisementCache.version(repoDir));
+    }
+
+    @Test
+    void convertRefStorageRejectsMissingRepository() {
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> repositoryHandler.convertRefStorage(PROJECT_ID, PROJECT_PATH, GROUP_ID, RefStorageEnum.REFTABLE));
+        assertSame(ProjectCode.PROJECT_NOT_EXIST, e.getResult());
+    }
+
+    @Test
+    void convertRefStorageRejectsRepositoryInUse() throws Exception {
+        File repoDir = createRepository();
+
+        try (RepositoryLockManager.Hold ignored = repositoryLockManager.shared(repoDir)) {
+            BusinessException e = assertThrows(BusinessException.class,
+                    () -> repositoryHandler.convertRefStorage(PROJECT_ID, PROJECT_PATH, GROUP_ID, RefStorageEnum.REFTABLE));
+            assertSame(ProjectCode.REPOSITORY_BUSY, e.getResult());
+        }
+        assertNull(refStorage(repoDir));
+    }
+
+    private File createRepository() {
+        repositoryHandler.createRepository(PROJECT_ID, PROJECT_PATH, GROUP_ID, true, List.of("dev"), "main", true, null);
+        File repoDir = repositoryLocationResolver.locate(PROJECT_ID, GROUP_ID, PROJECT_PATH);
+        assertTrue(repoDir.isDirectory());
+        return repoDir;
+    }
+
+    private static Map<String, ObjectId> refs(File repoDir) throws IOException {
+        Map<String, ObjectId> refs = new TreeMap<>();
+        try (Repository repository = open(repoDir)) {
+            for (Ref ref : repository.getRefDatabase().getRefsByPrefix(Constants.R_REFS)) {
+                refs.put(ref.getName(), ref.getObjectId());
+            }
+        }
+        return refs;
+    }
+
+    private static String head(File repoDir) throws IOException {
+        try (Repository repository = open(repoDir)) {
+            return repository.exactRef(Constants.HEAD).getTarget().getName();
+        }
+    }
+
+    private static String refStorage(File repoDir) throws IOException {
+        try (Repository repository = open(repoDir)) {
+            return repository.getConfig().getString(ConfigConstants.CONFIG_EXTENSIONS_SECTION, null, ConfigConstants.CONFIG_KEY_REF_STORAGE);
+        }
+    }
+
+    private static Repository open(File repoDir) throws IOException {
+        return new FileRepositoryBuilder().setGitDir(repoDir).setMustExist(true).build();
+    }
+}
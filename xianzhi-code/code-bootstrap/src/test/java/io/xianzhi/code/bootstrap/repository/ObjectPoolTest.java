@@ -0,0 +1,154 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * fork 网络共享对象池测试
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+class ObjectPoolTest {
+
+    @TempDir
+    File tempDir;
+
+    private Git source;
+
+    private Git pool;
+
+    private RevCommit packed;
+
+    private RevCommit loose;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        source = Git.init().setDirectory(new File(tempDir, "source")).setInitialBranch("main").call();
+        packed = source.commit().setMessage("packed").setAllowEmpty(true).call();
+        source.gc().call();
+        loose = source.commit().setMessage("loose").setAllowEmpty(true).call();
+        pool = Git.init().setBare(true).setGitDir(new File(tempDir, "pool.git")).call();
+    }
+
+    @AfterEach
+    void tearDown() {
+        source.close();
+        pool.close();
+    }
+
+    @Test
+    void seedLinksLooseAndPackedObjects() throws Exception {
+        File gitDir = source.getRepository().getDirectory();
+        File poolDir = pool.getRepository().getDirectory();
+
+        assertTrue(ObjectPool.seed(gitDir, poolDir) > 0);
+
+        assertTrue(hasObject(poolDir, packed));
+        assertTrue(hasObject(poolDir, loose));
+        // 已经链接过的文件不再重复链接
+        assertEquals(0, ObjectPool.seed(gitDir, poolDir));
+    }
+
+    @Test
+    void joinedRepositoryReadsObjectsFromPool() throws Exception {
+        File poolDir = pool.getRepository().getDirectory();
+        ObjectPool.seed(source.getRepository().getDirectory(), poolDir);
+        File forkDir;
+        try (Git fork = Git.init().setBare(true).setGitDir(new File(tempDir, "fork.git")).call()) {
+            forkDir = fork.getRepository().getDirectory();
+        }
+        assertNull(ObjectPool.getPoolDir(forkDir));
+        assertFalse(hasObject(forkDir, loose));
+
+        ObjectPool.join(forkDir, poolDir);
+
+        assertEquals(poolDir.toPath().toAbsolutePath().normalize().toFile(), ObjectPool.getPoolDir(forkDir));
+        assertTrue(hasObject(forkDir, packed));
+        assertTrue(hasObject(forkDir, loose));
+    }
+
+    @Test
+    void updateMemberRefsOnlyAddsAndUpdates() throws Exception {
+        Repository repository = pool.getRepository();
+        ObjectPool.seed(source.getRepository().getDirectory(), repository.getDirectory());
+        source.branchCreate().setName("feature").setStartPoint(packed).call();
+
+        ObjectPool.updateMemberRefs(repository, "1", source.getRepository().getRefDatabase().getRefs());
+
+        assertEquals(loose, resolve(repository, ObjectPool.R_FORKS + "1/heads/main"));
+        assertEquals(packed, resolve(repository, ObjectPool.R_FORKS + "1/heads/feature"));
+        // 符号引用 HEAD 不写入对象池
+        assertEquals(2, repository.getRefDatabase().getRefsByPrefix(ObjectPool.R_FORKS).size());
+        assertEquals(Set.of("1"), ObjectPool.members(repository));
+
+        source.branchDelete().setBranchNames("feature").setForce(true).call();
+        RevCommit next = source.commit().setMessage("next").setAllowEmpty(true).call();
+        ObjectPool.seed(source.getRepository().getDirectory(), repository.getDirectory());
+        List<Ref> refs = source.getRepository().getRefDatabase().getRefs();
+        ObjectPool.updateMemberRefs(repository, "1", refs);
+
+        assertEquals(next, resolve(repository, ObjectPool.R_FORKS + "1/heads/main"));
+        // 成员删除的分支仍保留在对象池中, 其他 fork 可能还依赖这些对象
+        assertEquals(packed, resolve(repository, ObjectPool.R_FORKS + "1/heads/feature"));
+    }
+
+    @Test
+    void removeMemberDropsOnlyItsRefs() throws Exception {
+        Repository repository = pool.getRepository();
+        ObjectPool.seed(source.getRepository().getDirectory(), repository.getDirectory());
+        List<Ref> refs = source.getRepository().getRefDatabase().getRefs();
+        ObjectPool.updateMemberRefs(repository, "1", refs);
+        ObjectPool.updateMemberRefs(repository, "2", refs);
+        assertEquals(Set.of("1", "2"), ObjectPool.members(repository));
+
+        ObjectPool.removeMember(repository, "1");
+
+        assertEquals(Set.of("2"), ObjectPool.members(repository));
+        assertNull(repository.exactRef(ObjectPool.R_FORKS + "1/heads/main"));
+    }
+
+    private static ObjectId resolve(Repository repository, String name) throws IOException {
+        Ref ref = repository.exactRef(name);
+        return ref == null ? null : ref.getObjectId();
+    }
+
+    /**
+     * 用新打开的仓库检查，避免命中已缓存的 pack 列表
+     */
+    private static boolean hasObject(File gitDir, ObjectId id) throws IOException {
+        try (Git git = Git.open(gitDir)) {
+            return git.getRepository().getObjectDatabase().has(id);
+        }
+    }
+}
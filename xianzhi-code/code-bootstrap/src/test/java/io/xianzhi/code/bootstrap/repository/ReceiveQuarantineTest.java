@@ -0,0 +1,169 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.internal.storage.file.PackInserter;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 推送隔离区测试
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+class ReceiveQuarantineTest {
+
+    @TempDir
+    File tempDir;
+
+    private Git git;
+
+    private Repository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        git = Git.init().setDirectory(new File(tempDir, "project")).setInitialBranch("main").call();
+        git.commit().setMessage("init").setAllowEmpty(true).call();
+        repository = git.getRepository();
+    }
+
+    @AfterEach
+    void tearDown() {
+        git.close();
+    }
+
+    @Test
+    void objectsBecomeVisibleOnlyAfterMigrate() throws Exception {
+        ObjectId head = repository.resolve(Constants.HEAD);
+        ObjectId blob;
+        File directory;
+        try (ReceiveQuarantine quarantine = ReceiveQuarantine.create(repository)) {
+            // 隔离区通过 alternates 读取正式仓库的对象
+            assertTrue(quarantine.getRepository().getObjectDatabase().has(head));
+            blob = insertPack(quarantine.getRepository(), "pushed");
+            directory = quarantineDirectory();
+            assertTrue(quarantine.getRepository().getObjectDatabase().has(blob));
+            assertFalse(hasObject(blob));
+
+            quarantine.migrate();
+
+            assertTrue(hasObject(blob));
+            assertEquals(0, Objects.requireNonNull(new File(directory, "pack").listFiles()).length);
+        }
+        assertFalse(directory.exists());
+        assertTrue(hasObject(blob));
+    }
+
+    @Test
+    void closeWithoutMigrateDiscardsObjects() throws Exception {
+        ObjectId blob;
+        File directory;
+        try (ReceiveQuarantine quarantine = ReceiveQuarantine.create(repository)) {
+            blob = insertPack(quarantine.getRepository(), "rejected");
+            directory = quarantineDirectory();
+        }
+        assertFalse(directory.exists());
+        assertFalse(hasObject(blob));
+    }
+
+    @Test
+    void migrateLeavesKeepFilesInQuarantine() throws Exception {
+        try (ReceiveQuarantine quarantine = ReceiveQuarantine.create(repository)) {
+            insertPack(quarantine.getRepository(), "kept");
+            File pack = new File(quarantineDirectory(), "pack");
+            File keep = new File(pack, "pack-0000000000000000000000000000000000000000.keep");
+            Files.writeString(keep.toPath(), "receive-pack");
+
+            quarantine.migrate();
+
+            assertTrue(keep.exists());
+            File[] migrated = new File(objectsDirectory(), "pack").listFiles();
+            assertNotNull(migrated);
+            assertTrue(Arrays.stream(migrated).anyMatch(file -> file.getName().endsWith(".pack")));
+            assertTrue(Arrays.stream(migrated).anyMatch(file -> file.getName().endsWith(".idx")));
+            assertTrue(Arrays.stream(migrated).noneMatch(file -> file.getName().endsWith(".keep")));
+        }
+    }
+
+    @Test
+    void cleanupRemovesOnlyStaleQuarantines() throws Exception {
+        File objects = objectsDirectory();
+        File stale = new File(objects, "incoming-stale");
+        File fresh = new File(objects, "incoming-fresh");
+        File other = new File(objects, "info");
+        assertTrue(new File(stale, "pack").mkdirs());
+        assertTrue(new File(fresh, "pack").mkdirs());
+        assertTrue(other.isDirectory() || other.mkdirs());
+        assertTrue(stale.setLastModified(System.currentTimeMillis() - Duration.ofHours(2).toMillis()));
+        assertTrue(other.setLastModified(System.currentTimeMillis() - Duration.ofHours(2).toMillis()));
+
+        ReceiveQuarantine.cleanup(repository.getDirectory(), Duration.ofHours(1));
+
+        assertFalse(stale.exists());
+        assertTrue(fresh.exists());
+        assertTrue(other.exists());
+    }
+
+    /**
+     * 以 pack 形式写入一个 blob，receive-pack 接收的对象也是 pack
+     */
+    private static ObjectId insertPack(Repository repository, String content) throws IOException {
+        try (PackInserter inserter = ((ObjectDirectory) repository.getObjectDatabase()).newPackInserter()) {
+            ObjectId id = inserter.insert(Constants.OBJ_BLOB, content.getBytes(StandardCharsets.UTF_8));
+            inserter.flush();
+            return id;
+        }
+    }
+
+    private File objectsDirectory() {
+        return ((ObjectDirectory) repository.getObjectDatabase()).getDirectory();
+    }
+
+    private File quarantineDirectory() {
+        File[] directories = objectsDirectory().listFiles(file -> file.getName().startsWith("incoming-"));
+        assertNotNull(directories);
+        assertEquals(1, directories.length);
+        return directories[0];
+    }
+
+    /**
+     * 用新打开的仓库检查，避免命中正式仓库已缓存的 pack 列表
+     */
+    private boolean hasObject(ObjectId id) throws IOException {
+        try (Repository fresh = Git.open(repository.getDirectory()).getRepository()) {
+            return fresh.getObjectDatabase().has(id);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 引用通告缓存测试
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+class RefAdvertisementCacheTest {
+
+    private static final String UPLOAD_PACK = "git-upload-pack";
+
+    @TempDir
+    File tempDir;
+
+    private CodeServerProperties properties;
+
+    private RefAdvertisementCache cache;
+
+    private Git git;
+
+    private File gitDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new CodeServerProperties();
+        cache = new RefAdvertisementCache(properties);
+        cache.afterPropertiesSet();
+        git = Git.init().setDirectory(new File(tempDir, "project")).setInitialBranch("main").call();
+        git.commit().setMessage("init").setAllowEmpty(true).call();
+        gitDir = git.getRepository().getDirectory();
+    }
+
+    @AfterEach
+    void tearDown() {
+        git.close();
+        cache.destroy();
+    }
+
+    @Test
+    void etagMatchesOnlyTheCurrentVersion() {
+        long version = cache.version(gitDir);
+        String etag = cache.etag(version);
+
+        assertTrue(cache.notModified(etag, version));
+        assertFalse(cache.notModified(null, version));
+        assertFalse(cache.notModified("\"other\"", version));
+
+        cache.invalidate(gitDir);
+        long next = cache.version(gitDir);
+        assertNotEquals(version, next);
+        // 引用变化后客户端持有的旧 ETag 不能再得到304
+        assertFalse(cache.notModified(etag, next));
+        assertTrue(cache.notModified(cache.etag(next), next));
+        assertEquals(2, cache.stats().getNotModified());
+    }
+
+    @Test
+    void notModifiedIsDisabledWithTheCache() {
+        properties.getRefCache().setEnabled(false);
+        long version = cache.version(gitDir);
+
+        assertFalse(cache.notModified(cache.etag(version), version));
+    }
+
+    @Test
+    void advertisementIsDroppedOnInvalidate() {
+        long version = cache.version(gitDir);
+        RefAdvertisementCache.Advertisement advertisement = advertisement("refs");
+        cache.putAdvertisement(gitDir, version, UPLOAD_PACK, advertisement);
+
+        assertSame(advertisement, cache.getAdvertisement(gitDir, version, UPLOAD_PACK));
+        assertNull(cache.getAdvertisement(gitDir, version, "git-receive-pack"));
+
+        cache.invalidate(gitDir);
+        assertNull(cache.getAdvertisement(gitDir, version, UPLOAD_PACK));
+        assertNull(cache.getAdvertisement(gitDir, cache.version(gitDir), UPLOAD_PACK));
+        assertEquals(1, cache.stats().getInvalidations());
+    }
+
+    @Test
+    void staleAdvertisementIsNotServedForTheNewVersion() {
+        long version = cache.version(gitDir);
+        // 生成响应期间引用发生了变化, 按旧版本号写入的内容不能被新版本读到
+        cache.invalidate(gitDir);
+        cache.putAdvertisement(gitDir, version, UPLOAD_PACK, advertisement("stale"));
+
+        assertNull(cache.getAdvertisement(gitDir, cache.version(gitDir), UPLOAD_PACK));
+    }
+
+    @Test
+    void invalidateDoesNotTrackUnknownDirectories() {
+        File unknown = new File(tempDir, "unknown.git");
+        cache.invalidate(unknown);
+        cache.invalidate(unknown);
+
+        // 从未下发过 ETag 的目录失效时不创建版本号
+        assertEquals(0, cache.version(unknown));
+    }
+
+    @Test
+    void refUpdateInvalidatesAdvertisedRefs() throws Exception {
+        Repository repository = git.getRepository();
+        Map<String, Ref> refs = cache.getAdvertisedRefs(repository);
+        ObjectId first = refs.get("refs/heads/main").getObjectId();
+        long version = cache.version(gitDir);
+
+        assertEquals(first, cache.getAdvertisedRefs(repository).get("refs/heads/main").getObjectId());
+        assertEquals(1, cache.stats().getHits());
+
+        ObjectId second = git.commit().setMessage("second").setAllowEmpty(true).call().getId();
+
+        assertNotEquals(version, cache.version(gitDir));
+        assertEquals(second, cache.getAdvertisedRefs(repository).get("refs/heads/main").getObjectId());
+    }
+
+    private static RefAdvertisementCache.Advertisement advertisement(String body) {
+        return new RefAdvertisementCache.Advertisement("application/x-git-upload-pack-advertisement", body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.repository;
+
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.model.vo.RepositoryLockStatsVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 仓库读写锁测试
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+class RepositoryLockManagerTest {
+
+    @TempDir
+    File tempDir;
+
+    private CodeServerProperties properties;
+
+    private RepositoryLockManager lockManager;
+
+    private File gitDir;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CodeServerProperties();
+        properties.getRepositoryLock().setSharedTimeout(Duration.ofMillis(100));
+        properties.getRepositoryLock().setExclusiveTimeout(Duration.ofMillis(100));
+        properties.getRepositoryLock().setRefTimeout(Duration.ofMillis(100));
+        properties.getRepositoryLock().setRefStripes(8);
+        lockManager = new RepositoryLockManager(properties);
+        lockManager.afterPropertiesSet();
+        gitDir = new File(tempDir, "project.git");
+        assertTrue(gitDir.mkdirs());
+    }
+
+    @Test
+    void sharedHoldsBlockOnlyExclusive() {
+        try (RepositoryLockManager.Hold first = lockManager.shared(gitDir);
+             RepositoryLockManager.Hold second = lockManager.shared(gitDir)) {
+            assertEquals(2, lockManager.stats().getSharedHeld());
+            assertNull(lockManager.tryExclusive(gitDir));
+            assertThrows(RepositoryLockTimeoutException.class, () -> lockManager.exclusive(gitDir));
+        }
+        try (RepositoryLockManager.Hold exclusive = lockManager.exclusive(gitDir)) {
+            assertNull(lockManager.tryShared(gitDir));
+            assertThrows(RepositoryLockTimeoutException.class, () -> lockManager.shared(gitDir));
+        }
+        RepositoryLockStatsVO stats = lockManager.stats();
+        assertEquals(0, stats.getLockedRepositories());
+        assertEquals(0, stats.getSharedHeld());
+        assertEquals(0, stats.getExclusiveHeld());
+        assertEquals(2L, stats.getSkipped());
+        assertEquals(1L, stats.getSharedTimeouts());
+        assertEquals(1L, stats.getExclusiveTimeouts());
+    }
+
+    @Test
+    void repeatedCloseReleasesOnce() {
+        RepositoryLockManager.Hold first = lockManager.shared(gitDir);
+        RepositoryLockManager.Hold second = lockManager.shared(gitDir);
+        first.close();
+        first.close();
+
+        assertEquals(1, lockManager.stats().getSharedHeld());
+        assertNull(lockManager.tryExclusive(gitDir));
+        second.close();
+        try (RepositoryLockManager.Hold exclusive = lockManager.tryExclusive(gitDir)) {
+            assertNotNull(exclusive);
+        }
+    }
+
+    @Test
+    void holdCanBeReleasedFromAnotherThread() throws Exception {
+        RepositoryLockManager.Hold exclusive = lockManager.exclusive(gitDir);
+        Thread thread = new Thread(exclusive::close);
+        thread.start();
+        thread.join();
+
+        try (RepositoryLockManager.Hold shared = lockManager.tryShared(gitDir)) {
+            assertNotNull(shared);
+        }
+    }
+
+    @Test
+    void linkAndRealPathShareOneLock() throws Exception {
+        File link = new File(tempDir, "legacy.git");
+        Files.createSymbolicLink(link.toPath(), gitDir.toPath());
+
+        try (RepositoryLockManager.Hold exclusive = lockManager.exclusive(link)) {
+            assertNull(lockManager.tryShared(gitDir));
+            assertEquals(1, lockManager.stats().getLockedRepositories());
+        }
+        assertEquals(0, lockManager.stats().getLockedRepositories());
+    }
+
+    @Test
+    void lockRefsInAnyOrderDoesNotDeadlock() throws Exception {
+        properties.getRepositoryLock().setRefTimeout(Duration.ofSeconds(10));
+        List<String> refs = IntStream.range(0, 16).mapToObj(i -> "refs/heads/branch-" + i).toList();
+        List<String> reversed = new ArrayList<>(refs);
+        Collections.reverse(reversed);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<String> order : List.of(refs, reversed)) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 500; i++) {
+                        try (RepositoryLockManager.Hold ignored = lockManager.lockRefs(gitDir, order)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        RepositoryLockStatsVO stats = lockManager.stats();
+        assertEquals(0L, stats.getRefTimeouts());
+        assertEquals(1000L, stats.getRefAcquired());
+        assertEquals(0, stats.getRefHeld());
+    }
+
+    @Test
+    void lockRefsTimeoutReleasesAcquiredStripes() throws Exception {
+        // 覆盖全部分段, 无论被占用的是哪个分段, 超时前都已经按顺序拿到了排在前面的分段
+        List<String> refs = IntStream.range(0, 64).mapToObj(i -> "refs/heads/branch-" + i).toList();
+        for (String busy : List.of("refs/heads/main", "refs/heads/dev", "refs/tags/v1")) {
+            CountDownLatch locked = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(1);
+            Thread holder = new Thread(() -> {
+                try (RepositoryLockManager.Hold ignored = lockManager.lockRefs(gitDir, List.of(busy))) {
+                    locked.countDown();
+                    done.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            holder.start();
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+            List<String> all = new ArrayList<>(refs);
+            all.add(busy);
+
+            assertThrows(RepositoryLockTimeoutException.class, () -> lockManager.lockRefs(gitDir, all));
+
+            done.countDown();
+            holder.join();
+            // 另一个线程能拿到全部分段, 说明超时时已经释放了部分获取的分段
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                executor.submit(() -> lockManager.lockRefs(gitDir, all).close()).get(5, TimeUnit.SECONDS);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        assertEquals(3L, lockManager.stats().getRefTimeouts());
+        assertEquals(0, lockManager.stats().getRefHeld());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.bootstrap.resolver;
+
+import io.xianzhi.code.bootstrap.dao.mapper.ProjectMapper;
+import io.xianzhi.code.bootstrap.properties.CodeServerProperties;
+import io.xianzhi.code.model.code.ProjectCode;
+import io.xianzhi.core.code.CommonCode;
+import io.xianzhi.core.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 仓库存储位置解析测试
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+class RepositoryLocationResolverTest {
+
+    @TempDir
+    File tempDir;
+
+    private File root;
+
+    private ProjectMapper projectMapper;
+
+    private RepositoryLocationResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        root = new File(tempDir, "repository");
+        CodeServerProperties properties = new CodeServerProperties();
+        properties.setRepositoryDir(root.getAbsolutePath());
+        projectMapper = mock(ProjectMapper.class);
+        when(projectMapper.selectProjectIdByGroupIdAndProjectPath(anyString(), anyString())).thenReturn(Optional.empty());
+        resolver = new RepositoryLocationResolver(properties, projectMapper);
+    }
+
+    @Test
+    void rejectsPathTraversal() {
+        assertNotExist("../outside");
+        assertNotExist("../../etc/passwd");
+        assertNotExist("group/../../outside/project.git");
+        assertNotExist("group/project/../../../outside");
+        verifyNoInteractions(projectMapper);
+    }
+
+    @Test
+    void rejectsNamesOutsideGroupProjectDepth() {
+        assertNotExist("group");
+        assertNotExist("group.git");
+        assertNotExist("group/sub/project.git");
+        assertNotExist("group/../project.git");
+        assertNotExist("group/project/..");
+        verifyNoInteractions(projectMapper);
+    }
+
+    @Test
+    void rejectsHashedAndPoolDirectories() {
+        assertNotExist(RepositoryLocationResolver.HASHED_DIR + "/ab.git");
+        assertNotExist(RepositoryLocationResolver.POOL_DIR + "/ab.git");
+        verifyNoInteractions(projectMapper);
+    }
+
+    @Test
+    void rejectsBlankName() {
+        BusinessException e = assertThrows(BusinessException.class, () -> resolver.resolve(" "));
+        assertSame(CommonCode.PARAM_CHECK_ERROR, e.getResult());
+        e = assertThrows(BusinessException.class, () -> resolver.resolve(null));
+        assertSame(CommonCode.PARAM_CHECK_ERROR, e.getResult());
+    }
+
+    @Test
+    void resolvesLegacyDirectoryWithoutProjectRecord() {
+        File expected = new File(root, "group/project/.git").getAbsoluteFile();
+
+        assertEquals(expected, resolver.resolve("group/project.git"));
+        assertEquals(expected, resolver.resolve("/group/project/"));
+    }
+
+    @Test
+    void resolvesHashedDirectoryForProject() {
+        when(projectMapper.selectProjectIdByGroupIdAndProjectPath("group", "project")).thenReturn(Optional.of("1"));
+
+        File repositoryDir = resolver.resolve("group/project.git");
+
+        assertEquals(resolver.getRepositoryDir("1"), repositoryDir);
+        Path relative = root.getAbsoluteFile().toPath().relativize(repositoryDir.toPath());
+        assertEquals(4, relative.getNameCount());
+        assertEquals(RepositoryLocationResolver.HASHED_DIR, relative.getName(0).toString());
+        assertEquals(Optional.of("1"), resolver.findProjectId(repositoryDir));
+    }
+
+    @Test
+    void prefersExistingLegacyDirectory() {
+        when(projectMapper.selectProjectIdByGroupIdAndProjectPath("group", "project")).thenReturn(Optional.of("1"));
+        File legacyDir = resolver.getLegacyRepositoryDir("group", "project");
+        assertTrue(legacyDir.mkdirs());
+
+        assertEquals(legacyDir, resolver.resolve("group/project.git"));
+    }
+
+    @Test
+    void findProjectIdIgnoresDirectoriesOutsideRoot() {
+        assertEquals(Optional.empty(), resolver.findProjectId(new File(tempDir, "other/project/.git")));
+        assertEquals(Optional.empty(), resolver.findProjectId(new File(root, "group/project/../../../other/.git")));
+        assertEquals(Optional.empty(), resolver.findProjectId(resolver.getRepositoryDir("1")));
+        assertEquals(Optional.empty(), resolver.findProjectId(resolver.getPoolRepositoryDir("1")));
+        verifyNoInteractions(projectMapper);
+    }
+
+    @Test
+    void cachesProjectIdUntilInvalidated() {
+        when(projectMapper.selectProjectIdByGroupIdAndProjectPath("group", "project")).thenReturn(Optional.of("1"));
+
+        resolver.resolve("group/project.git");
+        resolver.resolve("group/project");
+        verify(projectMapper, times(1)).selectProjectIdByGroupIdAndProjectPath("group", "project");
+
+        resolver.invalidate("group", "project");
+        resolver.resolve("group/project.git");
+        verify(projectMapper, times(2)).selectProjectIdByGroupIdAndProjectPath("group", "project");
+    }
+
+    private void assertNotExist(String name) {
+        BusinessException e = assertThrows(BusinessException.class, () -> resolver.resolve(name), name);
+        assertSame(ProjectCode.PROJECT_NOT_EXIST, e.getResult(), name);
+    }
+}
@@ -16,6 +16,7 @@
 
 package io.xianzhi.code.model.code;
 
+import io.xianzhi.core.code.CommonCode;
 import io.xianzhi.core.result.Result;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -29,6 +30,22 @@ import lombok.Getter;
 @Getter
 @AllArgsConstructor
 public enum CommitCode implements Result {
+    /**
+     * 分支、标签或提交不存在
+     */
+    REVISION_NOT_EXIST(CommonCode.DATA_NOT_EXISTS.code(), "code.commit.revision.not.exist"),
+    /**
+     * 翻页游标无效，游标提交不在当前的提交历史中
+     */
+    CURSOR_INVALID(CommonCode.PARAM_CHECK_ERROR.code(), "code.commit.cursor.invalid"),
+    /**
+     * 文件在该提交中不存在
+     */
+    FILE_NOT_EXIST(CommonCode.DATA_NOT_EXISTS.code(), "code.commit.file.not.exist"),
+    /**
+     * 文件过大或为二进制文件，不支持逐行追溯
+     */
+    FILE_NOT_SUPPORTED(CommonCode.PARAM_CHECK_ERROR.code(), "code.commit.file.not.supported"),
     ;
 
     /**
@@ -42,6 +42,10 @@ public enum ProjectCode implements Result {
      * 项目不存在
      */
     PROJECT_NOT_EXIST(CommonCode.DATA_NOT_EXISTS.code(), "code.project.not.exist"),
+    /**
+     * 仓库正在使用，不能执行维护操作
+     */
+    REPOSITORY_BUSY(CommonCode.SERVICE_UNAVAILABLE.code(), "code.project.repository.busy"),
     ;
 
     /**
@@ -33,6 +33,42 @@ public enum PullRequestCode implements Result {
      * 已经存在相同的合并请求
      */
     PULL_REQUEST_EXIST("code.pull.request.exist", "code.pull.request.exist"),
+    /**
+     * 源提交与目标提交没有共同的历史
+     */
+    NO_COMMON_HISTORY("code.pull.request.no.common.history", "code.pull.request.no.common.history"),
+    /**
+     * 差异中不存在该文件
+     */
+    DIFF_FILE_NOT_EXIST("code.pull.request.diff.file.not.exist", "code.pull.request.diff.file.not.exist"),
+    /**
+     * 合并请求不存在
+     */
+    PULL_REQUEST_NOT_EXIST("code.pull.request.not.exist", "code.pull.request.not.exist"),
+    /**
+     * 合并请求不是打开状态
+     */
+    PULL_REQUEST_NOT_OPEN("code.pull.request.not.open", "code.pull.request.not.open"),
+    /**
+     * 合并请求已经在合并队列中
+     */
+    PULL_REQUEST_QUEUED("code.pull.request.queued", "code.pull.request.queued"),
+    /**
+     * 合并请求不在合并队列中
+     */
+    PULL_REQUEST_NOT_QUEUED("code.pull.request.not.queued", "code.pull.request.not.queued"),
+    /**
+     * 合并请求正在验证，不能移出合并队列
+     */
+    PULL_REQUEST_MERGING("code.pull.request.merging", "code.pull.request.merging"),
+    /**
+     * 合并请求存在冲突，不能加入合并队列
+     */
+    PULL_REQUEST_CONFLICT("code.pull.request.conflict", "code.pull.request.conflict"),
+    /**
+     * 流水线结果签名无效
+     */
+    PIPELINE_SIGNATURE_INVALID("code.pull.request.pipeline.signature.invalid", "code.pull.request.pipeline.signature.invalid"),
     ;
 
     /**
@@ -0,0 +1,44 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.dto;
+
+import io.xianzhi.core.validated.CreateGroup;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量创建项目入参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class BatchCreateProjectDTO implements Serializable {
+
+    /**
+     * 项目列表
+     */
+    @Valid
+    @NotEmpty(message = "code.project.batch.not.empty", groups = CreateGroup.class)
+    @Size(max = 200, message = "code.project.batch.too.large", groups = CreateGroup.class)
+    private List<ProjectDTO> projects;
+}
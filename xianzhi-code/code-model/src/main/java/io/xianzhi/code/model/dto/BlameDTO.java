@@ -0,0 +1,47 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 逐行追溯入参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class BlameDTO implements Serializable {
+
+    /**
+     * 项目ID
+     */
+    @NotBlank(message = "code.commit.project.id.not.blank")
+    private String projectId;
+    /**
+     * 分支、标签或提交ID，为空时为默认分支
+     */
+    private String revision;
+    /**
+     * 文件路径
+     */
+    @NotBlank(message = "code.commit.blame.path.not.blank")
+    private String path;
+}
@@ -0,0 +1,46 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * fork 项目入参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class ForkProjectDTO implements Serializable {
+
+    /**
+     * 源项目ID
+     */
+    @NotBlank(message = "code.project.fork.from.not.blank")
+    private String forkFromId;
+    /**
+     * 新项目信息
+     */
+    @Valid
+    @NotNull(message = "code.project.fork.project.not.null")
+    private ProjectDTO project;
+}
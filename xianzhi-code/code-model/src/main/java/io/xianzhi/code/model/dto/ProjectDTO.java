@@ -17,6 +17,7 @@
 package io.xianzhi.code.model.dto;
 
 import io.xianzhi.code.model.enums.ProjectTypeEnum;
+import io.xianzhi.code.model.enums.RefStorageEnum;
 import io.xianzhi.code.model.enums.VisibilityEnum;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -93,4 +94,9 @@ public class ProjectDTO implements Serializable {
      * 分支模型
      */
     private String branchModel;
+
+    /**
+     * 引用存储格式，为空时使用服务端默认配置
+     */
+    private RefStorageEnum refStorage;
 }
@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 合并请求单个文件差异入参，提交ID取自文件列表的返回值，保证与文件列表一致
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class PullRequestDiffFileDTO implements Serializable {
+
+    /**
+     * 项目ID
+     */
+    @NotBlank(message = "code.pull.request.project.id.not.blank")
+    private String projectId;
+    /**
+     * 合并基准提交ID
+     */
+    @NotBlank(message = "code.pull.request.base.commit.not.blank")
+    private String baseCommitId;
+    /**
+     * 源提交ID
+     */
+    @NotBlank(message = "code.pull.request.head.commit.not.blank")
+    private String headCommitId;
+    /**
+     * 文件路径，删除的文件为原路径，其余为新路径
+     */
+    @NotBlank(message = "code.pull.request.diff.path.not.blank")
+    private String path;
+}
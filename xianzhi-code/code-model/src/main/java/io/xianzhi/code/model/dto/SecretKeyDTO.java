@@ -0,0 +1,49 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.xianzhi.code.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import org.hibernate.validator.constraints.Length;
+
+import java.io.Serializable;
+
+/**
+ * 秘钥入参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class SecretKeyDTO implements Serializable {
+
+    /**
+     * 秘钥标题
+     */
+    @NotBlank(message = "code.secret.key.title.not.blank")
+    @Length(max = 64, message = "code.secret.key.title.too.long")
+    private String title;
+    /**
+     * 公钥内容，OpenSSH 格式
+     */
+    @NotBlank(message = "code.secret.key.public.key.not.blank")
+    @Length(max = 8192, message = "code.secret.key.public.key.too.long")
+    private String publicKey;
+    /**
+     * 部署秘钥所属项目ID，为空表示个人秘钥
+     */
+    private String projectId;
+}
@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 合并请求移出合并队列的原因枚举
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Getter
+@AllArgsConstructor
+public enum MergeQueueRejectReasonEnum {
+    /**
+     * 与目标分支或批次中排在前面的合并请求冲突
+     */
+    CONFLICT("conflict", "存在冲突"),
+    /**
+     * 源分支不存在，或源提交还没有同步到目标仓库
+     */
+    SOURCE_MISSING("source_missing", "源分支不存在"),
+    /**
+     * 目标项目或目标分支不存在
+     */
+    TARGET_MISSING("target_missing", "目标分支不存在"),
+    /**
+     * 流水线失败或超时
+     */
+    PIPELINE_FAILED("pipeline_failed", "流水线失败"),
+
+    ;
+
+
+    private final String code;
+    private final String desc;
+}
@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 合并请求能否合并枚举
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Getter
+@AllArgsConstructor
+public enum MergeStatusEnum {
+    /**
+     * 待检查，源提交和目标提交还不在同一个仓库中时保持该状态
+     */
+    UNCHECKED("unchecked", "待检查"),
+    /**
+     * 可以直接合并
+     */
+    MERGEABLE("mergeable", "可以合并"),
+    /**
+     * 存在冲突
+     */
+    CONFLICT("conflict", "存在冲突"),
+    /**
+     * 无法检查，源分支或目标分支不存在
+     */
+    UNKNOWN("unknown", "无法检查"),
+
+    ;
+
+
+    private final String code;
+    private final String desc;
+}
@@ -0,0 +1,46 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 仓库引用存储格式枚举
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Getter
+@AllArgsConstructor
+public enum RefStorageEnum {
+    /**
+     * 松散引用 + packed-refs
+     */
+    FILES("refdir", "文件引用"),
+    /**
+     * reftable，适合引用数量巨大的仓库
+     */
+    REFTABLE("reftable", "reftable"),
+
+    ;
+
+
+    private final String code;
+
+    private final String desc;
+}
@@ -0,0 +1,55 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 流水线触发事件，合并队列在预合并提交上触发流水线后发布，供 CI 集成拉取引用执行，执行结束后携带流水线ID回报结果
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PipelineTriggeredEvent implements Serializable {
+
+    /**
+     * 流水线ID
+     */
+    private String pipelineId;
+
+    /**
+     * 项目ID
+     */
+    private String projectId;
+
+    /**
+     * 流水线检出的引用
+     */
+    private String refName;
+
+    /**
+     * 提交ID
+     */
+    private String commitId;
+}
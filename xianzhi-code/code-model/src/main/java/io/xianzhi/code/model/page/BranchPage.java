@@ -0,0 +1,49 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.page;
+
+import io.xianzhi.core.base.Page;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.io.Serializable;
+
+/**
+ * 分支查询条件，按分支名称排序，使用游标翻页，pageNo 不生效
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class BranchPage extends Page implements Serializable {
+
+    /**
+     * 项目ID
+     */
+    private String projectId;
+
+    /**
+     * 分支名称前缀
+     */
+    private String prefix;
+
+    /**
+     * 游标，上一页返回的 nextCursor，为空时从第一页开始
+     */
+    private String cursor;
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.page;
+
+import io.xianzhi.core.base.Page;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 提交历史查询条件，按提交时间倒序，使用游标翻页，pageNo 不生效
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class CommitPage extends Page implements Serializable {
+
+    /**
+     * 项目ID
+     */
+    private String projectId;
+
+    /**
+     * 分支、标签或提交ID，为空时使用默认分支
+     */
+    private String revision;
+
+    /**
+     * 文件或目录路径，只返回修改过该路径的提交
+     */
+    private String path;
+
+    /**
+     * 作者名称或邮箱，包含即匹配
+     */
+    private String author;
+
+    /**
+     * 提交时间起始
+     */
+    private LocalDateTime since;
+
+    /**
+     * 提交时间截止
+     */
+    private LocalDateTime until;
+
+    /**
+     * 游标，上一页返回的 nextCursor(提交ID)，为空时从第一页开始
+     */
+    private String cursor;
+}
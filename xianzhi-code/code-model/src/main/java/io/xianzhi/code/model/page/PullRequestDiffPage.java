@@ -0,0 +1,49 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.page;
+
+import io.xianzhi.core.base.Page;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.io.Serializable;
+
+/**
+ * 合并请求文件列表查询条件，按 pageNo、pageSize 分页返回变更文件
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class PullRequestDiffPage extends Page implements Serializable {
+
+    /**
+     * 项目ID
+     */
+    private String projectId;
+
+    /**
+     * 目标分支、标签或提交ID
+     */
+    private String targetRevision;
+
+    /**
+     * 源分支、标签或提交ID
+     */
+    private String sourceRevision;
+}
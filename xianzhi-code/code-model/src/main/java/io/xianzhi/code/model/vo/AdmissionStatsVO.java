@@ -0,0 +1,73 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * git传输准入统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class AdmissionStatsVO implements Serializable {
+
+    /**
+     * 正在执行的请求数量
+     */
+    private Integer running;
+    /**
+     * 排队中的请求数量
+     */
+    private Integer queued;
+    /**
+     * 有请求执行或排队的仓库数量
+     */
+    private Integer repositories;
+    /**
+     * 准入的请求数量
+     */
+    private Long admitted;
+    /**
+     * 经过排队才准入的请求数量
+     */
+    private Long delayed;
+    /**
+     * 队列已满被拒绝的请求数量
+     */
+    private Long rejected;
+    /**
+     * 排队超时的请求数量
+     */
+    private Long timedOut;
+    /**
+     * 平均排队时间(毫秒)
+     */
+    private Long averageQueueWaitMillis;
+    /**
+     * 因限速累计等待的时间(毫秒)
+     */
+    private Long throttledMillis;
+    /**
+     * 排队时间分布，桶上界 -> 请求数量
+     */
+    private Map<String, Long> queueWait;
+}
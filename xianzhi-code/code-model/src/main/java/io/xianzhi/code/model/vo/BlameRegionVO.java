@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 逐行追溯的行区间出参，区间内的行都来自同一个提交中连续的行
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class BlameRegionVO implements Serializable {
+
+    /**
+     * 区间在文件中的起始行号，从 1 开始
+     */
+    private Integer startLine;
+    /**
+     * 区间行数
+     */
+    private Integer lineCount;
+    /**
+     * 引入这些行的提交ID
+     */
+    private String commitId;
+    /**
+     * 这些行在引入提交中的文件路径，文件被重命名过时与查询路径不同
+     */
+    private String sourcePath;
+    /**
+     * 这些行在引入提交中的起始行号，从 1 开始
+     */
+    private Integer sourceStartLine;
+    /**
+     * 作者名称
+     */
+    private String authorName;
+    /**
+     * 作者邮箱
+     */
+    private String authorEmail;
+    /**
+     * 作者时间
+     */
+    private LocalDateTime authorTime;
+    /**
+     * 提交标题
+     */
+    private String title;
+}
@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 逐行追溯统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class BlameStatsVO implements Serializable {
+
+    /**
+     * 缓存的追溯结果数量
+     */
+    private Integer cachedResults;
+    /**
+     * 直接命中缓存的次数
+     */
+    private Long hits;
+    /**
+     * 从祖先提交的缓存结果增量计算的次数
+     */
+    private Long incrementals;
+    /**
+     * 完整遍历提交历史追溯的次数
+     */
+    private Long fullBlames;
+    /**
+     * CPU时间预算耗尽而提前结束的次数
+     */
+    private Long budgetExhausted;
+    /**
+     * 累计消耗的CPU时间(毫秒)
+     */
+    private Long cpuMillis;
+}
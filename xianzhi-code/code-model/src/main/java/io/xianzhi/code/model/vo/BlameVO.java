@@ -0,0 +1,48 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 逐行追溯结果出参，在全部行区间之后输出
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class BlameVO implements Serializable {
+
+    /**
+     * 追溯的提交ID
+     */
+    private String commitId;
+    /**
+     * 文件路径
+     */
+    private String path;
+    /**
+     * 文件总行数
+     */
+    private Integer lineCount;
+    /**
+     * CPU时间预算耗尽而提前结束，未输出的行没有追溯结果
+     */
+    private Boolean truncated;
+}
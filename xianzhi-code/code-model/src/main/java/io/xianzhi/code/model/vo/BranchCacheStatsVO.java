@@ -0,0 +1,64 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 分支缓存统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class BranchCacheStatsVO implements Serializable {
+
+    /**
+     * 缓存的仓库数量
+     */
+    private Integer size;
+    /**
+     * 命中次数
+     */
+    private Long hits;
+    /**
+     * 引用变化后增量刷新的次数
+     */
+    private Long refreshes;
+    /**
+     * 刷新时重新解析的提交数
+     */
+    private Long parsedCommits;
+    /**
+     * 刷新时直接复用的分支数
+     */
+    private Long reusedBranches;
+    /**
+     * 计算领先落后数的次数
+     */
+    private Long aheadBehindComputed;
+    /**
+     * 线程池已满而未计算领先落后数的次数
+     */
+    private Long aheadBehindRejected;
+    /**
+     * 计算领先落后数超时的次数
+     */
+    private Long aheadBehindTimeouts;
+}
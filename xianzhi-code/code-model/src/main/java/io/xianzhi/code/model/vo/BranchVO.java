@@ -0,0 +1,77 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 分支信息出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class BranchVO implements Serializable {
+
+    /**
+     * 分支名称
+     */
+    private String branchName;
+
+    /**
+     * 是否默认分支
+     */
+    private Boolean defaultBranch;
+
+    /**
+     * 最新提交ID
+     */
+    private String commitId;
+
+    /**
+     * 最新提交的标题
+     */
+    private String commitMessage;
+
+    /**
+     * 最新提交的作者名称
+     */
+    private String authorName;
+
+    /**
+     * 最新提交的作者邮箱
+     */
+    private String authorEmail;
+
+    /**
+     * 最新提交的作者时间
+     */
+    private LocalDateTime commitTime;
+
+    /**
+     * 领先默认分支的提交数，超过统计上限时为上限值，未统计出结果时为 null
+     */
+    private Integer ahead;
+
+    /**
+     * 落后默认分支的提交数，超过统计上限时为上限值，未统计出结果时为 null
+     */
+    private Integer behind;
+}
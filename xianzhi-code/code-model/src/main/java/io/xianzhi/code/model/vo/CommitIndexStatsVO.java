@@ -0,0 +1,64 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 提交索引统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class CommitIndexStatsVO implements Serializable {
+
+    /**
+     * 是否正在回填
+     */
+    private Boolean backfilling;
+    /**
+     * 等待索引的仓库数量
+     */
+    private Integer pending;
+    /**
+     * 完成索引的次数
+     */
+    private Long completed;
+    /**
+     * 写入的提交数量
+     */
+    private Long indexedCommits;
+    /**
+     * 队列已满而未索引的次数
+     */
+    private Long rejected;
+    /**
+     * 仓库正在独占使用而跳过的次数
+     */
+    private Long skippedBusy;
+    /**
+     * 索引失败的次数
+     */
+    private Long failed;
+    /**
+     * 回填已检查的项目数量
+     */
+    private Long backfillScanned;
+}
@@ -0,0 +1,60 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 提交历史缓存统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class CommitLogStatsVO implements Serializable {
+
+    /**
+     * 缓存的分页数量
+     */
+    private Integer pages;
+    /**
+     * 缓存的续查位置数量
+     */
+    private Integer resumePoints;
+    /**
+     * 分页缓存命中次数
+     */
+    private Long pageHits;
+    /**
+     * 从缓存的续查位置继续遍历的次数
+     */
+    private Long resumeHits;
+    /**
+     * 续查位置未命中、从起点重新遍历到游标的次数
+     */
+    private Long rewalks;
+    /**
+     * 累计遍历的提交数
+     */
+    private Long walkedCommits;
+    /**
+     * 遍历预算耗尽而提前返回的次数
+     */
+    private Long budgetExhausted;
+}
@@ -0,0 +1,83 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 提交信息出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class CommitVO implements Serializable {
+
+    /**
+     * 提交ID
+     */
+    private String commitId;
+
+    /**
+     * 父提交ID
+     */
+    private List<String> parentIds;
+
+    /**
+     * 提交标题
+     */
+    private String title;
+
+    /**
+     * 完整的提交说明
+     */
+    private String message;
+
+    /**
+     * 作者名称
+     */
+    private String authorName;
+
+    /**
+     * 作者邮箱
+     */
+    private String authorEmail;
+
+    /**
+     * 作者时间
+     */
+    private LocalDateTime authorTime;
+
+    /**
+     * 提交者名称
+     */
+    private String committerName;
+
+    /**
+     * 提交者邮箱
+     */
+    private String committerEmail;
+
+    /**
+     * 提交时间
+     */
+    private LocalDateTime commitTime;
+}
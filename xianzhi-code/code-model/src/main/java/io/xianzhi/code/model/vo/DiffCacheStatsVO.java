@@ -0,0 +1,64 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 差异缓存统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class DiffCacheStatsVO implements Serializable {
+
+    /**
+     * 缓存的文件列表数量
+     */
+    private Integer summaries;
+    /**
+     * 缓存的单文件差异数量
+     */
+    private Integer files;
+    /**
+     * 缓存的合并基准数量
+     */
+    private Integer mergeBases;
+    /**
+     * 文件列表缓存命中次数
+     */
+    private Long summaryHits;
+    /**
+     * 文件列表缓存未命中次数
+     */
+    private Long summaryMisses;
+    /**
+     * 单文件差异缓存命中次数
+     */
+    private Long fileHits;
+    /**
+     * 单文件差异缓存未命中次数
+     */
+    private Long fileMisses;
+    /**
+     * 变更文件过多而跳过内容相似度重命名检测的次数
+     */
+    private Long renameLimitExceeded;
+}
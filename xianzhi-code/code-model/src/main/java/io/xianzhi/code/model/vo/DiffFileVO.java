@@ -0,0 +1,107 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 文件差异出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class DiffFileVO implements Serializable {
+
+    /**
+     * 变更类型: ADD、MODIFY、DELETE、RENAME、COPY
+     */
+    private String changeType;
+
+    /**
+     * 原路径，新增的文件为空
+     */
+    private String oldPath;
+
+    /**
+     * 新路径，删除的文件为空
+     */
+    private String newPath;
+
+    /**
+     * 原文件对象ID
+     */
+    private String oldId;
+
+    /**
+     * 新文件对象ID
+     */
+    private String newId;
+
+    /**
+     * 原文件模式
+     */
+    private String oldMode;
+
+    /**
+     * 新文件模式
+     */
+    private String newMode;
+
+    /**
+     * 重命名或复制的相似度，0-100
+     */
+    private Integer score;
+
+    /**
+     * 是否为生成的文件(锁文件、压缩后的脚本等)，不返回差异内容
+     */
+    private Boolean generated;
+
+    /**
+     * 是否为二进制文件，查询差异内容后才有值
+     */
+    private Boolean binary;
+
+    /**
+     * 文件是否超过大小上限，查询差异内容后才有值
+     */
+    private Boolean tooLarge;
+
+    /**
+     * 差异行数超过上限，只返回了前面的部分
+     */
+    private Boolean truncated;
+
+    /**
+     * 新增行数，查询差异内容后才有值
+     */
+    private Integer additions;
+
+    /**
+     * 删除行数，查询差异内容后才有值
+     */
+    private Integer deletions;
+
+    /**
+     * 差异片段，只在查询单个文件时返回
+     */
+    private List<DiffHunkVO> hunks;
+}
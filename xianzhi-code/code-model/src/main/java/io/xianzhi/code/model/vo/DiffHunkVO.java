@@ -0,0 +1,62 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 差异片段出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class DiffHunkVO implements Serializable {
+
+    /**
+     * 片段头，例如 {@code @@ -1,7 +1,8 @@}
+     */
+    private String header;
+
+    /**
+     * 原文件起始行号
+     */
+    private Integer oldStart;
+
+    /**
+     * 原文件行数
+     */
+    private Integer oldLines;
+
+    /**
+     * 新文件起始行号
+     */
+    private Integer newStart;
+
+    /**
+     * 新文件行数
+     */
+    private Integer newLines;
+
+    /**
+     * 差异行，首字符为空格(上下文)、+(新增)、-(删除)或反斜杠(无换行提示)
+     */
+    private List<String> lines;
+}
@@ -0,0 +1,60 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * git命令线程池统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class GitExecutorStatsVO implements Serializable {
+
+    /**
+     * 正在执行的命令数量
+     */
+    private Integer activeCount;
+    /**
+     * 当前线程数
+     */
+    private Integer poolSize;
+    /**
+     * 最大线程数
+     */
+    private Integer maxPoolSize;
+    /**
+     * 排队中的命令数量
+     */
+    private Integer queueDepth;
+    /**
+     * 已完成的命令数量
+     */
+    private Long completedCount;
+    /**
+     * 线程池满被拒绝的命令数量
+     */
+    private Long rejectedCount;
+    /**
+     * 超出用户并发上限被拒绝的命令数量
+     */
+    private Long throttledCount;
+}
@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 仓库后台维护统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class MaintenanceStatsVO implements Serializable {
+
+    /**
+     * 正在维护的仓库数量
+     */
+    private Integer running;
+    /**
+     * 等待维护的仓库数量
+     */
+    private Integer pending;
+    /**
+     * 完成维护的次数
+     */
+    private Long completed;
+    /**
+     * 维护失败的次数
+     */
+    private Long failed;
+    /**
+     * 因仓库正在使用而跳过的次数
+     */
+    private Long skippedBusy;
+    /**
+     * 累计回收的磁盘空间(字节)
+     */
+    private Long reclaimedBytes;
+    /**
+     * 累计耗时(毫秒)
+     */
+    private Long timeSpentMillis;
+    /**
+     * commit-graph重写次数
+     */
+    private Long commitGraphWrites;
+    /**
+     * commit-graph重写失败次数
+     */
+    private Long commitGraphFailures;
+    /**
+     * commit-graph重写累计耗时(毫秒)
+     */
+    private Long commitGraphTimeSpentMillis;
+}
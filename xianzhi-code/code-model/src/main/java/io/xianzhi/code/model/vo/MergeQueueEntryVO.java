@@ -0,0 +1,67 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 合并队列条目出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class MergeQueueEntryVO implements Serializable {
+
+    /**
+     * 合并请求ID
+     */
+    private String pullRequestId;
+
+    /**
+     * 在队列中的位置，从 0 开始，正在验证的批次排在最前
+     */
+    private Integer position;
+
+    /**
+     * 是否在正在验证的批次中
+     */
+    private Boolean testing;
+
+    /**
+     * 加入队列的时间
+     */
+    private LocalDateTime enqueuedAt;
+
+    /**
+     * 正在验证该合并请求的流水线ID，不在验证范围内时为空
+     */
+    private String pipelineId;
+
+    /**
+     * 流水线检出的预合并提交引用
+     */
+    private String refName;
+
+    /**
+     * 流水线验证的预合并提交ID
+     */
+    private String commitId;
+}
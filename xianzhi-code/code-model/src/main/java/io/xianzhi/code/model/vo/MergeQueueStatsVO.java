@@ -0,0 +1,93 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 合并队列统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class MergeQueueStatsVO implements Serializable {
+
+    /**
+     * 有合并请求排队的目标分支数量
+     */
+    private Integer lanes;
+    /**
+     * 排队等待的合并请求数量
+     */
+    private Integer waiting;
+    /**
+     * 正在验证的合并请求数量
+     */
+    private Integer testing;
+    /**
+     * 累计合并的合并请求数量
+     */
+    private Long merged;
+    /**
+     * 最近一小时合并的合并请求数量
+     */
+    private Integer mergedLastHour;
+    /**
+     * 最近一小时合并的请求从入队到合并的平均耗时(毫秒)
+     */
+    private Long avgLatencyMillis;
+    /**
+     * 最近一小时合并的请求从入队到合并的最大耗时(毫秒)
+     */
+    private Long maxLatencyMillis;
+    /**
+     * 构建的批次数量
+     */
+    private Long batches;
+    /**
+     * 批次验证失败后二分的次数
+     */
+    private Long bisections;
+    /**
+     * 目标分支在验证期间被更新而重新构建批次的次数
+     */
+    private Long rebuilds;
+    /**
+     * 因冲突移出队列的合并请求数量
+     */
+    private Long conflicts;
+
+    /**
+     * 因源分支或目标分支不存在移出队列的合并请求数量
+     */
+    private Long branchMissing;
+    /**
+     * 因流水线失败移出队列的合并请求数量
+     */
+    private Long rejected;
+    /**
+     * 流水线超时的次数
+     */
+    private Long pipelineTimeouts;
+    /**
+     * 构建或合并批次出错的次数
+     */
+    private Long failed;
+}
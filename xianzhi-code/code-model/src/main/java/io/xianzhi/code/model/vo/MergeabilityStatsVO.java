@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 合并请求冲突检查统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class MergeabilityStatsVO implements Serializable {
+
+    /**
+     * 等待检查的项目数量
+     */
+    private Integer pending;
+    /**
+     * 合并到已排队检查中的推送次数
+     */
+    private Long coalesced;
+    /**
+     * 执行的内存合并次数
+     */
+    private Long merges;
+    /**
+     * 可以合并的次数
+     */
+    private Long mergeable;
+    /**
+     * 存在冲突的次数
+     */
+    private Long conflicts;
+    /**
+     * 两侧提交都没有变化而跳过的次数
+     */
+    private Long unchanged;
+    /**
+     * 源提交和目标提交不在同一个仓库中而推迟的次数
+     */
+    private Long deferred;
+    /**
+     * 等待检查的项目过多而未检查的次数
+     */
+    private Long rejected;
+    /**
+     * 仓库正在独占使用而跳过的次数
+     */
+    private Long skippedBusy;
+    /**
+     * 检查失败的次数
+     */
+    private Long failed;
+}
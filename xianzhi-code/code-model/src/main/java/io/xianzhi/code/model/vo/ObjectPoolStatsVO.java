@@ -0,0 +1,64 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * fork 网络共享对象池维护统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class ObjectPoolStatsVO implements Serializable {
+
+    /**
+     * 完成维护的对象池数量
+     */
+    private Long maintained;
+    /**
+     * 成员引用同步到对象池的次数
+     */
+    private Long mirrored;
+    /**
+     * 从对象池移除的已删除成员数量
+     */
+    private Long removedMembers;
+    /**
+     * 对象池重新打包的次数
+     */
+    private Long poolRepacks;
+    /**
+     * 成员中已被对象池包含而删除的 pack 数量
+     */
+    private Long dedupedPacks;
+    /**
+     * 成员中已被对象池包含而删除的松散对象数量
+     */
+    private Long dedupedLooseObjects;
+    /**
+     * 成员正在使用而跳过的次数
+     */
+    private Long skippedBusy;
+    /**
+     * 维护失败的次数
+     */
+    private Long failed;
+}
@@ -0,0 +1,62 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 合并请求文件列表出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class PullRequestDiffVO implements Serializable {
+
+    /**
+     * 目标提交ID
+     */
+    private String targetCommitId;
+
+    /**
+     * 合并基准提交ID，即目标提交与源提交的最近公共祖先
+     */
+    private String baseCommitId;
+
+    /**
+     * 源提交ID
+     */
+    private String headCommitId;
+
+    /**
+     * 变更文件总数
+     */
+    private Integer total;
+
+    /**
+     * 变更文件过多，只检测了内容完全相同的重命名
+     */
+    private Boolean renameLimitExceeded;
+
+    /**
+     * 当前页的变更文件，不包含差异内容
+     */
+    private List<DiffFileVO> files;
+}
@@ -0,0 +1,52 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 引用通告缓存统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class RefCacheStatsVO implements Serializable {
+
+    /**
+     * 缓存的仓库数量
+     */
+    private Integer size;
+    /**
+     * 命中次数
+     */
+    private Long hits;
+    /**
+     * 未命中次数
+     */
+    private Long misses;
+    /**
+     * 返回304的次数
+     */
+    private Long notModified;
+    /**
+     * 失效次数
+     */
+    private Long invalidations;
+}
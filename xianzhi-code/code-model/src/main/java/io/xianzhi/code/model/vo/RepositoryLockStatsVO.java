@@ -0,0 +1,112 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 仓库读写锁统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class RepositoryLockStatsVO implements Serializable {
+
+    /**
+     * 当前有锁持有或等待的仓库数量
+     */
+    private Integer lockedRepositories;
+    /**
+     * 当前持有的共享锁数量
+     */
+    private Integer sharedHeld;
+    /**
+     * 共享锁获取次数
+     */
+    private Long sharedAcquired;
+    /**
+     * 共享锁等待超时次数
+     */
+    private Long sharedTimeouts;
+    /**
+     * 共享锁累计等待时间
+     */
+    private Long sharedWaitMillis;
+    /**
+     * 共享锁累计持有时间
+     */
+    private Long sharedHoldMillis;
+    /**
+     * 共享锁最长持有时间
+     */
+    private Long sharedMaxHoldMillis;
+    /**
+     * 当前持有的独占锁数量
+     */
+    private Integer exclusiveHeld;
+    /**
+     * 独占锁获取次数
+     */
+    private Long exclusiveAcquired;
+    /**
+     * 独占锁等待超时次数
+     */
+    private Long exclusiveTimeouts;
+    /**
+     * 独占锁累计等待时间
+     */
+    private Long exclusiveWaitMillis;
+    /**
+     * 独占锁累计持有时间
+     */
+    private Long exclusiveHoldMillis;
+    /**
+     * 独占锁最长持有时间
+     */
+    private Long exclusiveMaxHoldMillis;
+    /**
+     * 当前持有的引用更新锁数量
+     */
+    private Integer refHeld;
+    /**
+     * 引用更新锁获取次数
+     */
+    private Long refAcquired;
+    /**
+     * 引用更新锁等待超时次数
+     */
+    private Long refTimeouts;
+    /**
+     * 引用更新锁累计等待时间
+     */
+    private Long refWaitMillis;
+    /**
+     * 引用更新锁累计持有时间
+     */
+    private Long refHoldMillis;
+    /**
+     * 引用更新锁最长持有时间
+     */
+    private Long refMaxHoldMillis;
+    /**
+     * 因锁不可用而跳过的后台任务次数
+     */
+    private Long skipped;
+}
@@ -0,0 +1,52 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 仓库句柄池统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class RepositoryPoolStatsVO implements Serializable {
+
+    /**
+     * 池中仓库数量
+     */
+    private Integer size;
+    /**
+     * 当前借出的租约数量
+     */
+    private Integer leased;
+    /**
+     * 命中次数
+     */
+    private Long hits;
+    /**
+     * 未命中次数
+     */
+    private Long misses;
+    /**
+     * 回收次数
+     */
+    private Long evictions;
+}
@@ -14,21 +14,35 @@
  *  limitations under the License.
  */
 
-package io.xianzhi.code.bootstrap.dao.dataobj;
+package io.xianzhi.code.model.vo;
 
-import com.baomidou.mybatisplus.annotation.TableName;
-import io.xianzhi.common.mybatis.plus.base.BaseDO;
 import lombok.Data;
-import lombok.EqualsAndHashCode;
+
+import java.io.Serializable;
 
 /**
- * pr实体
+ * SSH 秘钥索引统计出参
  *
  * @author Max
  * @since 1.0.0
  */
 @Data
-@TableName(value = "c_pull_request")
-@EqualsAndHashCode(callSuper = true)
-class PuLLRequestDO extends BaseDO {
+public class SecretKeyStatsVO implements Serializable {
+
+    /**
+     * 索引中的秘钥数量
+     */
+    private Integer size;
+    /**
+     * 命中索引的次数
+     */
+    private Long hits;
+    /**
+     * 查库次数
+     */
+    private Long lookups;
+    /**
+     * 未知指纹的次数
+     */
+    private Long unknown;
 }
@@ -0,0 +1,52 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 仓库存储布局迁移统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class StorageMigrationStatsVO implements Serializable {
+
+    /**
+     * 是否正在迁移
+     */
+    private Boolean running;
+    /**
+     * 已检查的项目数量
+     */
+    private Long scanned;
+    /**
+     * 已迁移的仓库数量
+     */
+    private Long migrated;
+    /**
+     * 正在使用而跳过的次数
+     */
+    private Long skippedBusy;
+    /**
+     * 迁移失败的次数
+     */
+    private Long failed;
+}
@@ -0,0 +1,84 @@
+/*
+ *  Copyright 2025 XianZhi Group .
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.xianzhi.code.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * upload-pack统计出参
+ *
+ * @author Max
+ * @since 1.0.0
+ */
+@Data
+public class UploadPackStatsVO implements Serializable {
+
+    /**
+     * clone次数
+     */
+    private Long clones;
+    /**
+     * fetch次数
+     */
+    private Long fetches;
+    /**
+     * 使用了cached pack的次数
+     */
+    private Long cachedPackHits;
+    /**
+     * clone的cached pack命中率
+     */
+    private Double cachedPackHitRate;
+    /**
+     * 从cached pack直接输出的对象数量
+     */
+    private Long reusedObjects;
+    /**
+     * 输出的对象总数
+     */
+    private Long totalObjects;
+    /**
+     * 输出的字节数
+     */
+    private Long totalBytes;
+    /**
+     * 写出pack的吞吐(字节/秒)
+     */
+    private Long bytesPerSecond;
+    /**
+     * 浅克隆次数
+     */
+    private Long shallowRequests;
+    /**
+     * 部分克隆次数
+     */
+    private Long filteredRequests;
+    /**
+     * 浅克隆和部分克隆输出的字节数
+     */
+    private Long filteredBytes;
+    /**
+     * 浅克隆和部分克隆估算节省的字节数
+     */
+    private Long savedBytes;
+    /**
+     * 超出浅克隆或过滤限制被拒绝的次数
+     */
+    private Long rejectedRequests;
+}
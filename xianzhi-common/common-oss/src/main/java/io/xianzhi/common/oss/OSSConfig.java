@@ -23,6 +23,7 @@ import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 import java.net.URI;
@@ -61,6 +62,13 @@ public class OSSConfig {
                 .credentialsProvider(StaticCredentialsProvider.create(
                         AwsBasicCredentials.create(ossProperties.getAccessKey(), ossProperties.getAccessSecret()))) // 设置访问密钥和秘密密钥
                 .region(Region.US_EAST_1)
+                // 与客户端保持一致, 否则 MinIO 等需要 path-style 的存储生成的预签名地址无法访问
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(ossProperties.getPathStyleAccess()).build())
                 .build();
     }
+
+    @Bean
+    public OSSHandler ossHandler(S3Client s3Client, S3Presigner s3Presigner) {
+        return new OSSHandler(s3Client, s3Presigner);
+    }
 }
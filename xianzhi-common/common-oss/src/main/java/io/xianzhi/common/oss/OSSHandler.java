@@ -34,6 +34,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
@@ -127,6 +128,22 @@ public class OSSHandler {
         s3Client.putObject(request, RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
     }
 
+    /**
+     * 上传本地文件到指定的存储桶。
+     * 直接从磁盘流式读取，不会把文件整体读入内存，适用于大文件。
+     *
+     * @param bucketName 桶的名称，目标存储桶的唯一标识符。
+     * @param key        对象的键，文件的唯一标识符。
+     * @param path       本地文件路径。
+     */
+    public void uploadFile(String bucketName, String key, Path path) {
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucketName) // 指定目标桶
+                .key(key) // 指定文件键
+                .build();
+        s3Client.putObject(request, RequestBody.fromFile(path));
+    }
+
     /**
      * 下载指定存储桶中的文件。
      * 返回文件的字节数组，适用于小文件下载。
@@ -17,7 +17,9 @@
 package io.xianzhi.system.bootstrap.facade;
 
 import io.xianzhi.core.result.ResponseResult;
+import io.xianzhi.system.bootstrap.dao.mapper.SystemParamMapper;
 import io.xianzhi.system.facade.SystemParamFacade;
+import io.xianzhi.system.model.code.SystemParamCode;
 import io.xianzhi.system.model.vo.SystemParamVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -33,6 +35,12 @@ import org.springframework.stereotype.Component;
 @Component
 @RequiredArgsConstructor
 public class SystemParamFacadeImpl implements SystemParamFacade {
+
+    /**
+     * 系统参数持久层
+     */
+    private final SystemParamMapper systemParamMapper;
+
     /**
      * 根据参数编码获取系统参数
      *
@@ -41,6 +49,11 @@ public class SystemParamFacadeImpl implements SystemParamFacade {
      */
     @Override
     public ResponseResult<SystemParamVO> getSystemParamByParamCode(String paramCode) {
-        return null;
+        return systemParamMapper.selectSystemParamByParamCode(paramCode).map(systemParam -> {
+            SystemParamVO systemParamVO = new SystemParamVO();
+            systemParamVO.setId(systemParam.getId());
+            systemParamVO.setParamValue(systemParam.getParamValue());
+            return ResponseResult.success(systemParamVO);
+        }).orElseGet(() -> ResponseResult.fail(SystemParamCode.PARAM_NOT_EXISTS));
     }
 }
@@ -26,10 +26,12 @@ import io.xianzhi.system.bootstrap.dao.dataobj.SystemParamDO;
 import io.xianzhi.system.bootstrap.dao.mapper.SystemParamMapper;
 import io.xianzhi.system.bootstrap.service.SystemParamService;
 import io.xianzhi.system.model.dto.SystemParamDTO;
+import io.xianzhi.system.model.event.SystemParamChangeEvent;
 import io.xianzhi.system.model.page.SystemParamPage;
 import io.xianzhi.system.model.vo.SystemParamVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.ObjectUtils;
@@ -58,6 +60,11 @@ public class SystemParamServiceImpl implements SystemParamService {
      */
     private final SystemParamBusiness systemParamBusiness;
 
+    /**
+     * 事件发布
+     */
+    private final ApplicationEventPublisher applicationEventPublisher;
+
     /**
      * 分页查询系统参数
      *
@@ -85,6 +92,7 @@ public class SystemParamServiceImpl implements SystemParamService {
     public String createSystemParam(SystemParamDTO systemParamDTO) {
         SystemParamDO systemParamDO = checkedSystemParam(systemParamDTO);
         systemParamMapper.insert(systemParamDO);
+        applicationEventPublisher.publishEvent(new SystemParamChangeEvent(systemParamDO.getParamCode()));
         return systemParamDO.getId();
     }
 
@@ -98,7 +106,7 @@ public class SystemParamServiceImpl implements SystemParamService {
     public void updateSystemParam(SystemParamDTO systemParamDTO) {
         SystemParamDO systemParamDO = checkedSystemParam(systemParamDTO);
         systemParamMapper.updateById(systemParamDO);
-
+        applicationEventPublisher.publishEvent(new SystemParamChangeEvent(systemParamDO.getParamCode()));
     }
 
     /**
@@ -110,6 +118,7 @@ public class SystemParamServiceImpl implements SystemParamService {
     @Transactional(rollbackFor = Exception.class)
     public void deleteSystemParam(List<String> ids) {
         systemParamMapper.deletedSystemByIds(ids);
+        applicationEventPublisher.publishEvent(new SystemParamChangeEvent());
     }
 
     /**
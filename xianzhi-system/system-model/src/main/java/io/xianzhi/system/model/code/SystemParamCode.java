@@ -38,6 +38,10 @@ public enum SystemParamCode implements Result {
      * 系统参数编码已经存在
      */
     PARAM_CODE_EXISTS(CommonCode.DATA_EXISTS.code(), "sys.param.code.exists"),
+    /**
+     * 系统参数不存在
+     */
+    PARAM_NOT_EXISTS(CommonCode.DATA_NOT_EXISTS.code(), "sys.param.not.exists"),
 
     ;
     /**